@@ -18,10 +18,14 @@ package org.maxicp;
 import org.maxicp.cp.CPFactory;
 import org.maxicp.cp.engine.core.CPIntVar;
 import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.search.ActivityBranching;
+import org.maxicp.search.ConflictOrderingBranching;
+import org.maxicp.search.ImpactBranching;
+import org.maxicp.search.LastConflictBranching;
 import org.maxicp.search.LimitedDiscrepancyBranching;
 import org.maxicp.search.Sequencer;
+import org.maxicp.search.WeightedDegreeBranching;
 import org.maxicp.util.Procedure;
-import org.maxicp.util.exception.NotImplementedException;
 import org.maxicp.search.DFSearch;
 
 import java.util.function.Function;
@@ -112,6 +116,47 @@ public final class BranchingScheme {
         return sel;
     }
 
+    /**
+     * Alternative assigning a variable to a value.
+     * Being recognizable, it allows to record nogoods on the decisions taken.
+     *
+     * @param x the variable
+     * @param v the value assigned to x
+     * @see org.maxicp.cp.engine.constraints.NogoodStore
+     */
+    public record Assign(CPIntVar x, int v) implements Procedure {
+        @Override
+        public void call() {
+            x.getSolver().post(equal(x, v));
+        }
+    }
+
+    /**
+     * Alternative removing a value from the domain of a variable,
+     * typically the refutation of an {@link Assign}.
+     *
+     * @param x the variable
+     * @param v the value removed from x
+     */
+    public record Remove(CPIntVar x, int v) implements Procedure {
+        @Override
+        public void call() {
+            x.getSolver().post(notEqual(x, v));
+        }
+    }
+
+    /**
+     * Binary branching assigning a variable to a value
+     * on the left branch and removing it on the right branch.
+     *
+     * @param x the variable
+     * @param v the value
+     * @return the alternatives {@code x == v} and {@code x != v}
+     */
+    public static Procedure[] assignOrRemove(CPIntVar x, int v) {
+        return branch(new Assign(x, v), new Remove(x, v));
+    }
+
     /**
      * First-Fail strategy.
      * It selects the first variable with a domain larger than one.
@@ -130,13 +175,48 @@ public final class BranchingScheme {
             if (xs == null)
                 return EMPTY;
             else {
-                int v = xs.min();
-                return branch(() -> xs.getSolver().post(CPFactory.equal(xs, v)),
-                        () -> xs.getSolver().post(CPFactory.notEqual(xs, v)));
+                return assignOrRemove(xs, xs.min());
             }
         };
     }
 
+    /**
+     * Dom/wdeg strategy.
+     * It selects the variable with the smallest ratio between its domain size
+     * and the number of failures of the constraints on it.
+     * The branching must be created once the constraints are posted.
+     * @param x the decision variables
+     * @return a dom/wdeg branching strategy
+     * @see WeightedDegreeBranching
+     */
+    public static Supplier<Procedure[]> domOverWDeg(CPIntVar... x) {
+        return new WeightedDegreeBranching(x);
+    }
+
+    /**
+     * Activity-based strategy.
+     * It selects the variable with the largest ratio between the number of times its domain
+     * was recently reduced by the propagation and its domain size.
+     * @param x the decision variables
+     * @return an activity-based branching strategy
+     * @see ActivityBranching
+     */
+    public static Supplier<Procedure[]> activityBased(CPIntVar... x) {
+        return new ActivityBranching(x);
+    }
+
+    /**
+     * Impact-based strategy.
+     * It selects the variable whose assignment is expected to reduce the search space the most,
+     * and assigns it to the value expected to reduce it the least.
+     * @param x the decision variables
+     * @return an impact-based branching strategy
+     * @see ImpactBranching
+     */
+    public static Supplier<Procedure[]> impactBased(CPIntVar... x) {
+        return new ImpactBranching(x);
+    }
+
     /**
      * Sequential Search combinator that linearly
      * considers a list of branching generator.
@@ -177,7 +257,7 @@ public final class BranchingScheme {
      *                      it must be assigned on the left branch (and excluded on the right)
      */
     public static Supplier<Procedure[]> lastConflict(Supplier<CPIntVar> variableSelector, Function<CPIntVar, Integer> valueSelector) {
-        throw new NotImplementedException();
+        return new LastConflictBranching(variableSelector, valueSelector);
     }
 
     /**
@@ -193,7 +273,7 @@ public final class BranchingScheme {
      *                      it must be assigned on the left branch (and excluded on the right)
      */
     public static Supplier<Procedure[]> conflictOrderingSearch(Supplier<CPIntVar> variableSelector, Function<CPIntVar, Integer> valueSelector) {
-        throw new NotImplementedException();
+        return new ConflictOrderingBranching(variableSelector, valueSelector);
     }
 
 }
@@ -18,9 +18,10 @@ package org.maxicp.cp;
 
 import org.maxicp.BranchingScheme;
 import org.maxicp.search.DFSearch;
+import org.maxicp.search.PathBestFirstSearch;
 import org.maxicp.search.Objective;
-import org.maxicp.state.copy.Copier;
-import org.maxicp.state.trail.Trailer;
+import org.maxicp.state.copy.IncrementalCopier;
+import org.maxicp.state.trail.PrimitiveTrailer;
 import org.maxicp.util.exception.InconsistencyException;
 import org.maxicp.util.Procedure;
 import org.maxicp.util.exception.IntOverFlowException;
@@ -66,7 +67,7 @@ public final class CPFactory {
      * @return a constraint programming solver with trail-based memory management
      */
     public static CPSolver makeSolver() {
-        return new MiniCP(new Trailer());
+        return new MiniCP(new PrimitiveTrailer());
     }
     /**
      * Creates a constraint programming solver
@@ -76,7 +77,7 @@ public final class CPFactory {
      * @return a constraint programming solver
      */
     public static CPSolver makeSolver(boolean byCopy) {
-        return new MiniCP(byCopy ? new Copier() : new Trailer());
+        return new MiniCP(byCopy ? new IncrementalCopier() : new PrimitiveTrailer());
     }
 
     /**
@@ -209,7 +210,30 @@ public final class CPFactory {
      * @see BranchingScheme#branch(Procedure...)
      */
     public static DFSearch makeDfs(CPSolver cp, Supplier<Procedure[]> branching) {
-        return new DFSearch(cp.getStateManager(), branching);
+        DFSearch search = new DFSearch(cp.getStateManager(), branching);
+        search.setPropagationCounter(cp::numberOfPropagations);
+        return search;
+    }
+
+    /**
+     * Creates a best first search storing its open nodes as decision paths,
+     * and exploring the subtrees depth first when the open list is full.
+     *
+     * @param cp the solver that will be used for the search
+     * @param branching a generator that is called at each node of the search
+     *                  tree to generate an array of {@link Procedure} objects.
+     *                  It must give the same alternatives when called again on the same node.
+     * @param nodeEvaluator the evaluation of a node, the smallest being explored first
+     * @param maxOpenNodes the maximum number of open nodes
+     * @param <T> the type of the evaluation of a node
+     * @return the best first search object ready to execute
+     * @see PathBestFirstSearch
+     */
+    public static <T extends Comparable<T>> PathBestFirstSearch<T> makeBestFirst(CPSolver cp, Supplier<Procedure[]> branching,
+                                                                                 Supplier<T> nodeEvaluator, int maxOpenNodes) {
+        PathBestFirstSearch<T> search = new PathBestFirstSearch<>(cp.getStateManager(), branching, nodeEvaluator, maxOpenNodes);
+        search.setPropagationCounter(cp::numberOfPropagations);
+        return search;
     }
 
     // -------------- constraints -----------------------
@@ -649,6 +673,17 @@ public final class CPFactory {
         return new AllDifferentBinary(x);
     }
 
+    /**
+     * Returns an allDifferent constraint that enforces
+     * bounds consistency.
+     *
+     * @param x an array of variables
+     * @return a constraint so that {@code x[i] != x[j] for all i < j}
+     */
+    public static CPConstraint allDifferentBC(CPIntVar[] x) {
+        return new AllDifferentBC(x);
+    }
+
     /**
      * Returns an allDifferent constraint that enforces
      * global arc consistency.
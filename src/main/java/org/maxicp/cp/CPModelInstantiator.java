@@ -3,14 +3,14 @@ package org.maxicp.cp;
 import org.maxicp.cp.engine.core.*;
 import org.maxicp.model.*;
 import org.maxicp.model.symbolic.SymbolicModel;
-import org.maxicp.state.copy.Copier;
-import org.maxicp.state.trail.Trailer;
+import org.maxicp.state.copy.IncrementalCopier;
+import org.maxicp.state.trail.PrimitiveTrailer;
 
 public class CPModelInstantiator {
     record Instanciator(boolean useTrailing) implements ModelDispatcher.ModelInstantiator<ConcreteCPModel> {
         @Override
         public ConcreteCPModel instanciate(Model m) {
-            CPSolver s = new MiniCP(useTrailing ? new Trailer() : new Copier());
+            CPSolver s = new MiniCP(useTrailing ? new PrimitiveTrailer() : new IncrementalCopier());
             return new ConcreteCPModel(m.getDispatcher(), s, m.symbolicCopy());
         }
     }
@@ -17,6 +17,7 @@ import org.maxicp.search.BestFirstSearch;
 import org.maxicp.search.DFSearch;
 import org.maxicp.search.Objective;
 import org.maxicp.state.State;
+import org.maxicp.state.StateManager;
 import org.maxicp.util.Procedure;
 
 import java.util.*;
@@ -43,7 +44,9 @@ public class ConcreteCPModel implements ConcreteModel {
     }
 
     public DFSearch dfSearch(Supplier<Procedure[]> branching) {
-        return new DFSearch(solver.getStateManager(), branching);
+        DFSearch search = new DFSearch(solver.getStateManager(), branching);
+        search.setPropagationCounter(solver::numberOfPropagations);
+        return search;
     }
 
     public <U extends Comparable<U>> BestFirstSearch<U> bestFirstSearch(Supplier<Procedure[]> branching, Supplier<U> nodeEvaluator) {
@@ -138,6 +141,11 @@ public class ConcreteCPModel implements ConcreteModel {
         return bm;
     }
 
+    @Override
+    public StateManager getStateManager() {
+        return solver.getStateManager();
+    }
+
     @Override
     public HashMap<Var, ConcreteVar> getMapping() {
         return mapping;
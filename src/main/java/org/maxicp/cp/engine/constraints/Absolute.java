@@ -38,6 +38,11 @@ public class Absolute extends AbstractCPConstraint {
         this.y = y;
     }
 
+    @Override
+    public int priority() {
+        return PRIORITY_FAST;
+    }
+
     public void post() {
         y.removeBelow(0);
         x.propagateOnBoundChange(this);
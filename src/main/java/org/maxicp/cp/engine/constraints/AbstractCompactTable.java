@@ -0,0 +1,190 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import org.maxicp.cp.engine.core.AbstractCPConstraint;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.DeltaCPIntVar;
+import org.maxicp.state.datastructures.StateSparseBitSet;
+
+import java.util.Arrays;
+
+import static org.maxicp.cp.CPFactory.minus;
+
+/**
+ * Engine of the Compact-Table algorithms: the tuples of the table whose values are
+ * still in the domains are kept in a {@link StateSparseBitSet}.
+ * On each propagation, it is updated from the variables whose domain changed,
+ * either incrementally, by removing the tuples of the values removed since the last propagation,
+ * or by a reset on the tuples of the values in the domain, whichever is smaller.
+ * The filtering of the domains from the current tuples is defined by the subclasses.
+ * <p>
+ * A tuple can have the {@code *} symbol (any value) for a variable:
+ * it is then not removed when a value of this variable is removed.
+ * <p>
+ * A variable can appear several times in the scope, possibly through views.
+ * The values removed from one of its occurrences by the constraint itself are then
+ * not in the delta of the others: the tuples of these occurrences are reset at each propagation.
+ *
+ * @see <a href="https://www.info.ucl.ac.be/~pschaus/assets/publi/cp2016-compacttable.pdf">Demeulenaere et al. Compact-Table: Efficiently Filtering Table Constraints with Reversible Sparse Bit-Sets</a>
+ * @see <a href="https://doi.org/10.1007/s10601-017-9279-7">Verhaeghe, Lecoutre, Schaus. Extending Compact-Table to Negative and Short Tables</a>
+ */
+public abstract class AbstractCompactTable extends AbstractCPConstraint {
+
+    protected final CPIntVar[] x; // variables, with a domain starting at 0
+    protected final int nTuples;
+    protected final StateSparseBitSet validTuples;
+    // exact[i][v] is the set of tuples with the value v for x[i]
+    protected final StateSparseBitSet.SupportBitSet[][] exact;
+    // supports[i][v] is the set of tuples compatible with the value v for x[i] (v or *)
+    protected final StateSparseBitSet.SupportBitSet[][] supports;
+    protected final int[] dom; // domain iterator
+
+    private DeltaCPIntVar[] delta;
+    // the only variable modified since the last propagation, -1 if none or several
+    protected int lastModified;
+    // shared[i] is true if the variable of x[i] appears elsewhere in the scope
+    private final boolean[] shared;
+    // true if the variables of the scope are all distinct
+    protected final boolean distinctVariables;
+
+    /**
+     * Creates the engine of a table constraint.
+     *
+     * @param x     the non empty set of variables to constraint
+     * @param table the tuples, the second dimension must be of the same size as the array x
+     * @param star  true if the entries equal to {@code starValue} stand for any value
+     * @param starValue the {@code *} symbol
+     */
+    protected AbstractCompactTable(CPIntVar[] x, int[][] table, boolean star, int starValue) {
+        super(x[0].getSolver());
+        this.x = new CPIntVar[x.length];
+        this.nTuples = table.length;
+        dom = new int[Arrays.stream(x).map(var -> var.max() - var.min() + 1).max(Integer::compare).get()];
+        shared = new boolean[x.length];
+        for (int i = 0; i < x.length; i++)
+            for (int j = i + 1; j < x.length; j++)
+                if (x[i].domainVar() == x[j].domainVar())
+                    shared[i] = shared[j] = true;
+        distinctVariables = Arrays.stream(x).map(CPIntVar::domainVar).distinct().count() == x.length;
+
+        // an empty table has one bit, removed at the first propagation
+        validTuples = new StateSparseBitSet(getSolver().getStateManager(), Math.max(1, nTuples));
+        exact = new StateSparseBitSet.SupportBitSet[x.length][];
+        supports = star ? new StateSparseBitSet.SupportBitSet[x.length][] : exact;
+        for (int i = 0; i < x.length; i++) {
+            this.x[i] = minus(x[i], x[i].min()); // map the variables domain to start at 0
+            exact[i] = new StateSparseBitSet.SupportBitSet[x[i].max() - x[i].min() + 1];
+            for (int v = 0; v < exact[i].length; v++)
+                exact[i][v] = validTuples.new SupportBitSet();
+            if (star) {
+                supports[i] = new StateSparseBitSet.SupportBitSet[exact[i].length];
+                for (int v = 0; v < supports[i].length; v++)
+                    supports[i][v] = validTuples.new SupportBitSet();
+            }
+        }
+
+        for (int t = 0; t < nTuples; t++) {
+            for (int i = 0; i < x.length; i++) {
+                if (star && table[t][i] == starValue) {
+                    for (int v = 0; v < supports[i].length; v++)
+                        supports[i][v].set(t);
+                } else if (x[i].contains(table[t][i])) {
+                    exact[i][table[t][i] - x[i].min()].set(t);
+                    if (star)
+                        supports[i][table[t][i] - x[i].min()].set(t);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int priority() {
+        return PRIORITY_SLOW;
+    }
+
+    @Override
+    public void post() {
+        delta = new DeltaCPIntVar[x.length];
+        for (int i = 0; i < x.length; i++) {
+            x[i].propagateOnDomainChange(this);
+            delta[i] = x[i].delta(this);
+        }
+        // the tuples with values out of the domains are removed
+        for (int i = 0; i < x.length; i++)
+            resetBasedUpdate(i);
+        lastModified = -1;
+        filterDomains();
+    }
+
+    @Override
+    public void propagate() {
+        updateTable();
+        filterDomains();
+    }
+
+    /**
+     * Removes the invalid tuples from the current table,
+     * considering only the variables modified since the last propagation.
+     */
+    private void updateTable() {
+        lastModified = -1;
+        int nModified = 0;
+        for (int i = 0; i < x.length; i++) {
+            if (shared[i] || delta[i].changed()) {
+                nModified++;
+                lastModified = i;
+                if (!shared[i] && delta[i].size() < x[i].size())
+                    incrementalUpdate(i);
+                else
+                    resetBasedUpdate(i);
+            }
+        }
+        if (nModified > 1)
+            lastModified = -1;
+    }
+
+    /**
+     * Removes the tuples of the values removed from x[i] since the last propagation.
+     */
+    private void incrementalUpdate(int i) {
+        StateSparseBitSet.CollectionBitSet collected = validTuples.collection;
+        collected.clear();
+        int nVal = delta[i].fillArray(dom);
+        for (int v = 0; v < nVal; v++)
+            collected.union(exact[i][dom[v]]);
+        validTuples.remove(collected);
+    }
+
+    /**
+     * Keeps the tuples compatible with a value of the domain of x[i].
+     */
+    private void resetBasedUpdate(int i) {
+        StateSparseBitSet.CollectionBitSet collected = validTuples.collection;
+        collected.clear();
+        int nVal = x[i].fillArray(dom);
+        for (int v = 0; v < nVal; v++)
+            collected.union(supports[i][dom[v]]);
+        validTuples.intersect(collected);
+    }
+
+    /**
+     * Removes the values of the domains that are not consistent with the current table.
+     * When called, the invalid tuples have been removed from {@link #validTuples}
+     * and {@link #lastModified} gives the only variable modified since the last propagation, if any.
+     */
+    protected abstract void filterDomains();
+}
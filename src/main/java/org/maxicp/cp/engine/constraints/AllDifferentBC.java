@@ -0,0 +1,230 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import org.maxicp.cp.engine.core.AbstractCPConstraint;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.Arrays;
+
+/**
+ * Bounds Consistent AllDifferent Constraint:
+ * the bounds of each variable have a support in the relaxation of the domains to intervals.
+ * <p>
+ * The Hall intervals are detected by sweeping the variables by increasing max (resp. decreasing min)
+ * over the sorted bounds of the domains, with union-find trees compressed along the paths.
+ * Apart from the sort of the bounds, a propagation is nearly linear.
+ * The filtering is stronger than the one of {@link AllDifferentFWC}, weaker than the one of
+ * {@link AllDifferentDC}, and the same as the one of {@link AllDifferentDC} on interval domains.
+ *
+ * Algorithm described in
+ * "A fast and simple algorithm for bounds consistency of the alldifferent constraint",
+ * A. Lopez-Ortiz, C-G. Quimper, J. Tromp, P. van Beek, IJCAI-03
+ */
+public class AllDifferentBC extends AbstractCPConstraint {
+
+    private final CPIntVar[] x;
+    private final int n;
+
+    // bounds of the variables, the max being exclusive
+    private final int[] min, max;
+    // rank of the bounds of the variables in the array of bounds
+    private final int[] minRank, maxRank;
+    // variables sorted by min and by max
+    private final int[] minSorted, maxSorted;
+    private final long[] keys;
+
+    // sorted distinct bounds, with a sentinel on each side
+    private final int[] bounds;
+    private int nb;
+    // union-find trees of the critical capacity intervals (t) and of the Hall intervals (h)
+    private final int[] t, h;
+    // capacity left between two consecutive bounds
+    private final int[] d;
+
+    public AllDifferentBC(CPIntVar... x) {
+        super(x[0].getSolver());
+        this.x = x;
+        this.n = x.length;
+        min = new int[n];
+        max = new int[n];
+        minRank = new int[n];
+        maxRank = new int[n];
+        minSorted = new int[n];
+        maxSorted = new int[n];
+        keys = new long[n];
+        bounds = new int[2 * n + 2];
+        t = new int[2 * n + 2];
+        h = new int[2 * n + 2];
+        d = new int[2 * n + 2];
+    }
+
+    @Override
+    public void post() {
+        for (CPIntVar var : x) {
+            if (!var.isFixed())
+                var.propagateOnBoundChange(this);
+        }
+        propagate();
+    }
+
+    @Override
+    public void propagate() {
+        sortBounds();
+        filterLower();
+        filterUpper();
+    }
+
+    /**
+     * Sorts the variables by min and by max and computes the ranks of their bounds.
+     */
+    private void sortBounds() {
+        for (int i = 0; i < n; i++) {
+            min[i] = x[i].min();
+            max[i] = x[i].max() + 1;
+        }
+        sort(minSorted, min);
+        sort(maxSorted, max);
+
+        int nextMin = min[minSorted[0]];
+        int nextMax = max[maxSorted[0]];
+        int last = nextMin - 2;
+        int nb = 0;
+        bounds[0] = last;
+        int i = 0, j = 0;
+        while (true) {
+            if (i < n && nextMin <= nextMax) {
+                if (nextMin != last)
+                    bounds[++nb] = last = nextMin;
+                minRank[minSorted[i]] = nb;
+                if (++i < n)
+                    nextMin = min[minSorted[i]];
+            } else {
+                if (nextMax != last)
+                    bounds[++nb] = last = nextMax;
+                maxRank[maxSorted[j]] = nb;
+                if (++j == n)
+                    break;
+                nextMax = max[maxSorted[j]];
+            }
+        }
+        this.nb = nb;
+        bounds[nb + 1] = bounds[nb] + 2;
+    }
+
+    /**
+     * Sorts the variables on the given keys, ties broken by index.
+     */
+    private void sort(int[] perm, int[] key) {
+        for (int i = 0; i < n; i++)
+            keys[i] = ((long) key[i] << 32) | i;
+        Arrays.sort(keys);
+        for (int i = 0; i < n; i++)
+            perm[i] = (int) keys[i];
+    }
+
+    /**
+     * Increases the mins, sweeping the variables by increasing max.
+     */
+    private void filterLower() {
+        for (int i = 1; i <= nb + 1; i++) {
+            t[i] = h[i] = i - 1;
+            d[i] = bounds[i] - bounds[i - 1];
+        }
+        for (int i = 0; i < n; i++) {
+            int v = maxSorted[i];
+            int x0 = minRank[v];
+            int y = maxRank[v];
+            int z = pathMax(t, x0 + 1);
+            int j = t[z];
+            if (--d[z] == 0) {
+                t[z] = z + 1;
+                z = pathMax(t, t[z]);
+                t[z] = j;
+            }
+            pathSet(t, x0 + 1, z, z);
+            if (d[z] < bounds[z] - bounds[y])
+                throw InconsistencyException.INCONSISTENCY;
+            if (h[x0] > x0) {
+                int w = pathMax(h, h[x0]);
+                x[v].removeBelow(bounds[w]);
+                pathSet(h, x0, w, w);
+            }
+            if (d[z] == bounds[z] - bounds[y]) {
+                // [bounds[j], bounds[y]) is a Hall interval
+                pathSet(h, h[y], j - 1, y);
+                h[y] = j - 1;
+            }
+        }
+    }
+
+    /**
+     * Decreases the maxs, sweeping the variables by decreasing min.
+     */
+    private void filterUpper() {
+        for (int i = 0; i <= nb; i++) {
+            t[i] = h[i] = i + 1;
+            d[i] = bounds[i + 1] - bounds[i];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            int v = minSorted[i];
+            int x0 = maxRank[v];
+            int y = minRank[v];
+            int z = pathMin(t, x0 - 1);
+            int j = t[z];
+            if (--d[z] == 0) {
+                t[z] = z - 1;
+                z = pathMin(t, t[z]);
+                t[z] = j;
+            }
+            pathSet(t, x0 - 1, z, z);
+            if (d[z] < bounds[y] - bounds[z])
+                throw InconsistencyException.INCONSISTENCY;
+            if (h[x0] < x0) {
+                int w = pathMin(h, h[x0]);
+                x[v].removeAbove(bounds[w] - 1);
+                pathSet(h, x0, w, w);
+            }
+            if (d[z] == bounds[y] - bounds[z]) {
+                // [bounds[y], bounds[j]) is a Hall interval
+                pathSet(h, h[y], j + 1, y);
+                h[y] = j + 1;
+            }
+        }
+    }
+
+    private static void pathSet(int[] t, int start, int end, int to) {
+        int l = start;
+        while (l != end) {
+            int k = l;
+            l = t[k];
+            t[k] = to;
+        }
+    }
+
+    private static int pathMin(int[] t, int i) {
+        while (t[i] < i)
+            i = t[i];
+        return i;
+    }
+
+    private static int pathMax(int[] t, int i) {
+        while (t[i] > i)
+            i = t[i];
+        return i;
+    }
+}
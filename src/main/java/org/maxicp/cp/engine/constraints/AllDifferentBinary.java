@@ -28,6 +28,11 @@ public class AllDifferentBinary extends AbstractCPConstraint {
         this.x = x;
     }
 
+    @Override
+    public int priority() {
+        return PRIORITY_FAST;
+    }
+
     @Override
     public void post() {
         CPSolver cp = x[0].getSolver();
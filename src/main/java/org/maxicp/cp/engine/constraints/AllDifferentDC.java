@@ -66,12 +66,26 @@ public class AllDifferentDC extends AbstractCPConstraint {
     private int minVal;
     private int maxVal;
 
+    // false if two variables are views of the same variable
+    private final boolean idempotent;
+
     public AllDifferentDC(CPIntVar... x) {
         super(x[0].getSolver());
         this.x = x;
         maximumMatching = new MaximumMatching(x);
         match = new int[x.length];
         this.nVar = x.length;
+        this.idempotent = Arrays.stream(x).map(CPIntVar::domainVar).distinct().count() == x.length;
+    }
+
+    @Override
+    public int priority() {
+        return PRIORITY_SLOW;
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return idempotent;
     }
 
     @Override
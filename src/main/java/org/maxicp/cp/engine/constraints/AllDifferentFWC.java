@@ -60,7 +60,7 @@ public class AllDifferentFWC extends AbstractCPConstraint {
         // TODO use the sparse-set trick as seen in Sum.java
         // STUDENT throw new NotImplementedException("AllDifferentFWC");
         // BEGIN STRIP
-        int nF = nFixed.value();
+        int nF = nFixed.intValue();
         // iterate over non fixed variables
         for (int i = nF; i < x.length; i++) {
             int idx = fixed[i];
@@ -53,6 +53,10 @@ public class Circuit extends AbstractCPConstraint {
         }
     }
 
+    @Override
+    public int priority() {
+        return PRIORITY_SLOW;
+    }
 
     @Override
     public void post() {
@@ -76,13 +80,13 @@ public class Circuit extends AbstractCPConstraint {
 
     private void bind(int i) {
         int j = x[i].min();
-        int origi = orig[i].value();
-        int destj = dest[j].value();
+        int origi = orig[i].intValue();
+        int destj = dest[j].intValue();
         // orig[i] *-> i -> j *-> dest[j]
         dest[origi].setValue(destj);
         orig[destj].setValue(origi);
-        int length = lengthToDest[origi].value()
-                + lengthToDest[j].value() + 1;
+        int length = lengthToDest[origi].intValue()
+                + lengthToDest[j].intValue() + 1;
         lengthToDest[origi].setValue(length);
 
         if (length < x.length - 1) {
@@ -16,29 +16,78 @@
 
 package org.maxicp.cp.engine.constraints;
 
-import org.maxicp.cp.CPFactory;
 import org.maxicp.cp.engine.constraints.Profile.Rectangle;
 import org.maxicp.cp.engine.core.AbstractCPConstraint;
 import org.maxicp.cp.engine.core.CPIntVar;
 import org.maxicp.util.exception.InconsistencyException;
 
 import java.util.ArrayList;
-
-import static org.maxicp.cp.CPFactory.minus;
-import static org.maxicp.cp.CPFactory.plus;
+import java.util.Arrays;
 
 /**
- * Cumulative constraint with time-table filtering
+ * Cumulative constraint with time-table filtering,
+ * optionally strengthened by time-table edge-finding or energetic reasoning.
+ * <p>
+ * The time-table filtering sweeps the sorted bounds of the mandatory parts
+ * to build the profile in O(n log n), and stores its heights in a segment tree
+ * such that the conflicting rectangles of an activity, on both sides,
+ * are found in logarithmic time.
+ * Both the start and the end of the activities are filtered by the same pass.
+ *
+ * @see Filtering
  */
 public class Cumulative extends AbstractCPConstraint {
 
+    /**
+     * Strength of the filtering of a {@link Cumulative},
+     * each level performing the filtering of the previous ones.
+     */
+    public enum Filtering {
+        /**
+         * Time-table: the activities can not overlap the rectangles of the profile
+         * of the mandatory parts that leave not enough capacity. O(n log n).
+         */
+        TIME_TABLE,
+        /**
+         * Time-table edge-finding: the free part of the activities fully contained
+         * in a task interval plus the profile in this interval must fit in the capacity,
+         * and the activities ending after it are pushed. O(n<sup>2</sup> log n).
+         *
+         * @see <a href="https://doi.org/10.1007/978-3-642-21311-3_22">Vilím. Timetable edge finding filtering algorithm for discrete cumulative resources</a>
+         */
+        TIME_TABLE_EDGE_FINDING,
+        /**
+         * Energetic reasoning: the minimal intersection of the activities with the intervals
+         * between a start min and an end max must fit in the capacity,
+         * and the activities are pushed such that their left (right) shift fits. O(n<sup>3</sup>).
+         *
+         * @see <a href="https://doi.org/10.1007/978-1-4615-1479-4">Baptiste, Le Pape, Nuijten. Constraint-Based Scheduling</a>
+         */
+        ENERGETIC_REASONING
+    }
+
     private final CPIntVar[] start;
     private final int[] duration;
-    private final CPIntVar[] end;
     private final int[] demand;
     private final int capa;
-    private final boolean postMirror;
+    private final Filtering filtering;
+    private final int n;
+
+    // bounds of the activities at the beginning of the propagation
+    private final int[] est, lst;
+
+    // profile of the mandatory parts, as contiguous segments
+    private final long[] startEvents, endEvents;
+    private final int[] segStart, segEnd, segHeight;
+    private final long[] energyBefore;
+    private int nSegments;
+    // segment tree on the heights of the segments
+    private final int treeSize;
+    private final int[] treeMax, treeMin;
 
+    // buffers for the edge-finding and the energetic reasoning
+    private final int[] frameEst, frameLct, newBound;
+    private final long[] sortedEst, sortedLct;
 
     /**
      * Creates a cumulative constraint with a time-table filtering.
@@ -51,67 +100,408 @@ public class Cumulative extends AbstractCPConstraint {
      * @param capa the capacity of the constraint
      */
     public Cumulative(CPIntVar[] start, int[] duration, int[] demand, int capa) {
-        this(start, duration, demand, capa, true);
+        this(start, duration, demand, capa, Filtering.TIME_TABLE);
     }
 
-    private Cumulative(CPIntVar[] start, int[] duration, int[] demand, int capa, boolean postMirror) {
+    /**
+     * Creates a cumulative constraint with a given filtering.
+     * At any time-point t, the sum of the demands
+     * of the activities overlapping t do not overlap the capacity.
+     *
+     * @param start the start time of each activities
+     * @param duration the duration of each activities (non negative)
+     * @param demand the demand of each activities, non negative
+     * @param capa the capacity of the constraint
+     * @param filtering the strength of the filtering
+     */
+    public Cumulative(CPIntVar[] start, int[] duration, int[] demand, int capa, Filtering filtering) {
         super(start[0].getSolver());
+        if (start.length != duration.length || start.length != demand.length)
+            throw new IllegalArgumentException("one duration and one demand per activity is required");
         this.start = start;
         this.duration = duration;
-        this.end = CPFactory.makeIntVarArray(start.length, i -> plus(start[i], duration[i]));
         this.demand = demand;
         this.capa = capa;
-        this.postMirror = postMirror;
+        this.filtering = filtering;
+        this.n = start.length;
+        this.est = new int[n];
+        this.lst = new int[n];
+        this.startEvents = new long[n];
+        this.endEvents = new long[n];
+        this.segStart = new int[2 * n];
+        this.segEnd = new int[2 * n];
+        this.segHeight = new int[2 * n];
+        this.energyBefore = new long[2 * n + 1];
+        int size = 1;
+        while (size < 2 * n) size *= 2;
+        this.treeSize = size;
+        this.treeMax = new int[2 * size];
+        this.treeMin = new int[2 * size];
+        this.frameEst = new int[n];
+        this.frameLct = new int[n];
+        this.newBound = new int[n];
+        this.sortedEst = new long[n];
+        this.sortedLct = new long[n];
     }
 
+    @Override
+    public int priority() {
+        return PRIORITY_SLOW;
+    }
 
     @Override
     public void post() {
-        for (int i = 0; i < start.length; i++) {
+        for (int i = 0; i < n; i++) {
+            if (duration[i] > 0 && demand[i] > capa)
+                throw InconsistencyException.INCONSISTENCY;
             start[i].propagateOnBoundChange(this);
         }
-
-        if (postMirror) {
-            CPIntVar[] startMirror = CPFactory.makeIntVarArray(start.length, i -> minus(end[i]));
-            getSolver().post(new Cumulative(startMirror, duration, demand, capa, false), false);
-        }
-
         propagate();
     }
 
     @Override
     public void propagate() {
-        Profile profile = buildProfile();
-        for (int i = 0; i < profile.size(); i++) {
-            if (profile.get(i).height() > capa) {
-                throw InconsistencyException.INCONSISTENCY;
+        for (int i = 0; i < n; i++) {
+            est[i] = start[i].min();
+            lst[i] = start[i].max();
+        }
+        sweepProfile();
+        if (nSegments > 0 && treeMax[1] > capa)
+            throw InconsistencyException.INCONSISTENCY;
+        if (nSegments > 0) {
+            for (int i = 0; i < n; i++) {
+                if (duration[i] > 0 && lst[i] > est[i]) {
+                    pushStart(i);
+                    pushEnd(i);
+                }
             }
         }
+        if (filtering.compareTo(Filtering.TIME_TABLE_EDGE_FINDING) >= 0) {
+            edgeFinding(false);
+            edgeFinding(true);
+        }
+        if (filtering.compareTo(Filtering.ENERGETIC_REASONING) >= 0) {
+            energeticReasoning(false);
+            energeticReasoning(true);
+        }
+    }
 
-        for (int i = 0; i < start.length; i++) {
-            if (!start[i].isFixed()) {
-                // j is the index of the profile rectangle overlapping t
-                int j = profile.rectangleIndex(start[i].min());
-                int t = start[i].min();
-                while (j < profile.size()
-                        && profile.get(j).start() < Math.min(t + duration[i], start[i].max())) {
-                    if (capa - demand[i]
-                          <  profile.get(j).height()) {
-                        t = Math.min(profile.get(j).end(), start[i].max());
+    /**
+     * Builds the profile of the mandatory parts {@code [lst, ect)}
+     * by sweeping their sorted bounds.
+     */
+    private void sweepProfile() {
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            int ect = est[i] + duration[i];
+            if (ect > lst[i] && demand[i] > 0) {
+                // the time in the high bits, the activity in the low ones
+                startEvents[m] = ((long) lst[i] << 32) | i;
+                endEvents[m] = ((long) ect << 32) | i;
+                m++;
+            }
+        }
+        nSegments = 0;
+        if (m > 0) {
+            Arrays.sort(startEvents, 0, m);
+            Arrays.sort(endEvents, 0, m);
+            int s = 0, e = 0, height = 0;
+            int t = (int) (startEvents[0] >> 32);
+            while (e < m) {
+                // applies all the events at time t
+                while (s < m && (int) (startEvents[s] >> 32) == t)
+                    height += demand[(int) startEvents[s++]];
+                while (e < m && (int) (endEvents[e] >> 32) == t)
+                    height -= demand[(int) endEvents[e++]];
+                if (e == m) break;
+                int next = (int) (endEvents[e] >> 32);
+                if (s < m) next = Math.min(next, (int) (startEvents[s] >> 32));
+                segStart[nSegments] = t;
+                segEnd[nSegments] = next;
+                segHeight[nSegments] = height;
+                nSegments++;
+                t = next;
+            }
+        }
+        energyBefore[0] = 0;
+        for (int k = 0; k < nSegments; k++)
+            energyBefore[k + 1] = energyBefore[k] + (long) segHeight[k] * (segEnd[k] - segStart[k]);
+        Arrays.fill(treeMax, Integer.MIN_VALUE);
+        Arrays.fill(treeMin, Integer.MAX_VALUE);
+        for (int k = 0; k < nSegments; k++) {
+            treeMax[treeSize + k] = segHeight[k];
+            treeMin[treeSize + k] = segHeight[k];
+        }
+        for (int node = treeSize - 1; node >= 1; node--) {
+            treeMax[node] = Math.max(treeMax[2 * node], treeMax[2 * node + 1]);
+            treeMin[node] = Math.min(treeMin[2 * node], treeMin[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Time-table filtering of the start min of an activity:
+     * it can not start such that it overlaps a rectangle higher than
+     * {@code capa - demand} before its mandatory part.
+     */
+    private void pushStart(int i) {
+        int threshold = capa - demand[i];
+        int t = est[i];
+        int lo = firstEndAfter(t);
+        while (lo < nSegments) {
+            int hi = firstStartFrom(Math.min(t + duration[i], lst[i]));
+            int conflict = firstAbove(1, 0, treeSize, lo, hi, threshold);
+            if (conflict < 0) break;
+            // jumps over all the consecutive conflicting rectangles
+            int free = firstAtMost(1, 0, treeSize, conflict + 1, nSegments, threshold);
+            t = Math.min(free < 0 ? segEnd[nSegments - 1] : segStart[free], lst[i]);
+            if (t == lst[i] || free < 0) break;
+            lo = free;
+        }
+        if (t > est[i])
+            start[i].removeBelow(t);
+    }
+
+    /**
+     * Time-table filtering of the end max of an activity:
+     * it can not end such that it overlaps a rectangle higher than
+     * {@code capa - demand} after its mandatory part.
+     */
+    private void pushEnd(int i) {
+        int threshold = capa - demand[i];
+        int ect = est[i] + duration[i];
+        int lct = lst[i] + duration[i];
+        int e = lct;
+        int hi = firstStartFrom(e);
+        while (hi > 0) {
+            int lo = firstEndAfter(Math.max(e - duration[i], ect));
+            int conflict = lastAbove(1, 0, treeSize, lo, hi, threshold);
+            if (conflict < 0) break;
+            // jumps over all the consecutive conflicting rectangles
+            int free = lastAtMost(1, 0, treeSize, 0, conflict, threshold);
+            e = Math.max(free < 0 ? segStart[0] : segEnd[free], ect);
+            if (e == ect || free < 0) break;
+            hi = free + 1;
+        }
+        if (e < lct)
+            start[i].removeAbove(e - duration[i]);
+    }
+
+    /**
+     * Returns the index of the first segment ending after t.
+     */
+    private int firstEndAfter(int t) {
+        int lo = 0, hi = nSegments;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segEnd[mid] > t) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the index of the first segment starting at or after t.
+     */
+    private int firstStartFrom(int t) {
+        int lo = 0, hi = nSegments;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (segStart[mid] >= t) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the first segment of {@code [from, to)} higher than h, -1 if none.
+     */
+    private int firstAbove(int node, int nodeFrom, int nodeTo, int from, int to, int h) {
+        if (nodeTo <= from || nodeFrom >= to || treeMax[node] <= h) return -1;
+        if (nodeTo - nodeFrom == 1) return nodeFrom;
+        int mid = (nodeFrom + nodeTo) >>> 1;
+        int res = firstAbove(2 * node, nodeFrom, mid, from, to, h);
+        return res >= 0 ? res : firstAbove(2 * node + 1, mid, nodeTo, from, to, h);
+    }
+
+    /**
+     * Returns the first segment of {@code [from, to)} not higher than h, -1 if none.
+     */
+    private int firstAtMost(int node, int nodeFrom, int nodeTo, int from, int to, int h) {
+        if (nodeTo <= from || nodeFrom >= to || treeMin[node] > h) return -1;
+        if (nodeTo - nodeFrom == 1) return nodeFrom;
+        int mid = (nodeFrom + nodeTo) >>> 1;
+        int res = firstAtMost(2 * node, nodeFrom, mid, from, to, h);
+        return res >= 0 ? res : firstAtMost(2 * node + 1, mid, nodeTo, from, to, h);
+    }
+
+    /**
+     * Returns the last segment of {@code [from, to)} higher than h, -1 if none.
+     */
+    private int lastAbove(int node, int nodeFrom, int nodeTo, int from, int to, int h) {
+        if (nodeTo <= from || nodeFrom >= to || treeMax[node] <= h) return -1;
+        if (nodeTo - nodeFrom == 1) return nodeFrom;
+        int mid = (nodeFrom + nodeTo) >>> 1;
+        int res = lastAbove(2 * node + 1, mid, nodeTo, from, to, h);
+        return res >= 0 ? res : lastAbove(2 * node, nodeFrom, mid, from, to, h);
+    }
+
+    /**
+     * Returns the last segment of {@code [from, to)} not higher than h, -1 if none.
+     */
+    private int lastAtMost(int node, int nodeFrom, int nodeTo, int from, int to, int h) {
+        if (nodeTo <= from || nodeFrom >= to || treeMin[node] > h) return -1;
+        if (nodeTo - nodeFrom == 1) return nodeFrom;
+        int mid = (nodeFrom + nodeTo) >>> 1;
+        int res = lastAtMost(2 * node + 1, mid, nodeTo, from, to, h);
+        return res >= 0 ? res : lastAtMost(2 * node, nodeFrom, mid, from, to, h);
+    }
+
+    /**
+     * Returns the energy of the profile before t.
+     */
+    private long energyBefore(int t) {
+        int k = firstEndAfter(t);
+        if (k == nSegments) return energyBefore[nSegments];
+        return energyBefore[k] + (long) segHeight[k] * Math.max(0, t - segStart[k]);
+    }
+
+    /**
+     * Returns the energy of the profile in {@code [a, b)}.
+     */
+    private long profileEnergy(int a, int b) {
+        return energyBefore(b) - energyBefore(a);
+    }
+
+    /**
+     * Fills the start min and end max of the activities, in the time
+     * of the activities or reversed (the end max becoming the start min).
+     */
+    private void fillFrame(boolean mirror) {
+        for (int i = 0; i < n; i++) {
+            frameEst[i] = mirror ? -(lst[i] + duration[i]) : est[i];
+            frameLct[i] = mirror ? -est[i] : lst[i] + duration[i];
+            newBound[i] = frameEst[i];
+        }
+    }
+
+    /**
+     * Applies the start min computed in the time of the activities or reversed.
+     */
+    private void applyFrame(boolean mirror) {
+        for (int i = 0; i < n; i++) {
+            if (newBound[i] > frameEst[i]) {
+                if (mirror) start[i].removeAbove(-newBound[i] - duration[i]);
+                else start[i].removeBelow(newBound[i]);
+            }
+        }
+    }
+
+    /**
+     * Time-table edge-finding on the task intervals {@code [a, b)},
+     * a being a start min and b an end max.
+     * The energy of the interval is the free part of the activities inside it plus the profile.
+     * For each b, the start mins are swept in decreasing order, keeping the activity
+     * ending after b whose free part overlaps the most the interval if it starts at its start min.
+     */
+    private void edgeFinding(boolean mirror) {
+        fillFrame(mirror);
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (duration[i] > 0 && demand[i] > 0) {
+                sortedEst[m] = ((long) frameEst[i] << 32) | i;
+                sortedLct[m] = ((long) frameLct[i] << 32) | i;
+                m++;
+            }
+        }
+        Arrays.sort(sortedEst, 0, m);
+        Arrays.sort(sortedLct, 0, m);
+        for (int j = m - 1; j >= 0; j--) {
+            int b = (int) (sortedLct[j] >> 32);
+            if (j < m - 1 && (int) (sortedLct[j + 1] >> 32) == b) continue;
+            long freeEnergy = 0;
+            long bestExtra = -1, bestMandatory = 0;
+            int candidate = -1;
+            for (int k = m - 1; k >= 0; k--) {
+                int i = (int) sortedEst[k];
+                int a = frameEst[i];
+                if (a >= b) continue;
+                int ect = a + duration[i];
+                int mandatory = Math.max(0, ect - (frameLct[i] - duration[i]));
+                if (frameLct[i] <= b) {
+                    freeEnergy += (long) demand[i] * (duration[i] - mandatory);
+                } else {
+                    // the mandatory part of i in [a, b) is already in the profile
+                    long inside = (long) demand[i] * Math.max(0, Math.min(b, ect) - (frameLct[i] - duration[i]));
+                    long extra = (long) demand[i] * (Math.min(b, ect) - a) - inside;
+                    if (extra > bestExtra) {
+                        bestExtra = extra;
+                        bestMandatory = inside;
+                        candidate = i;
+                    }
+                }
+                long available = (long) capa * (b - a) - freeEnergy
+                        - (mirror ? profileEnergy(-b, -a) : profileEnergy(a, b));
+                if (available < 0)
+                    throw InconsistencyException.INCONSISTENCY;
+                if (candidate >= 0 && bestExtra > available) {
+                    // the candidate can overlap [a, b) during at most this length
+                    long length = (available + bestMandatory) / demand[candidate];
+                    newBound[candidate] = (int) Math.max(newBound[candidate], b - length);
+                }
+            }
+        }
+        applyFrame(mirror);
+    }
+
+    /**
+     * Energetic reasoning on the intervals {@code [t1, t2)},
+     * t1 being a start min and t2 an end max.
+     */
+    private void energeticReasoning(boolean mirror) {
+        fillFrame(mirror);
+        for (int a = 0; a < n; a++) {
+            int t1 = frameEst[a];
+            for (int b = 0; b < n; b++) {
+                int t2 = frameLct[b];
+                if (t2 <= t1) continue;
+                long energy = 0;
+                for (int i = 0; i < n; i++)
+                    energy += minimalIntersection(i, t1, t2);
+                long available = (long) capa * (t2 - t1) - energy;
+                if (available < 0)
+                    throw InconsistencyException.INCONSISTENCY;
+                for (int i = 0; i < n; i++) {
+                    if (demand[i] == 0 || duration[i] == 0) continue;
+                    long leftShift = (long) demand[i] *
+                            Math.max(0, Math.min(frameEst[i] + duration[i], t2) - Math.max(frameEst[i], t1));
+                    long availableForI = available + minimalIntersection(i, t1, t2);
+                    if (leftShift > availableForI) {
+                        // i can overlap [t1, t2) during at most this length
+                        long length = availableForI / demand[i];
+                        newBound[i] = (int) Math.max(newBound[i], t2 - length);
                     }
-                    j++;
                 }
-                start[i].removeBelow(t);
             }
         }
+        applyFrame(mirror);
+    }
+
+    /**
+     * Returns the energy of an activity that is necessarily in {@code [t1, t2)}.
+     */
+    private long minimalIntersection(int i, int t1, int t2) {
+        int p = duration[i];
+        int length = Math.min(Math.min(t2 - t1, p),
+                Math.min(frameEst[i] + p - t1, t2 - (frameLct[i] - p)));
+        return (long) demand[i] * Math.max(0, length);
     }
 
     public Profile buildProfile() {
         ArrayList<Rectangle> mandatoryParts = new ArrayList<Rectangle>();
         for (int i = 0; i < start.length; i++) {
-            if (end[i].min() > start[i].max()) {
+            if (start[i].min() + duration[i] > start[i].max()) {
                 int s = start[i].max();
-                int e = end[i].min();
+                int e = start[i].min() + duration[i];
                 int d = demand[i];
                 mandatoryParts.add(new Rectangle(s, e, d));
             }
@@ -16,40 +16,51 @@
 
 package org.maxicp.cp.engine.constraints;
 
-import org.maxicp.cp.CPFactory;
 import org.maxicp.cp.engine.core.AbstractCPConstraint;
 import org.maxicp.cp.engine.core.CPBoolVar;
 import org.maxicp.cp.engine.core.CPIntVar;
 import org.maxicp.util.exception.InconsistencyException;
 
 import java.util.Arrays;
-import java.util.Comparator;
-
-import static org.maxicp.cp.CPFactory.*;
 
 /**
  * Disjunctive Scheduling Constraint:
  * Any two pairs of activities cannot overlap in time.
+ * <p>
+ * The filtering combines overload checking and edge-finding with a {@link ThetaLambdaTree},
+ * detectable precedences and not-last with a {@link ThetaTree}, each in O(n log n).
+ * They are applied on the start times and on the end times (by reversing time)
+ * until none of them changes a bound.
+ * The activities are kept in primitive permutations sorted by insertion,
+ * that are nearly sorted from one call to the next one.
+ * <p>
+ * The activities can be optional: an optional activity is only considered
+ * for the other ones once it is present, and is made absent
+ * if it can not be scheduled with the present ones.
+ * Its start time is filtered once it is present, such that the start time
+ * of an absent activity is left unconstrained.
+ *
+ * @see <a href="http://vilim.eu/petr/disertace.pdf">Vilim. Global Constraints in Scheduling, PhD thesis</a>
+ * @see <a href="https://doi.org/10.1007/11493853_31">Vilim, Bartak, Cepek. Extension of O(n log n) filtering algorithms for the unary resource constraint to optional activities</a>
  */
 public class Disjunctive extends AbstractCPConstraint {
 
     private final CPIntVar[] start;
     private final int[] duration;
-    private final CPIntVar[] end;
-
-    private final Integer[] permEst;
+    private final CPBoolVar[] present;
+    private final int n;
+
+    // bounds of the activities, in the time of the activities or reversed
+    private final int[] est, lct, ect, lst;
+    private final int[] newEst, newLct;
+    private final boolean[] absent;
+    // permutations sorted on the bounds, for each direction of time
+    private final int[][] byEst, byLct, byLst, byEct;
     private final int[] rankEst;
-    private final int[] startMin;
-    private final int[] endMax;
-    private final Integer[] permLct;
-    private final Integer[] permLst;
-    private final Integer[] permEct;
-
     private final boolean[] inserted;
 
     private final ThetaTree thetaTree;
-
-    private final boolean postMirror;
+    private final ThetaLambdaTree thetaLambdaTree;
 
     /**
      * Creates a disjunctive constraint that enforces
@@ -60,183 +71,277 @@ public class Disjunctive extends AbstractCPConstraint {
      * @param duration the durations of the activities
      */
     public Disjunctive(CPIntVar[] start, int[] duration) {
-        this(start, duration, true);
+        this(start, duration, null);
     }
 
-
-    private Disjunctive(CPIntVar[] start, int[] duration, boolean postMirror) {
+    /**
+     * Creates a disjunctive constraint on optional activities that enforces
+     * that for any two pair i,j of present activities we have
+     * {@code start[i]+duration[i] <= start[j] or start[j]+duration[j] <= start[i]}.
+     * The start time of an absent activity is not constrained.
+     *
+     * @param start the start times of the activities
+     * @param duration the durations of the activities
+     * @param present the presence of the activities, null if they are all present
+     */
+    public Disjunctive(CPIntVar[] start, int[] duration, CPBoolVar[] present) {
         super(start[0].getSolver());
+        if (start.length != duration.length || (present != null && present.length != start.length))
+            throw new IllegalArgumentException("one duration and one presence per activity is required");
         this.start = start;
         this.duration = duration;
-        this.end = CPFactory.makeIntVarArray(start.length, i -> plus(start[i], duration[i]));
-
-        this.postMirror = postMirror;
-        permEst = new Integer[start.length];
-        rankEst = new int[start.length];
-        permLct = new Integer[start.length];
-        permLst = new Integer[start.length];
-        permEct = new Integer[start.length];
-        inserted = new boolean[start.length];
-
-        for (int i = 0; i < start.length; i++) {
-            permEst[i] = i;
-            permLct[i] = i;
-            permLst[i] = i;
-            permEct[i] = i;
+        this.present = present;
+        this.n = start.length;
+        est = new int[n];
+        lct = new int[n];
+        ect = new int[n];
+        lst = new int[n];
+        newEst = new int[n];
+        newLct = new int[n];
+        absent = new boolean[n];
+        byEst = new int[2][n];
+        byLct = new int[2][n];
+        byLst = new int[2][n];
+        byEct = new int[2][n];
+        for (int[][] perm : new int[][][]{byEst, byLct, byLst, byEct}) {
+            for (int[] p : perm) {
+                for (int i = 0; i < n; i++) {
+                    p[i] = i;
+                }
+            }
         }
-        thetaTree = new ThetaTree(start.length);
-
-        startMin = new int[start.length];
-        endMax = new int[start.length];
+        rankEst = new int[n];
+        inserted = new boolean[n];
+        thetaTree = new ThetaTree(n);
+        thetaLambdaTree = new ThetaLambdaTree(n);
     }
 
+    @Override
+    public int priority() {
+        return PRIORITY_SLOW;
+    }
 
     @Override
     public void post() {
-
-        int[] demands = new int[start.length];
-        for (int i = 0; i < start.length; i++) {
-            demands[i] = 1;
+        if (present == null) {
+            int[] demands = new int[n];
+            Arrays.fill(demands, 1);
+            getSolver().post(new Cumulative(start, duration, demands, 1), false);
         }
-        getSolver().post(new Cumulative(start, duration, demands, 1), false);
-
 
-        for (int i = 0; i < start.length; i++) {
+        for (int i = 0; i < n; i++) {
             start[i].propagateOnBoundChange(this);
+            if (present != null) {
+                present[i].propagateOnFix(this);
+            }
         }
+        propagate();
+    }
 
-
-        if (postMirror) {
-            for (int i = 0; i < start.length; i++) {
-                CPIntVar endi = plus(start[i], duration[i]);
-                for (int j = i + 1; j < start.length; j++) {
-                    CPIntVar endj = plus(start[j], duration[j]);
-                    CPBoolVar iBeforej = makeBoolVar(getSolver());
-                    CPBoolVar jBeforei = makeBoolVar(getSolver());
-
-                    getSolver().post(new IsLessOrEqualVar(iBeforej, endi, start[j]));
-                    getSolver().post(new IsLessOrEqualVar(jBeforei, endj, start[i]));
-                    getSolver().post(new NotEqual(iBeforej, jBeforei), false);
-
-                }
+    @Override
+    public void propagate() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int mirror = 0; mirror < 2; mirror++) {
+                changed |= edgeFinding(mirror);
+                changed |= detectablePrecedence(mirror);
+                changed |= notLast(mirror);
             }
+        }
+    }
 
+    private boolean isPresent(int i) {
+        return present == null || present[i].isTrue();
+    }
 
-            CPIntVar[] startMirror = CPFactory.makeIntVarArray(start.length, i -> minus(end[i]));
-            getSolver().post(new Disjunctive(startMirror, duration, false), false);
+    private boolean isAbsent(int i) {
+        return present != null && present[i].isFalse();
+    }
 
-            propagate();
+    /**
+     * Reads the bounds of the activities in the time of the activities (mirror = 0)
+     * or reversed (mirror = 1), and sorts the permutations of this direction of time.
+     */
+    private void update(int mirror) {
+        for (int i = 0; i < n; i++) {
+            int s = start[i].min();
+            int e = start[i].max() + duration[i];
+            est[i] = mirror == 0 ? s : -e;
+            lct[i] = mirror == 0 ? e : -s;
+            ect[i] = est[i] + duration[i];
+            lst[i] = lct[i] - duration[i];
+            newEst[i] = est[i];
+            newLct[i] = lct[i];
+            absent[i] = false;
+        }
+        sort(byEst[mirror], est);
+        sort(byLct[mirror], lct);
+        sort(byLst[mirror], lst);
+        sort(byEct[mirror], ect);
+        for (int k = 0; k < n; k++) {
+            rankEst[byEst[mirror][k]] = k;
         }
-
     }
 
-    @Override
-    public void propagate() {
-        boolean fixed = false;
-        while (!fixed) {
-            fixed = true;
-            overLoadChecker();
-            fixed =  fixed && !detectablePrecedence();
-            fixed =  fixed && !notLast();
+    /**
+     * Insertion sort of a permutation on the given keys,
+     * linear on the permutation of the previous call if the keys changed little.
+     */
+    private static void sort(int[] perm, int[] key) {
+        for (int k = 1; k < perm.length; k++) {
+            int i = perm[k];
+            int v = key[i];
+            int l = k - 1;
+            while (l >= 0 && key[perm[l]] > v) {
+                perm[l + 1] = perm[l];
+                l--;
+            }
+            perm[l + 1] = i;
         }
-
     }
 
-    private void update() {
-        Arrays.sort(permEst, Comparator.comparingInt(i -> start[i].min()));
-        for (int i = 0; i < start.length; i++) {
-            rankEst[permEst[i]] = i;
-            startMin[i] = start[i].min();
-            endMax[i] = end[i].max();
+    /**
+     * Applies the bounds computed in the given direction of time.
+     * An optional activity that can not be scheduled anymore is made absent.
+     *
+     * @return true if one domain was changed
+     */
+    private boolean apply(int mirror) {
+        boolean changed = false;
+        for (int i = 0; i < n; i++) {
+            if (!isPresent(i)) {
+                // the bounds of an optional activity are only used to detect its absence
+                if (absent[i] || newEst[i] > newLct[i] - duration[i]) {
+                    present[i].fix(false);
+                    changed = true;
+                }
+            } else if (newEst[i] > est[i] || newLct[i] < lct[i]) {
+                if (mirror == 0) {
+                    start[i].removeBelow(newEst[i]);
+                    start[i].removeAbove(newLct[i] - duration[i]);
+                } else {
+                    start[i].removeBelow(-newLct[i]);
+                    start[i].removeAbove(-newEst[i] - duration[i]);
+                }
+                changed = true;
+            }
         }
+        return changed;
     }
 
-    private void overLoadChecker() {
-        update();
-        Arrays.sort(permLct, Comparator.comparingInt(i -> end[i].max()));
-        thetaTree.reset();
-        for (int i = 0; i < start.length; i++) {
-            int activity = permLct[i];
-            thetaTree.insert(rankEst[activity], end[activity].min(), duration[activity]);
-            if (thetaTree.getECT() > end[activity].max()) {
-                throw new InconsistencyException();
+    /**
+     * Overload checking and edge-finding: the activities are swept by decreasing lct,
+     * Theta containing the present activities ending at the latest at the current one,
+     * Lambda the other ones and the optional activities.
+     * If an activity of Lambda can not be scheduled with Theta before the current lct,
+     * it is scheduled after all the activities of Theta,
+     * or made absent if it is optional and must end before the current lct.
+     *
+     * @return true if one domain was changed by the edge-finding algo
+     */
+    private boolean edgeFinding(int mirror) {
+        update(mirror);
+        thetaLambdaTree.reset();
+        for (int i = 0; i < n; i++) {
+            if (isPresent(i)) {
+                thetaLambdaTree.insertTheta(rankEst[i], ect[i], duration[i]);
+            } else if (!isAbsent(i)) {
+                thetaLambdaTree.insertLambda(rankEst[i], ect[i], duration[i]);
+            }
+        }
+        int[] perm = byLct[mirror];
+        int[] permEst = byEst[mirror];
+        for (int k = n - 1; k >= 0; k--) {
+            int j = perm[k];
+            if (!isPresent(j)) continue;
+            if (thetaLambdaTree.getECT() > lct[j]) {
+                throw InconsistencyException.INCONSISTENCY;
+            }
+            while (thetaLambdaTree.getECTBar() > lct[j]) {
+                int pos = thetaLambdaTree.getResponsibleECTBar();
+                if (pos < 0) break;
+                int i = permEst[pos];
+                if (!isPresent(i) && lct[i] <= lct[j]) {
+                    absent[i] = true;
+                } else {
+                    newEst[i] = Math.max(newEst[i], thetaLambdaTree.getECT());
+                }
+                thetaLambdaTree.remove(pos);
             }
+            thetaLambdaTree.moveToLambda(rankEst[j]);
         }
+        return apply(mirror);
     }
 
     /**
      * @return true if one domain was changed by the detectable precedence algo
      */
-    private boolean detectablePrecedence() {
-        update();
-        boolean changed = false;
-        Arrays.sort(permLst, Comparator.comparingInt(i -> start[i].max()));
-        Arrays.sort(permEct, Comparator.comparingInt(i -> end[i].min()));
+    private boolean detectablePrecedence(int mirror) {
+        update(mirror);
+        int[] permLst = byLst[mirror];
         Arrays.fill(inserted, false);
-        int idxj = 0;
-        int j = permLst[idxj];
         thetaTree.reset();
-        for (int acti : permEct) {
-            while (idxj < start.length && end[acti].min() > start[permLst[idxj]].max()) {
-                j = permLst[idxj];
-                inserted[j] = true;
-                thetaTree.insert(rankEst[j], end[j].min(), duration[j]);
-                idxj++;
+        int idxj = 0;
+        for (int acti : byEct[mirror]) {
+            if (isAbsent(acti)) continue;
+            while (idxj < n && ect[acti] > lst[permLst[idxj]]) {
+                int j = permLst[idxj++];
+                if (isPresent(j)) {
+                    inserted[j] = true;
+                    thetaTree.insert(rankEst[j], ect[j], duration[j]);
+                }
             }
             if (inserted[acti]) {
                 thetaTree.remove(rankEst[acti]);
-                startMin[acti] = Math.max(startMin[acti], thetaTree.getECT());
-                thetaTree.insert(rankEst[acti], end[acti].min(), duration[acti]);
+                newEst[acti] = Math.max(newEst[acti], thetaTree.getECT());
+                thetaTree.insert(rankEst[acti], ect[acti], duration[acti]);
             } else {
-                startMin[acti] = Math.max(startMin[acti], thetaTree.getECT());
+                newEst[acti] = Math.max(newEst[acti], thetaTree.getECT());
             }
         }
-
-        for (int i = 0; i < start.length; i++) {
-            changed = changed || (startMin[i] > start[i].min());
-            start[i].removeBelow(startMin[i]);
-        }
-        return changed;
+        return apply(mirror);
     }
 
     /**
      * @return true if one domain was changed by the not-last algo
      */
-    private boolean notLast() {
-        update();
-        boolean changed = false;
-        Arrays.sort(permLst, Comparator.comparingInt(i -> start[i].max()));
-        Arrays.sort(permLct, Comparator.comparingInt(i -> end[i].max()));
+    private boolean notLast(int mirror) {
+        update(mirror);
+        int[] permLst = byLst[mirror];
         Arrays.fill(inserted, false);
-        int idxj = 0;
-        int j = permLst[idxj];
         thetaTree.reset();
-        for (int acti : permLct) {
-            while (idxj < start.length && end[acti].max() > start[permLst[idxj]].max()) {
-                j = permLst[idxj];
-                inserted[j] = true;
-                thetaTree.insert(rankEst[j], end[j].min(), duration[j]);
-                idxj++;
+        int idxj = 0;
+        // the two last activities inserted, with the largest lst
+        int last = -1, beforeLast = -1;
+        for (int acti : byLct[mirror]) {
+            if (isAbsent(acti)) continue;
+            while (idxj < n && lct[acti] > lst[permLst[idxj]]) {
+                int j = permLst[idxj++];
+                if (isPresent(j)) {
+                    inserted[j] = true;
+                    thetaTree.insert(rankEst[j], ect[j], duration[j]);
+                    beforeLast = last;
+                    last = j;
+                }
             }
+            int ectOthers;
+            int maxLst;
             if (inserted[acti]) {
                 thetaTree.remove(rankEst[acti]);
-                if (thetaTree.getECT() > start[acti].max()) {
-                    endMax[acti] = start[j].max();
-                }
-                thetaTree.insert(rankEst[acti], end[acti].min(), duration[acti]);
+                ectOthers = thetaTree.getECT();
+                thetaTree.insert(rankEst[acti], ect[acti], duration[acti]);
+                maxLst = acti == last ? beforeLast : last;
             } else {
-                if (thetaTree.getECT() > start[acti].max()) {
-                    endMax[acti] = start[j].max();
-                }
+                ectOthers = thetaTree.getECT();
+                maxLst = last;
+            }
+            if (ectOthers > lst[acti]) {
+                // acti can not be the last one, it ends before the latest start of the others
+                newLct[acti] = Math.min(newLct[acti], lst[maxLst]);
             }
         }
-
-        for (int i = 0; i < start.length; i++) {
-            changed = changed || (endMax[i] < end[i].max());
-            end[i].removeAbove(endMax[i]);
-        }
-        return changed;
+        return apply(mirror);
     }
 
-
 }
@@ -36,6 +36,7 @@ public class Element1D extends AbstractCPConstraint {
 
 
     private final Integer[] sortedPerm;
+    private final int[] position; // position[i] is the index of i in sortedPerm
     private final StateInt low;
     private final StateInt up;
 
@@ -59,6 +60,10 @@ public class Element1D extends AbstractCPConstraint {
             sortedPerm[i] = i;
         }
         Arrays.sort(sortedPerm,Comparator.comparingInt(i -> t[i]));
+        position = new int[t.length];
+        for (int i = 0; i < t.length; i++) {
+            position[sortedPerm[i]] = i;
+        }
 
         StateManager sm = getSolver().getStateManager();
         low = sm.makeStateInt(0);
@@ -68,6 +73,11 @@ public class Element1D extends AbstractCPConstraint {
         this.z = z;
     }
 
+    @Override
+    public boolean isEntailed() {
+        return low.intValue() == up.intValue();
+    }
+
     @Override
     public void post() {
 
@@ -76,7 +86,12 @@ public class Element1D extends AbstractCPConstraint {
         z.removeBelow(t[sortedPerm[0]]);
         z.removeAbove(t[sortedPerm[t.length-1]]);
 
-        y.propagateOnDomainChange(this);
+        // only the removal of the current lower or upper support of z matters
+        y.whenValueRemoved(v -> {
+            int p = position[v];
+            if (p == low.intValue() || p == up.intValue())
+                getSolver().schedule(this);
+        });
         z.propagateOnBoundChange(this);
         propagate();
 
@@ -85,7 +100,7 @@ public class Element1D extends AbstractCPConstraint {
     @Override
     public void propagate() {
 
-        int l = low.value(), u = up.value();
+        int l = low.intValue(), u = up.intValue();
         int zMin = z.min(), zMax = z.max();
 
         while (t[sortedPerm[l]] < zMin || !y.contains(sortedPerm[l])) {
@@ -107,7 +107,7 @@ public class Element2D extends AbstractCPConstraint {
 
     @Override
     public void propagate() {
-        int l = low.value(), u = up.value();
+        int l = low.intValue(), u = up.intValue();
         int zMin = z.min(), zMax = z.max();
 
         while (xyz.get(l).z < zMin || !x.contains(xyz.get(l).x) || !y.contains(xyz.get(l).y)) {
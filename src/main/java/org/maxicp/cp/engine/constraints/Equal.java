@@ -22,6 +22,11 @@ public class Equal extends AbstractCPConstraint {
         this.y = y;
     }
 
+    @Override
+    public int priority() {
+        return PRIORITY_FAST;
+    }
+
     @Override
     public void post() {
         if (y.isFixed())
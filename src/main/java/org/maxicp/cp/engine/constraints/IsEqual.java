@@ -47,6 +47,11 @@ public class IsEqual extends AbstractCPConstraint { // b <=> x == v
         this.v = v;
     }
 
+    @Override
+    public int priority() {
+        return PRIORITY_FAST;
+    }
+
     @Override
     public void post() {
         propagate();
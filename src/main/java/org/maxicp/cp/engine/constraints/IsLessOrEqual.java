@@ -46,6 +46,11 @@ public class IsLessOrEqual extends AbstractCPConstraint { // b <=> x <= v
         this.v = v;
     }
 
+    @Override
+    public int priority() {
+        return PRIORITY_FAST;
+    }
+
     @Override
     public void post() {
         if (b.isTrue()) {
@@ -50,6 +50,11 @@ public class IsLessOrEqualVar extends AbstractCPConstraint {
         grC = lessOrEqual(plus(y, 1), x);
     }
 
+    @Override
+    public int priority() {
+        return PRIORITY_FAST;
+    }
+
     @Override
     public void post() {
         x.propagateOnBoundChange(this);
@@ -75,7 +75,7 @@ public class IsOr extends AbstractCPConstraint { // b <=> x1 or x2 or ... xn
             }
             setActive(false);
         } else {
-            int nU = nUnBounds.value();
+            int nU = nUnBounds.intValue();
             for (int i = nU - 1; i >= 0; i--) {
                 int idx = unBounds[i];
                 CPBoolVar y = x[idx];
@@ -25,17 +25,36 @@ public class LessOrEqual extends AbstractCPConstraint { // x <= y
 
     private final CPIntVar x;
     private final CPIntVar y;
+    // false if x and y are views of the same variable, a filtering of one changing the other
+    private final boolean idempotent;
 
     public LessOrEqual(CPIntVar x, CPIntVar y) {
         super(x.getSolver());
         this.x = x;
         this.y = y;
+        this.idempotent = x.domainVar() != y.domainVar();
+    }
+
+    @Override
+    public int priority() {
+        return PRIORITY_FAST;
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    @Override
+    public boolean isEntailed() {
+        return x.max() <= y.min();
     }
 
     @Override
     public void post() {
-        x.propagateOnBoundChange(this);
-        y.propagateOnBoundChange(this);
+        // only the min of x and the max of y can trigger a filtering
+        x.propagateOnMinChange(this);
+        y.propagateOnMaxChange(this);
         propagate();
     }
 
@@ -43,7 +62,5 @@ public class LessOrEqual extends AbstractCPConstraint { // x <= y
     public void propagate() {
         x.removeAbove(y.max());
         y.removeBelow(x.min());
-        if (x.max() <= y.min())
-            setActive(false);
     }
 }
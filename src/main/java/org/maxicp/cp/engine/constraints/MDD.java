@@ -0,0 +1,411 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import org.maxicp.cp.engine.core.AbstractCPConstraint;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.DeltaCPIntVar;
+import org.maxicp.state.StateInt;
+import org.maxicp.state.StateManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Multi-valued decision diagram constraint:
+ * the assignment of the variables must be a path from the root to the terminal node of the diagram.
+ * <p>
+ * The diagram has {@code x.length + 1} layers of nodes,
+ * the edges from the layer k to the layer k + 1 being labeled by a value of {@code x[k]}.
+ * The live edges are kept in reversible sparse sets, grouped by label, by tail and by head,
+ * as in the MDD4R algorithm: when a value is removed, its edges are deleted,
+ * and a node that loses all its incoming or outgoing edges is deleted with its other edges.
+ * A value is removed when it has no more live edge.
+ * The cost of the propagation is proportional to the number of edges deleted.
+ * <p>
+ * A variable can appear in several layers, possibly through views.
+ * The values removed from one of its layers by the constraint itself are then not in
+ * the delta of the others: the values of these layers are all checked at each propagation.
+ *
+ * @see <a href="https://doi.org/10.1007/978-3-319-10428-7_44">Perez, Régin. Improving GAC-4 for Table and MDD Constraints</a>
+ */
+public class MDD extends AbstractCPConstraint {
+
+    private final CPIntVar[] x;
+    private final int n;
+
+    // nodes, numbered by layer
+    private final int[] layerStart; // first node of each layer, layerStart[n + 1] being the number of nodes
+    // edges, numbered by layer
+    private final int[] edgeLayer, edgeValue, edgeTail, edgeHead;
+
+    // live edges grouped by (layer, value), by tail and by head
+    private final int[] valueOffset; // smallest value of the edges of each layer
+    private final int[] groupStart; // first group of the (layer, value) of each layer
+    private final ReversiblePartition byValue, byTail, byHead;
+
+    // shared[k] is true if the variable of x[k] appears in another layer
+    private final boolean[] shared;
+    private final boolean idempotent;
+
+    private DeltaCPIntVar[] delta;
+    private int[] dom; // domain iterator
+    private int[] stack; // edges to delete
+    private int stackSize;
+
+    /**
+     * Creates an MDD constraint from a layered graph.
+     * The nodes of each layer are numbered from 0, the root being the node 0
+     * of the first layer, the terminal the node 0 of the last layer.
+     *
+     * @param x     the variables, one per layer of edges
+     * @param edges for each variable {@code x[k]}, the edges {@code {tail, value, head}}
+     *              from the node tail of the layer k to the node head of the layer k + 1,
+     *              labeled by the value
+     */
+    public MDD(CPIntVar[] x, int[][][] edges) {
+        super(x[0].getSolver());
+        if (edges.length != x.length)
+            throw new IllegalArgumentException("one layer of edges per variable is required");
+        this.x = x;
+        this.n = x.length;
+        shared = new boolean[n];
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++)
+                if (x[i].domainVar() == x[j].domainVar())
+                    shared[i] = shared[j] = true;
+        idempotent = Arrays.stream(x).map(CPIntVar::domainVar).distinct().count() == x.length;
+
+        // numbering of the nodes and edges
+        int[] nNodes = new int[n + 1];
+        nNodes[0] = 1;
+        nNodes[n] = 1;
+        int nEdges = 0;
+        for (int k = 0; k < n; k++) {
+            for (int[] e : edges[k]) {
+                if (e.length != 3 || e[0] < 0 || e[2] < 0)
+                    throw new IllegalArgumentException("an edge is {tail, value, head}, with non negative nodes");
+                nNodes[k] = Math.max(nNodes[k], e[0] + 1);
+                nNodes[k + 1] = Math.max(nNodes[k + 1], e[2] + 1);
+            }
+            nEdges += edges[k].length;
+        }
+        layerStart = new int[n + 2];
+        for (int k = 0; k <= n; k++)
+            layerStart[k + 1] = layerStart[k] + nNodes[k];
+
+        edgeLayer = new int[nEdges];
+        edgeValue = new int[nEdges];
+        edgeTail = new int[nEdges];
+        edgeHead = new int[nEdges];
+        valueOffset = new int[n];
+        groupStart = new int[n + 1];
+        int[] valueGroup = new int[nEdges];
+        int e = 0;
+        for (int k = 0; k < n; k++) {
+            int minValue = Integer.MAX_VALUE, maxValue = Integer.MIN_VALUE;
+            for (int[] edge : edges[k]) {
+                minValue = Math.min(minValue, edge[1]);
+                maxValue = Math.max(maxValue, edge[1]);
+            }
+            valueOffset[k] = minValue;
+            groupStart[k + 1] = groupStart[k] + (edges[k].length == 0 ? 0 : maxValue - minValue + 1);
+            for (int[] edge : edges[k]) {
+                edgeLayer[e] = k;
+                edgeTail[e] = layerStart[k] + edge[0];
+                edgeValue[e] = edge[1];
+                edgeHead[e] = layerStart[k + 1] + edge[2];
+                valueGroup[e] = groupStart[k] + edge[1] - minValue;
+                e++;
+            }
+        }
+        StateManager sm = getSolver().getStateManager();
+        byValue = new ReversiblePartition(sm, valueGroup, groupStart[n]);
+        byTail = new ReversiblePartition(sm, edgeTail, layerStart[n + 1]);
+        byHead = new ReversiblePartition(sm, edgeHead, layerStart[n + 1]);
+    }
+
+    /**
+     * Creates an MDD constraint from a table,
+     * compiled into the reduced diagram of its tuples.
+     * <p>The constraint ensures that {@code x} is a row from the given table.
+     *
+     * @param x     the non empty set of variables to constraint
+     * @param table the possible set of solutions for x.
+     *              The second dimension must be of the same size as the array x.
+     */
+    public MDD(CPIntVar[] x, int[][] table) {
+        this(x, reduce(table, x.length));
+    }
+
+    /**
+     * Builds the reduced diagram of the tuples of a table,
+     * in which the nodes having the same outgoing edges are merged.
+     *
+     * @param table the tuples
+     * @param arity the number of values of each tuple
+     * @return the edges {@code {tail, value, head}} of each layer
+     */
+    public static int[][][] reduce(int[][] table, int arity) {
+        int[][] sorted = table.clone();
+        Arrays.sort(sorted, Arrays::compare);
+        List<List<int[]>> edges = new ArrayList<>();
+        List<HashMap<Signature, Integer>> nodes = new ArrayList<>();
+        for (int k = 0; k < arity; k++) {
+            edges.add(new ArrayList<>());
+            nodes.add(new HashMap<>());
+        }
+        if (sorted.length > 0)
+            reduce(sorted, 0, 0, sorted.length, edges, nodes);
+        int[][][] result = new int[arity][][];
+        for (int k = 0; k < arity; k++)
+            result[k] = edges.get(k).toArray(new int[0][]);
+        return result;
+    }
+
+    /**
+     * Returns the node of the layer k reached by the tuples of {@code [from, to)}
+     * having the same prefix of length k.
+     */
+    private static int reduce(int[][] sorted, int k, int from, int to,
+                              List<List<int[]>> edges, List<HashMap<Signature, Integer>> nodes) {
+        if (k == edges.size())
+            return 0; // terminal
+        // the (value, child) of the outgoing edges
+        int[] signature = new int[2 * (to - from)];
+        int size = 0;
+        int i = from;
+        while (i < to) {
+            int j = i + 1;
+            while (j < to && sorted[j][k] == sorted[i][k])
+                j++;
+            signature[size++] = sorted[i][k];
+            signature[size++] = reduce(sorted, k + 1, i, j, edges, nodes);
+            i = j;
+        }
+        Signature key = new Signature(Arrays.copyOf(signature, size));
+        Integer node = nodes.get(k).get(key);
+        if (node == null) {
+            node = nodes.get(k).size();
+            nodes.get(k).put(key, node);
+            for (int s = 0; s < size; s += 2)
+                edges.get(k).add(new int[]{node, key.edges[s], key.edges[s + 1]});
+        }
+        return node;
+    }
+
+    private record Signature(int[] edges) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Signature s && Arrays.equals(edges, s.edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(edges);
+        }
+    }
+
+    /**
+     * Returns the number of edges of the diagram, deleted or not.
+     *
+     * @return the number of edges
+     */
+    public int numberOfEdges() {
+        return edgeLayer.length;
+    }
+
+    /**
+     * Returns the number of nodes of the diagram, deleted or not.
+     *
+     * @return the number of nodes
+     */
+    public int numberOfNodes() {
+        return layerStart[n + 1];
+    }
+
+    @Override
+    public int priority() {
+        return PRIORITY_SLOW;
+    }
+
+    @Override
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    @Override
+    public void post() {
+        delta = new DeltaCPIntVar[n];
+        int maxSize = 1;
+        for (int k = 0; k < n; k++) {
+            x[k].propagateOnDomainChange(this);
+            delta[k] = x[k].delta(this);
+            maxSize = Math.max(maxSize, x[k].max() - x[k].min() + 1);
+        }
+        dom = new int[maxSize];
+        stack = new int[Math.max(16, numberOfEdges())];
+
+        // edges with a value out of the domain
+        for (int e = 0; e < numberOfEdges(); e++) {
+            if (!x[edgeLayer[e]].contains(edgeValue[e]))
+                push(e);
+        }
+        // nodes not reachable from the root or not reaching the terminal
+        int root = layerStart[0], terminal = layerStart[n];
+        for (int node = 0; node < numberOfNodes(); node++) {
+            if (node != root && byHead.size(node) == 0)
+                pushAll(byTail, node);
+            if (node != terminal && byTail.size(node) == 0)
+                pushAll(byHead, node);
+        }
+        deleteEdges();
+
+        // values without edge
+        for (int k = 0; k < n; k++) {
+            int nVal = x[k].fillArray(dom);
+            for (int i = 0; i < nVal; i++) {
+                if (liveEdges(k, dom[i]) == 0)
+                    x[k].remove(dom[i]);
+            }
+        }
+    }
+
+    @Override
+    public void propagate() {
+        stackSize = 0; // in case the last propagation failed
+        for (int k = 0; k < n; k++) {
+            if (shared[k]) {
+                for (int g = groupStart[k]; g < groupStart[k + 1]; g++) {
+                    if (byValue.size(g) > 0 && !x[k].contains(valueOffset[k] + g - groupStart[k]))
+                        pushAll(byValue, g);
+                }
+            } else if (delta[k].changed()) {
+                int nVal = delta[k].fillArray(dom);
+                for (int i = 0; i < nVal; i++) {
+                    int group = group(k, dom[i]);
+                    if (group >= 0)
+                        pushAll(byValue, group);
+                }
+            }
+        }
+        deleteEdges();
+    }
+
+    /**
+     * Returns the group of the edges of the value v of x[k], -1 if there is none.
+     */
+    private int group(int k, int v) {
+        int g = groupStart[k] + v - valueOffset[k];
+        return v < valueOffset[k] || g >= groupStart[k + 1] ? -1 : g;
+    }
+
+    private int liveEdges(int k, int v) {
+        int group = group(k, v);
+        return group < 0 ? 0 : byValue.size(group);
+    }
+
+    private void push(int e) {
+        if (stackSize == stack.length)
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        stack[stackSize++] = e;
+    }
+
+    private void pushAll(ReversiblePartition partition, int group) {
+        for (int i = partition.size(group) - 1; i >= 0; i--)
+            push(partition.get(group, i));
+    }
+
+    /**
+     * Deletes the edges of the stack, and the edges of the nodes losing
+     * all their incoming or outgoing edges, removing the values without edge.
+     */
+    private void deleteEdges() {
+        while (stackSize > 0) {
+            int e = stack[--stackSize];
+            if (!byTail.contains(e)) continue; // already deleted
+            int k = edgeLayer[e];
+            int group = group(k, edgeValue[e]);
+            byValue.remove(e, group);
+            if (byValue.size(group) == 0)
+                x[k].remove(edgeValue[e]);
+            int tail = edgeTail[e];
+            byTail.remove(e, tail);
+            if (byTail.size(tail) == 0)
+                pushAll(byHead, tail);
+            int head = edgeHead[e];
+            byHead.remove(e, head);
+            if (byHead.size(head) == 0)
+                pushAll(byTail, head);
+        }
+    }
+
+    /**
+     * Partition of the edges in groups, each group being a reversible sparse set:
+     * the live edges of a group are the prefix of its segment of the permutation.
+     */
+    private static final class ReversiblePartition {
+        private final int[] elems; // permutation of the elements, by group
+        private final int[] pos; // position of each element in the permutation
+        private final int[] group; // group of each element
+        private final int[] start; // first position of each group
+        private final StateInt[] size;
+
+        ReversiblePartition(StateManager sm, int[] group, int nGroups) {
+            this.group = group;
+            start = new int[nGroups + 1];
+            for (int g : group)
+                start[g + 1]++;
+            for (int g = 0; g < nGroups; g++)
+                start[g + 1] += start[g];
+            elems = new int[group.length];
+            pos = new int[group.length];
+            int[] next = Arrays.copyOf(start, nGroups);
+            for (int e = 0; e < group.length; e++) {
+                pos[e] = next[group[e]]++;
+                elems[pos[e]] = e;
+            }
+            size = new StateInt[nGroups];
+            for (int g = 0; g < nGroups; g++)
+                size[g] = sm.makeStateInt(start[g + 1] - start[g]);
+        }
+
+        int size(int g) {
+            return size[g].intValue();
+        }
+
+        int get(int g, int i) {
+            return elems[start[g] + i];
+        }
+
+        boolean contains(int e) {
+            int g = group[e];
+            return pos[e] < start[g] + size[g].intValue();
+        }
+
+        void remove(int e, int g) {
+            int last = start[g] + size[g].decrement();
+            int i = pos[e];
+            int other = elems[last];
+            elems[last] = e;
+            pos[e] = last;
+            elems[i] = other;
+            pos[other] = i;
+        }
+    }
+}
@@ -15,23 +15,20 @@
 
 package org.maxicp.cp.engine.constraints;
 
-import org.maxicp.cp.engine.core.AbstractCPConstraint;
 import org.maxicp.cp.engine.core.CPIntVar;
 
 import java.util.ArrayList;
-import java.util.BitSet;
-
-import static org.maxicp.cp.CPFactory.minus;
+import java.util.Arrays;
 
 /**
- * Negative table constraint
+ * Negative table constraint, filtered by the Compact-Table algorithm
+ * extended to negative tables: the current table contains the conflicts
+ * whose values are all in the domains, and a value is removed if the number
+ * of current conflicts with it covers all the assignments of the other variables.
+ *
+ * @see <a href="https://doi.org/10.1007/s10601-017-9279-7">Verhaeghe, Lecoutre, Schaus. Extending Compact-Table to Negative and Short Tables</a>
  */
-public class NegTableCT extends AbstractCPConstraint {
-
-    private CPIntVar[] x; //variables
-    private int[][] table; //the table
-    //supports[i][v] is the set of tuples supported by x[i]=v
-    private BitSet[][] conflicts;
+public class NegTableCT extends AbstractCompactTable {
 
     /**
      * Negative Table constraint.
@@ -43,87 +40,46 @@ public class NegTableCT extends AbstractCPConstraint {
      * @param table the array of invalid solutions (second dimension must be of same size as the array x)
      */
     public NegTableCT(CPIntVar[] x, int[][] table) {
-        super(x[0].getSolver());
-        this.x = new CPIntVar[x.length];
-
+        super(x, withoutDuplicates(table), false, 0);
+    }
 
-        // remove duplicate (the negative ct algo does not support it)
+    /**
+     * Removes the duplicated tuples, that would be counted twice.
+     */
+    private static int[][] withoutDuplicates(int[][] table) {
+        int[][] sorted = table.clone();
+        Arrays.sort(sorted, Arrays::compare);
         ArrayList<int[]> tableList = new ArrayList<>();
-        boolean[] duplicate = new boolean[table.length];
-        for (int i = 0; i < table.length; i++) {
-            if (!duplicate[i]) {
-                tableList.add(table[i]);
-                for (int j = i + 1; j < table.length; j++) {
-                    if (i != j && !duplicate[j]) {
-                        boolean same = true;
-                        for (int k = 0; k < x.length; k++) {
-                            same &= table[i][k] == table[j][k];
-                        }
-                        if (same) {
-                            duplicate[j] = true;
-                        }
-                    }
-                }
-            }
-        }
-        this.table = tableList.toArray(new int[0][]);
-
-        // Allocate supportedByVarVal
-        conflicts = new BitSet[x.length][];
-        for (int i = 0; i < x.length; i++) {
-            this.x[i] = minus(x[i], x[i].min()); // map the variables domain to start at 0
-            conflicts[i] = new BitSet[x[i].max() - x[i].min() + 1];
-            for (int j = 0; j < conflicts[i].length; j++)
-                conflicts[i][j] = new BitSet();
-        }
-
-        // Set values in supportedByVarVal, which contains all the tuples supported by each var-val pair
-        for (int i = 0; i < this.table.length; i++) { //i is the index of the tuple (in table)
-            for (int j = 0; j < x.length; j++) { //j is the index of the current variable (in x)
-                if (x[j].contains(this.table[i][j])) {
-                    conflicts[j][this.table[i][j] - x[j].min()].set(i);
-                }
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || !Arrays.equals(sorted[i], sorted[i - 1])) {
+                tableList.add(sorted[i]);
             }
         }
+        return tableList.toArray(new int[0][]);
     }
 
     @Override
-    public void post() {
-        for (CPIntVar var : x)
-            var.propagateOnDomainChange(this);
-        propagate();
-    }
-
-    @Override
-    public void propagate() {
-        // Bit-set of tuple indices all set to 0
-        BitSet menacing = new BitSet(table.length);
-        menacing.flip(0, table.length);
-
+    protected void filterDomains() {
+        if (validTuples.isEmpty()) return;
+        int nConflicts = validTuples.cardinality();
+        // the number of assignments of the other variables, computed before any removal
+        long[] prodOthers = new long[x.length];
         for (int i = 0; i < x.length; i++) {
-            BitSet conflictsi = new BitSet();
-            for (int v = x[i].min(); v <= x[i].max(); v++) {
-                if (x[i].contains(v)) {
-                    conflictsi.or(conflicts[i][v]);
-                }
+            long prod = 1;
+            for (int j = 0; j < x.length && prod <= nConflicts; j++) {
+                if (j != i) prod *= x[j].size();
             }
-            menacing.and(conflictsi);
-        }
-
-        Long prodDomains = 1L;
-        for (int i = 0; i < x.length; i++) {
-            prodDomains *= x[i].size();
+            prodOthers[i] = prod;
         }
-
         for (int i = 0; i < x.length; i++) {
-            int prodDomainsi = (int) (prodDomains / x[i].size());
-            for (int v = x[i].min(); v <= x[i].max(); v++) {
-                if (x[i].contains(v)) {
-                     BitSet menacingIntersect = (BitSet) menacing.clone();
-                    menacingIntersect.and(conflicts[i][v]);
-                    if (menacingIntersect.cardinality() >= prodDomainsi) {
-                        x[i].remove(v);
-                    }
+            if (prodOthers[i] > nConflicts) continue;
+            int nVal = x[i].fillArray(dom);
+            for (int k = 0; k < nVal; k++) {
+                int v = dom[k];
+                if (validTuples.intersectionCardinality(exact[i][v]) >= prodOthers[i]) {
+                    x[i].remove(v);
+                    // the removals of this propagation are not in the next delta
+                    validTuples.remove(exact[i][v]);
                 }
             }
         }
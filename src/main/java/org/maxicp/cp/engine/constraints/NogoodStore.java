@@ -0,0 +1,270 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import org.maxicp.BranchingScheme.Assign;
+import org.maxicp.BranchingScheme.Remove;
+import org.maxicp.cp.engine.core.AbstractCPConstraint;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.search.RestartSearch;
+import org.maxicp.util.Procedure;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Set of nogoods on a set of variables, recorded from the restarts of a {@link RestartSearch}.
+ * A nogood is a set of assignments {@code x1 == v1, ..., xk == vk}
+ * that can not be all true in a (better) solution.
+ * When all the assignments of a nogood but one are true,
+ * the value of the remaining one is removed.
+ * Each nogood watches two of its assignments that are not true,
+ * such that it is only considered when one of them becomes true.
+ * <p>
+ * The nogoods are reduced nld-nogoods extracted from the last branch of each restart
+ * with {@link #record(Procedure[][], int[], int)}: for each alternative
+ * {@link Assign} completely explored, the assignments above it on the branch
+ * together with this assignment form a nogood.
+ * The decisions of the branching must therefore be {@link Assign} and {@link Remove}
+ * alternatives, as given by {@link org.maxicp.BranchingScheme#assignOrRemove(CPIntVar, int)}.
+ * The extraction stops at the first unrecognized decision of the branch.
+ * <p>
+ * The nogoods are only valid below the node at which the search started:
+ * {@link #clear()} must be called before starting a search from another node.
+ *
+ * @see <a href="https://doi.org/10.1007/978-3-540-74970-7_31">Lecoutre, Sais, Tabary, Vidal. Recording and minimizing nogoods from restarts</a>
+ */
+public class NogoodStore extends AbstractCPConstraint {
+
+    private static final class Nogood {
+        final int[] var;
+        final int[] val;
+        // positions of the watched assignments
+        int w0, w1;
+        boolean watched = false;
+
+        Nogood(int[] var, int[] val) {
+            this.var = var;
+            this.val = val;
+        }
+    }
+
+    private final CPIntVar[] x;
+    private final IdentityHashMap<CPIntVar, Integer> index = new IdentityHashMap<>();
+    private final List<Nogood> nogoods = new ArrayList<>();
+    // nogoods watching an assignment of each variable
+    private final List<List<Nogood>> watchers = new ArrayList<>();
+
+    // buffers for the extraction of the nogoods of a branch
+    private int[] posVar = new int[16];
+    private int[] posVal = new int[16];
+
+    /**
+     * Creates an empty set of nogoods on the given variables.
+     *
+     * @param x the decision variables
+     */
+    public NogoodStore(CPIntVar... x) {
+        super(x[0].getSolver());
+        this.x = x;
+        for (int i = 0; i < x.length; i++) {
+            index.put(x[i], i);
+            watchers.add(new ArrayList<>());
+        }
+    }
+
+    @Override
+    public void post() {
+        for (int i = 0; i < x.length; i++) {
+            int var = i;
+            x[i].whenFixed(() -> fixed(var));
+        }
+        propagate();
+    }
+
+    @Override
+    public void propagate() {
+        for (Nogood ng : nogoods)
+            watch(ng);
+    }
+
+    /**
+     * Returns the number of nogoods recorded.
+     *
+     * @return the number of nogoods
+     */
+    public int size() {
+        return nogoods.size();
+    }
+
+    /**
+     * Removes all the nogoods.
+     */
+    public void clear() {
+        nogoods.clear();
+        for (List<Nogood> w : watchers)
+            w.clear();
+    }
+
+    /**
+     * Adds the nogood {@code x[vars[0]] == vals[0] and ... and x[vars[k-1]] == vals[k-1]}
+     * and propagates it.
+     *
+     * @param vars the indices of the variables in the decision variables
+     * @param vals the values of the assignments
+     * @throws InconsistencyException if the nogood is violated
+     */
+    public void add(int[] vars, int[] vals) {
+        Nogood ng = new Nogood(vars.clone(), vals.clone());
+        nogoods.add(ng);
+        watch(ng);
+    }
+
+    /**
+     * Records the reduced nld-nogoods of the last branch of a restart and propagates them.
+     * Can be used as a {@link RestartSearch.RestartListener}.
+     *
+     * @param alternatives the alternatives of the nodes on the branch
+     * @param explored     the number of alternatives completely explored at each depth
+     * @param depth        the number of nodes on the branch
+     * @throws InconsistencyException if the nogoods make the root node inconsistent
+     */
+    public void record(Procedure[][] alternatives, int[] explored, int depth) {
+        int nPos = 0;
+        for (int d = 0; d < depth; d++) {
+            Procedure[] alts = alternatives[d];
+            for (int j = 0; j < explored[d]; j++) {
+                if (alts[j] instanceof Assign a && index.containsKey(a.x())) {
+                    // the positive decisions above, and this one, lead to no (better) solution
+                    int[] vars = new int[nPos + 1];
+                    int[] vals = new int[nPos + 1];
+                    System.arraycopy(posVar, 0, vars, 0, nPos);
+                    System.arraycopy(posVal, 0, vals, 0, nPos);
+                    vars[nPos] = index.get(a.x());
+                    vals[nPos] = a.v();
+                    add(vars, vals);
+                }
+            }
+            if (d == depth - 1) break;
+            Procedure current = alts[explored[d]];
+            if (current instanceof Assign a && index.containsKey(a.x())) {
+                if (nPos == posVar.length) {
+                    posVar = Arrays.copyOf(posVar, nPos * 2);
+                    posVal = Arrays.copyOf(posVal, nPos * 2);
+                }
+                posVar[nPos] = index.get(a.x());
+                posVal[nPos] = a.v();
+                nPos++;
+            } else if (!(current instanceof Remove r && refuted(alts, explored[d], r))) {
+                // the nogoods below depend on a decision that can not be expressed
+                break;
+            }
+        }
+        getSolver().fixPoint();
+    }
+
+    /**
+     * Tests if the refuted assignment is one of the explored alternatives,
+     * such that the removal is implied by the nogood of this alternative.
+     */
+    private boolean refuted(Procedure[] alts, int explored, Remove r) {
+        for (int j = 0; j < explored; j++)
+            if (alts[j] instanceof Assign a && a.x() == r.x() && a.v() == r.v())
+                return true;
+        return false;
+    }
+
+    private boolean isTrue(Nogood ng, int p) {
+        CPIntVar y = x[ng.var[p]];
+        return y.isFixed() && y.min() == ng.val[p];
+    }
+
+    /**
+     * Chooses the watched assignments of a nogood among the ones that are not true,
+     * removing the value of the last one if all the others are true.
+     */
+    private void watch(Nogood ng) {
+        int k = ng.var.length;
+        int first = -1, second = -1;
+        for (int p = 0; p < k && second < 0; p++) {
+            if (!isTrue(ng, p)) {
+                if (first < 0) first = p;
+                else second = p;
+            }
+        }
+        if (first < 0) throw InconsistencyException.INCONSISTENCY;
+        unwatch(ng);
+        if (second < 0) {
+            // watches a true assignment, made non-true before the removal when backtracking
+            second = first == 0 ? (k > 1 ? 1 : 0) : 0;
+            x[ng.var[first]].remove(ng.val[first]);
+        }
+        ng.w0 = first;
+        ng.w1 = second;
+        ng.watched = true;
+        watchers.get(ng.var[first]).add(ng);
+        if (second != first)
+            watchers.get(ng.var[second]).add(ng);
+    }
+
+    private void unwatch(Nogood ng) {
+        if (!ng.watched) return;
+        watchers.get(ng.var[ng.w0]).remove(ng);
+        if (ng.w1 != ng.w0)
+            watchers.get(ng.var[ng.w1]).remove(ng);
+    }
+
+    /**
+     * Updates the nogoods watching an assignment of a variable that became fixed.
+     *
+     * @param var the index of the variable
+     */
+    private void fixed(int var) {
+        int value = x[var].min();
+        List<Nogood> list = watchers.get(var);
+        int i = 0;
+        while (i < list.size()) {
+            Nogood ng = list.get(i);
+            int other;
+            if (ng.var[ng.w0] == var && ng.val[ng.w0] == value) other = ng.w1;
+            else if (ng.var[ng.w1] == var && ng.val[ng.w1] == value) other = ng.w0;
+            else {
+                // the watched assignment is false, the nogood is satisfied
+                i++;
+                continue;
+            }
+            int replacement = -1;
+            for (int p = 0; p < ng.var.length && replacement < 0; p++)
+                if (p != ng.w0 && p != ng.w1 && !isTrue(ng, p))
+                    replacement = p;
+            if (replacement >= 0) {
+                // moves the watch from the true assignment to the replacement
+                if (ng.w0 == other) ng.w1 = replacement;
+                else ng.w0 = replacement;
+                list.set(i, list.get(list.size() - 1));
+                list.remove(list.size() - 1);
+                watchers.get(ng.var[replacement]).add(ng);
+            } else {
+                // all the other assignments are true
+                x[ng.var[other]].remove(ng.val[other]);
+                i++;
+            }
+        }
+    }
+}
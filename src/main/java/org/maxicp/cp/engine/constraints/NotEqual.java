@@ -52,6 +52,11 @@ public class NotEqual extends AbstractCPConstraint {
         this(x, y, 0);
     }
 
+    @Override
+    public int priority() {
+        return PRIORITY_FAST;
+    }
+
     @Override
     public void post() {
         if (y.isFixed())
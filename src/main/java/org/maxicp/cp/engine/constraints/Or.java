@@ -55,7 +55,7 @@ public class Or extends AbstractCPConstraint { // x1 or x2 or ... xn
     @Override
     public void propagate() {
         // update watched literals
-        int i = wL.value();
+        int i = wL.intValue();
         while (i < n && x[i].isFixed()) {
             if (x[i].isTrue()) {
                 setActive(false);
@@ -64,8 +64,8 @@ public class Or extends AbstractCPConstraint { // x1 or x2 or ... xn
             i += 1;
         }
         wL.setValue(i);
-        i = wR.value();
-        while (i >= 0 && x[i].isFixed() && i >= wL.value()) {
+        i = wR.intValue();
+        while (i >= 0 && x[i].isFixed() && i >= wL.intValue()) {
             if (x[i].isTrue()) {
                 setActive(false);
                 return;
@@ -74,17 +74,17 @@ public class Or extends AbstractCPConstraint { // x1 or x2 or ... xn
         }
         wR.setValue(i);
 
-        if (wL.value() > wR.value()) {
+        if (wL.intValue() > wR.intValue()) {
             throw INCONSISTENCY;
-        } else if (wL.value() == wR.value()) { // only one unassigned var
-            x[wL.value()].fix(true);
+        } else if (wL.intValue() == wR.intValue()) { // only one unassigned var
+            x[wL.intValue()].fix(true);
             setActive(false);
         } else {
-            assert (wL.value() != wR.value());
-            assert (!x[wL.value()].isFixed());
-            assert (!x[wR.value()].isFixed());
-            x[wL.value()].propagateOnFix(this);
-            x[wR.value()].propagateOnFix(this);
+            assert (wL.intValue() != wR.intValue());
+            assert (!x[wL.intValue()].isFixed());
+            assert (!x[wR.intValue()].isFixed());
+            x[wL.intValue()].propagateOnFix(this);
+            x[wR.intValue()].propagateOnFix(this);
         }
     }
 }
@@ -15,24 +15,16 @@
 
 package org.maxicp.cp.engine.constraints;
 
-import org.maxicp.cp.engine.core.AbstractCPConstraint;
 import org.maxicp.cp.engine.core.CPIntVar;
 
-import java.util.Arrays;
-import java.util.BitSet;
-
-import static org.maxicp.cp.CPFactory.minus;
-
 /**
- * Table constraint with short tuples (having {@code *} entries)
+ * Table constraint with short tuples (having {@code *} entries),
+ * filtered by the Compact-Table algorithm of {@link TableCT}
+ * extended to short tables.
+ *
+ * @see <a href="https://doi.org/10.1007/s10601-017-9279-7">Verhaeghe, Lecoutre, Schaus. Extending Compact-Table to Negative and Short Tables</a>
  */
-public class ShortTableCT extends AbstractCPConstraint {
-
-    private final CPIntVar[] x; //variables
-    private final int[][] table; //the table
-    //supports[i][v] is the set of tuples supported by x[i]=v
-    private BitSet[][] supports;
-    private int[] dom; // domain iterator
+public class ShortTableCT extends TableCT {
 
     /**
      * Create a Table constraint with short tuples.
@@ -44,64 +36,6 @@ public class ShortTableCT extends AbstractCPConstraint {
      * @param star  the {@code *} symbol representing "any" value in the table
      */
     public ShortTableCT(CPIntVar[] x, int[][] table, int star) {
-        super(x[0].getSolver());
-        this.x = new CPIntVar[x.length];
-        this.table = table;
-        dom = new int[Arrays.stream(x).map(var -> var.size()).max(Integer::compare).get()];
-
-        // Allocate supportedByVarVal
-        supports = new BitSet[x.length][];
-        for (int i = 0; i < x.length; i++) {
-            this.x[i] = minus(x[i], x[i].min()); // map the variables domain to start at 0
-            supports[i] = new BitSet[x[i].max() - x[i].min() + 1];
-            for (int j = 0; j < supports[i].length; j++)
-                supports[i][j] = new BitSet();
-        }
-
-        // Set values in supportedByVarVal, which contains all the tuples supported by each var-val pair
-        for (int t = 0; t < table.length; t++) { //i is the index of the tuple (in table)
-            for (int i = 0; i < x.length; i++) { //j is the index of the current variable (in x)
-                if (table[t][i] == star) {
-                    for (int v = 0; v < supports[i].length; v++) {
-                        supports[i][v].set(t);
-                    }
-                } else if (x[i].contains(table[t][i])) {
-                    supports[i][table[t][i] - x[i].min()].set(t);
-                }
-            }
-        }
-    }
-
-    @Override
-    public void post() {
-        for (CPIntVar var : x)
-            var.propagateOnDomainChange(this);
-        propagate();
-    }
-
-    @Override
-    public void propagate() {
-        // Bit-set of tuple indices all set to 0
-        BitSet supportedTuples = new BitSet(table.length);
-        supportedTuples.flip(0, table.length);
-
-        for (int i = 0; i < x.length; i++) {
-            BitSet supporti = new BitSet();
-            int nVal = x[i].fillArray(dom);
-            for (int v = 0; v < nVal; v++) {
-                supporti.or(supports[i][dom[v]]);
-            }
-            supportedTuples.and(supporti);
-        }
-
-        for (int i = 0; i < x.length; i++) {
-            int nVal = x[i].fillArray(dom);
-            for (int v = 0; v < nVal; v++) {
-                if (!supports[i][dom[v]].intersects(supportedTuples)) {
-                    x[i].remove(dom[v]);
-                }
-            }
-        }
-
+        super(x, table, true, star);
     }
 }
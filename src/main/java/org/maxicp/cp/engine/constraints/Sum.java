@@ -81,6 +81,11 @@ public class Sum extends AbstractCPConstraint {
         free = IntStream.range(0, n).toArray();
     }
 
+    @Override
+    public boolean isEntailed() {
+        return nFrees.intValue() == 0;
+    }
+
     @Override
     public void post() {
         for (CPIntVar var : x)
@@ -91,7 +96,7 @@ public class Sum extends AbstractCPConstraint {
     @Override
     public void propagate() {
         // Filter the unbound vars and update the partial sum
-        int nU = nFrees.value();
+        int nU = nFrees.intValue();
         long sumMin = sumFixed.value(), sumMax = sumFixed.value();
         for (int i = nU - 1; i >= 0; i--) {
             int idx = free[i];
@@ -15,31 +15,21 @@
 
 package org.maxicp.cp.engine.constraints;
 
-import org.maxicp.cp.engine.core.AbstractCPConstraint;
 import org.maxicp.cp.engine.core.CPIntVar;
 import org.maxicp.util.exception.InconsistencyException;
 
-import java.util.Arrays;
-import java.util.BitSet;
-
-import static org.maxicp.cp.CPFactory.minus;
-
 /**
  * Implementation of Compact Table algorithm described in
  * <p><i>Compact-Table: Efficiently Filtering Table Constraints with Reversible Sparse Bit-Sets</i>
  * Jordan Demeulenaere, Renaud Hartert, Christophe Lecoutre, Guillaume Perez, Laurent Perron, Jean-Charles Régin, Pierre Schaus
  * <p>See <a href="https://www.info.ucl.ac.be/~pschaus/assets/publi/cp2016-compacttable.pdf">The article.</a>
+ * <p>The support of each value is checked first on its residue,
+ * the last word of the current table on which a support was found.
  */
-public class TableCT extends AbstractCPConstraint {
-    private CPIntVar[] x; //variables
-    private int[][] table; //the table
-    //supports[i][v] is the set of tuples supported by x[i]=v
-    private BitSet[][] supports;
-
-    private BitSet supportedTuples;
-    private BitSet tmpSupport;
+public class TableCT extends AbstractCompactTable {
 
-    private int[] dom; // domain iterator
+    // residues[i][v] is the index of the last word where a support of x[i]=v was found
+    private final int[][] residues;
 
     /**
      * Table constraint.
@@ -58,68 +48,39 @@ public class TableCT extends AbstractCPConstraint {
      *              The second dimension must be of the same size as the array x.
      */
     public TableCT(CPIntVar[] x, int[][] table) {
-        super(x[0].getSolver());
-        this.x = new CPIntVar[x.length];
-        this.table = table;
-        dom = new int[Arrays.stream(x).map(var -> var.size()).max(Integer::compare).get()];
-
-        // Allocate supportedByVarVal
-        supports = new BitSet[x.length][];
-        for (int i = 0; i < x.length; i++) {
-            this.x[i] = minus(x[i], x[i].min()); // map the variables domain to start at 0
-            supports[i] = new BitSet[x[i].max() - x[i].min() + 1];
-            for (int j = 0; j < supports[i].length; j++)
-                supports[i][j] = new BitSet();
-        }
-
-        // Set values in supportedByVarVal, which contains all the tuples supported by each var-val pair
-        for (int t = 0; t < table.length; t++) { //i is the index of the tuple (in table)
-            for (int i = 0; i < x.length; i++) { //j is the index of the current variable (in x)
-                if (x[i].contains(table[t][i])) {
-                    supports[i][table[t][i] - x[i].min()].set(t);
-                }
-            }
-        }
+        this(x, table, false, 0);
+    }
 
-        supportedTuples = new BitSet(table.length);
-        tmpSupport = new BitSet(table.length);
+    TableCT(CPIntVar[] x, int[][] table, boolean star, int starValue) {
+        super(x, table, star, starValue);
+        residues = new int[x.length][];
+        for (int i = 0; i < x.length; i++)
+            residues[i] = new int[supports[i].length];
     }
 
     @Override
-    public void post() {
-        for (CPIntVar var : x)
-            var.propagateOnDomainChange(this);
-        propagate();
+    public boolean isIdempotent() {
+        // the removals on a variable repeated in the scope must be propagated to its other occurrences
+        return distinctVariables;
     }
 
-
-
     @Override
-    public void propagate() {
-
-
-        // Bit-set of tuple indices all set to 1
-        supportedTuples.set(0, table.length);
-
-        for (int i = 0; i < x.length; i++) {
-            tmpSupport.clear();
-            int nVal = x[i].fillArray(dom);
-            for (int v = 0; v < nVal; v++) {
-                    tmpSupport.or(supports[i][dom[v]]);
-            }
-            supportedTuples.and(tmpSupport);
-            if (supportedTuples.isEmpty()) throw InconsistencyException.INCONSISTENCY;
-        }
-
+    protected void filterDomains() {
+        if (validTuples.isEmpty()) throw InconsistencyException.INCONSISTENCY;
         for (int i = 0; i < x.length; i++) {
+            // the tuples removed for the values of x[i] do not support its other values
+            if (i == lastModified) continue;
             int nVal = x[i].fillArray(dom);
-            for (int v = 0; v < nVal; v++) {
-                    if (!supports[i][dom[v]].intersects(supportedTuples)) {
-                        x[i].remove(dom[v]);
-                    }
-
+            for (int k = 0; k < nVal; k++) {
+                int v = dom[k];
+                if (!validTuples.intersects(supports[i][v], residues[i][v])) {
+                    int idx = validTuples.intersectIndex(supports[i][v]);
+                    if (idx < 0)
+                        x[i].remove(v);
+                    else
+                        residues[i][v] = idx;
+                }
             }
         }
-
     }
 }
@@ -83,6 +83,11 @@ public class TableCTNew extends AbstractCPConstraint {
         }
     }
 
+    @Override
+    public int priority() {
+        return PRIORITY_SLOW;
+    }
+
     @Override
     public void post() {
         for (CPIntVar var : x)
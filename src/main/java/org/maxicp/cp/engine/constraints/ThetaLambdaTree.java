@@ -0,0 +1,206 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import java.util.Arrays;
+
+/**
+ * Extension of the {@link ThetaTree} with a second set of activities,
+ * the gray activities of the set Lambda.
+ * Besides the earliest completion time of the activities of Theta,
+ * it maintains the earliest completion time of Theta
+ * with at most one activity of Lambda, and the gray activity responsible for it.
+ * As in the {@link ThetaTree}, the activities are assumed
+ * to be inserted at positions of increasing earliest start time.
+ * Data Structure described in
+ * Global Constraints in Scheduling, 2008 Petr Vilim, PhD thesis
+ * See <a href="http://vilim.eu/petr/disertace.pdf">The thesis.</a>
+ */
+public class ThetaLambdaTree {
+
+    private static final int NONE = -1;
+
+    private final int isize; // number of internal nodes, the root being at index 1
+    private final int[] sump;
+    private final int[] ect;
+    private final int[] sumpBar;
+    private final int[] ectBar;
+    // gray leaf responsible for sumpBar and ectBar, NONE if not due to a gray activity
+    private final int[] respSumpBar;
+    private final int[] respEctBar;
+
+    /**
+     * Creates a theta-lambda-tree able to store
+     * the specified number of activities, each identified
+     * as a number between 0 and size-1.
+     *
+     * @param size the number of activities that can possibly be inserted in the tree
+     */
+    public ThetaLambdaTree(int size) {
+        int leaves = 1;
+        while (leaves < size) {
+            leaves <<= 1;
+        }
+        isize = leaves;
+        sump = new int[2 * leaves];
+        ect = new int[2 * leaves];
+        sumpBar = new int[2 * leaves];
+        ectBar = new int[2 * leaves];
+        respSumpBar = new int[2 * leaves];
+        respEctBar = new int[2 * leaves];
+        reset();
+    }
+
+    /**
+     * Remove all the activities from this theta-lambda-tree
+     */
+    public void reset() {
+        Arrays.fill(sump, 0);
+        Arrays.fill(ect, Integer.MIN_VALUE);
+        Arrays.fill(sumpBar, 0);
+        Arrays.fill(ectBar, Integer.MIN_VALUE);
+        Arrays.fill(respSumpBar, NONE);
+        Arrays.fill(respEctBar, NONE);
+    }
+
+    /**
+     * Insert an activity in Theta at given position.
+     *
+     * @param pos the index of the leaf node (assumed to start at 0 from left to right)
+     * @param ect earliest completion time
+     * @param dur duration
+     */
+    public void insertTheta(int pos, int ect, int dur) {
+        int node = isize + pos;
+        this.sump[node] = dur;
+        this.ect[node] = ect;
+        this.sumpBar[node] = dur;
+        this.ectBar[node] = ect;
+        this.respSumpBar[node] = NONE;
+        this.respEctBar[node] = NONE;
+        reCompute(node >> 1);
+    }
+
+    /**
+     * Insert an activity in Lambda (gray) at given position.
+     *
+     * @param pos the index of the leaf node (assumed to start at 0 from left to right)
+     * @param ect earliest completion time
+     * @param dur duration
+     */
+    public void insertLambda(int pos, int ect, int dur) {
+        int node = isize + pos;
+        this.sump[node] = 0;
+        this.ect[node] = Integer.MIN_VALUE;
+        this.sumpBar[node] = dur;
+        this.ectBar[node] = ect;
+        this.respSumpBar[node] = pos;
+        this.respEctBar[node] = pos;
+        reCompute(node >> 1);
+    }
+
+    /**
+     * Moves an activity of Theta to Lambda.
+     *
+     * @param pos the index of the leaf node of an activity in Theta
+     */
+    public void moveToLambda(int pos) {
+        insertLambda(pos, ect[isize + pos], sump[isize + pos]);
+    }
+
+    /**
+     * Remove the activity at given position, from Theta or Lambda.
+     *
+     * @param pos the index of the leaf nodes, assumed to start at 0 from left to right
+     */
+    public void remove(int pos) {
+        int node = isize + pos;
+        sump[node] = 0;
+        ect[node] = Integer.MIN_VALUE;
+        sumpBar[node] = 0;
+        ectBar[node] = Integer.MIN_VALUE;
+        respSumpBar[node] = NONE;
+        respEctBar[node] = NONE;
+        reCompute(node >> 1);
+    }
+
+    /**
+     * The earliest completion time of the activities of Theta
+     *
+     * @return the earliest completion time of the activities of Theta
+     */
+    public int getECT() {
+        return ect[1];
+    }
+
+    /**
+     * The earliest completion time of the activities of Theta with at most one activity of Lambda
+     *
+     * @return the largest earliest completion time of Theta with one activity of Lambda
+     */
+    public int getECTBar() {
+        return ectBar[1];
+    }
+
+    /**
+     * The activity of Lambda responsible for {@link #getECTBar()}
+     *
+     * @return the position of the gray activity responsible for the earliest completion time,
+     *         -1 if it is the one of Theta
+     */
+    public int getResponsibleECTBar() {
+        return respEctBar[1];
+    }
+
+    private void reCompute(int node) {
+        while (node > 0) {
+            int l = node << 1;
+            int r = l + 1;
+            sump[node] = sump[l] + sump[r];
+            ect[node] = Math.max(ect[r], plus(ect[l], sump[r]));
+
+            int sumpBarLeft = sumpBar[l] + sump[r];
+            int sumpBarRight = sump[l] + sumpBar[r];
+            if (sumpBarLeft >= sumpBarRight) {
+                sumpBar[node] = sumpBarLeft;
+                respSumpBar[node] = respSumpBar[l];
+            } else {
+                sumpBar[node] = sumpBarRight;
+                respSumpBar[node] = respSumpBar[r];
+            }
+
+            int ectBarRight = ectBar[r];
+            int ectBarMiddle = plus(ect[l], sumpBar[r]);
+            int ectBarLeft = plus(ectBar[l], sump[r]);
+            if (ectBarRight >= ectBarMiddle && ectBarRight >= ectBarLeft) {
+                ectBar[node] = ectBarRight;
+                respEctBar[node] = respEctBar[r];
+            } else if (ectBarMiddle >= ectBarLeft) {
+                ectBar[node] = ectBarMiddle;
+                respEctBar[node] = respSumpBar[r];
+            } else {
+                ectBar[node] = ectBarLeft;
+                respEctBar[node] = respEctBar[l];
+            }
+            node >>= 1;
+        }
+    }
+
+    // addition keeping Integer.MIN_VALUE for an empty set
+    private static int plus(int ect, int dur) {
+        return ect == Integer.MIN_VALUE ? Integer.MIN_VALUE : ect + dur;
+    }
+}
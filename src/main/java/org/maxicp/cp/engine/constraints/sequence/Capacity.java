@@ -144,7 +144,7 @@ public class Capacity extends AbstractCPConstraint {
      * @param remainingCapacity remaining capacity allowed within the constraint
      */
     private void filterNodes(int remainingCapacity) {
-        int cursor = capaCursor.value();
+        int cursor = capaCursor.intValue();
         while (cursor >= 0 && load[sortedNode[cursor]] > remainingCapacity) {
             if (sequenceVar.isPossible(sortedNode[cursor])) {
                 sequenceVar.exclude(sortedNode[cursor]);
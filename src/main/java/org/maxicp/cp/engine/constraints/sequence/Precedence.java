@@ -192,7 +192,7 @@ public class Precedence extends AbstractCPConstraint {
 
         @Override
         public boolean isActive() {
-            return Precedence.this.isActive() && !Precedence.this.isScheduled() && orderInserted.value() != 0 && !masterConstraintPropagating;
+            return Precedence.this.isActive() && !Precedence.this.isScheduled() && orderInserted.intValue() != 0 && !masterConstraintPropagating;
         }
 
         /**
@@ -201,7 +201,7 @@ public class Precedence extends AbstractCPConstraint {
          */
         @Override
         public void propagate() {
-            //if (orderInserted.value() == 0) {
+            //if (orderInserted.intValue() == 0) {
             //    //setActive(false);
             //    return;
             //}
@@ -60,8 +60,8 @@ public abstract class AbstractCPConstraint implements CPConstraint {
 
     @Override
     public void updateDeltas() {
-        for (Delta d: deltas) {
-            d.update();
+        for (int i = 0; i < deltas.size(); i++) {
+            deltas.get(i).update();
         }
     }
 
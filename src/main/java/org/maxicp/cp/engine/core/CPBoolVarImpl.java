@@ -18,6 +18,9 @@ package org.maxicp.cp.engine.core;
 
 import org.maxicp.util.Procedure;
 
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
 public class CPBoolVarImpl implements CPBoolVar {
 
     private CPIntVar binaryVar;
@@ -87,6 +90,26 @@ public class CPBoolVarImpl implements CPBoolVar {
         binaryVar.propagateOnBoundChange(c);
     }
 
+    @Override
+    public void propagateOnMinChange(CPConstraint c) {
+        binaryVar.propagateOnMinChange(c);
+    }
+
+    @Override
+    public void propagateOnMaxChange(CPConstraint c) {
+        binaryVar.propagateOnMaxChange(c);
+    }
+
+    @Override
+    public void whenValueRemoved(IntConsumer f) {
+        binaryVar.whenValueRemoved(f);
+    }
+
+    @Override
+    public void forEachConstraint(Consumer<CPConstraint> f) {
+        binaryVar.forEachConstraint(f);
+    }
+
     @Override
     public int min() {
         return binaryVar.min();
@@ -147,6 +170,11 @@ public class CPBoolVarImpl implements CPBoolVar {
         return binaryVar.delta(c);
     }
 
+    @Override
+    public CPIntVar domainVar() {
+        return binaryVar.domainVar();
+    }
+
     @Override
     public String toString() {
         if (isTrue()) return "true";
@@ -23,6 +23,29 @@ import org.maxicp.state.StateManager;
  */
 public interface CPConstraint {
 
+    /**
+     * Priority of the cheap constraints such as the binary ones
+     * and the closures, propagated first by the fix-point.
+     */
+    int PRIORITY_FAST = 0;
+
+    /**
+     * Default priority, for constraints of linear complexity
+     * such as sums or element constraints.
+     */
+    int PRIORITY_MEDIUM = 1;
+
+    /**
+     * Priority of the expensive global constraints, only propagated
+     * once no constraint of a higher priority is scheduled.
+     */
+    int PRIORITY_SLOW = 2;
+
+    /**
+     * Number of priority levels
+     */
+    int N_PRIORITIES = 3;
+
     /**
      * Initializes the constraint when it is posted to the solver.
      */
@@ -72,6 +95,47 @@ public interface CPConstraint {
      */
     boolean isActive();
 
+    /**
+     * Returns the priority of the constraint in the fix-point.
+     * The fix-point always propagates a scheduled constraint of the lowest
+     * priority value first, such that cheap constraints are propagated
+     * until their fix-point before expensive ones are woken.
+     *
+     * @return the priority, between {@link #PRIORITY_FAST} and {@link #PRIORITY_SLOW}
+     * @see CPSolver#fixPoint()
+     */
+    default int priority() {
+        return PRIORITY_MEDIUM;
+    }
+
+    /**
+     * Returns true if a single call to {@link #propagate()} always reaches
+     * the fix-point of this constraint.
+     * The solver then ignores the events caused by the constraint
+     * on its own variables, instead of scheduling it again.
+     * A filtering idempotent on distinct variables is usually not
+     * when two of them are views of the same variable (see {@link CPIntVar#domainVar()}).
+     *
+     * @return true if the propagation of the constraint is idempotent
+     * @see CPSolver#schedule(CPConstraint)
+     */
+    default boolean isIdempotent() {
+        return false;
+    }
+
+    /**
+     * Returns true if the constraint is entailed, that is satisfied
+     * by any assignment of the variables in their current domains.
+     * The solver checks it after every call to {@link #propagate()} and
+     * deactivates an entailed constraint with {@link #setActive(boolean)},
+     * such that it is not scheduled any more until the state is restored.
+     *
+     * @return true if the constraint is entailed
+     */
+    default boolean isEntailed() {
+        return false;
+    }
+
     void registerDelta(Delta delta);
 
     void updateDeltas();
@@ -28,6 +28,11 @@ public class CPConstraintClosure extends AbstractCPConstraint {
         this.filtering = filtering;
     }
 
+    @Override
+    public int priority() {
+        return PRIORITY_FAST;
+    }
+
     @Override
     public void post() {
 
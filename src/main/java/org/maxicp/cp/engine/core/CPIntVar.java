@@ -18,6 +18,9 @@ package org.maxicp.cp.engine.core;
 import org.maxicp.util.Procedure;
 import org.maxicp.util.exception.InconsistencyException;
 
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
 public interface CPIntVar extends CPVar {
 
     /**
@@ -82,6 +85,49 @@ public interface CPIntVar extends CPVar {
      */
     void propagateOnBoundChange(CPConstraint c);
 
+    /**
+     * Asks that {@link CPConstraint#propagate()} is called whenever the
+     * minimum value of the domain of this variable changes.
+     * We say that a <i>min change</i> event occurs in this case.
+     *
+     * @param c the constraint for which the {@link CPConstraint#propagate()}
+     *          method should be called on min change events of this variable.
+     */
+    void propagateOnMinChange(CPConstraint c);
+
+    /**
+     * Asks that {@link CPConstraint#propagate()} is called whenever the
+     * maximum value of the domain of this variable changes.
+     * We say that a <i>max change</i> event occurs in this case.
+     *
+     * @param c the constraint for which the {@link CPConstraint#propagate()}
+     *          method should be called on max change events of this variable.
+     */
+    void propagateOnMaxChange(CPConstraint c);
+
+    /**
+     * Asks that the listener is called with every value removed
+     * from the domain of this variable, right after the removal.
+     * Contrary to the closures of {@link #whenDomainChange(Procedure)},
+     * the listener is not delayed until the fix-point:
+     * it must not modify the domain of any variable and is meant
+     * to record the removed value and possibly schedule a constraint
+     * with {@link CPSolver#schedule(CPConstraint)}.
+     *
+     * @param f the listener called with each removed value
+     */
+    void whenValueRemoved(IntConsumer f);
+
+    /**
+     * Calls the function on each constraint registered on this variable,
+     * with one of the {@code propagateOn} methods or as a closure
+     * of the {@code when} methods, in the current state.
+     * A constraint registered on several events is given once per event.
+     *
+     * @param f the function called with each constraint
+     */
+    void forEachConstraint(Consumer<CPConstraint> f);
+
 
     /**
      * Returns the minimum of the domain of the variable
@@ -183,4 +229,15 @@ public interface CPIntVar extends CPVar {
      * @return the delta object
      */
     DeltaCPIntVar delta(CPConstraint c);
+
+    /**
+     * Returns the variable holding the domain of this variable,
+     * the variable itself unless it is a view on another one.
+     * Two variables with the same domain variable are modified together.
+     *
+     * @return the variable holding the domain
+     */
+    default CPIntVar domainVar() {
+        return this;
+    }
 }
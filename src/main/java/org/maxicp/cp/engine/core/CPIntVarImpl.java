@@ -21,6 +21,8 @@ import org.maxicp.util.exception.InconsistencyException;
 
 import java.security.InvalidParameterException;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * Implementation of a variable
@@ -33,6 +35,10 @@ public class CPIntVarImpl implements CPIntVar {
     private StateStack<CPConstraint> onDomain;
     private StateStack<CPConstraint> onBind;
     private StateStack<CPConstraint> onBounds;
+    private StateStack<CPConstraint> onMin;
+    private StateStack<CPConstraint> onMax;
+    private StateStack<IntConsumer> onRemove;
+    private int[] removedValues = new int[0];
 
     private DomainListener domListener = new DomainListener() {
         @Override
@@ -53,11 +59,13 @@ public class CPIntVarImpl implements CPIntVar {
         @Override
         public void changeMin() {
             scheduleAll(onBounds);
+            scheduleAll(onMin);
         }
 
         @Override
         public void changeMax() {
             scheduleAll(onBounds);
+            scheduleAll(onMax);
         }
     };
 
@@ -88,6 +96,9 @@ public class CPIntVarImpl implements CPIntVar {
         onDomain = new StateStack<>(cp.getStateManager());
         onBind = new StateStack<>(cp.getStateManager());
         onBounds = new StateStack<>(cp.getStateManager());
+        onMin = new StateStack<>(cp.getStateManager());
+        onMax = new StateStack<>(cp.getStateManager());
+        onRemove = new StateStack<>(cp.getStateManager());
     }
 
 
@@ -162,6 +173,35 @@ public class CPIntVarImpl implements CPIntVar {
         onBounds.push(c);
     }
 
+    @Override
+    public void propagateOnMinChange(CPConstraint c) {
+        onMin.push(c);
+    }
+
+    @Override
+    public void propagateOnMaxChange(CPConstraint c) {
+        onMax.push(c);
+    }
+
+    @Override
+    public void whenValueRemoved(IntConsumer f) {
+        onRemove.push(f);
+    }
+
+
+    @Override
+    public void forEachConstraint(Consumer<CPConstraint> f) {
+        forEach(onDomain, f);
+        forEach(onBind, f);
+        forEach(onBounds, f);
+        forEach(onMin, f);
+        forEach(onMax, f);
+    }
+
+    private static void forEach(StateStack<CPConstraint> constraints, Consumer<CPConstraint> f) {
+        for (int i = 0; i < constraints.size(); i++)
+            f.accept(constraints.get(i));
+    }
 
     protected void scheduleAll(StateStack<CPConstraint> constraints) {
         for (int i = 0; i < constraints.size(); i++)
@@ -195,22 +235,68 @@ public class CPIntVarImpl implements CPIntVar {
 
     @Override
     public void remove(int v) {
-        domain.remove(v, domListener);
+        if (onRemove.size() == 0 && cp.getProfiler() == null) {
+            domain.remove(v, domListener);
+        } else {
+            int oldMin = domain.min(), oldMax = domain.max(), oldSize = domain.size();
+            domain.remove(v, domListener);
+            notifyRemoved(oldMin, oldMax, oldSize);
+        }
     }
 
     @Override
     public void fix(int v) {
-        domain.removeAllBut(v, domListener);
+        if (onRemove.size() == 0 && cp.getProfiler() == null) {
+            domain.removeAllBut(v, domListener);
+        } else {
+            int oldMin = domain.min(), oldMax = domain.max(), oldSize = domain.size();
+            domain.removeAllBut(v, domListener);
+            notifyRemoved(oldMin, oldMax, oldSize);
+        }
     }
 
     @Override
     public void removeBelow(int v) {
-        domain.removeBelow(v, domListener);
+        if (onRemove.size() == 0 && cp.getProfiler() == null) {
+            domain.removeBelow(v, domListener);
+        } else {
+            int oldMin = domain.min(), oldMax = domain.max(), oldSize = domain.size();
+            domain.removeBelow(v, domListener);
+            notifyRemoved(oldMin, oldMax, oldSize);
+        }
     }
 
     @Override
     public void removeAbove(int v) {
-        domain.removeAbove(v, domListener);
+        if (onRemove.size() == 0 && cp.getProfiler() == null) {
+            domain.removeAbove(v, domListener);
+        } else {
+            int oldMin = domain.min(), oldMax = domain.max(), oldSize = domain.size();
+            domain.removeAbove(v, domListener);
+            notifyRemoved(oldMin, oldMax, oldSize);
+        }
+    }
+
+    /**
+     * Notifies the profiler and the value listeners
+     * of the values removed since the given state of the domain.
+     */
+    private void notifyRemoved(int oldMin, int oldMax, int oldSize) {
+        int n = oldSize - domain.size();
+        if (n == 0) return;
+        PropagationProfiler profiler = cp.getProfiler();
+        if (profiler != null)
+            profiler.removed(n);
+        if (onRemove.size() > 0) {
+            if (removedValues.length < n)
+                removedValues = new int[Math.max(n, oldSize)];
+            domain.fillDeltaArray(oldMin, oldMax, oldSize, removedValues);
+            for (int i = 0; i < onRemove.size(); i++) {
+                IntConsumer f = onRemove.get(i);
+                for (int j = 0; j < n; j++)
+                    f.accept(removedValues[j]);
+            }
+        }
     }
 
     @Override
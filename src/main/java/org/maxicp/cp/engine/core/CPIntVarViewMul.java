@@ -21,6 +21,9 @@ import org.maxicp.util.Procedure;
 import org.maxicp.util.exception.InconsistencyException;
 import org.maxicp.util.exception.IntOverFlowException;
 
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
 /**
  * A view on a variable of type {@code a*x}
  */
@@ -74,6 +77,30 @@ public class CPIntVarViewMul implements CPIntVar {
         x.propagateOnBoundChange(c);
     }
 
+    @Override
+    public void propagateOnMinChange(CPConstraint c) {
+        if (a >= 0)
+            x.propagateOnMinChange(c);
+        else x.propagateOnMaxChange(c);
+    }
+
+    @Override
+    public void propagateOnMaxChange(CPConstraint c) {
+        if (a >= 0)
+            x.propagateOnMaxChange(c);
+        else x.propagateOnMinChange(c);
+    }
+
+    @Override
+    public void whenValueRemoved(IntConsumer f) {
+        x.whenValueRemoved(v -> f.accept(a * v));
+    }
+
+    @Override
+    public void forEachConstraint(Consumer<CPConstraint> f) {
+        x.forEachConstraint(f);
+    }
+
     @Override
     public int min() {
         if (a >= 0)
@@ -109,6 +136,11 @@ public class CPIntVarViewMul implements CPIntVar {
         return delta;
     }
 
+    @Override
+    public CPIntVar domainVar() {
+        return x.domainVar();
+    }
+
     @Override
     public int fillArray(int[] dest) {
         int s = x.fillArray(dest);
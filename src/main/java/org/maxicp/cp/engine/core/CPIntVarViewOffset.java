@@ -19,6 +19,9 @@ package org.maxicp.cp.engine.core;
 import org.maxicp.util.Procedure;
 import org.maxicp.util.exception.IntOverFlowException;
 
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
 /**
  * A view on a variable of type {@code x+o}
  */
@@ -72,6 +75,26 @@ public class CPIntVarViewOffset implements CPIntVar {
         x.propagateOnBoundChange(c);
     }
 
+    @Override
+    public void propagateOnMinChange(CPConstraint c) {
+        x.propagateOnMinChange(c);
+    }
+
+    @Override
+    public void propagateOnMaxChange(CPConstraint c) {
+        x.propagateOnMaxChange(c);
+    }
+
+    @Override
+    public void whenValueRemoved(IntConsumer f) {
+        x.whenValueRemoved(v -> f.accept(v + o));
+    }
+
+    @Override
+    public void forEachConstraint(Consumer<CPConstraint> f) {
+        x.forEachConstraint(f);
+    }
+
     @Override
     public int min() {
         return x.min() + o;
@@ -142,6 +165,11 @@ public class CPIntVarViewOffset implements CPIntVar {
         return delta;
     }
 
+    @Override
+    public CPIntVar domainVar() {
+        return x.domainVar();
+    }
+
     @Override
     public String toString() {
         StringBuilder b = new StringBuilder();
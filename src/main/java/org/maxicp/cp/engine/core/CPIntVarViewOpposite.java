@@ -18,6 +18,9 @@ package org.maxicp.cp.engine.core;
 
 import org.maxicp.util.Procedure;
 
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
 /**
  * A view on a variable of type {@code -x}
  */
@@ -64,6 +67,26 @@ public class CPIntVarViewOpposite implements CPIntVar {
         x.propagateOnBoundChange(c);
     }
 
+    @Override
+    public void propagateOnMinChange(CPConstraint c) {
+        x.propagateOnMaxChange(c);
+    }
+
+    @Override
+    public void propagateOnMaxChange(CPConstraint c) {
+        x.propagateOnMinChange(c);
+    }
+
+    @Override
+    public void whenValueRemoved(IntConsumer f) {
+        x.whenValueRemoved(v -> f.accept(-v));
+    }
+
+    @Override
+    public void forEachConstraint(Consumer<CPConstraint> f) {
+        x.forEachConstraint(f);
+    }
+
     @Override
     public int min() {
         return -x.max();
@@ -95,6 +118,11 @@ public class CPIntVarViewOpposite implements CPIntVar {
         return delta;
     }
 
+    @Override
+    public CPIntVar domainVar() {
+        return x.domainVar();
+    }
+
     @Override
     public int fillDeltaArray(int oldMin, int oldMax, int oldSize, int[] arr) {
         int s = x.fillDeltaArray(-oldMax,-oldMin,oldSize,arr);
@@ -1,8 +1,8 @@
 package org.maxicp.cp.engine.core;
 
 import org.maxicp.state.*;
-import org.maxicp.state.datastructures.StateSparseSet;
-import org.maxicp.state.datastructures.StateTriPartition;
+import org.maxicp.state.datastructures.SemanticStateSparseSet;
+import org.maxicp.state.datastructures.SemanticStateTriPartition;
 import org.maxicp.state.datastructures.StateStack;
 import org.maxicp.util.Procedure;
 
@@ -18,7 +18,7 @@ public class CPSequenceVarImpl implements CPSequenceVar {
     private CPInsertionVarInSequence[] insertionVars;
     private StateInt[] succ;                    // successors of the nodes
     private StateInt[] pred;                    // predecessors of the nodes
-    private StateTriPartition domain;            // domain for the set of Member, Possible and Excluded variables
+    private SemanticStateTriPartition domain;            // domain for the set of Member, Possible and Excluded variables
 
     // TODO constructor from a set of specified edges
     // TODO checker for clusters of possibles nodes
@@ -65,7 +65,7 @@ public class CPSequenceVarImpl implements CPSequenceVar {
         pred[begin].setValue(end);
         pred[end].setValue(begin);
 
-        domain = new StateTriPartition(cp.getStateManager(), nNodes);
+        domain = new SemanticStateTriPartition(cp.getStateManager(), nNodes);
         domain.include(begin);
         domain.include(end);
 
@@ -116,7 +116,7 @@ public class CPSequenceVarImpl implements CPSequenceVar {
         // 2: the ones that are still possible in the sequence but not yet inserted
         // 3: the excluded predecessors
 
-        StateSparseSet insertions;
+        SemanticStateSparseSet insertions;
         private StateInt nPossible;  // number of possible insertions. Each value is included within the possible set of the sequence
         private StateInt nMember; // number of member insertions. Each value is included within the member set of the sequence
 
@@ -148,7 +148,7 @@ public class CPSequenceVarImpl implements CPSequenceVar {
             // no insertion belongs to the set of member insertions at first
             this.id = id;
             n = nNodes;
-            insertions = new StateSparseSet(cp.getStateManager(),n,0);
+            insertions = new SemanticStateSparseSet(cp.getStateManager(),n,0);
             nPossible = cp.getStateManager().makeStateInt(n); // consider all nodes as possible
             nMember = cp.getStateManager().makeStateInt(0);
 
@@ -245,9 +245,9 @@ public class CPSequenceVarImpl implements CPSequenceVar {
             onExclude.push(c);
         }
 
-        public int nMember() {return nMember.value();}
+        public int nMember() {return nMember.intValue();}
 
-        public int nPossible() {return nPossible.value();}
+        public int nPossible() {return nPossible.intValue();}
 
         @Override
         public String toString() {
@@ -277,12 +277,12 @@ public class CPSequenceVarImpl implements CPSequenceVar {
 
     @Override
     public int nextMember(int node) {
-        return succ[node].value();
+        return succ[node].intValue();
     }
 
     @Override
     public int predMember(int node) {
-        return pred[node].value();
+        return pred[node].intValue();
     }
 
     @Override
@@ -292,8 +292,8 @@ public class CPSequenceVarImpl implements CPSequenceVar {
 
     @Override
     public int fillOrder(int[] dest, boolean includeBounds) {
-        dest[0] = includeBounds ? begin : succ[begin].value();
-        int lastElem = includeBounds ? end : pred[end].value();
+        dest[0] = includeBounds ? begin : succ[begin].intValue();
+        int lastElem = includeBounds ? end : pred[end].intValue();
         int i = 1;
         for (;dest[i-1] != lastElem; ++i)
             dest[i] = succ[dest[i-1]].value();
@@ -340,7 +340,7 @@ public class CPSequenceVarImpl implements CPSequenceVar {
         }
         if (!domain.include(node)) {
             // the node is either already member or excluded
-            if (succ[pred].value() != node || isExcluded(node)) {
+            if (succ[pred].intValue() != node || isExcluded(node)) {
                 // the insertion points asked differs from the current / the node is excluded
                 throw INCONSISTENCY;
             } else {
@@ -351,7 +351,7 @@ public class CPSequenceVarImpl implements CPSequenceVar {
         else if (!insertionVars[node].contains(pred)) {
             throw INCONSISTENCY; // the insertion var did not contain the node
         }
-        int succNode = succ[pred].value();
+        int succNode = succ[pred].intValue();
         succ[pred].setValue(node);
         succ[node].setValue(succNode);
         this.pred[node].setValue(pred);
@@ -472,12 +472,12 @@ public class CPSequenceVarImpl implements CPSequenceVar {
 
     @Override
     public int nPossibleInsertion(int node) {
-        return insertionVars[node].nPossible.value();
+        return insertionVars[node].nPossible.intValue();
     }
 
     @Override
     public int nMemberInsertion(int node) {
-        return insertionVars[node].nMember.value();
+        return insertionVars[node].nMember.intValue();
     }
 
     @Override
@@ -21,6 +21,8 @@ import org.maxicp.util.Procedure;
 import org.maxicp.search.DFSearch;
 import org.maxicp.util.exception.InconsistencyException;
 
+import java.util.function.Consumer;
+
 public interface CPSolver {
 
     /**
@@ -35,7 +37,10 @@ public interface CPSolver {
 
     /**
      * Schedules the constraint to be propagated by the fix-point.
+     * An idempotent constraint is not scheduled
+     * while it is being propagated.
      *
+     * @see CPConstraint#isIdempotent()
      * @param c the constraint to be scheduled
      */
     void schedule(CPConstraint c);
@@ -70,6 +75,36 @@ public interface CPSolver {
      */
     void onFixPoint(Procedure listener);
 
+    /**
+     * Adds a listener called whenever the propagation of a constraint
+     * fails during the fix-point, before the {@link InconsistencyException}
+     * is thrown to the caller.
+     * Failures that are not raised by the propagation of a constraint,
+     * such as the ones of the fix-point listeners, are not notified.
+     *
+     * @param listener the listener called with the constraint whose propagation failed
+     * @see #fixPoint()
+     */
+    void onFailure(Consumer<CPConstraint> listener);
+
+    /**
+     * Returns the number of propagations performed since the creation of the solver,
+     * that is the number of calls to {@link CPConstraint#propagate()} by the fix-point.
+     *
+     * @return the number of propagations
+     */
+    long numberOfPropagations();
+
+    /**
+     * Returns the profiler recording the propagation of the constraints.
+     *
+     * @return the profiler attached to the solver, null if profiling is disabled
+     * @see MiniCP#setProfiler(PropagationProfiler)
+     */
+    default PropagationProfiler getProfiler() {
+        return null;
+    }
+
     /**
      * Creates a minimization objective on the given variable.
      *
@@ -2,7 +2,7 @@ package org.maxicp.cp.engine.core;
 
 import org.maxicp.state.StateManager;
 
-import java.util.Iterator;
+import java.util.PrimitiveIterator;
 
 /**
  * Object that allows to retrieve
@@ -83,15 +83,19 @@ public interface DeltaCPIntVar extends Delta, Iterable<Integer> {
 
     /**
      * An iterator on the delta set
-     * This iterator is not computed lazily
+     * This iterator is not computed lazily.
+     * Use {@link PrimitiveIterator.OfInt#nextInt()}
+     * to iterate without boxing the values.
      *
      * @return an iterator on the delta set
      */
-    public Iterator<Integer> iterator();
+    public PrimitiveIterator.OfInt iterator();
 
     /**
      * Fill the prefix of the array with
      * the values in the delta set.
+     * The cost is linear in the size of the delta set,
+     * not in the size of the domain.
      *
      * @param values the array to fill, its size should be large enough
      *               that is at least oldSize-current domain size.
@@ -1,23 +1,37 @@
 package org.maxicp.cp.engine.core;
 
-import org.maxicp.state.State;
+import org.maxicp.state.StateInt;
+import org.maxicp.state.StateManager;
 
 import java.util.ConcurrentModificationException;
-import java.util.Iterator;
-
+import java.util.PrimitiveIterator;
+
+/**
+ * Delta set of a variable, read from the removal log of its domain.
+ * The sparse-set domain keeps its removed values
+ * in the positions {@code [size(), oldSize())},
+ * so remembering the size of the domain at the end of the
+ * previous propagation is enough to retrieve
+ * the values removed since then in {@code O(oldSize-size())},
+ * without scanning the domain.
+ */
 public class DeltaCPIntVarImpl implements DeltaCPIntVar {
 
-    private State<DeltaState> deltaState;
-    private CPIntVar x;
+    private final StateInt oldSize;
+    private final StateInt oldMin;
+    private final StateInt oldMax;
+    private final CPIntVar x;
 
-    private int [] iteratorValues;
+    private int [] iteratorValues = new int[0];
     private int iteratorSize = -1;
     private int iteratorTimeStamp;
 
     public DeltaCPIntVarImpl(CPIntVar x) {
-        this.deltaState = x.getSolver().getStateManager().makeStateRef(null);
+        StateManager sm = x.getSolver().getStateManager();
+        this.oldSize = sm.makeStateInt(x.size());
+        this.oldMin = sm.makeStateInt(x.min());
+        this.oldMax = sm.makeStateInt(x.max());
         this.x = x;
-        iteratorValues = new int[x.size()];
     }
 
     @Override
@@ -27,17 +41,17 @@ public class DeltaCPIntVarImpl implements DeltaCPIntVar {
 
     @Override
     public int oldMin() {
-        return deltaState.value().oldMin();
+        return oldMin.intValue();
     }
 
     @Override
     public int oldMax() {
-        return deltaState.value().oldMax();
+        return oldMax.intValue();
     }
 
     @Override
     public int oldSize() {
-        return deltaState.value().oldSize();
+        return oldSize.intValue();
     }
 
     @Override
@@ -61,9 +75,11 @@ public class DeltaCPIntVarImpl implements DeltaCPIntVar {
     }
 
     @Override
-    public Iterator<Integer> iterator() {
+    public PrimitiveIterator.OfInt iterator() {
+        if (iteratorValues.length < size())
+            iteratorValues = new int[oldSize()];
         iteratorSize = fillArray(iteratorValues);
-        return new Iterator<Integer>() {
+        return new PrimitiveIterator.OfInt() {
             final int ts = iteratorTimeStamp;
             int i = 0;
             @Override
@@ -76,7 +92,7 @@ public class DeltaCPIntVarImpl implements DeltaCPIntVar {
             }
 
             @Override
-            public Integer next() {
+            public int nextInt() {
                 return iteratorValues[i++];
             }
         };
@@ -84,16 +100,18 @@ public class DeltaCPIntVarImpl implements DeltaCPIntVar {
 
     @Override
     public int fillArray(int[] values) {
-        DeltaState ds = deltaState.value();
-        return x.fillDeltaArray(ds.oldMin(),ds.oldMax(),ds.oldSize(), values);
+        return x.fillDeltaArray(oldMin(), oldMax(), oldSize(), values);
     }
 
     @Override
     public void update() {
         iteratorTimeStamp++;
-        deltaState.setValue(new DeltaState(x.size(),x.min(),x.max()));
+        int size = x.size();
+        if (size != oldSize.intValue()) {
+            // the bounds cannot change without a change of the size
+            oldSize.setValue(size);
+            oldMin.setValue(x.min());
+            oldMax.setValue(x.max());
+        }
     }
 }
-
-record DeltaState (int oldSize, int oldMin, int oldMax){}
-
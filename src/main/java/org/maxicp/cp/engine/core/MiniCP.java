@@ -26,20 +26,33 @@ import java.util.ArrayDeque;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.function.Consumer;
 
 
 public class MiniCP implements CPSolver {
 
-    private Queue<CPConstraint> propagationQueue = new ArrayDeque<>();
+    // one propagation queue per priority level
+    private final Queue<CPConstraint>[] propagationQueues;
     private List<Procedure> fixPointListeners = new LinkedList<>();
+    private List<Consumer<CPConstraint>> failureListeners = new LinkedList<>();
 
     private final StateManager sm;
 
     private final StateStack<CPIntVar> vars;
 
+    private PropagationProfiler profiler = null;
+
+    // constraint being propagated, whose own events are ignored if it is idempotent
+    private CPConstraint propagating = null;
+
+    private long nPropagations = 0;
+
     public MiniCP(StateManager sm) {
         this.sm = sm;
         vars = new StateStack<>(sm);
+        propagationQueues = new Queue[CPConstraint.N_PRIORITIES];
+        for (int i = 0; i < propagationQueues.length; i++)
+            propagationQueues[i] = new ArrayDeque<>();
     }
 
     @Override
@@ -48,9 +61,11 @@ public class MiniCP implements CPSolver {
     }
 
     public void schedule(CPConstraint c) {
+        if (c == propagating && c.isIdempotent())
+            return;
         if (c.isActive() && !c.isScheduled()) {
             c.setScheduled(true);
-            propagationQueue.add(c);
+            propagationQueues[c.priority()].add(c);
         }
     }
 
@@ -63,30 +78,88 @@ public class MiniCP implements CPSolver {
         fixPointListeners.forEach(s -> s.call());
     }
 
+    @Override
+    public long numberOfPropagations() {
+        return nPropagations;
+    }
+
+    @Override
+    public void onFailure(Consumer<CPConstraint> listener) {
+        failureListeners.add(listener);
+    }
+
     @Override
     public void fixPoint() {
         try {
             notifyFixPoint();
-            while (!propagationQueue.isEmpty()) {
-                propagate(propagationQueue.remove());
+            CPConstraint c;
+            while ((c = nextScheduled()) != null) {
+                propagate(c);
             }
         } catch (InconsistencyException e) {
-            // empty the queue and unset the scheduled status
-            while (!propagationQueue.isEmpty())
-                propagationQueue.remove().setScheduled(false);
+            CPConstraint failed = propagating;
+            propagating = null;
+            // empty the queues and unset the scheduled status
+            for (Queue<CPConstraint> queue : propagationQueues)
+                while (!queue.isEmpty())
+                    queue.remove().setScheduled(false);
+            if (failed != null)
+                for (Consumer<CPConstraint> listener : failureListeners)
+                    listener.accept(failed);
             throw e;
         }
     }
 
+    /**
+     * Dequeues the next constraint to propagate,
+     * from the non-empty queue with the highest priority.
+     *
+     * @return the next constraint to propagate, null if no constraint is scheduled
+     */
+    private CPConstraint nextScheduled() {
+        for (Queue<CPConstraint> queue : propagationQueues)
+            if (!queue.isEmpty())
+                return queue.remove();
+        return null;
+    }
+
     private void propagate(CPConstraint c) {
         c.setScheduled(false);
         if (c.isActive()) {
-            c.propagate();
-            c.updateDeltas();
+            CPConstraint previous = propagating;
+            propagating = c;
+            nPropagations++;
+            if (profiler == null) {
+                c.propagate();
+                c.updateDeltas();
+            } else {
+                profiler.propagate(c);
+            }
+            propagating = previous;
+            if (c.isEntailed())
+                c.setActive(false);
         }
 
     }
 
+    /**
+     * Attaches a profiler recording the propagation
+     * of every constraint during the next fix-points.
+     * A profiler can only be attached to one solver.
+     *
+     * @param profiler the profiler to attach, null to disable profiling
+     */
+    public void setProfiler(PropagationProfiler profiler) {
+        if (profiler != null)
+            profiler.attach(sm);
+        this.profiler = profiler;
+    }
+
+    @Override
+    public PropagationProfiler getProfiler() {
+        return profiler;
+    }
+
     @Override
     public Objective minimize(CPIntVar x) {
         return new Minimize(x);
@@ -104,7 +177,11 @@ public class MiniCP implements CPSolver {
 
     @Override
     public void post(CPConstraint c, boolean enforceFixPoint) {
+        if (profiler != null)
+            profiler.posted(c);
         c.post();
+        if (c.isEntailed())
+            c.setActive(false);
         if (enforceFixPoint) fixPoint();
     }
 
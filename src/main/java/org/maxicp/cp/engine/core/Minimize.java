@@ -35,4 +35,20 @@ public class Minimize implements Objective {
         this.bound = x.max() - 1;
         throw InconsistencyException.INCONSISTENCY;
     }
+
+    @Override
+    public int solutionValue() {
+        if (!x.isFixed()) throw new RuntimeException("objective not bound");
+        return x.min();
+    }
+
+    @Override
+    public void tighten(int value) {
+        bound = Math.min(bound, value - 1);
+    }
+
+    @Override
+    public boolean isBetter(int value, int other) {
+        return value < other;
+    }
 }
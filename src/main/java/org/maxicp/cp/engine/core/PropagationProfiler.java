@@ -0,0 +1,317 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.engine.core;
+
+import org.maxicp.state.StateInt;
+import org.maxicp.state.StateManager;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.*;
+
+/**
+ * Opt-in instrumentation of the propagation performed by {@link MiniCP#fixPoint()}.
+ * Once attached with {@link MiniCP#setProfiler(PropagationProfiler)},
+ * every call to {@link CPConstraint#propagate()} is recorded with
+ * its duration, whether it failed and how many values it removed
+ * from the domains of the integer variables.
+ * The statistics are kept for each constraint instance while it is posted:
+ * when a constraint posted during the search is undone on backtrack,
+ * its statistics are only kept in the totals of its class,
+ * such that the memory used does not grow with the number of nodes.
+ * When no profiler is attached, the fix-point is left untouched.
+ *
+ * <p>Typical usage:
+ * <pre>
+ * {@code
+ * PropagationProfiler profiler = new PropagationProfiler();
+ * ((MiniCP) cp).setProfiler(profiler);
+ * dfs.solve();
+ * System.out.println(profiler.byClass());
+ * }
+ * </pre>
+ */
+public class PropagationProfiler {
+
+    /**
+     * Statistics of the propagation of a constraint,
+     * or of all the constraints of a given class.
+     */
+    public static class Entry {
+
+        private final String name;
+        private long nCalls = 0;
+        private long nanos = 0;
+        private long nFailures = 0;
+        private long nRemoved = 0;
+
+        private Entry(String name) {
+            this.name = name;
+        }
+
+        private void add(Entry other) {
+            nCalls += other.nCalls;
+            nanos += other.nanos;
+            nFailures += other.nFailures;
+            nRemoved += other.nRemoved;
+        }
+
+        /**
+         * @return the name of the constraint class, or of the instance
+         */
+        public String name() {
+            return name;
+        }
+
+        /**
+         * @return the number of calls to {@link CPConstraint#propagate()}
+         */
+        public long numberOfCalls() {
+            return nCalls;
+        }
+
+        /**
+         * @return the cumulated time spent in {@link CPConstraint#propagate()}, in nanoseconds
+         */
+        public long nanoTime() {
+            return nanos;
+        }
+
+        /**
+         * @return the number of calls that raised an {@link InconsistencyException}
+         */
+        public long numberOfFailures() {
+            return nFailures;
+        }
+
+        /**
+         * @return the number of values removed from the domains of the integer variables
+         */
+        public long numberOfRemovedValues() {
+            return nRemoved;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s calls=%d time=%.3fms failures=%d removed=%d",
+                    name, nCalls, nanos / 1e6, nFailures, nRemoved);
+        }
+    }
+
+    /**
+     * Statistics collected by a profiler, sorted by decreasing time.
+     * Can be exported as a table or as CSV.
+     */
+    public static class Report {
+
+        private final List<Entry> entries;
+
+        private Report(List<Entry> entries) {
+            this.entries = entries;
+        }
+
+        /**
+         * @return the entries, sorted by decreasing time
+         */
+        public List<Entry> entries() {
+            return entries;
+        }
+
+        /**
+         * Returns the report in CSV format, with a header line.
+         *
+         * @return the CSV representation of the report
+         */
+        public String toCSV() {
+            StringBuilder b = new StringBuilder("constraint,calls,nanos,failures,removed\n");
+            for (Entry e : entries) {
+                b.append('"').append(e.name.replace("\"", "\"\"")).append('"')
+                        .append(',').append(e.nCalls)
+                        .append(',').append(e.nanos)
+                        .append(',').append(e.nFailures)
+                        .append(',').append(e.nRemoved)
+                        .append('\n');
+            }
+            return b.toString();
+        }
+
+        /**
+         * Returns the report as a human-readable table.
+         *
+         * @return the table representation of the report
+         */
+        @Override
+        public String toString() {
+            int width = "constraint".length();
+            long totalNanos = 0;
+            for (Entry e : entries) {
+                width = Math.max(width, e.name.length());
+                totalNanos += e.nanos;
+            }
+            String format = "%-" + width + "s %12s %12s %7s %12s %14s%n";
+            StringBuilder b = new StringBuilder();
+            b.append(String.format(format, "constraint", "calls", "time(ms)", "time%", "failures", "removed"));
+            for (Entry e : entries) {
+                b.append(String.format(format, e.name, e.nCalls,
+                        String.format("%.3f", e.nanos / 1e6),
+                        String.format("%.1f", totalNanos == 0 ? 0.0 : 100.0 * e.nanos / totalNanos),
+                        e.nFailures, e.nRemoved));
+            }
+            return b.toString();
+        }
+    }
+
+    // statistics of the constraints posted
+    private final Map<CPConstraint, Entry> stats = new IdentityHashMap<>();
+    // statistics of the constraints undone, by class
+    private final Map<Class<?>, Entry> undone = new HashMap<>();
+    private long nRemoved = 0;
+
+    // constraints posted since the profiler is attached, the first nPosted ones being still posted
+    private StateManager sm = null;
+    private StateInt nPosted;
+    private CPConstraint[] posted = new CPConstraint[16];
+    private int nRecorded = 0;
+
+    /**
+     * Attaches the profiler to the state manager of a solver,
+     * to forget the constraints undone when the state is restored.
+     *
+     * @param sm the state manager of the solver
+     */
+    void attach(StateManager sm) {
+        if (this.sm == sm)
+            return;
+        if (this.sm != null)
+            throw new IllegalStateException("the profiler is already attached to another solver");
+        this.sm = sm;
+        nPosted = sm.makeStateInt(0);
+        sm.onRestore(this::restored);
+    }
+
+    /**
+     * Notifies that a constraint is posted.
+     *
+     * @param c the constraint posted
+     */
+    void posted(CPConstraint c) {
+        restored();
+        if (nRecorded == posted.length)
+            posted = Arrays.copyOf(posted, nRecorded * 2);
+        posted[nRecorded++] = c;
+        nPosted.setValue(nRecorded);
+    }
+
+    /**
+     * Moves the statistics of the constraints undone to the totals of their class.
+     */
+    private void restored() {
+        int n = nPosted.intValue();
+        for (int i = n; i < nRecorded; i++) {
+            CPConstraint c = posted[i];
+            posted[i] = null;
+            Entry entry = stats.remove(c);
+            if (entry != null)
+                undone.computeIfAbsent(c.getClass(), k -> new Entry(className(k))).add(entry);
+        }
+        nRecorded = Math.min(nRecorded, n);
+    }
+
+    /**
+     * Propagates the constraint and records its statistics.
+     *
+     * @param c the constraint to propagate
+     */
+    void propagate(CPConstraint c) {
+        Entry entry = stats.get(c);
+        if (entry == null) {
+            entry = new Entry(instanceName(c));
+            stats.put(c, entry);
+        }
+        long removedBefore = nRemoved;
+        long start = System.nanoTime();
+        try {
+            c.propagate();
+            c.updateDeltas();
+        } catch (InconsistencyException e) {
+            entry.nFailures++;
+            throw e;
+        } finally {
+            entry.nanos += System.nanoTime() - start;
+            entry.nCalls++;
+            entry.nRemoved += nRemoved - removedBefore;
+        }
+    }
+
+    /**
+     * Notifies the removal of values from the domain of an integer variable.
+     *
+     * @param n the number of values removed
+     */
+    void removed(int n) {
+        nRemoved += n;
+    }
+
+    /**
+     * Discards all the statistics collected so far.
+     */
+    public void reset() {
+        stats.clear();
+        undone.clear();
+        nRemoved = 0;
+    }
+
+    /**
+     * Returns the statistics of each constraint instance still posted.
+     *
+     * @return a report with one entry per constraint posted that was propagated
+     */
+    public Report byInstance() {
+        List<Entry> entries = new ArrayList<>(stats.values());
+        entries.sort(Comparator.comparingLong(Entry::nanoTime).reversed());
+        return new Report(entries);
+    }
+
+    /**
+     * Returns the statistics aggregated by constraint class,
+     * including the constraints undone.
+     *
+     * @return a report with one entry per class of constraint that was propagated
+     */
+    public Report byClass() {
+        Map<Class<?>, Entry> aggregated = new HashMap<>();
+        for (Map.Entry<Class<?>, Entry> e : undone.entrySet())
+            aggregated.computeIfAbsent(e.getKey(), k -> new Entry(className(k))).add(e.getValue());
+        for (Map.Entry<CPConstraint, Entry> e : stats.entrySet())
+            aggregated.computeIfAbsent(e.getKey().getClass(), k -> new Entry(className(k))).add(e.getValue());
+        List<Entry> entries = new ArrayList<>(aggregated.values());
+        entries.sort(Comparator.comparingLong(Entry::nanoTime).reversed());
+        return new Report(entries);
+    }
+
+    private static String className(Class<?> c) {
+        String name = c.getSimpleName();
+        return name.isEmpty() ? c.getName() : name;
+    }
+
+    private static String instanceName(CPConstraint c) {
+        return className(c.getClass()) + "@" + Integer.toHexString(System.identityHashCode(c));
+    }
+
+    @Override
+    public String toString() {
+        return byClass().toString();
+    }
+}
@@ -17,18 +17,18 @@ package org.maxicp.cp.engine.core;
 
 
 import org.maxicp.state.StateManager;
-import org.maxicp.state.datastructures.StateSparseSet;
+import org.maxicp.state.datastructures.SemanticStateSparseSet;
 
 
 /**
  * Implementation of a domain with a sparse-set
  */
 public class SparseSetDomain implements IntDomain {
-    private StateSparseSet domain;
+    private SemanticStateSparseSet domain;
 
 
     public SparseSetDomain(StateManager sm, int min, int max) {
-        domain = new StateSparseSet(sm, max - min + 1, min);
+        domain = new SemanticStateSparseSet(sm, max - min + 1, min);
     }
 
     @Override
@@ -1,11 +1,11 @@
 package org.maxicp.cp.engine.core;
 
 import org.maxicp.state.StateManager;
-import org.maxicp.state.datastructures.StateTriPartition;
+import org.maxicp.state.datastructures.SemanticStateTriPartition;
 
 public class TriPartitionSetDomain implements SetDomain {
 
-    StateTriPartition triPartition;
+    SemanticStateTriPartition triPartition;
 
     /**
      * Creates a tripartition domain with elements {0..n-1} possible
@@ -13,7 +13,7 @@ public class TriPartitionSetDomain implements SetDomain {
      * @param n the size of the tripartition
      */
     public TriPartitionSetDomain(StateManager sm, int n) {
-        triPartition = new StateTriPartition(sm,n);
+        triPartition = new SemanticStateTriPartition(sm,n);
     }
 
     @Override
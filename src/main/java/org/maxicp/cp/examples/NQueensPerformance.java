@@ -69,7 +69,9 @@ public class NQueensPerformance {
         });
 
 
-        System.out.println("time:" + (System.currentTimeMillis() - t0));
+        long time = System.currentTimeMillis() - t0;
+        System.out.println("time:" + time);
+        System.out.format("nodes/s: %.0f\n", stats.numberOfNodes() * 1000.0 / Math.max(1, time));
         System.out.format("#Solutions: %s\n", stats.numberOfSolutions());
         System.out.format("Statistics: %s\n", stats);
 
@@ -18,12 +18,12 @@ package org.maxicp.cp.examples;
 import org.maxicp.cp.engine.core.CPIntVar;
 import org.maxicp.cp.engine.core.CPSolver;
 import org.maxicp.search.DFSearch;
+import org.maxicp.search.LNS;
+import org.maxicp.search.Neighborhoods;
 import org.maxicp.search.Objective;
+import org.maxicp.search.SearchStatistics;
 import org.maxicp.util.io.InputReader;
 
-import java.util.Random;
-import java.util.stream.IntStream;
-
 import static org.maxicp.BranchingScheme.firstFail;
 import static org.maxicp.cp.CPFactory.*;
 
@@ -88,40 +88,11 @@ public class QAPLNS {
 
         // --- Large Neighborhood Search ---
 
-        // Current best solution
-        int[] xBest = IntStream.range(0, n).toArray();
-        /*        int[] xBest = new int[n];
-        for (int i = 0; i < n; i++) {
-            xBest[i] = i;
-            }*/
-
-        dfs.onSolution(() -> {
-            // Update the current best solution
-            for (int i = 0; i < n; i++) {
-                xBest[i] = x[i].min();
-            }
-            System.out.println("objective:" + totCost.min());
-        });
-
+        LNS lns = new LNS(dfs, obj, Neighborhoods.random(x), Neighborhoods.propagationGuided(x));
+        lns.onSolution(() -> System.out.println("objective:" + totCost.min()));
 
         int nRestarts = 1000;
-        int failureLimit = 100;
-        Random rand = new java.util.Random(0);
-
-        for (int i = 0; i < nRestarts; i++) {
-            if (i % 10 == 0)
-                System.out.println("restart number #" + i);
-
-            dfs.optimizeSubjectTo(obj, statistics -> statistics.numberOfFailures() >= failureLimit, () -> {
-                        // Assign the fragment 5% of the variables randomly chosen
-                        for (int j = 0; j < n; j++) {
-                            if (rand.nextInt(100) < 5) {
-                                // after the solveSubjectTo those constraints are removed
-                                cp.post(equal(x[j], xBest[j]));
-                            }
-                        }
-                    }
-            );
-        }
+        SearchStatistics stats = lns.run(statistics -> lns.numberOfIterations() >= nRestarts);
+        System.out.println(stats);
     }
 }
@@ -0,0 +1,96 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.examples;
+
+import org.maxicp.state.StateManager;
+import org.maxicp.state.datastructures.SemanticStateSparseSet;
+import org.maxicp.state.datastructures.SparseSet;
+import org.maxicp.state.datastructures.StateSparseSet;
+import org.maxicp.state.trail.PrimitiveTrailer;
+import org.maxicp.state.trail.Trailer;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Micro-benchmark of the throughput of the remove, removeBelow and removeAllBut operations
+ * of {@link StateSparseSet} and {@link SemanticStateSparseSet}.
+ * Each operation is executed between a {@link StateManager#saveState()} and a {@link StateManager#restoreState()}
+ * on a set of 1000 values, such that the cost of trailing and restoring the set is included.
+ * <p>
+ * Usage: {@code SparseSetBenchmark [repetitions] [set...]}
+ */
+public class SparseSetBenchmark {
+
+    interface Operation {
+        void apply(SparseSet set, int value);
+    }
+
+    interface SparseSetFactory {
+        SparseSet make(StateManager sm, int n);
+    }
+
+    static void measure(String name, Supplier<StateManager> stateManager, SparseSetFactory factory,
+                        String operationName, Operation operation) {
+        final int n = 1000;
+        final int nOperations = 2000000;
+        StateManager sm = stateManager.get();
+        SparseSet set = factory.make(sm, n);
+        Random random = new Random(42);
+        int[] values = new int[1 << 12];
+        for (int i = 0; i < values.length; i++)
+            values[i] = random.nextInt(n);
+        long bytes0 = StateManagerBenchmark.allocatedBytes();
+        long t0 = System.nanoTime();
+        for (int k = 0; k < nOperations; k++) {
+            sm.saveState();
+            // a few operations per level, such that the first one pays for the trailing
+            for (int j = 0; j < 8; j++)
+                operation.apply(set, values[(k * 8 + j) & (values.length - 1)]);
+            sm.restoreState();
+        }
+        long time = System.nanoTime() - t0;
+        long bytes = StateManagerBenchmark.allocatedBytes() - bytes0;
+        double seconds = time / 1e9;
+        System.out.format("%-45s %-13s ops/s: %12.0f  bytes/op: %6.1f%n",
+                name, operationName, nOperations * 8 / seconds, (double) bytes / (nOperations * 8));
+    }
+
+    public static void main(String[] args) {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        Map<String, SparseSetFactory> sets = new LinkedHashMap<>();
+        sets.put("StateSparseSet", (sm, n) -> new StateSparseSet(sm, n, 0));
+        sets.put("SemanticStateSparseSet", (sm, n) -> new SemanticStateSparseSet(sm, n, 0));
+        if (args.length > 1)
+            sets.keySet().retainAll(Arrays.asList(args).subList(1, args.length));
+        Map<String, Supplier<StateManager>> stateManagers = new LinkedHashMap<>();
+        stateManagers.put("Trailer", Trailer::new);
+        stateManagers.put("PrimitiveTrailer", PrimitiveTrailer::new);
+        Map<String, Operation> operations = new LinkedHashMap<>();
+        operations.put("remove", SparseSet::remove);
+        operations.put("removeBelow", (set, v) -> set.removeBelow(v / 8));
+        operations.put("removeAllBut", (set, v) -> set.removeAllBut(v));
+
+        for (Map.Entry<String, SparseSetFactory> set : sets.entrySet())
+            for (Map.Entry<String, Supplier<StateManager>> sm : stateManagers.entrySet())
+                for (Map.Entry<String, Operation> op : operations.entrySet())
+                    for (int r = 0; r <= repetitions; r++) // first run is a warmup
+                        measure(set.getKey() + " / " + sm.getKey(), sm.getValue(), set.getValue(), op.getKey(), op.getValue());
+    }
+}
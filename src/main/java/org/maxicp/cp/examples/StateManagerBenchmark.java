@@ -0,0 +1,180 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.examples;
+
+import org.maxicp.cp.engine.constraints.sequence.Disjoint;
+import org.maxicp.cp.engine.constraints.sequence.Insert;
+import org.maxicp.cp.engine.constraints.sequence.TransitionTimes;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSequenceVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.cp.engine.core.MiniCP;
+import org.maxicp.search.DFSearch;
+import org.maxicp.search.SearchStatistics;
+import org.maxicp.state.StateManager;
+import org.maxicp.state.copy.Copier;
+import org.maxicp.state.copy.IncrementalCopier;
+import org.maxicp.state.trail.PrimitiveTrailer;
+import org.maxicp.state.trail.Trailer;
+import org.maxicp.util.Procedure;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.maxicp.BranchingScheme.*;
+import static org.maxicp.cp.CPFactory.*;
+import static org.maxicp.util.exception.InconsistencyException.INCONSISTENCY;
+
+/**
+ * Compares the state managers on the {@link NQueensPerformance} and {@link TSPTWSequence} models.
+ * For each run, the number of nodes per second and the allocation rate of the search thread are reported.
+ * Run it with a fixed heap (e.g. {@code -Xms2g -Xmx2g}) to get comparable figures.
+ * <p>
+ * Usage: {@code StateManagerBenchmark [repetitions] [stateManager...]}.
+ * Since the JIT profiles of a state manager pollute the ones of the next,
+ * prefer to benchmark a single state manager per JVM.
+ */
+public class StateManagerBenchmark {
+
+    static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * @return the number of bytes allocated so far by the current thread
+     */
+    static long allocatedBytes() {
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Runs the benchmark and prints nodes/sec and allocation rate
+     *
+     * @param name the name of the run
+     * @param run the benchmark to execute
+     */
+    static void measure(String name, Supplier<SearchStatistics> run) {
+        long bytes0 = allocatedBytes();
+        long t0 = System.nanoTime();
+        SearchStatistics stats = run.get();
+        long time = System.nanoTime() - t0;
+        long bytes = allocatedBytes() - bytes0;
+        double seconds = time / 1e9;
+        System.out.format("%-40s time(s): %7.3f  nodes: %9d  nodes/s: %11.0f  MB/s: %9.1f  bytes/node: %9.1f%n",
+                name, seconds, stats.numberOfNodes(), stats.numberOfNodes() / seconds,
+                bytes / 1e6 / seconds, (double) bytes / Math.max(1, stats.numberOfNodes()));
+    }
+
+    /**
+     * N-Queens model of {@link NQueensPerformance}
+     */
+    static SearchStatistics nQueens(StateManager sm, int n, int maxNodes) {
+        CPSolver cp = new MiniCP(sm);
+        CPIntVar[] q = makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(notEqual(q[i], q[j]));
+                cp.post(notEqual(plus(q[i], j - i), q[j]));
+                cp.post(notEqual(minus(q[i], j - i), q[j]));
+            }
+        DFSearch dfs = makeDfs(cp, () -> {
+            CPIntVar qs = selectMin(q,
+                    qi -> qi.size() > 1,
+                    qi -> qi.size());
+            if (qs == null)
+                return EMPTY;
+            else {
+                int v = qs.min();
+                return branch(() -> cp.post(equal(qs, v)), () -> cp.post(notEqual(qs, v)));
+            }
+        });
+        return dfs.solve(statistics -> statistics.numberOfNodes() >= maxNodes);
+    }
+
+    /**
+     * TSPTW model of {@link TSPTWSequence}, solved to optimality
+     */
+    static SearchStatistics tsptw(StateManager sm, String file) {
+        TSPTWSequence.Instance instance = new TSPTWSequence.Instance(file, 100);
+        int[] duration = new int[instance.n];
+        CPSolver cp = new MiniCP(sm);
+        CPIntVar[] time = new CPIntVar[instance.n];
+        CPIntVar distance = makeIntVar(cp, 0, instance.L[0]);
+        for (int i = 0; i < instance.n; ++i)
+            time[i] = makeIntVar(cp, instance.E[i], instance.L[i]);
+        CPSequenceVar route = makeSequenceVar(cp, instance.n, instance.begin, instance.end);
+        cp.post(new TransitionTimes(route, time, distance, instance.distMatrix, duration));
+        cp.post(new Disjoint(route));
+        int[] insertions = new int[instance.n];
+        Supplier<Procedure[]> branching = () -> {
+            if (route.nMember() == instance.n)
+                return EMPTY;
+            int bestNode = -1;
+            int bestInsertions = Integer.MAX_VALUE;
+            for (int node = 1; node < instance.n; ++node) {
+                if (route.isPossible(node)) {
+                    int nInsertions = route.nMemberInsertion(node);
+                    if (nInsertions < bestInsertions) {
+                        bestNode = node;
+                        bestInsertions = nInsertions;
+                    }
+                }
+            }
+            if (bestNode == -1 || bestInsertions == 0)
+                throw INCONSISTENCY;
+            int node = bestNode;
+            int nInsertion = route.fillMemberInsertion(bestNode, insertions);
+            Procedure[] branches = new Procedure[nInsertion];
+            for (int i = 0; i < nInsertion; ++i) {
+                int pred = insertions[i];
+                branches[i] = () -> cp.post(new Insert(route, pred, node));
+            }
+            return branches;
+        };
+        DFSearch search = makeDfs(cp, branching);
+        return search.optimize(cp.minimize(distance));
+    }
+
+    public static void main(String[] args) {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        Map<String, Supplier<StateManager>> stateManagers = new LinkedHashMap<>();
+        stateManagers.put("Trailer", Trailer::new);
+        stateManagers.put("PrimitiveTrailer", PrimitiveTrailer::new);
+        stateManagers.put("Copier", Copier::new);
+        stateManagers.put("IncrementalCopier", IncrementalCopier::new);
+
+        Map<String, Function<StateManager, SearchStatistics>> models = new LinkedHashMap<>();
+        models.put("NQueensPerformance", sm -> nQueens(sm, 88, 1000000));
+        models.put("TSPTWSequence", sm -> tsptw(sm, "data/TSPTW/AFG/rbg010a.tw"));
+
+        if (args.length > 1)
+            stateManagers.keySet().retainAll(Arrays.asList(args).subList(1, args.length));
+
+        for (Map.Entry<String, Function<StateManager, SearchStatistics>> model : models.entrySet()) {
+            for (Map.Entry<String, Supplier<StateManager>> stateManager : stateManagers.entrySet()) {
+                // warmup
+                model.getValue().apply(stateManager.getValue().get());
+                for (int r = 0; r < repetitions; r++) {
+                    measure(model.getKey() + " / " + stateManager.getKey(),
+                            () -> model.getValue().apply(stateManager.getValue().get()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.examples;
+
+import org.maxicp.state.*;
+import org.maxicp.state.trail.PrimitiveTrailer;
+import org.maxicp.state.trail.Trailer;
+import org.maxicp.util.Procedure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Stack;
+import java.util.function.Supplier;
+
+/**
+ * Micro-benchmark of the {@link StateManager#saveState()} / {@link StateManager#restoreState()} throughput
+ * of the trail-based state managers.
+ * It simulates a complete binary search tree in which a few states are modified at each node.
+ * {@link StackTrailer} is the former stack-of-stacks implementation of the {@link Trailer}, kept as a baseline.
+ * <p>
+ * Usage: {@code TrailerBenchmark [repetitions] [stateManager...]}
+ */
+public class TrailerBenchmark {
+
+    /**
+     * Former implementation of the {@link Trailer}:
+     * one {@link Stack} of entries allocated at each {@link #saveState()}
+     * and one entry allocated for each trailed state.
+     */
+    static class StackTrailer implements StateManager {
+
+        static class Backup extends Stack<StateEntry> {
+            void restore() {
+                for (StateEntry se : this)
+                    se.restore();
+            }
+        }
+
+        class StackTrail<T> implements State<T> {
+            private T v;
+            private long lastMagic;
+
+            StackTrail(T initial) {
+                v = initial;
+                lastMagic = magic - 1;
+            }
+
+            @Override
+            public T setValue(T v) {
+                if (v != this.v) {
+                    if (lastMagic != magic) {
+                        lastMagic = magic;
+                        T old = this.v;
+                        current.push(() -> this.v = old);
+                    }
+                    this.v = v;
+                }
+                return this.v;
+            }
+
+            @Override
+            public T value() {
+                return v;
+            }
+        }
+
+        class StackTrailInt extends StackTrail<Integer> implements StateInt {
+            StackTrailInt(int initial) {
+                super(initial);
+            }
+        }
+
+        class StackTrailLong extends StackTrail<Long> implements StateLong {
+            StackTrailLong(long initial) {
+                super(initial);
+            }
+        }
+
+        class StackTrailMap<K, V> implements StateMap<K, V> {
+            private final Map<K, V> map = new IdentityHashMap<>();
+
+            @Override
+            public void put(K k, V v) {
+                if (map.containsKey(k)) {
+                    V old = map.get(k);
+                    current.push(() -> map.put(k, old));
+                } else {
+                    current.push(() -> map.remove(k));
+                }
+                map.put(k, v);
+            }
+
+            @Override
+            public V get(K k) {
+                return map.get(k);
+            }
+        }
+
+        private Stack<Backup> prior = new Stack<>();
+        private Backup current = new Backup();
+        private long magic = 0L;
+        private final List<Procedure> onRestoreListeners = new ArrayList<>();
+
+        @Override
+        public void saveState() {
+            prior.add(current);
+            current = new Backup();
+            magic++;
+        }
+
+        @Override
+        public void restoreState() {
+            current.restore();
+            current = prior.pop();
+            magic++;
+            for (Procedure listener : onRestoreListeners)
+                listener.call();
+        }
+
+        @Override
+        public void restoreStateUntil(int level) {
+            while (getLevel() > level)
+                restoreState();
+        }
+
+        @Override
+        public long getMagic() {
+            return magic;
+        }
+
+        @Override
+        public void pushState(StateEntry entry) {
+            current.push(entry);
+        }
+
+        @Override
+        public void onRestore(Procedure listener) {
+            onRestoreListeners.add(listener);
+        }
+
+        @Override
+        public int getLevel() {
+            return prior.size() - 1;
+        }
+
+        @Override
+        public <T> State<T> makeStateRef(T initValue) {
+            return new StackTrail<>(initValue);
+        }
+
+        @Override
+        public StateInt makeStateInt(int initValue) {
+            return new StackTrailInt(initValue);
+        }
+
+        @Override
+        public StateLong makeStateLong(long initValue) {
+            return new StackTrailLong(initValue);
+        }
+
+        @Override
+        public StateMap makeStateMap() {
+            return new StackTrailMap<>();
+        }
+
+        @Override
+        public void withNewState(Procedure body) {
+            final int level = getLevel();
+            saveState();
+            body.call();
+            restoreStateUntil(level);
+        }
+    }
+
+    private final StateManager sm;
+    private final StateInt[] ints;
+    private final State<Boolean>[] bools;
+    private final int[] modified;
+    private final int changesPerNode;
+    private int cursor = 0;
+    private long nNodes = 0;
+
+    @SuppressWarnings("unchecked")
+    TrailerBenchmark(StateManager sm, int nStates, int changesPerNode) {
+        this.sm = sm;
+        this.changesPerNode = changesPerNode;
+        ints = new StateInt[nStates];
+        bools = new State[nStates];
+        for (int i = 0; i < nStates; i++) {
+            ints[i] = sm.makeStateInt(i * 1000);
+            bools[i] = sm.makeStateRef(true);
+        }
+        Random random = new Random(42);
+        modified = new int[1 << 16];
+        for (int i = 0; i < modified.length; i++)
+            modified[i] = random.nextInt(nStates);
+    }
+
+    private void dfs(int depth) {
+        nNodes++;
+        for (int k = 0; k < changesPerNode; k++) {
+            int i = modified[cursor++ & (modified.length - 1)];
+            ints[i].setValue(ints[i].intValue() + 1000);
+            bools[i].setValue(!bools[i].value());
+        }
+        if (depth == 0)
+            return;
+        sm.saveState();
+        dfs(depth - 1);
+        sm.restoreState();
+        sm.saveState();
+        dfs(depth - 1);
+        sm.restoreState();
+    }
+
+    static void measure(String name, Supplier<StateManager> stateManager, int depth, int changesPerNode) {
+        TrailerBenchmark benchmark = new TrailerBenchmark(stateManager.get(), 10000, changesPerNode);
+        long bytes0 = StateManagerBenchmark.allocatedBytes();
+        long t0 = System.nanoTime();
+        benchmark.dfs(depth);
+        long time = System.nanoTime() - t0;
+        long bytes = StateManagerBenchmark.allocatedBytes() - bytes0;
+        double seconds = time / 1e9;
+        System.out.format("%-20s changes/node: %3d  time(s): %7.3f  save+restore/s: %12.0f  bytes/node: %7.1f%n",
+                name, changesPerNode, seconds, benchmark.nNodes / seconds, (double) bytes / benchmark.nNodes);
+    }
+
+    public static void main(String[] args) {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Map<String, Supplier<StateManager>> stateManagers = new LinkedHashMap<>();
+        stateManagers.put("StackTrailer", StackTrailer::new);
+        stateManagers.put("Trailer", Trailer::new);
+        stateManagers.put("PrimitiveTrailer", PrimitiveTrailer::new);
+        if (args.length > 1)
+            stateManagers.keySet().retainAll(Arrays.asList(args).subList(1, args.length));
+
+        for (Map.Entry<String, Supplier<StateManager>> stateManager : stateManagers.entrySet()) {
+            for (int changesPerNode : new int[]{0, 4, 32}) {
+                measure(stateManager.getKey(), stateManager.getValue(), 20, changesPerNode); // warmup
+                for (int r = 0; r < repetitions; r++)
+                    measure(stateManager.getKey(), stateManager.getValue(), 20, changesPerNode);
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.maxicp.model.Constraint;
 import org.maxicp.model.Model;
 import org.maxicp.model.Var;
 import org.maxicp.model.symbolic.SymbolicModel;
+import org.maxicp.state.StateManager;
 
 import java.util.HashMap;
 
@@ -21,4 +22,12 @@ public interface ConcreteModel extends Model {
      * @param m the model to jump to
      */
     void jumpTo(SymbolicModel m);
+
+    /**
+     * Returns the state manager of the underlying solver,
+     * used to save and restore the state of the model during the search.
+     *
+     * @return the state manager
+     */
+    StateManager getStateManager();
 }
@@ -76,6 +76,17 @@ public class NQueens {
         System.out.println("Time taken for simple resolution: " + (time/1000000000.));
 
 
+        //
+        // Parallel DFS with work stealing
+        //
+        System.out.println("--- PARALLEL DFS (work stealing)");
+        long timeParallel = TimeIt.run(() -> {
+            ParallelDFSearch<ConcreteCPModel> search = new ParallelDFSearch<>(baseModel, CPModelInstantiator.withTrailing, branching, 8);
+            System.out.println("Total number of solutions: " + search.solve().numberOfSolutions());
+        });
+        System.out.println("Time taken for parallel resolution: " + (timeParallel/1000000000.));
+
+
         //
         // Basic EPS solving demo
         //
@@ -101,7 +112,7 @@ public class NQueens {
                 System.out.println("Number of EPS subproblems generated: " + search.solve().numberOfSolutions());
             });
 
-            int count = 0;
+            long count = 0;
             for (var fr : results) {
                 try {
                     count += fr.get().numberOfSolutions();
@@ -136,7 +147,7 @@ public class NQueens {
                     Model m = cp.symbolicCopy();
                     results.add(executorService.submit(() -> epsSolve.apply(m)));
                 });
-                int count = search.solve(ss -> ss.numberOfNodes() > 1000).numberOfSolutions();
+                long count = search.solve(ss -> ss.numberOfNodes() > 1000).numberOfSolutions();
                 for(SymbolicModel m: search.getUnexploredModels()) {
                     results.add(executorService.submit(() -> epsSolve.apply(m)));
                     count += 1;
@@ -144,7 +155,7 @@ public class NQueens {
                 System.out.println("Number of EPS subproblems generated: " + count);
             });
 
-            int count = 0;
+            long count = 0;
             for (var fr : results) {
                 try {
                     count += fr.get().numberOfSolutions();
@@ -156,6 +167,18 @@ public class NQueens {
             executorService.shutdown();
         });
         System.out.println("Time taken for EPS resolution: " + (time3/1000000000.));
+
+        //
+        // EPS driver, with breadth-first decomposition
+        //
+        System.out.println("--- EPS (EmbarrassinglyParallelSearch)");
+        long time4 = TimeIt.run(() -> {
+            EmbarrassinglyParallelSearch<ConcreteCPModel> search = new EmbarrassinglyParallelSearch<>(baseModel, CPModelInstantiator.withTrailing, branching, 8, 30);
+            SearchStatistics stats = search.solve();
+            System.out.println("Number of EPS subproblems generated: " + search.numberOfSubproblems());
+            System.out.println("Total number of solutions (in EPS): " + stats.numberOfSolutions());
+        });
+        System.out.println("Time taken for EPS resolution: " + (time4/1000000000.));
     }
 }
 
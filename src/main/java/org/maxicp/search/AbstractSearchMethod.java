@@ -23,6 +23,7 @@ import org.maxicp.util.exception.NotImplementedException;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Stack;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
@@ -37,6 +38,9 @@ public abstract class AbstractSearchMethod {
     protected List<Procedure> solutionListeners = new LinkedList<Procedure>();
     protected List<Procedure> failureListeners = new LinkedList<Procedure>();
 
+    // counter of propagations of the solver, null if unknown
+    private LongSupplier propagationCounter = null;
+
     public AbstractSearchMethod(StateManager sm, Supplier<Procedure[]> branching) {
         this.sm = sm;
         this.branching = branching;
@@ -64,6 +68,29 @@ public abstract class AbstractSearchMethod {
         failureListeners.add(listener);
     }
 
+    /**
+     * Gives the counter of propagations of the solver explored by the search,
+     * such that the statistics report the propagations performed during the search.
+     *
+     * @param counter the counter of propagations, for instance {@code cp::numberOfPropagations}
+     * @see SearchStatistics#numberOfPropagations()
+     */
+    public void setPropagationCounter(LongSupplier counter) {
+        this.propagationCounter = counter;
+    }
+
+    /**
+     * Creates the statistics of a new search, started at this call.
+     *
+     * @return empty statistics
+     */
+    protected SearchStatistics newStatistics() {
+        SearchStatistics statistics = new SearchStatistics();
+        if (propagationCounter != null)
+            statistics.setPropagationCounter(propagationCounter);
+        return statistics;
+    }
+
     protected void notifySolution() {
         solutionListeners.forEach(s -> s.call());
     }
@@ -81,6 +108,9 @@ public abstract class AbstractSearchMethod {
             catch (StopSearchException ignored) {
 
             }
+            finally {
+                statistics.finish();
+            }
         });
         return statistics;
     }
@@ -92,7 +122,7 @@ public abstract class AbstractSearchMethod {
      * @return an object with the statistics on the search
      */
     public SearchStatistics solve() {
-        SearchStatistics statistics = new SearchStatistics();
+        SearchStatistics statistics = newStatistics();
         return solve(statistics, stats -> false);
     }
 
@@ -106,7 +136,7 @@ public abstract class AbstractSearchMethod {
      * @return an object with the statistics on the search
      */
     public SearchStatistics solve(Predicate<SearchStatistics> limit) {
-        SearchStatistics statistics = new SearchStatistics();
+        SearchStatistics statistics = newStatistics();
         return solve(statistics, limit);
     }
 
@@ -126,7 +156,7 @@ public abstract class AbstractSearchMethod {
      * @return an object with the statistics on the search
      */
     public SearchStatistics solveSubjectTo(Predicate<SearchStatistics> limit, Procedure subjectTo) {
-        SearchStatistics statistics = new SearchStatistics();
+        SearchStatistics statistics = newStatistics();
         sm.withNewState(() -> {
             try {
                 subjectTo.call();
@@ -160,7 +190,7 @@ public abstract class AbstractSearchMethod {
      * @return an object with the statistics on the search
      */
     public SearchStatistics optimize(Objective obj, Predicate<SearchStatistics> limit) {
-        SearchStatistics statistics = new SearchStatistics();
+        SearchStatistics statistics = newStatistics();
         onSolution(obj::tighten);
         return solve(statistics, limit);
     }
@@ -185,11 +215,12 @@ public abstract class AbstractSearchMethod {
      * @return an object with the statistics on the search
      */
     public SearchStatistics optimizeSubjectTo(Objective obj, Predicate<SearchStatistics> limit, Procedure subjectTo) {
-        SearchStatistics statistics = new SearchStatistics();
+        SearchStatistics statistics = newStatistics();
         sm.withNewState(() -> {
             try {
                 subjectTo.call();
-                optimize(obj, limit);
+                onSolution(obj::tighten);
+                solve(statistics, limit);
             }
             catch (InconsistencyException ignored) {
             }
@@ -0,0 +1,90 @@
+package org.maxicp.search;
+
+import org.maxicp.cp.engine.core.CPIntVar;
+
+/**
+ * Activity-based search: branches on the variable with the largest
+ * ratio between its activity and its domain size.
+ * <p>
+ * The activity of a variable is incremented each time its domain
+ * is reduced by the propagation of a decision on another variable,
+ * including the decisions that fail, and decays geometrically at each decision.
+ * The reductions are detected on the variables that are not fixed,
+ * by comparing their domain size before and after the propagation of the decision
+ * (see {@link #observeDecisions()}).
+ * The decay is applied lazily by growing the increment instead
+ * of scaling down all the activities.
+ *
+ * @see <a href="https://doi.org/10.1007/978-3-642-29828-8_15">Michel, Van Hentenryck. Activity-based search for black-box constraint programming solvers</a>
+ */
+public class ActivityBranching extends VariableHeuristicBranching {
+
+    private static final double RESCALE = 1e100;
+
+    private final double decay;
+    private final double[] activity;
+    private final int[] sizeBefore;
+    private double increment = 1;
+
+    /**
+     * Creates an activity-based branching with a decay of 0.999.
+     *
+     * @param x the decision variables, at least one
+     */
+    public ActivityBranching(CPIntVar... x) {
+        this(0.999, x);
+    }
+
+    /**
+     * Creates an activity-based branching.
+     *
+     * @param decay the factor applied to the activities at each decision, in (0,1]
+     * @param x     the decision variables, at least one
+     */
+    public ActivityBranching(double decay, CPIntVar... x) {
+        super(x);
+        if (decay <= 0 || decay > 1) throw new IllegalArgumentException("the decay must be in (0,1]");
+        this.decay = decay;
+        this.activity = new double[x.length];
+        this.sizeBefore = new int[x.length];
+        observeDecisions();
+    }
+
+    /**
+     * Returns the activity of a variable, relatively to the other ones.
+     *
+     * @param i the index of the variable
+     * @return the activity of x[i]
+     */
+    public double activity(int i) {
+        return activity[i] / increment;
+    }
+
+    @Override
+    protected double score(int i) {
+        return -activity[i] / x[i].size();
+    }
+
+    @Override
+    protected void decisionStarted(int var, int v, boolean assign, int size) {
+        int n = numberOfUnfixed();
+        for (int k = 0; k < n; k++)
+            sizeBefore[unfixed[k]] = x[unfixed[k]].size();
+    }
+
+    @Override
+    protected void decisionPropagated(int var, int v, boolean assign, boolean failed) {
+        int n = numberOfUnfixed();
+        for (int k = 0; k < n; k++) {
+            int i = unfixed[k];
+            if (i != var && x[i].size() < sizeBefore[i])
+                activity[i] += increment;
+        }
+        increment /= decay;
+        if (increment > RESCALE) {
+            for (int i = 0; i < activity.length; i++)
+                activity[i] /= RESCALE;
+            increment /= RESCALE;
+        }
+    }
+}
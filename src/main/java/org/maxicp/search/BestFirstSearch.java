@@ -67,6 +67,10 @@ public class BestFirstSearch<T extends Comparable<T>> extends AbstractSearchMeth
         }
     }
 
+    public int numberOfUnexploredModels() {
+        return pq.size();
+    }
+
     public SymbolicModel[] getUnexploredModels() {
         return pq.stream().map(x -> x.m).toArray(SymbolicModel[]::new);
     }
@@ -0,0 +1,102 @@
+package org.maxicp.search;
+
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.state.State;
+import org.maxicp.util.Procedure;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.maxicp.BranchingScheme.EMPTY;
+import static org.maxicp.BranchingScheme.assignOrRemove;
+
+/**
+ * Conflict ordering search: branches on the variable that is not fixed
+ * and that was involved in the most recent failure,
+ * and falls back to a variable selector when none of the conflicting
+ * variables is still to branch on.
+ * A variable is involved in a failure when a decision on it fails.
+ * The failures are observed through {@link CPSolver#onFailure(java.util.function.Consumer)},
+ * the variable of the node being kept in the state, such that the alternatives
+ * remain the {@link org.maxicp.BranchingScheme.Assign} and {@link org.maxicp.BranchingScheme.Remove} decisions
+ * (recognized for instance by the nogoods of a restart search).
+ * <p>
+ * The conflicting variables are kept in a list ordered by decreasing time
+ * of their last failure: a failure moves its variable to the front in constant time,
+ * and the selection stops at the first variable of the list that is not fixed,
+ * instead of looking for the maximum time among all the variables.
+ * The order is learned during the whole search and is not restored on backtrack.
+ *
+ * @see <a href="https://doi.org/10.1007/978-3-319-23219-5_10">Gay, Hartert, Lecoutre, Schaus. Conflict ordering search for scheduling problems</a>
+ */
+public class ConflictOrderingBranching implements Supplier<Procedure[]> {
+
+    private static final class Conflict {
+        final CPIntVar x;
+        Conflict previous, next;
+
+        Conflict(CPIntVar x) {
+            this.x = x;
+        }
+    }
+
+    private final Supplier<CPIntVar> variableSelector;
+    private final Function<CPIntVar, Integer> valueSelector;
+    private final Map<CPIntVar, Conflict> conflicts = new IdentityHashMap<>();
+    // most recent conflict
+    private Conflict first = null;
+    // variable of the current node, null above the first one
+    private State<CPIntVar> branched = null;
+
+    /**
+     * Creates a conflict ordering search.
+     *
+     * @param variableSelector returns the next variable to bind when no
+     *                         conflicting variable is left, null if all are fixed
+     * @param valueSelector    given a variable, returns the value to which
+     *                         it must be assigned on the left branch (and excluded on the right)
+     */
+    public ConflictOrderingBranching(Supplier<CPIntVar> variableSelector, Function<CPIntVar, Integer> valueSelector) {
+        this.variableSelector = variableSelector;
+        this.valueSelector = valueSelector;
+    }
+
+    @Override
+    public Procedure[] get() {
+        CPIntVar xs = null;
+        for (Conflict c = first; c != null && xs == null; c = c.next)
+            if (!c.x.isFixed())
+                xs = c.x;
+        if (xs == null)
+            xs = variableSelector.get();
+        if (xs == null)
+            return EMPTY;
+        if (branched == null) {
+            CPSolver cp = xs.getSolver();
+            branched = cp.getStateManager().makeStateRef(null);
+            cp.onFailure(c -> {
+                if (branched.value() != null)
+                    conflict(branched.value());
+            });
+        }
+        branched.setValue(xs);
+        return assignOrRemove(xs, valueSelector.apply(xs));
+    }
+
+    /**
+     * Moves a variable to the front of the conflicts.
+     */
+    private void conflict(CPIntVar x) {
+        Conflict c = conflicts.computeIfAbsent(x, Conflict::new);
+        if (c == first) return;
+        if (c.previous != null) c.previous.next = c.next;
+        if (c.next != null) c.next.previous = c.previous;
+        c.previous = null;
+        c.next = first;
+        if (first != null) first.previous = c;
+        first = c;
+    }
+}
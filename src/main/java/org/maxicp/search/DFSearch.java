@@ -17,54 +17,113 @@ package org.maxicp.search;
 
 import org.maxicp.state.StateManager;
 import org.maxicp.util.exception.InconsistencyException;
-import org.maxicp.util.exception.NotImplementedException;
 import org.maxicp.util.Procedure;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Stack;
+import java.util.Arrays;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 /**
  * Depth First Search Branch and Bound implementation
+ * <p>
+ * The tree is explored without recursion: the open nodes are kept in an
+ * explicit stack of frames, each frame holding the alternatives of a node,
+ * the index of the next alternative to explore and the level of the state
+ * manager at this node. Before each alternative, the state is restored
+ * to the level of its node and saved again, such that no closure
+ * is created during the search.
  */
 public class DFSearch extends AbstractSearchMethod {
+
+    private static final int INITIAL_DEPTH = 64;
+
+    // the frames of the open nodes, indexed by their depth
+    protected Procedure[][] alternatives = new Procedure[INITIAL_DEPTH][];
+    protected int[] next = new int[INITIAL_DEPTH];
+    protected int[] level = new int[INITIAL_DEPTH];
+    protected int depth = 0;
+
     public DFSearch(StateManager sm, Supplier<Procedure[]> branching) {
         super(sm, branching);
     }
 
-    // solution to DFS with explicit stack
-    private void expandNode(Stack<Procedure> alternatives, SearchStatistics statistics) {
+    protected void startSolve(SearchStatistics statistics, Predicate<SearchStatistics> limit) {
+        try {
+            dfs(statistics, limit);
+        } finally {
+            clearFrames();
+        }
+    }
+
+    /**
+     * Explores the tree rooted at the current node.
+     * When the limit stops the search, the frames of the open nodes are left
+     * on the stack: {@code alternatives[d]} are the alternatives of the node at depth {@code d},
+     * of which the first {@code next[d]} were started.
+     *
+     * @param statistics the statistics to update
+     * @param limit      the predicate tested before each alternative
+     * @throws StopSearchException if the limit stops the search
+     */
+    protected void dfs(SearchStatistics statistics, Predicate<SearchStatistics> limit) {
         Procedure[] alts = branching.get();
         if (alts.length == 0) {
             statistics.incrSolutions();
             notifySolution();
-        } else {
-            for (int i = alts.length - 1; i >= 0; i--) {
-                Procedure a = alts[i];
-                alternatives.push(() -> sm.restoreState());
-                alternatives.push(() -> {
-                    statistics.incrNodes();
-                    a.call();
-                    expandNode(alternatives, statistics);
-                });
-                alternatives.push(() -> sm.saveState());
-            }
+            return;
         }
-    }
+        alternatives[0] = alts;
+        level[0] = sm.getLevel();
+        depth = 1;
 
-    protected void startSolve(SearchStatistics statistics, Predicate<SearchStatistics> limit) {
-        Stack<Procedure> alternatives = new Stack<Procedure>();
-        expandNode(alternatives, statistics);
-        while (!alternatives.isEmpty()) {
+        while (depth > 0) {
+            int top = depth - 1;
+            if (next[top] == alternatives[top].length) {
+                // all the alternatives of the node are explored
+                alternatives[top] = null;
+                next[top] = 0;
+                depth--;
+                continue;
+            }
             if (limit.test(statistics)) throw new StopSearchException();
+            sm.restoreStateUntil(level[top]);
+            sm.saveState();
+            Procedure alternative = alternatives[top][next[top]++];
             try {
-                alternatives.pop().call();
+                statistics.incrNodes();
+                statistics.recordDepth(depth);
+                alternative.call();
+                alts = branching.get();
+                if (alts.length == 0) {
+                    statistics.incrSolutions();
+                    notifySolution();
+                } else {
+                    if (depth == alternatives.length) {
+                        alternatives = Arrays.copyOf(alternatives, depth * 2);
+                        next = Arrays.copyOf(next, depth * 2);
+                        level = Arrays.copyOf(level, depth * 2);
+                    }
+                    alternatives[depth] = alts;
+                    level[depth] = sm.getLevel();
+                    depth++;
+                }
             } catch (InconsistencyException e) {
                 statistics.incrFailures();
                 notifyFailure();
             }
+            statistics.recordTrailSize(sm.trailSize());
+        }
+        sm.restoreStateUntil(level[0]);
+    }
+
+    /**
+     * Empties the stack of frames.
+     */
+    protected void clearFrames() {
+        for (int d = 0; d < depth; d++) {
+            alternatives[d] = null;
+            next[d] = 0;
         }
+        depth = 0;
     }
 }
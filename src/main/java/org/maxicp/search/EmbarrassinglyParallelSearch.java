@@ -0,0 +1,292 @@
+package org.maxicp.search;
+
+import org.maxicp.model.ModelDispatcher;
+import org.maxicp.model.concrete.ConcreteModel;
+import org.maxicp.model.symbolic.SymbolicModel;
+import org.maxicp.state.StateManager;
+import org.maxicp.util.Procedure;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Embarrassingly Parallel Search (EPS).
+ * <p>
+ * The top of the search tree is first explored breadth-first with a
+ * {@link BestFirstSearch} until it has at least {@code subproblemsPerWorker * nWorkers}
+ * open nodes. Those consistent subproblems, given by
+ * {@link BestFirstSearch#getUnexploredModels()}, are then solved
+ * independently by a depth first search on a pool of threads.
+ * Each thread instantiates a single concrete model and jumps from one
+ * subproblem to the next with {@link ConcreteModel#jumpTo(SymbolicModel)}.
+ * The only communication between the threads is the objective
+ * value of the solutions when optimizing.
+ * <p>
+ * As for {@link ParallelDFSearch}, the branching must be expressed on the modeling layer.
+ *
+ * @see <a href="https://doi.org/10.1613/jair.4987">Malapert, Régin, Rezgui. Embarrassingly Parallel Search in Constraint Programming</a>
+ */
+public class EmbarrassinglyParallelSearch<T extends ConcreteModel> {
+
+    // number of nodes explored on a subproblem before the statistics are reported
+    private static final int REPORT_PERIOD = 64;
+
+    private final ModelDispatcher md;
+    private final ModelDispatcher.ModelInstantiator<T> instantiator;
+    private final Supplier<Procedure[]> branching;
+    private final int nWorkers;
+    private final int subproblemsPerWorker;
+
+    private final List<Procedure> solutionListeners = new LinkedList<>();
+
+    // state of the current solve
+    private volatile boolean stop;
+    private SearchStatistics statistics;
+    private Predicate<SearchStatistics> limit;
+    private Function<T, Objective> objectiveFactory;
+    private final SharedSolutionValues solutionValues = new SharedSolutionValues();
+    private int nSubproblems;
+
+    /**
+     * Creates an EPS on the current model of the dispatcher.
+     *
+     * @param md                   the dispatcher whose current model is solved
+     * @param instantiator         the instantiator used to create the model of each thread
+     * @param branching            the branching, expressed on the modeling layer
+     * @param nWorkers             the number of threads solving the subproblems
+     * @param subproblemsPerWorker the number of subproblems to generate per thread
+     */
+    public EmbarrassinglyParallelSearch(ModelDispatcher md, ModelDispatcher.ModelInstantiator<T> instantiator,
+                                        Supplier<Procedure[]> branching, int nWorkers, int subproblemsPerWorker) {
+        if (nWorkers < 1) throw new IllegalArgumentException("at least one worker is required");
+        if (subproblemsPerWorker < 1) throw new IllegalArgumentException("at least one subproblem per worker is required");
+        this.md = md;
+        this.instantiator = instantiator;
+        this.branching = branching;
+        this.nWorkers = nWorkers;
+        this.subproblemsPerWorker = subproblemsPerWorker;
+    }
+
+    /**
+     * Creates an EPS with one thread per available processor
+     * and 30 subproblems per thread, as advised by the authors of EPS.
+     *
+     * @param md           the dispatcher whose current model is solved
+     * @param instantiator the instantiator used to create the model of each thread
+     * @param branching    the branching, expressed on the modeling layer
+     */
+    public EmbarrassinglyParallelSearch(ModelDispatcher md, ModelDispatcher.ModelInstantiator<T> instantiator,
+                                        Supplier<Procedure[]> branching) {
+        this(md, instantiator, branching, Runtime.getRuntime().availableProcessors(), 30);
+    }
+
+    /**
+     * Adds a listener that is called on each solution.
+     * The listeners are called one at a time, from the thread
+     * that found the solution, with the model of this thread as current model.
+     *
+     * @param listener the closure to be called whenever a solution is found
+     */
+    public void onSolution(Procedure listener) {
+        solutionListeners.add(listener);
+    }
+
+    /**
+     * Returns the number of subproblems generated by the last decomposition.
+     *
+     * @return the number of subproblems solved in parallel
+     */
+    public int numberOfSubproblems() {
+        return nSubproblems;
+    }
+
+    /**
+     * Start the solving process
+     *
+     * @return an object with the statistics on the search,
+     *         aggregated over the decomposition and all the subproblems
+     */
+    public SearchStatistics solve() {
+        return solve(stats -> false);
+    }
+
+    /**
+     * Start the solving process
+     * with a given predicate to stop the search when it becomes true.
+     * The predicate is tested on the statistics aggregated over all the threads,
+     * that are reported periodically and on each solution.
+     *
+     * @param limit a predicate that stops the search when it becomes true
+     * @return an object with the statistics on the search
+     */
+    public SearchStatistics solve(Predicate<SearchStatistics> limit) {
+        return run(null, limit);
+    }
+
+    /**
+     * Start the solving process with a given objective.
+     *
+     * @param objective the function creating the objective on the model of each thread,
+     *                  for instance {@code cp -> cp.minimize(x)}
+     * @return an object with the statistics on the search
+     */
+    public SearchStatistics optimize(Function<T, Objective> objective) {
+        return optimize(objective, stats -> false);
+    }
+
+    /**
+     * Start the solving process with a given objective
+     * and with a given predicate to stop the search when it becomes true.
+     *
+     * @param objective the function creating the objective on the model of each thread,
+     *                  for instance {@code cp -> cp.minimize(x)}
+     * @param limit     a predicate that stops the search when it becomes true
+     * @return an object with the statistics on the search
+     * @see #solve(Predicate)
+     */
+    public SearchStatistics optimize(Function<T, Objective> objective, Predicate<SearchStatistics> limit) {
+        return run(objective, limit);
+    }
+
+    private SearchStatistics run(Function<T, Objective> objective, Predicate<SearchStatistics> limit) {
+        SymbolicModel root = md.getModel().symbolicCopy();
+        this.statistics = new SearchStatistics();
+        this.limit = limit;
+        this.objectiveFactory = objective;
+        this.stop = false;
+        solutionValues.clear();
+
+        ConcurrentLinkedQueue<SymbolicModel> subproblems = new ConcurrentLinkedQueue<>();
+        boolean decomposed = md.runAsConcrete(instantiator, root, (T model) -> decompose(model, subproblems));
+        nSubproblems = subproblems.size();
+        if (decomposed && !stop) {
+            Thread[] threads = new Thread[Math.min(nWorkers, subproblems.size())];
+            RuntimeException[] error = new RuntimeException[1];
+            for (int i = 0; i < threads.length; i++) {
+                threads[i] = new Thread(() -> {
+                    try {
+                        md.runAsConcrete(instantiator, root, (T model) -> solveSubproblems(model, subproblems));
+                    } catch (RuntimeException e) {
+                        synchronized (error) {
+                            if (error[0] == null) error[0] = e;
+                        }
+                        stop = true;
+                    }
+                }, "EmbarrassinglyParallelSearch-" + i);
+                threads[i].start();
+            }
+            for (Thread t : threads) {
+                try {
+                    t.join();
+                } catch (InterruptedException e) {
+                    stop = true;
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (error[0] != null) throw error[0];
+        }
+        if (!stop) statistics.setCompleted();
+        statistics.finish();
+        return statistics;
+    }
+
+    /**
+     * Explores the top of the tree breadth-first until enough open nodes are generated.
+     *
+     * @param model       the model of the decomposition
+     * @param subproblems the queue receiving the open nodes
+     * @return true if the tree was not completely explored by the decomposition
+     */
+    private boolean decompose(T model, ConcurrentLinkedQueue<SymbolicModel> subproblems) {
+        Objective objective = objectiveFactory == null ? null : objectiveFactory.apply(model);
+        long[] order = new long[1];
+        // a first-in first-out evaluation makes the best first search breadth-first
+        BestFirstSearch<Long> bfs = new BestFirstSearch<>(md, model.getStateManager(), branching, () -> order[0]++);
+        bfs.onSolution(() -> {
+            if (objective != null)
+                solutionValues.publish(objective.solutionValue());
+            solutionListeners.forEach(Procedure::call);
+        });
+        int target = nWorkers * subproblemsPerWorker;
+        SearchStatistics decomposition = bfs.solve(s -> bfs.numberOfUnexploredModels() >= target || limit.test(s));
+        statistics.add(decomposition.numberOfNodes(), decomposition.numberOfFailures(), decomposition.numberOfSolutions());
+        if (limit.test(statistics)) stop = true;
+        if (decomposition.isCompleted()) return false;
+        for (SymbolicModel m : bfs.getUnexploredModels())
+            subproblems.add(m);
+        return true;
+    }
+
+    /**
+     * Solves subproblems from the queue until it is empty.
+     *
+     * @param model       the model of this thread
+     * @param subproblems the queue of subproblems
+     */
+    private void solveSubproblems(T model, ConcurrentLinkedQueue<SymbolicModel> subproblems) {
+        StateManager sm = model.getStateManager();
+        Objective objective = objectiveFactory == null ? null : objectiveFactory.apply(model);
+        SharedSolutionValues.Value[] seenSolutionValue = new SharedSolutionValues.Value[1];
+        // statistics of the current subproblem already added to the global ones
+        long[] reported = new long[3];
+
+        DFSearch dfs = new DFSearch(sm, branching);
+        dfs.onSolution(() -> {
+            if (objective != null)
+                solutionValues.publish(objective.solutionValue());
+            synchronized (this) {
+                solutionListeners.forEach(Procedure::call);
+            }
+        });
+        if (objective != null)
+            dfs.onSolution(objective::tighten);
+        // called at each node: shares the incumbent and reports the statistics periodically
+        Predicate<SearchStatistics> nodeLimit = s -> {
+            if (objective != null)
+                seenSolutionValue[0] = solutionValues.tighten(objective, seenSolutionValue[0]);
+            if (s.numberOfSolutions() > reported[2] || s.numberOfNodes() - reported[0] >= REPORT_PERIOD)
+                report(s, reported);
+            return stop;
+        };
+
+        int rootLevel = sm.getLevel();
+        SymbolicModel subproblem;
+        while (!stop && (subproblem = subproblems.poll()) != null) {
+            reported[0] = reported[1] = reported[2] = 0;
+            sm.saveState();
+            try {
+                if (objective != null)
+                    seenSolutionValue[0] = solutionValues.tighten(objective, seenSolutionValue[0]);
+                model.jumpTo(subproblem);
+                SearchStatistics s = dfs.solve(nodeLimit);
+                report(s, reported);
+            } catch (InconsistencyException e) {
+                // the subproblem is pruned by the incumbent
+                reportFailure();
+            }
+            sm.restoreStateUntil(rootLevel);
+        }
+    }
+
+    private void report(SearchStatistics s, long[] reported) {
+        synchronized (statistics) {
+            statistics.add(s.numberOfNodes() - reported[0], s.numberOfFailures() - reported[1], s.numberOfSolutions() - reported[2]);
+            if (limit.test(statistics)) stop = true;
+        }
+        reported[0] = s.numberOfNodes();
+        reported[1] = s.numberOfFailures();
+        reported[2] = s.numberOfSolutions();
+    }
+
+    private void reportFailure() {
+        synchronized (statistics) {
+            statistics.add(0, 1, 0);
+            if (limit.test(statistics)) stop = true;
+        }
+    }
+}
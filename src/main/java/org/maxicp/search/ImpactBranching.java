@@ -0,0 +1,115 @@
+package org.maxicp.search;
+
+import org.maxicp.cp.engine.core.CPIntVar;
+
+/**
+ * Impact-based search: branches on the variable whose assignment
+ * is expected to reduce the search space the most, on its value expected
+ * to reduce it the least.
+ * <p>
+ * The search space is the product of the domain sizes of the variables.
+ * The impact of an assignment {@code x == v} is {@code 1 - after / before},
+ * with {@code before} and {@code after} the search space before and after
+ * its propagation, 1 if it fails, averaged over all the times it was decided.
+ * The variable chosen is the one with the smallest sum over its values
+ * of {@code 1 - impact(x == v)}, the estimation of the search space left below it,
+ * equal to its domain size when nothing is known as in first fail.
+ * The value chosen is the one of smallest impact.
+ *
+ * @see <a href="https://doi.org/10.1007/978-3-540-30201-8_41">Refalo. Impact-based search strategies for constraint programming</a>
+ */
+public class ImpactBranching extends VariableHeuristicBranching {
+
+    // impact[i][v - offset[i]] is the average impact of x[i] == v, over count[i][v - offset[i]] decisions
+    private final int[] offset;
+    private final double[][] impact;
+    private final int[][] count;
+    private final int[] values;
+    // logarithm of the search space before the assignment being propagated
+    private double before;
+
+    /**
+     * Creates an impact-based branching.
+     *
+     * @param x the decision variables, at least one
+     */
+    public ImpactBranching(CPIntVar... x) {
+        super(x);
+        offset = new int[x.length];
+        impact = new double[x.length][];
+        count = new int[x.length][];
+        int maxSize = 0;
+        for (int i = 0; i < x.length; i++) {
+            offset[i] = x[i].min();
+            impact[i] = new double[x[i].max() - x[i].min() + 1];
+            count[i] = new int[impact[i].length];
+            maxSize = Math.max(maxSize, x[i].size());
+        }
+        values = new int[maxSize];
+        observeDecisions();
+    }
+
+    /**
+     * Returns the average impact of an assignment.
+     *
+     * @param i the index of the variable
+     * @param v the value
+     * @return the impact of x[i] == v, 0 if it was never decided
+     */
+    public double impact(int i, int v) {
+        int j = v - offset[i];
+        return j < 0 || j >= impact[i].length ? 0 : impact[i][j];
+    }
+
+    @Override
+    protected double score(int i) {
+        int n = x[i].fillArray(values);
+        double size = 0;
+        for (int k = 0; k < n; k++)
+            size += 1 - impact[i][values[k] - offset[i]];
+        return size;
+    }
+
+    @Override
+    protected int value(int i) {
+        int n = x[i].fillArray(values);
+        int best = values[0];
+        for (int k = 1; k < n; k++) {
+            int v = values[k];
+            double d = impact[i][v - offset[i]] - impact[i][best - offset[i]];
+            if (d < 0 || (d == 0 && v < best))
+                best = v;
+        }
+        return best;
+    }
+
+    @Override
+    protected void decisionStarted(int i, int v, boolean assign, int size) {
+        // only x[i] is reduced yet
+        if (assign)
+            before = logSearchSpace() - Math.log(x[i].size()) + Math.log(size);
+    }
+
+    @Override
+    protected void decisionPropagated(int i, int v, boolean assign, boolean failed) {
+        if (assign)
+            update(i, v, failed ? 1 : 1 - Math.exp(logSearchSpace() - before));
+    }
+
+    private void update(int i, int v, double value) {
+        int j = v - offset[i];
+        count[i][j]++;
+        impact[i][j] += (value - impact[i][j]) / count[i][j];
+    }
+
+    /**
+     * Returns the logarithm of the product of the domain sizes.
+     */
+    private double logSearchSpace() {
+        double size = 0;
+        int n = numberOfUnfixed();
+        for (int k = 0; k < n; k++)
+            size += Math.log(x[unfixed[k]].size());
+        return size;
+    }
+}
@@ -0,0 +1,345 @@
+package org.maxicp.search;
+
+import org.maxicp.util.Procedure;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Large Neighborhood Search with adaptive selection of the neighborhoods.
+ * <p>
+ * A first solution is searched without restriction. Then, at each iteration,
+ * a neighborhood is chosen and restricts the search around the incumbent,
+ * that is explored by the depth first search until a better solution is found
+ * or a number of failures is reached.
+ * <ul>
+ *     <li>The neighborhoods are chosen by a roulette wheel on their score:
+ *     the moving average of the improvement of the objective per failure
+ *     of their recent iterations.</li>
+ *     <li>Each neighborhood has its own intensity (the part of the problem relaxed),
+ *     increased when its neighborhood is explored completely without improvement
+ *     (it is too small), decreased when the failure limit is reached without
+ *     improvement (it is too large).</li>
+ *     <li>The failure limit grows when iterations end on the limit without improvement
+ *     and is reset to its initial value on each improvement.</li>
+ * </ul>
+ * Several LNS can run in parallel with {@link #parallel(int, IntFunction, Predicate)},
+ * sharing their incumbent.
+ *
+ * <p>Typical usage:
+ * <pre>
+ * {@code
+ * LNS lns = new LNS(makeDfs(cp, firstFail(x)), cp.minimize(cost),
+ *         Neighborhoods.random(x), Neighborhoods.propagationGuided(x));
+ * lns.onSolution(() -> System.out.println(cost));
+ * lns.run(s -> lns.numberOfIterations() >= 1000);
+ * }
+ * </pre>
+ *
+ * @see Neighborhoods
+ */
+public class LNS {
+
+    // weight of the last iteration in the score of a neighborhood
+    private static final double SCORE_DECAY = 0.3;
+    // minimum probability for a neighborhood to be chosen, relatively to the uniform choice
+    private static final double MIN_SELECTION = 0.2;
+
+    private final DFSearch search;
+    private final Objective objective;
+    private final Neighborhood[] neighborhoods;
+    private final List<Procedure> solutionListeners = new LinkedList<>();
+
+    private final double[] score;
+    private final double[] intensity;
+    private double minIntensity = 0.05;
+    private double maxIntensity = 1.0;
+    private int initialFailureLimit = 100;
+    private int maxFailureLimit = 10000;
+    private Random random = new Random(0);
+    private boolean randomSet = false;
+
+    // state of the current run
+    private int failureLimit;
+    private int nIterations;
+    private boolean hasSolution;
+    private int bestValue;
+
+    // incumbent shared with the other workers of a parallel LNS, null if running alone
+    private AtomicReference<Incumbent> shared;
+    private Incumbent adopted;
+
+    /**
+     * A solution shared between the workers of a parallel LNS.
+     *
+     * @param value     the objective value of the solution
+     * @param solutions the incumbent of each neighborhood
+     */
+    private record Incumbent(int value, int[][] solutions) {}
+
+    /**
+     * Creates a large neighborhood search.
+     *
+     * @param search        the search exploring the neighborhoods
+     * @param objective     the objective to optimize
+     * @param neighborhoods the relaxation operators, at least one
+     */
+    public LNS(DFSearch search, Objective objective, Neighborhood... neighborhoods) {
+        if (neighborhoods.length == 0) throw new IllegalArgumentException("at least one neighborhood is required");
+        this.search = search;
+        this.objective = objective;
+        this.neighborhoods = neighborhoods;
+        this.score = new double[neighborhoods.length];
+        this.intensity = new double[neighborhoods.length];
+        // the incumbent is recorded before the objective is tightened
+        search.onSolution(this::solution);
+        search.onSolution(objective::tighten);
+    }
+
+    /**
+     * Sets the bounds of the intensity of the neighborhoods.
+     *
+     * @param min the smallest part of the problem relaxed, larger than 0
+     * @param max the largest part of the problem relaxed, at most 1
+     */
+    public void setIntensity(double min, double max) {
+        if (min <= 0 || max > 1 || min > max) throw new IllegalArgumentException("0 < min <= max <= 1 is required");
+        this.minIntensity = min;
+        this.maxIntensity = max;
+    }
+
+    /**
+     * Sets the bounds of the number of failures allowed to explore a neighborhood.
+     *
+     * @param initial the limit of the first iterations and after each improvement
+     * @param max     the largest limit
+     */
+    public void setFailureLimit(int initial, int max) {
+        if (initial < 1 || initial > max) throw new IllegalArgumentException("1 <= initial <= max is required");
+        this.initialFailureLimit = initial;
+        this.maxFailureLimit = max;
+    }
+
+    /**
+     * Sets the source of randomness of the neighborhoods.
+     *
+     * @param random the source of randomness
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+        this.randomSet = true;
+    }
+
+    /**
+     * Adds a listener called on each improving solution.
+     *
+     * @param listener the closure to be called whenever a solution is found
+     */
+    public void onSolution(Procedure listener) {
+        solutionListeners.add(listener);
+    }
+
+    /**
+     * Returns the number of iterations of the last run.
+     *
+     * @return the number of neighborhoods explored
+     */
+    public int numberOfIterations() {
+        return nIterations;
+    }
+
+    /**
+     * Returns the current intensity of a neighborhood.
+     *
+     * @param i the index of the neighborhood
+     * @return the part of the problem relaxed by this neighborhood
+     */
+    public double intensity(int i) {
+        return intensity[i];
+    }
+
+    /**
+     * Returns the current score of a neighborhood.
+     *
+     * @param i the index of the neighborhood
+     * @return the recent improvement of the objective per failure of this neighborhood
+     */
+    public double score(int i) {
+        return score[i];
+    }
+
+    /**
+     * Runs the LNS until a predicate becomes true.
+     * The predicate is tested before each iteration.
+     *
+     * @param stop the predicate on the statistics summed over the iterations
+     * @return the statistics summed over the iterations
+     */
+    public SearchStatistics run(Predicate<SearchStatistics> stop) {
+        SearchStatistics statistics = new SearchStatistics();
+        failureLimit = initialFailureLimit;
+        nIterations = 0;
+        hasSolution = false;
+        for (int i = 0; i < neighborhoods.length; i++) {
+            score[i] = 1;
+            intensity[i] = (minIntensity + maxIntensity) / 2;
+        }
+
+        // first solution
+        SearchStatistics first = search.solve(s -> s.numberOfSolutions() >= 1 || stop.test(s));
+        statistics.add(first);
+        if (first.isCompleted()) {
+            // no solution at all, or the first one is proven optimal
+            statistics.setCompleted();
+            statistics.finish();
+            return statistics;
+        }
+
+        while (!stop.test(statistics)) {
+            adoptShared();
+            if (!hasSolution) break;
+            nIterations++;
+            int k = select();
+            int before = bestValue;
+            int limit = failureLimit;
+            SearchStatistics s = search.solveSubjectTo(st -> st.numberOfFailures() >= limit,
+                    () -> neighborhoods[k].relax(intensity[k], random));
+            statistics.add(s);
+            boolean improved = bestValue != before;
+            double gain = improved ? Math.abs((double) bestValue - before) / Math.max(1, s.numberOfFailures()) : 0;
+            score[k] = (1 - SCORE_DECAY) * score[k] + SCORE_DECAY * gain;
+            if (improved) {
+                failureLimit = initialFailureLimit;
+            } else if (s.isCompleted()) {
+                intensity[k] = Math.min(maxIntensity, intensity[k] * 1.2);
+            } else {
+                intensity[k] = Math.max(minIntensity, intensity[k] * 0.9);
+                failureLimit = Math.min(maxFailureLimit, (int) Math.ceil(failureLimit * 1.1));
+            }
+        }
+        statistics.finish();
+        return statistics;
+    }
+
+    /**
+     * Runs several LNS in parallel, sharing their incumbent.
+     * Each worker creates its own LNS on its own solver, in its own thread,
+     * with the same neighborhoods in the same order, such that the incumbent
+     * of one worker can be used by the others.
+     * Before each iteration, a worker adopts the best solution found by all the workers.
+     * Unless its source of randomness is set by {@code worker}, the worker of index i
+     * is seeded with i, such that the workers relax different parts of the incumbent.
+     *
+     * @param nWorkers the number of threads
+     * @param worker   creates the LNS of the worker of a given index, in the thread of this worker
+     * @param stop     the predicate tested by each worker on its own statistics before each iteration
+     * @return the statistics summed over all the workers
+     */
+    public static SearchStatistics parallel(int nWorkers, IntFunction<LNS> worker, Predicate<SearchStatistics> stop) {
+        if (nWorkers < 1) throw new IllegalArgumentException("at least one worker is required");
+        AtomicReference<Incumbent> shared = new AtomicReference<>();
+        SearchStatistics statistics = new SearchStatistics();
+        Thread[] threads = new Thread[nWorkers];
+        RuntimeException[] error = new RuntimeException[1];
+        for (int i = 0; i < nWorkers; i++) {
+            int id = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    LNS lns = worker.apply(id);
+                    if (!lns.randomSet)
+                        lns.setRandom(new Random(id));
+                    lns.shared = shared;
+                    SearchStatistics s = lns.run(stop);
+                    synchronized (statistics) {
+                        statistics.add(s);
+                    }
+                } catch (RuntimeException e) {
+                    synchronized (error) {
+                        if (error[0] == null) error[0] = e;
+                    }
+                }
+            }, "LNS-" + i);
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (error[0] != null) throw error[0];
+        statistics.finish();
+        return statistics;
+    }
+
+    /**
+     * Chooses a neighborhood by a roulette wheel on the scores,
+     * each neighborhood keeping a minimum probability.
+     */
+    private int select() {
+        int n = neighborhoods.length;
+        double total = 0;
+        for (double s : score) total += s;
+        double[] p = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            p[i] = MIN_SELECTION / n + (1 - MIN_SELECTION) * (total == 0 ? 1.0 / n : score[i] / total);
+            sum += p[i];
+        }
+        double r = random.nextDouble() * sum;
+        for (int i = 0; i < n - 1; i++) {
+            r -= p[i];
+            if (r < 0) return i;
+        }
+        return n - 1;
+    }
+
+    /**
+     * Records a new solution, called before the objective is tightened.
+     */
+    private void solution() {
+        bestValue = objective.solutionValue();
+        hasSolution = true;
+        for (Neighborhood n : neighborhoods)
+            n.storeSolution();
+        solutionListeners.forEach(Procedure::call);
+        if (shared != null) share();
+    }
+
+    /**
+     * Publishes the incumbent if it is better than the shared one.
+     */
+    private void share() {
+        int[][] solutions = new int[neighborhoods.length][];
+        for (int i = 0; i < neighborhoods.length; i++)
+            solutions[i] = neighborhoods[i].solution();
+        Incumbent mine = new Incumbent(bestValue, solutions);
+        Incumbent current;
+        do {
+            current = shared.get();
+            if (current != null && !objective.isBetter(bestValue, current.value())) return;
+        } while (!shared.compareAndSet(current, mine));
+        adopted = mine;
+    }
+
+    /**
+     * Adopts the shared incumbent if it is better than the one of this worker.
+     */
+    private void adoptShared() {
+        if (shared == null) return;
+        Incumbent current = shared.get();
+        if (current == null || current == adopted) return;
+        adopted = current;
+        if (hasSolution && !objective.isBetter(current.value(), bestValue)) return;
+        for (int i = 0; i < neighborhoods.length; i++)
+            neighborhoods[i].setSolution(current.solutions()[i]);
+        objective.tighten(current.value());
+        bestValue = current.value();
+        hasSolution = true;
+    }
+}
@@ -0,0 +1,62 @@
+package org.maxicp.search;
+
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.state.State;
+import org.maxicp.util.Procedure;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.maxicp.BranchingScheme.EMPTY;
+import static org.maxicp.BranchingScheme.assignOrRemove;
+
+/**
+ * Last conflict search: branches on the variable of the last decision that failed
+ * as long as it is not fixed, and falls back to a variable selector otherwise.
+ * <p>
+ * The failures are observed through {@link CPSolver#onFailure(java.util.function.Consumer)},
+ * the variable of the node being kept in the state, such that the alternatives
+ * remain the {@link org.maxicp.BranchingScheme.Assign} and {@link org.maxicp.BranchingScheme.Remove} decisions
+ * (recognized for instance by the nogoods of a restart search).
+ *
+ * @see <a href="https://doi.org/10.1016/j.artint.2009.09.002">Lecoutre, Saïs, Tabary, Vidal. Reasoning from last conflict(s) in constraint programming</a>
+ */
+public class LastConflictBranching implements Supplier<Procedure[]> {
+
+    private final Supplier<CPIntVar> variableSelector;
+    private final Function<CPIntVar, Integer> valueSelector;
+    private CPIntVar lastConflict = null;
+    // variable of the current node, null above the first one
+    private State<CPIntVar> branched = null;
+
+    /**
+     * Creates a last conflict search.
+     *
+     * @param variableSelector returns the next variable to bind when the last
+     *                         conflicting variable is fixed, null if all are fixed
+     * @param valueSelector    given a variable, returns the value to which
+     *                         it must be assigned on the left branch (and excluded on the right)
+     */
+    public LastConflictBranching(Supplier<CPIntVar> variableSelector, Function<CPIntVar, Integer> valueSelector) {
+        this.variableSelector = variableSelector;
+        this.valueSelector = valueSelector;
+    }
+
+    @Override
+    public Procedure[] get() {
+        CPIntVar xs = lastConflict != null && !lastConflict.isFixed() ? lastConflict : variableSelector.get();
+        if (xs == null)
+            return EMPTY;
+        if (branched == null) {
+            CPSolver cp = xs.getSolver();
+            branched = cp.getStateManager().makeStateRef(null);
+            cp.onFailure(c -> {
+                if (branched.value() != null)
+                    lastConflict = branched.value();
+            });
+        }
+        branched.setValue(xs);
+        return assignOrRemove(xs, valueSelector.apply(xs));
+    }
+}
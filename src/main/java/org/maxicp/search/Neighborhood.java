@@ -0,0 +1,54 @@
+package org.maxicp.search;
+
+import java.util.Random;
+
+/**
+ * Relaxation operator of a {@link LNS}.
+ * A neighborhood keeps its own copy of the incumbent solution,
+ * and restricts the search to solutions close to it.
+ *
+ * @see Neighborhoods
+ */
+public interface Neighborhood {
+
+    /**
+     * Records the current solution as the incumbent.
+     * Called on each solution found, when all the variables are fixed.
+     */
+    void storeSolution();
+
+    /**
+     * Restricts the search space to a neighborhood of the incumbent,
+     * for instance by fixing a part of the variables to their value in the incumbent.
+     * Called at the root node, the state being restored after the search of the neighborhood.
+     *
+     * @param intensity the part of the problem to relax, between 0 (nothing) and 1 (everything)
+     * @param random    the source of randomness
+     */
+    void relax(double intensity, Random random);
+
+    /**
+     * Returns a copy of the incumbent, as recorded by {@link #storeSolution()}.
+     * Used to share the incumbent between the workers of a parallel LNS.
+     *
+     * @return the incumbent, null if there is none
+     */
+    int[] solution();
+
+    /**
+     * Replaces the incumbent by a copy of a solution
+     * given by {@link #solution()} on the same neighborhood of another model.
+     *
+     * @param solution the new incumbent
+     */
+    void setSolution(int[] solution);
+
+    /**
+     * Returns a name describing the neighborhood.
+     *
+     * @return the name of the neighborhood
+     */
+    default String name() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,204 @@
+package org.maxicp.search;
+
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSequenceVar;
+import org.maxicp.cp.engine.core.CPSolver;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.maxicp.cp.CPFactory.equal;
+
+/**
+ * Factory of relaxation operators for a {@link LNS}.
+ */
+public final class Neighborhoods {
+
+    private Neighborhoods() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Random relaxation: each variable is fixed to its value
+     * in the incumbent with probability {@code 1 - intensity}.
+     *
+     * @param x the variables of the solution
+     * @return a random neighborhood
+     */
+    public static Neighborhood random(CPIntVar... x) {
+        return new IntNeighborhood("random", x) {
+            @Override
+            public void relax(double intensity, Random random) {
+                CPSolver cp = x[0].getSolver();
+                for (int i = 0; i < x.length; i++)
+                    if (random.nextDouble() >= intensity)
+                        cp.post(equal(x[i], solution[i]), false);
+                cp.fixPoint();
+            }
+        };
+    }
+
+    /**
+     * Propagation guided relaxation: variables chosen at random are fixed to their value
+     * in the incumbent one at a time, with propagation after each of them,
+     * until the search space left is smaller than a given part of the initial one.
+     * The search space is measured as the sum of the logarithms of the domain sizes,
+     * the part kept being {@code intensity}.
+     *
+     * @param x the variables of the solution
+     * @return a propagation guided neighborhood
+     * @see <a href="https://doi.org/10.1007/978-3-540-30201-8_35">Perron, Shaw, Furnon. Propagation Guided Large Neighborhood Search</a>
+     */
+    public static Neighborhood propagationGuided(CPIntVar... x) {
+        return new IntNeighborhood("propagationGuided", x) {
+            private final int[] order = new int[x.length];
+
+            @Override
+            public void relax(double intensity, Random random) {
+                CPSolver cp = x[0].getSolver();
+                double target = intensity * logSize();
+                for (int i = 0; i < order.length; i++)
+                    order[i] = i;
+                for (int n = order.length; n > 0 && logSize() > target; n--) {
+                    int k = random.nextInt(n);
+                    int i = order[k];
+                    order[k] = order[n - 1];
+                    if (!x[i].isFixed())
+                        cp.post(equal(x[i], solution[i]));
+                }
+            }
+
+            private double logSize() {
+                double size = 0;
+                for (CPIntVar xi : x)
+                    size += Math.log(xi.size());
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Time window relaxation for scheduling: the activities overlapping a random
+     * window of the incumbent schedule are relaxed, the other ones start at the
+     * same time as in the incumbent. The length of the window is
+     * {@code intensity} times the makespan of the incumbent.
+     *
+     * @param start    the start of the activities
+     * @param duration the duration of the activities
+     * @return a time window neighborhood
+     */
+    public static Neighborhood timeWindow(CPIntVar[] start, int[] duration) {
+        if (start.length != duration.length)
+            throw new IllegalArgumentException("one duration per activity is required");
+        return new IntNeighborhood("timeWindow", start) {
+            @Override
+            public void relax(double intensity, Random random) {
+                CPSolver cp = start[0].getSolver();
+                int min = Integer.MAX_VALUE, max = Integer.MIN_VALUE;
+                for (int i = 0; i < start.length; i++) {
+                    min = Math.min(min, solution[i]);
+                    max = Math.max(max, solution[i] + duration[i]);
+                }
+                int length = (int) Math.ceil(intensity * (max - min));
+                int from = min + random.nextInt(Math.max(1, max - min - length + 1));
+                int to = from + length;
+                for (int i = 0; i < start.length; i++) {
+                    boolean overlaps = solution[i] < to && solution[i] + duration[i] > from;
+                    if (!overlaps)
+                        cp.post(equal(start[i], solution[i]), false);
+                }
+                cp.fixPoint();
+            }
+        };
+    }
+
+    /**
+     * Segment relaxation for sequences: the nodes of a random segment of the incumbent
+     * sequence are relaxed, the other nodes are inserted in the same order as in the incumbent.
+     * The length of the segment is {@code intensity} times the number of nodes
+     * in the incumbent sequence.
+     *
+     * @param sequence the sequence
+     * @return a sequence segment neighborhood
+     */
+    public static Neighborhood sequenceSegment(CPSequenceVar sequence) {
+        return new Neighborhood() {
+            private int[] order; // order of the nodes in the incumbent, without the bounds
+            private final int[] buffer = new int[sequence.nNode()];
+
+            @Override
+            public void storeSolution() {
+                int n = sequence.fillOrder(buffer, false);
+                order = Arrays.copyOf(buffer, n);
+            }
+
+            @Override
+            public void relax(double intensity, Random random) {
+                int n = order.length;
+                int length = (int) Math.ceil(intensity * n);
+                int from = random.nextInt(Math.max(1, n - length + 1));
+                int pred = sequence.begin();
+                for (int i = 0; i < n; i++) {
+                    if (i >= from && i < from + length) continue;
+                    int node = order[i];
+                    if (!sequence.isMember(node))
+                        sequence.insert(pred, node);
+                    pred = node;
+                }
+                sequence.getSolver().fixPoint();
+            }
+
+            @Override
+            public int[] solution() {
+                return order == null ? null : order.clone();
+            }
+
+            @Override
+            public void setSolution(int[] solution) {
+                order = solution.clone();
+            }
+
+            @Override
+            public String name() {
+                return "sequenceSegment";
+            }
+        };
+    }
+
+    /**
+     * Neighborhood whose incumbent is the value of integer variables.
+     */
+    private abstract static class IntNeighborhood implements Neighborhood {
+        private final String name;
+        private final CPIntVar[] x;
+        protected int[] solution;
+
+        IntNeighborhood(String name, CPIntVar[] x) {
+            this.name = name;
+            this.x = x;
+        }
+
+        @Override
+        public void storeSolution() {
+            if (solution == null)
+                solution = new int[x.length];
+            for (int i = 0; i < x.length; i++)
+                solution[i] = x[i].min();
+        }
+
+        @Override
+        public int[] solution() {
+            return solution == null ? null : solution.clone();
+        }
+
+        @Override
+        public void setSolution(int[] solution) {
+            this.solution = solution.clone();
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+    }
+}
@@ -30,4 +30,32 @@ public interface Objective {
      * the next found solution is better.
      */
     void tighten();
+
+    /**
+     * Returns the value of the objective in the current solution.
+     *
+     * @return the value of the objective variable, that must be fixed
+     */
+    int solutionValue();
+
+    /**
+     * Tightens the primal bound with the value of a solution
+     * found outside of this search, for instance by another worker
+     * of a {@link ParallelDFSearch}, such that the next found
+     * solution is better than it.
+     * Contrary to {@link #tighten()}, this does not fail.
+     *
+     * @param value the objective value of a known solution
+     */
+    void tighten(int value);
+
+    /**
+     * Tests if a solution value is strictly better than another one
+     * for this objective.
+     *
+     * @param value the value to test
+     * @param other the reference value
+     * @return true if a solution of value {@code value} improves one of value {@code other}
+     */
+    boolean isBetter(int value, int other);
 }
@@ -0,0 +1,361 @@
+package org.maxicp.search;
+
+import org.maxicp.model.ModelDispatcher;
+import org.maxicp.model.concrete.ConcreteModel;
+import org.maxicp.model.symbolic.SymbolicModel;
+import org.maxicp.state.StateManager;
+import org.maxicp.util.Procedure;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Depth first search running on several threads with work stealing.
+ * <p>
+ * Each worker owns a concrete model instantiated from the current model
+ * of the dispatcher and explores its part of the tree with a plain
+ * depth first search. The open nodes of a worker are identified by
+ * their {@link SymbolicModel}: an idle worker steals the oldest
+ * unexplored alternative of a busy one, jumps to the corresponding node
+ * on its own model with {@link ConcreteModel#jumpTo(SymbolicModel)}
+ * and explores the subtree rooted at this alternative.
+ * <p>
+ * The branching must be expressed on the modeling layer
+ * (by adding constraints through the {@link ModelDispatcher}),
+ * such that its alternatives apply to the model of the thread executing them.
+ * When optimizing, the value of each solution is shared
+ * with all the workers, that tighten their own objective with it.
+ */
+public class ParallelDFSearch<T extends ConcreteModel> {
+
+    // number of nodes explored by a worker before it reports its statistics
+    private static final int FLUSH_PERIOD = 64;
+
+    private final ModelDispatcher md;
+    private final ModelDispatcher.ModelInstantiator<T> instantiator;
+    private final Supplier<Procedure[]> branching;
+    private final int nWorkers;
+
+    private final List<Procedure> solutionListeners = new LinkedList<>();
+
+    // state of the current solve
+    private List<Worker> workers;
+    private final AtomicInteger busy = new AtomicInteger();
+    private volatile boolean stop;
+    private SearchStatistics statistics;
+    private Predicate<SearchStatistics> limit;
+    private Function<T, Objective> objectiveFactory;
+    private final SharedSolutionValues solutionValues = new SharedSolutionValues();
+
+    /**
+     * Creates a parallel depth first search on the current model of the dispatcher.
+     *
+     * @param md           the dispatcher whose current model is solved
+     * @param instantiator the instantiator used to create the model of each worker
+     * @param branching    the branching, expressed on the modeling layer
+     * @param nWorkers     the number of threads
+     */
+    public ParallelDFSearch(ModelDispatcher md, ModelDispatcher.ModelInstantiator<T> instantiator,
+                            Supplier<Procedure[]> branching, int nWorkers) {
+        if (nWorkers < 1) throw new IllegalArgumentException("at least one worker is required");
+        this.md = md;
+        this.instantiator = instantiator;
+        this.branching = branching;
+        this.nWorkers = nWorkers;
+    }
+
+    /**
+     * Creates a parallel depth first search with one worker per available processor.
+     *
+     * @param md           the dispatcher whose current model is solved
+     * @param instantiator the instantiator used to create the model of each worker
+     * @param branching    the branching, expressed on the modeling layer
+     */
+    public ParallelDFSearch(ModelDispatcher md, ModelDispatcher.ModelInstantiator<T> instantiator,
+                            Supplier<Procedure[]> branching) {
+        this(md, instantiator, branching, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Adds a listener that is called on each solution.
+     * The listeners are called one at a time, from the thread of the worker
+     * that found the solution, with the model of this worker as current model.
+     *
+     * @param listener the closure to be called whenever a solution is found
+     */
+    public void onSolution(Procedure listener) {
+        solutionListeners.add(listener);
+    }
+
+    /**
+     * Start the solving process
+     *
+     * @return an object with the statistics on the search
+     */
+    public SearchStatistics solve() {
+        return solve(stats -> false);
+    }
+
+    /**
+     * Start the solving process
+     * with a given predicate to stop the search when it becomes true.
+     * The predicate is tested on the statistics aggregated over all the workers,
+     * that are reported periodically and on each solution.
+     *
+     * @param limit a predicate that stops the search when it becomes true
+     * @return an object with the statistics on the search
+     */
+    public SearchStatistics solve(Predicate<SearchStatistics> limit) {
+        return run(null, limit);
+    }
+
+    /**
+     * Start the solving process with a given objective.
+     *
+     * @param objective the function creating the objective on the model of each worker,
+     *                  for instance {@code cp -> cp.minimize(x)}
+     * @return an object with the statistics on the search
+     */
+    public SearchStatistics optimize(Function<T, Objective> objective) {
+        return optimize(objective, stats -> false);
+    }
+
+    /**
+     * Start the solving process with a given objective
+     * and with a given predicate to stop the search when it becomes true.
+     *
+     * @param objective the function creating the objective on the model of each worker,
+     *                  for instance {@code cp -> cp.minimize(x)}
+     * @param limit     a predicate that stops the search when it becomes true
+     * @return an object with the statistics on the search
+     * @see #solve(Predicate)
+     */
+    public SearchStatistics optimize(Function<T, Objective> objective, Predicate<SearchStatistics> limit) {
+        return run(objective, limit);
+    }
+
+    private SearchStatistics run(Function<T, Objective> objective, Predicate<SearchStatistics> limit) {
+        SymbolicModel root = md.getModel().symbolicCopy();
+        this.statistics = new SearchStatistics();
+        this.limit = limit;
+        this.objectiveFactory = objective;
+        this.stop = false;
+        solutionValues.clear();
+        workers = new ArrayList<>(nWorkers);
+        for (int i = 0; i < nWorkers; i++)
+            workers.add(new Worker(i));
+        // the first worker starts with the root node
+        busy.set(1);
+        workers.get(0).task = new Task(null, null);
+
+        Thread[] threads = new Thread[nWorkers];
+        RuntimeException[] error = new RuntimeException[1];
+        for (int i = 0; i < nWorkers; i++) {
+            Worker w = workers.get(i);
+            threads[i] = new Thread(() -> {
+                try {
+                    md.runAsConcrete(instantiator, root, w::work);
+                } catch (RuntimeException e) {
+                    synchronized (error) {
+                        if (error[0] == null) error[0] = e;
+                    }
+                    stop = true;
+                }
+            }, "ParallelDFSearch-" + i);
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                stop = true;
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers = null;
+        if (error[0] != null) throw error[0];
+        if (!stop) statistics.setCompleted();
+        statistics.finish();
+        return statistics;
+    }
+
+    /**
+     * An alternative to explore from a node,
+     * the root node of the search if both are null.
+     */
+    private record Task(SymbolicModel node, Procedure alternative) {}
+
+    /**
+     * The alternatives of a node of the tree explored by a worker.
+     */
+    private static final class Frame {
+        final SymbolicModel node;
+        final Procedure[] alternatives;
+        int next = 0;
+
+        Frame(SymbolicModel node, Procedure[] alternatives) {
+            this.node = node;
+            this.alternatives = alternatives;
+        }
+    }
+
+    private final class Worker {
+
+        final int id;
+        // the open nodes, from the root to the current node, guarded by this
+        final ArrayDeque<Frame> frames = new ArrayDeque<>();
+        Task task;
+
+        T model;
+        StateManager sm;
+        Objective objective;
+        SharedSolutionValues.Value seenSolutionValue;
+        // statistics not yet reported
+        int nodes, failures, solutions;
+
+        Worker(int id) {
+            this.id = id;
+        }
+
+        void work(T model) {
+            this.model = model;
+            this.sm = model.getStateManager();
+            this.objective = objectiveFactory == null ? null : objectiveFactory.apply(model);
+            int rootLevel = sm.getLevel();
+            while (!stop) {
+                if (task == null) task = steal();
+                if (task == null) {
+                    if (busy.get() == 0) break;
+                    Thread.yield();
+                    continue;
+                }
+                try {
+                    explore(task);
+                } catch (StopSearchException e) {
+                    stop = true;
+                }
+                sm.restoreStateUntil(rootLevel);
+                report();
+                task = null;
+                busy.decrementAndGet();
+            }
+            report();
+        }
+
+        private void explore(Task task) {
+            sm.saveState();
+            try {
+                if (task.node() == null) {
+                    dfs();
+                } else {
+                    model.jumpTo(task.node());
+                    nodes++;
+                    shareBound();
+                    task.alternative().call();
+                    dfs();
+                }
+            } catch (InconsistencyException e) {
+                failures++;
+            }
+        }
+
+        private void dfs() {
+            if (stop) throw new StopSearchException();
+            if (nodes + failures >= FLUSH_PERIOD) report();
+            Procedure[] alternatives = branching.get();
+            if (alternatives.length == 0) {
+                solution();
+                return;
+            }
+            Frame frame = new Frame(model.symbolicCopy(), alternatives);
+            synchronized (this) {
+                frames.addLast(frame);
+            }
+            try {
+                Procedure alternative;
+                while ((alternative = next(frame)) != null) {
+                    sm.saveState();
+                    try {
+                        nodes++;
+                        shareBound();
+                        alternative.call();
+                        dfs();
+                    } catch (InconsistencyException e) {
+                        failures++;
+                    }
+                    sm.restoreState();
+                }
+            } finally {
+                synchronized (this) {
+                    frames.removeLast();
+                }
+            }
+        }
+
+        private synchronized Procedure next(Frame frame) {
+            return frame.next < frame.alternatives.length ? frame.alternatives[frame.next++] : null;
+        }
+
+        /**
+         * Takes the oldest unexplored alternative of this worker.
+         *
+         * @return the alternative with its node, null if there is none
+         */
+        private synchronized Task give() {
+            for (Frame frame : frames) {
+                if (frame.next < frame.alternatives.length) {
+                    // the thief becomes busy before this worker can become idle
+                    busy.incrementAndGet();
+                    return new Task(frame.node, frame.alternatives[frame.next++]);
+                }
+            }
+            return null;
+        }
+
+        private Task steal() {
+            for (int i = 1; i < nWorkers; i++) {
+                Worker victim = workers.get((id + i) % nWorkers);
+                Task stolen = victim.give();
+                if (stolen != null) return stolen;
+            }
+            return null;
+        }
+
+        private void solution() {
+            solutions++;
+            if (objective != null)
+                solutionValues.publish(objective.solutionValue());
+            synchronized (ParallelDFSearch.this) {
+                solutionListeners.forEach(Procedure::call);
+            }
+            report();
+            if (objective != null) objective.tighten();
+        }
+
+        /**
+         * Tightens the objective with the solutions found by all the workers.
+         */
+        private void shareBound() {
+            if (objective != null)
+                seenSolutionValue = solutionValues.tighten(objective, seenSolutionValue);
+        }
+
+        /**
+         * Adds the local statistics to the global ones and tests the limit.
+         */
+        private void report() {
+            synchronized (statistics) {
+                statistics.add(nodes, failures, solutions);
+                if (limit.test(statistics)) stop = true;
+            }
+            nodes = failures = solutions = 0;
+        }
+    }
+}
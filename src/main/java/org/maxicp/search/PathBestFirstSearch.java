@@ -0,0 +1,226 @@
+package org.maxicp.search;
+
+import org.maxicp.state.StateManager;
+import org.maxicp.util.Procedure;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Best first search storing the open nodes as decision paths.
+ * <p>
+ * An open node is only the decision leading to it from its parent,
+ * such as an {@link org.maxicp.BranchingScheme.Assign} or a {@link org.maxicp.BranchingScheme.Remove},
+ * with a reference to its parent: the nodes with a common prefix share it.
+ * To explore a node, the state is restored to the deepest ancestor
+ * common with the current node, using the level of the state manager
+ * kept for each depth of the current branch,
+ * and the decisions below it are replayed.
+ * The branching is not called again on the ancestors: it can give other
+ * alternatives once the objective is tightened.
+ * The decisions must therefore not depend on the state they were created in.
+ * A replayed decision can fail, for instance because the objective was tightened
+ * since the node was opened: the node is then counted as a failure.
+ * <p>
+ * The nodes are explored by increasing value of the evaluator,
+ * computed when the node is opened, in the order they were opened in case of tie.
+ * The number of open nodes is bounded: when the bound is reached,
+ * the node being explored is not expanded in the open list
+ * but its subtree is explored by a depth first search.
+ *
+ * @param <T> the type of the evaluation of a node
+ * @see BestFirstSearch
+ */
+public class PathBestFirstSearch<T extends Comparable<T>> extends AbstractSearchMethod {
+
+    private static final class Node {
+        final Node parent;
+        // decision applied on the parent to reach this node
+        final Procedure decision;
+        final int depth;
+
+        Node(Node parent, Procedure decision) {
+            this.parent = parent;
+            this.decision = decision;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+        }
+    }
+
+    private record Entry<T extends Comparable<T>>(T order, long rank, Node node) implements Comparable<Entry<T>> {
+        @Override
+        public int compareTo(Entry<T> o) {
+            int c = order.compareTo(o.order);
+            return c != 0 ? c : Long.compare(rank, o.rank);
+        }
+    }
+
+    private final Supplier<T> nodeEvaluator;
+    private final int maxOpenNodes;
+    private final PriorityQueue<Entry<T>> open = new PriorityQueue<>();
+    private final DFSearch spill;
+    private long nOpened;
+
+    // current branch: the node at each depth and the level of the state manager where its state is
+    private Node[] branch = new Node[16];
+    private int[] level = new int[16];
+    private int depth;
+    // ancestors of the next node to explore
+    private Node[] target = new Node[16];
+
+    /**
+     * Creates a best first search with an unbounded open list.
+     *
+     * @param sm            the state manager
+     * @param branching     the branching, whose decisions must not depend on the state
+     * @param nodeEvaluator the evaluation of a node, the smallest being explored first
+     */
+    public PathBestFirstSearch(StateManager sm, Supplier<Procedure[]> branching, Supplier<T> nodeEvaluator) {
+        this(sm, branching, nodeEvaluator, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a best first search.
+     *
+     * @param sm            the state manager
+     * @param branching     the branching, whose decisions must not depend on the state
+     * @param nodeEvaluator the evaluation of a node, the smallest being explored first
+     * @param maxOpenNodes  the maximum number of open nodes, beyond which
+     *                      the subtrees are explored depth first
+     */
+    public PathBestFirstSearch(StateManager sm, Supplier<Procedure[]> branching, Supplier<T> nodeEvaluator, int maxOpenNodes) {
+        super(sm, branching);
+        if (maxOpenNodes < 1) throw new IllegalArgumentException("at least one open node is required");
+        this.nodeEvaluator = nodeEvaluator;
+        this.maxOpenNodes = maxOpenNodes;
+        this.spill = new DFSearch(sm, branching);
+        spill.onSolution(this::notifySolution);
+        spill.onFailure(this::notifyFailure);
+    }
+
+    /**
+     * Returns the number of open nodes, not yet explored.
+     *
+     * @return the size of the open list
+     */
+    public int numberOfOpenNodes() {
+        return open.size();
+    }
+
+    @Override
+    protected void startSolve(SearchStatistics statistics, Predicate<SearchStatistics> limit) {
+        open.clear();
+        nOpened = 0;
+        int rootLevel = sm.getLevel();
+        sm.saveState();
+        Node root = new Node(null, null);
+        branch[0] = root;
+        level[0] = sm.getLevel();
+        depth = 1;
+        open.add(new Entry<>(nodeEvaluator.get(), nOpened++, root));
+        try {
+            while (!open.isEmpty()) {
+                if (limit.test(statistics))
+                    throw new StopSearchException();
+                Node node = open.poll().node();
+                statistics.incrNodes();
+                statistics.recordDepth(node.depth);
+                try {
+                    moveTo(node);
+                } catch (InconsistencyException e) {
+                    statistics.incrFailures();
+                    notifyFailure();
+                    continue;
+                }
+                try {
+                    if (open.size() >= maxOpenNodes) {
+                        // no room left in the open list
+                        try {
+                            spill.dfs(statistics, limit);
+                        } finally {
+                            spill.clearFrames();
+                        }
+                    } else {
+                        expand(node, statistics);
+                    }
+                } catch (InconsistencyException e) {
+                    // a solution listener, such as the tightening of the objective, failed
+                    statistics.incrFailures();
+                    notifyFailure();
+                }
+                statistics.recordTrailSize(sm.trailSize());
+            }
+        } finally {
+            open.clear();
+            Arrays.fill(branch, 0, depth, null);
+            Arrays.fill(target, null);
+            depth = 0;
+            sm.restoreStateUntil(rootLevel);
+        }
+    }
+
+    /**
+     * Opens the children of the current node, or notifies a solution if it has none.
+     */
+    private void expand(Node node, SearchStatistics statistics) {
+        Procedure[] alts = branching.get();
+        if (alts.length == 0) {
+            statistics.incrSolutions();
+            notifySolution();
+            return;
+        }
+        for (int i = 0; i < alts.length; i++) {
+            sm.saveState();
+            try {
+                alts[i].call();
+                open.add(new Entry<>(nodeEvaluator.get(), nOpened++, new Node(node, alts[i])));
+            } catch (InconsistencyException e) {
+                statistics.incrFailures();
+                notifyFailure();
+            }
+            sm.restoreState();
+        }
+    }
+
+    /**
+     * Restores the state of the deepest ancestor of the node on the current branch,
+     * and replays the decisions from it to the node.
+     *
+     * @throws InconsistencyException if a replayed decision fails
+     */
+    private void moveTo(Node node) {
+        int n = node.depth + 1;
+        if (target.length < n)
+            target = new Node[Math.max(n, target.length * 2)];
+        for (Node cur = node; cur != null; cur = cur.parent)
+            target[cur.depth] = cur;
+        int common = 1; // the root is always common
+        while (common < depth && common < n && branch[common] == target[common])
+            common++;
+        Arrays.fill(branch, common, depth, null);
+        depth = common;
+        sm.restoreStateUntil(level[common - 1]);
+        while (depth < n) {
+            if (depth == branch.length) {
+                branch = Arrays.copyOf(branch, depth * 2);
+                level = Arrays.copyOf(level, depth * 2);
+            }
+            Node next = target[depth];
+            sm.saveState();
+            branch[depth] = next;
+            level[depth] = sm.getLevel();
+            depth++;
+            try {
+                next.decision.call();
+            } catch (InconsistencyException e) {
+                // the failed node is removed from the branch
+                depth--;
+                branch[depth] = null;
+                sm.restoreStateUntil(level[depth - 1]);
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package org.maxicp.search;
+
+import org.maxicp.model.ModelDispatcher;
+import org.maxicp.model.concrete.ConcreteModel;
+import org.maxicp.model.symbolic.SymbolicModel;
+import org.maxicp.util.Procedure;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Portfolio of searches racing on the same problem.
+ * <p>
+ * Each configuration of the portfolio (an instantiator, a branching and a search method)
+ * runs on its own thread, on its own concrete model instantiated from the current
+ * model of the dispatcher. When optimizing, the value of each solution is shared
+ * with the other configurations, that tighten their own objective with it.
+ * The race ends as soon as one configuration completes its search,
+ * as it then proves the optimality of the best solution found by the portfolio
+ * (or, when solving, as it has enumerated all the solutions).
+ * <p>
+ * The branchings must be expressed on the modeling layer
+ * (by adding constraints through the {@link ModelDispatcher}),
+ * such that their alternatives apply to the model of the thread executing them.
+ * A branching with a state, such as {@link LimitedDiscrepancyBranching},
+ * must not be shared between configurations.
+ *
+ * <p>Typical usage:
+ * <pre>
+ * {@code
+ * PortfolioSearch<ConcreteCPModel> portfolio = new PortfolioSearch<>(md);
+ * portfolio.add(CPModelInstantiator.withTrailing, firstFail);
+ * portfolio.add(CPModelInstantiator.withTrailing, lds, (cp, b) -> cp.dfSearch(b));
+ * portfolio.optimize(cp -> cp.minimize(cost));
+ * }
+ * </pre>
+ */
+public class PortfolioSearch<T extends ConcreteModel> {
+
+    /**
+     * A configuration of the portfolio.
+     *
+     * @param instantiator the instantiator used to create the model of the configuration
+     * @param branching    the branching, expressed on the modeling layer
+     * @param searchMethod creates the search method from the model and the branching
+     */
+    public record Configuration<T extends ConcreteModel>(ModelDispatcher.ModelInstantiator<T> instantiator,
+                                                         Supplier<Procedure[]> branching,
+                                                         BiFunction<T, Supplier<Procedure[]>, AbstractSearchMethod> searchMethod) {}
+
+    private final ModelDispatcher md;
+    private final List<Configuration<T>> configurations = new ArrayList<>();
+    private final List<Procedure> solutionListeners = new LinkedList<>();
+
+    // state of the current solve
+    private volatile boolean stop;
+    private final AtomicInteger winner = new AtomicInteger(-1);
+    private SearchStatistics[] statistics;
+    private final SharedSolutionValues solutionValues = new SharedSolutionValues();
+
+    /**
+     * Creates an empty portfolio on the current model of the dispatcher.
+     *
+     * @param md the dispatcher whose current model is solved
+     */
+    public PortfolioSearch(ModelDispatcher md) {
+        this.md = md;
+    }
+
+    /**
+     * Adds a configuration to the portfolio.
+     *
+     * @param instantiator the instantiator used to create the model of the configuration
+     * @param branching    the branching, expressed on the modeling layer
+     * @param searchMethod creates the search method from the model and the branching,
+     *                     for instance {@code (cp, b) -> cp.dfSearch(b)}
+     * @return this portfolio
+     */
+    public PortfolioSearch<T> add(ModelDispatcher.ModelInstantiator<T> instantiator, Supplier<Procedure[]> branching,
+                                  BiFunction<T, Supplier<Procedure[]>, AbstractSearchMethod> searchMethod) {
+        configurations.add(new Configuration<>(instantiator, branching, searchMethod));
+        return this;
+    }
+
+    /**
+     * Adds a configuration exploring the tree with a {@link DFSearch}.
+     *
+     * @param instantiator the instantiator used to create the model of the configuration
+     * @param branching    the branching, expressed on the modeling layer
+     * @return this portfolio
+     */
+    public PortfolioSearch<T> add(ModelDispatcher.ModelInstantiator<T> instantiator, Supplier<Procedure[]> branching) {
+        return add(instantiator, branching, (model, b) -> new DFSearch(model.getStateManager(), b));
+    }
+
+    /**
+     * Returns the configurations of the portfolio, in the order they were added.
+     *
+     * @return the configurations of the portfolio
+     */
+    public List<Configuration<T>> configurations() {
+        return configurations;
+    }
+
+    /**
+     * Adds a listener that is called on each solution found by any configuration.
+     * The listeners are called one at a time, from the thread
+     * that found the solution, with the model of this thread as current model.
+     * When solving without objective, the same solution
+     * may be reported by several configurations.
+     *
+     * @param listener the closure to be called whenever a solution is found
+     */
+    public void onSolution(Procedure listener) {
+        solutionListeners.add(listener);
+    }
+
+    /**
+     * Returns the configuration that completed its search first during the last race.
+     *
+     * @return the index of the configuration, -1 if none completed
+     */
+    public int winner() {
+        return winner.get();
+    }
+
+    /**
+     * Returns the statistics of a configuration during the last race.
+     *
+     * @param configuration the index of the configuration
+     * @return the statistics on the search of this configuration
+     */
+    public SearchStatistics statistics(int configuration) {
+        return statistics[configuration];
+    }
+
+    /**
+     * Start the race
+     *
+     * @return an object with the statistics summed over all the configurations,
+     *         completed if one of the configurations completed its search
+     */
+    public SearchStatistics solve() {
+        return solve(stats -> false);
+    }
+
+    /**
+     * Start the race
+     * with a given predicate to stop the search when it becomes true.
+     * The predicate is tested at each node of each configuration,
+     * on the statistics of this configuration, and stops all of them.
+     * For instance {@code s -> s.numberOfSolutions() == 1} returns
+     * as soon as one configuration finds a solution.
+     *
+     * @param limit a predicate that stops the search when it becomes true
+     * @return an object with the statistics summed over all the configurations
+     */
+    public SearchStatistics solve(Predicate<SearchStatistics> limit) {
+        return run(null, limit);
+    }
+
+    /**
+     * Start the race with a given objective.
+     *
+     * @param objective the function creating the objective on the model of each configuration,
+     *                  for instance {@code cp -> cp.minimize(x)}
+     * @return an object with the statistics summed over all the configurations
+     */
+    public SearchStatistics optimize(Function<T, Objective> objective) {
+        return optimize(objective, stats -> false);
+    }
+
+    /**
+     * Start the race with a given objective
+     * and with a given predicate to stop the search when it becomes true.
+     *
+     * @param objective the function creating the objective on the model of each configuration,
+     *                  for instance {@code cp -> cp.minimize(x)}
+     * @param limit     a predicate that stops the search when it becomes true
+     * @return an object with the statistics summed over all the configurations
+     * @see #solve(Predicate)
+     */
+    public SearchStatistics optimize(Function<T, Objective> objective, Predicate<SearchStatistics> limit) {
+        return run(objective, limit);
+    }
+
+    private SearchStatistics run(Function<T, Objective> objective, Predicate<SearchStatistics> limit) {
+        if (configurations.isEmpty()) throw new IllegalStateException("the portfolio has no configuration");
+        SearchStatistics total = new SearchStatistics();
+        SymbolicModel root = md.getModel().symbolicCopy();
+        int n = configurations.size();
+        this.statistics = new SearchStatistics[n];
+        this.stop = false;
+        winner.set(-1);
+        solutionValues.clear();
+
+        Thread[] threads = new Thread[n];
+        RuntimeException[] error = new RuntimeException[1];
+        for (int i = 0; i < n; i++) {
+            int id = i;
+            Configuration<T> configuration = configurations.get(i);
+            threads[i] = new Thread(() -> {
+                try {
+                    statistics[id] = md.runAsConcrete(configuration.instantiator(), root,
+                            (T model) -> race(id, configuration, model, objective, limit));
+                } catch (RuntimeException e) {
+                    synchronized (error) {
+                        if (error[0] == null) error[0] = e;
+                    }
+                    stop = true;
+                }
+            }, "PortfolioSearch-" + i);
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                stop = true;
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (error[0] != null) throw error[0];
+
+        for (SearchStatistics s : statistics)
+            total.add(s);
+        if (winner.get() >= 0) total.setCompleted();
+        total.finish();
+        return total;
+    }
+
+    private SearchStatistics race(int id, Configuration<T> configuration, T model,
+                                  Function<T, Objective> objectiveFactory, Predicate<SearchStatistics> limit) {
+        AbstractSearchMethod search = configuration.searchMethod().apply(model, configuration.branching());
+        Objective objective = objectiveFactory == null ? null : objectiveFactory.apply(model);
+        SharedSolutionValues.Value[] seenSolutionValue = new SharedSolutionValues.Value[1];
+        // registered before the search method adds the tightening of the objective
+        search.onSolution(() -> {
+            if (objective != null)
+                solutionValues.publish(objective.solutionValue());
+            synchronized (this) {
+                solutionListeners.forEach(Procedure::call);
+            }
+        });
+        Predicate<SearchStatistics> raceLimit = s -> {
+            if (stop) return true;
+            if (objective != null)
+                seenSolutionValue[0] = solutionValues.tighten(objective, seenSolutionValue[0]);
+            if (limit.test(s)) stop = true;
+            return stop;
+        };
+        SearchStatistics s = objective == null ? search.solve(raceLimit) : search.optimize(objective, raceLimit);
+        if (s.isCompleted() && winner.compareAndSet(-1, id))
+            stop = true;
+        return s;
+    }
+}
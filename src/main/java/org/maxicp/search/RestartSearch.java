@@ -0,0 +1,179 @@
+package org.maxicp.search;
+
+import org.maxicp.state.StateManager;
+import org.maxicp.util.Procedure;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Depth first search restarted from the root each time
+ * it reaches a given number of failures.
+ * <p>
+ * The number of failures allowed for the i-th run (starting from 0)
+ * is given by a cutoff sequence, typically {@link #luby(int)} or {@link #geometric(int, double)}.
+ * Between two runs, the restart listeners receive the last branch explored,
+ * such that they can record what was proven, for instance the
+ * nld-nogoods of {@link org.maxicp.cp.engine.constraints.NogoodStore}.
+ * Restarting makes sense if the branching is randomized, if it learns from
+ * the previous runs, or if the runs are pruned by what they have recorded
+ * or by the tightening of the objective.
+ *
+ * <p>Typical usage:
+ * <pre>
+ * {@code
+ * NogoodStore nogoods = new NogoodStore(x);
+ * cp.post(nogoods);
+ * RestartSearch search = new RestartSearch(cp.getStateManager(), firstFail(x), RestartSearch.luby(100));
+ * search.onRestart(nogoods::record);
+ * search.optimize(objective);
+ * }
+ * </pre>
+ *
+ * @see <a href="https://doi.org/10.1007/978-3-540-74970-7_31">Lecoutre, Sais, Tabary, Vidal. Recording and minimizing nogoods from restarts</a>
+ */
+public class RestartSearch extends DFSearch {
+
+    /**
+     * Listener of the restarts.
+     */
+    @FunctionalInterface
+    public interface RestartListener {
+        /**
+         * Called at the root node before each restart, with the last branch explored.
+         * For each depth {@code d < depth}, the first {@code explored[d]} alternatives
+         * of {@code alternatives[d]} were completely explored,
+         * and the branch to the node at depth {@code d + 1}
+         * goes through {@code alternatives[d][explored[d]]}.
+         *
+         * @param alternatives the alternatives of the nodes on the last branch
+         * @param explored     the number of alternatives completely explored at each depth
+         * @param depth        the number of nodes on the last branch
+         * @throws InconsistencyException if the root node is proven inconsistent,
+         *                                what ends the search
+         */
+        void restart(Procedure[][] alternatives, int[] explored, int depth);
+    }
+
+    private final IntUnaryOperator cutoff;
+    private final List<RestartListener> restartListeners = new LinkedList<>();
+    private int[] explored = new int[0];
+    private int nRestarts = 0;
+
+    /**
+     * Creates a restarting depth first search.
+     *
+     * @param sm        the state manager
+     * @param branching the branching
+     * @param cutoff    gives the number of failures allowed for the i-th run
+     */
+    public RestartSearch(StateManager sm, Supplier<Procedure[]> branching, IntUnaryOperator cutoff) {
+        super(sm, branching);
+        this.cutoff = cutoff;
+    }
+
+    /**
+     * Luby cutoff sequence: scale * (1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, ...).
+     *
+     * @param scale the number of failures of the shortest runs
+     * @return the cutoff of the i-th run
+     */
+    public static IntUnaryOperator luby(int scale) {
+        if (scale < 1) throw new IllegalArgumentException("the scale must be positive");
+        return i -> (int) Math.min(Integer.MAX_VALUE, (long) scale * lubyTerm(i + 1));
+    }
+
+    /**
+     * Returns the i-th term of the Luby sequence, starting from 1.
+     */
+    private static long lubyTerm(int i) {
+        while (true) {
+            int k = 1;
+            while ((1L << k) - 1 < i) k++;
+            if ((1L << k) - 1 == i)
+                return 1L << (k - 1);
+            i -= (1 << (k - 1)) - 1;
+        }
+    }
+
+    /**
+     * Geometric cutoff sequence: scale * ratio<sup>i</sup>.
+     *
+     * @param scale the number of failures of the first run
+     * @param ratio the growth of the number of failures between two runs, larger than 1
+     * @return the cutoff of the i-th run
+     */
+    public static IntUnaryOperator geometric(int scale, double ratio) {
+        if (scale < 1) throw new IllegalArgumentException("the scale must be positive");
+        if (ratio <= 1) throw new IllegalArgumentException("the ratio must be larger than 1");
+        return i -> (int) Math.min(Integer.MAX_VALUE, Math.ceil(scale * Math.pow(ratio, i)));
+    }
+
+    /**
+     * Adds a listener called before each restart.
+     *
+     * @param listener the listener receiving the last branch explored
+     */
+    public void onRestart(RestartListener listener) {
+        restartListeners.add(listener);
+    }
+
+    /**
+     * Returns the number of restarts during the last search.
+     *
+     * @return the number of restarts
+     */
+    public int numberOfRestarts() {
+        return nRestarts;
+    }
+
+    @Override
+    protected void startSolve(SearchStatistics statistics, Predicate<SearchStatistics> limit) {
+        int rootLevel = sm.getLevel();
+        nRestarts = 0;
+        while (true) {
+            long maxFailures = statistics.numberOfFailures() + cutoff.applyAsInt(nRestarts);
+            boolean[] restart = new boolean[1];
+            try {
+                dfs(statistics, s -> {
+                    if (limit.test(s)) return true;
+                    restart[0] = s.numberOfFailures() >= maxFailures;
+                    return restart[0];
+                });
+                return; // the tree is completely explored
+            } catch (StopSearchException e) {
+                if (!restart[0]) {
+                    clearFrames();
+                    throw e;
+                }
+            }
+            sm.restoreStateUntil(rootLevel);
+            nRestarts++;
+            try {
+                notifyRestart();
+            } catch (InconsistencyException e) {
+                // what remains to explore is proven inconsistent
+                clearFrames();
+                return;
+            }
+            clearFrames();
+        }
+    }
+
+    private void notifyRestart() {
+        if (restartListeners.isEmpty()) return;
+        if (explored.length < depth)
+            explored = new int[alternatives.length];
+        // the alternative being explored at each depth is the last one started,
+        // except at the deepest node where no alternative is being explored
+        for (int d = 0; d < depth - 1; d++)
+            explored[d] = next[d] - 1;
+        explored[depth - 1] = next[depth - 1];
+        for (RestartListener listener : restartListeners)
+            listener.restart(alternatives, explored, depth);
+    }
+}
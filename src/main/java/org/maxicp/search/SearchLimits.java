@@ -0,0 +1,141 @@
+package org.maxicp.search;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Factory of limits to stop a search, given as the predicate of
+ * {@link AbstractSearchMethod#solve(Predicate)} or
+ * {@link AbstractSearchMethod#optimize(Objective, Predicate)}.
+ * The limits can be combined with {@link Predicate#or(Predicate)}.
+ * <p>
+ * The wall time and CPU time limits are measured from the first time the predicate is tested,
+ * that is the start of the first search it limits: reusing the predicate
+ * for several searches, for instance the iterations of a {@link LNS},
+ * limits their total time.
+ * The no-improvement limits are measured on the statistics of each search.
+ * <p>
+ * The wall time, CPU time and heap limits can be tested concurrently by several threads,
+ * for instance by the configurations of a {@link PortfolioSearch}:
+ * the wall time is measured from the first test of any thread,
+ * and the CPU time of each thread from its own first test.
+ *
+ * <p>Typical usage:
+ * <pre>
+ * {@code
+ * dfs.optimize(obj, SearchLimits.wallTime(60_000).or(SearchLimits.noImprovement(100_000)));
+ * }
+ * </pre>
+ */
+public final class SearchLimits {
+
+    // number of tests between two measures of the costly limits
+    private static final int CHECK_PERIOD = 64;
+
+    private SearchLimits() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stops the search once the elapsed time exceeds a limit.
+     *
+     * @param millis the maximum elapsed time, in milliseconds
+     * @return a predicate that becomes true once the time is elapsed
+     */
+    public static Predicate<SearchStatistics> wallTime(long millis) {
+        long limit = millis * 1_000_000;
+        AtomicLong start = new AtomicLong(-1);
+        return s -> {
+            long now = System.nanoTime();
+            start.compareAndSet(-1, now);
+            return now - start.get() >= limit;
+        };
+    }
+
+    /**
+     * Stops the search once the CPU time of the thread running it exceeds a limit.
+     * Contrary to the wall time, it does not count the time during which
+     * the thread is waiting or descheduled.
+     * When the predicate is tested by several threads, the CPU time of each one
+     * is limited separately, from its first test.
+     * The CPU time is measured every {@value CHECK_PERIOD} tests.
+     *
+     * @param millis the maximum CPU time, in milliseconds
+     * @return a predicate that becomes true once the CPU time is spent
+     * @throws UnsupportedOperationException if the JVM can not measure the CPU time of a thread
+     */
+    public static Predicate<SearchStatistics> cpuTime(long millis) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!bean.isCurrentThreadCpuTimeSupported())
+            throw new UnsupportedOperationException("the CPU time of the threads can not be measured");
+        long limit = millis * 1_000_000;
+        // start and count of the tests of each thread, start < 0 before the first test
+        ThreadLocal<long[]> state = ThreadLocal.withInitial(() -> new long[]{-1, 0});
+        return s -> {
+            long[] t = state.get();
+            if (t[0] >= 0 && ++t[1] < CHECK_PERIOD) return false;
+            t[1] = 0;
+            long now = bean.getCurrentThreadCpuTime();
+            if (t[0] < 0) t[0] = now;
+            return now - t[0] >= limit;
+        };
+    }
+
+    /**
+     * Stops the search once the heap used exceeds a part of the maximum heap size.
+     * The memory is measured every {@value CHECK_PERIOD} tests, and includes
+     * the garbage not yet collected: the limit is typically close to 1,
+     * for instance 0.9, to stop before an {@link OutOfMemoryError}.
+     *
+     * @param fraction the maximum part of the heap used, in (0,1]
+     * @return a predicate that becomes true once the heap used is too large
+     */
+    public static Predicate<SearchStatistics> heapUsage(double fraction) {
+        if (fraction <= 0 || fraction > 1) throw new IllegalArgumentException("the fraction must be in (0,1]");
+        Runtime runtime = Runtime.getRuntime();
+        // count of the tests of each thread
+        ThreadLocal<int[]> count = ThreadLocal.withInitial(() -> new int[]{CHECK_PERIOD});
+        return s -> {
+            int[] c = count.get();
+            if (++c[0] < CHECK_PERIOD) return false;
+            c[0] = 0;
+            long used = runtime.totalMemory() - runtime.freeMemory();
+            return used >= fraction * runtime.maxMemory();
+        };
+    }
+
+    /**
+     * Stops the search once a number of failures occurred since the last solution,
+     * or since the start of the search if there is no solution yet.
+     * In an optimization, each solution is an improvement.
+     *
+     * @param failures the number of failures without improvement
+     * @return a predicate that becomes true once the search stagnates
+     */
+    public static Predicate<SearchStatistics> noImprovement(long failures) {
+        long[] solutions = new long[]{-1};
+        long[] failuresAtSolution = new long[1];
+        return s -> {
+            if (s.numberOfSolutions() != solutions[0]) {
+                solutions[0] = s.numberOfSolutions();
+                failuresAtSolution[0] = s.numberOfFailures();
+            }
+            return s.numberOfFailures() - failuresAtSolution[0] >= failures;
+        };
+    }
+
+    /**
+     * Stops the search once a time elapsed since the last solution,
+     * or since the start of the search if there is no solution yet.
+     * In an optimization, each solution is an improvement.
+     *
+     * @param millis the time without improvement, in milliseconds
+     * @return a predicate that becomes true once the search stagnates
+     */
+    public static Predicate<SearchStatistics> noImprovementTime(long millis) {
+        long limit = millis * 1_000_000;
+        return s -> s.elapsedNanos() - Math.max(0, s.lastSolutionNanos()) >= limit;
+    }
+}
@@ -15,24 +15,60 @@
 
 package org.maxicp.search;
 
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
 /**
  * Statistics collected during the
  * execution of
  * {@link DFSearch#solve()} and
  * {@link DFSearch#optimize(Objective)}
+ * <p>
+ * Besides the number of nodes, failures and solutions, it records
+ * the time elapsed since the creation of the statistics (the start of the search),
+ * the time at which each solution was found, the maximum depth of the nodes,
+ * the peak size of the trail of the state manager and the number of propagations.
+ * The times are frozen when the search ends.
+ *
+ * @see SearchLimits
  */
 public class SearchStatistics {
 
-    private int nFailures = 0;
-    private int nNodes = 0;
-    private int nSolutions = 0;
+    // the time of the solutions is only recorded for the first ones, to bound the memory
+    private static final int MAX_RECORDED_SOLUTIONS = 1 << 20;
+
+    private long nFailures = 0;
+    private long nNodes = 0;
+    private long nSolutions = 0;
     private boolean completed = false;
 
+    private final long startNanos = System.nanoTime();
+    private long endNanos = -1;
+    // time elapsed at each solution, in nanoseconds
+    private long[] solutionNanos = new long[8];
+    private long lastSolutionNanos = -1;
+    private int maxDepth = 0;
+    private int peakTrailSize = 0;
+
+    // counter of propagations of the solver, null if unknown
+    private LongSupplier propagationCounter = null;
+    private long propagationsAtStart = 0;
+    private long propagationsAtEnd = -1;
+    // propagations counted separately, for instance by the workers of a parallel search
+    private long nPropagations = 0;
+
     public String toString() {
         return "\n\t#choice: " + nNodes
                 + "\n\t#fail: " + nFailures
                 + "\n\t#sols : " + nSolutions
-                + "\n\tcompleted : " + completed + "\n";
+                + "\n\tcompleted : " + completed
+                + "\n\ttime(ms) : " + elapsedMillis()
+                + "\n\tmax depth : " + maxDepth
+                + "\n\tpeak trail : " + peakTrailSize
+                + (propagationCounter == null && nPropagations == 0 ? "" :
+                "\n\t#propagations : " + numberOfPropagations()
+                        + String.format(" (%.0f/s)", propagationsPerSecond()))
+                + "\n";
     }
 
     public void incrFailures() {
@@ -44,22 +80,90 @@ public class SearchStatistics {
     }
 
     public void incrSolutions() {
+        lastSolutionNanos = System.nanoTime() - startNanos;
+        if (nSolutions < MAX_RECORDED_SOLUTIONS) {
+            if (nSolutions == solutionNanos.length)
+                solutionNanos = Arrays.copyOf(solutionNanos, solutionNanos.length * 2);
+            solutionNanos[(int) nSolutions] = lastSolutionNanos;
+        }
         nSolutions++;
     }
 
+    /**
+     * Records the depth of a node, the number of decisions from the root.
+     *
+     * @param depth the depth of the current node
+     */
+    public void recordDepth(int depth) {
+        if (depth > maxDepth) maxDepth = depth;
+    }
+
+    /**
+     * Records the size of the trail of the state manager.
+     *
+     * @param size the number of entries currently on the trail
+     * @see org.maxicp.state.StateManager#trailSize()
+     */
+    public void recordTrailSize(int size) {
+        if (size > peakTrailSize) peakTrailSize = size;
+    }
+
+    /**
+     * Adds counters collected separately,
+     * for instance by the workers of a parallel search.
+     */
+    void add(long nodes, long failures, long solutions) {
+        nNodes += nodes;
+        nFailures += failures;
+        for (long i = 0; i < solutions; i++)
+            incrSolutions();
+    }
+
+    /**
+     * Adds all the statistics of another search,
+     * for instance of a worker of a parallel search.
+     * The maximum depth and peak trail are the maximum ones,
+     * the solutions being recorded at the time of the call.
+     */
+    void add(SearchStatistics other) {
+        add(other.nNodes, other.nFailures, other.nSolutions);
+        maxDepth = Math.max(maxDepth, other.maxDepth);
+        peakTrailSize = Math.max(peakTrailSize, other.peakTrailSize);
+        nPropagations += other.numberOfPropagations();
+    }
+
+    /**
+     * Sets the counter of propagations of the solver explored by the search,
+     * its value at this call being the start of the counting.
+     */
+    void setPropagationCounter(LongSupplier counter) {
+        this.propagationCounter = counter;
+        this.propagationsAtStart = counter.getAsLong();
+    }
+
+    /**
+     * Freezes the elapsed time and the number of propagations, at the end of the search.
+     */
+    void finish() {
+        if (endNanos >= 0) return;
+        endNanos = System.nanoTime();
+        if (propagationCounter != null)
+            propagationsAtEnd = propagationCounter.getAsLong();
+    }
+
     public void setCompleted() {
         completed = true;
     }
 
-    public int numberOfFailures() {
+    public long numberOfFailures() {
         return nFailures;
     }
 
-    public int numberOfNodes() {
+    public long numberOfNodes() {
         return nNodes;
     }
 
-    public int numberOfSolutions() {
+    public long numberOfSolutions() {
         return nSolutions;
     }
 
@@ -67,4 +171,88 @@ public class SearchStatistics {
         return completed;
     }
 
+    /**
+     * Returns the time elapsed since the start of the search,
+     * until its end if it is finished.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    public long elapsedNanos() {
+        return (endNanos >= 0 ? endNanos : System.nanoTime()) - startNanos;
+    }
+
+    /**
+     * Returns the time elapsed since the start of the search,
+     * until its end if it is finished.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    public long elapsedMillis() {
+        return elapsedNanos() / 1_000_000;
+    }
+
+    /**
+     * Returns the time elapsed since the start of the search
+     * when each solution was found.
+     *
+     * @return the elapsed times in nanoseconds, one per solution in the order they were found,
+     *         limited to the first 2<sup>20</sup> solutions
+     */
+    public long[] solutionNanos() {
+        return Arrays.copyOf(solutionNanos, (int) Math.min(nSolutions, solutionNanos.length));
+    }
+
+    /**
+     * Returns the time elapsed since the start of the search
+     * when the last solution was found.
+     *
+     * @return the elapsed time in nanoseconds, -1 if there is no solution
+     */
+    public long lastSolutionNanos() {
+        return lastSolutionNanos;
+    }
+
+    /**
+     * Returns the maximum depth of the nodes visited,
+     * the number of decisions from the root.
+     *
+     * @return the maximum depth
+     */
+    public int maxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the largest size of the trail of the state manager during the search.
+     *
+     * @return the peak number of entries on the trail
+     * @see org.maxicp.state.StateManager#trailSize()
+     */
+    public int peakTrailSize() {
+        return peakTrailSize;
+    }
+
+    /**
+     * Returns the number of propagations of constraints performed during the search,
+     * 0 if the search was not given the solver (see {@link org.maxicp.cp.CPFactory#makeDfs}).
+     *
+     * @return the number of calls to the propagation of the constraints
+     */
+    public long numberOfPropagations() {
+        long n = nPropagations;
+        if (propagationCounter != null)
+            n += (propagationsAtEnd >= 0 ? propagationsAtEnd : propagationCounter.getAsLong()) - propagationsAtStart;
+        return n;
+    }
+
+    /**
+     * Returns the number of propagations per second of the search.
+     *
+     * @return the number of propagations divided by the elapsed time
+     */
+    public double propagationsPerSecond() {
+        long nanos = elapsedNanos();
+        return nanos == 0 ? 0 : numberOfPropagations() * 1e9 / nanos;
+    }
+
 }
@@ -0,0 +1,64 @@
+package org.maxicp.search;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Objective values of the solutions found by the threads of a parallel search.
+ * Each thread publishes the value of its solutions and regularly
+ * tightens its own {@link Objective} with the values published by the others.
+ * <p>
+ * The values are kept in a lock-free list, the most recent value first:
+ * a thread remembers the most recent value it has applied,
+ * such that testing whether something new was published is a single volatile read.
+ */
+final class SharedSolutionValues {
+
+    /**
+     * A published value, linked to the previously published one.
+     */
+    static final class Value {
+        final int value;
+        final Value previous;
+
+        private Value(int value, Value previous) {
+            this.value = value;
+            this.previous = previous;
+        }
+    }
+
+    private final AtomicReference<Value> last = new AtomicReference<>();
+
+    /**
+     * Discards all the published values.
+     */
+    void clear() {
+        last.set(null);
+    }
+
+    /**
+     * Publishes the objective value of a solution.
+     *
+     * @param value the value of the solution
+     */
+    void publish(int value) {
+        Value previous;
+        do {
+            previous = last.get();
+        } while (!last.compareAndSet(previous, new Value(value, previous)));
+    }
+
+    /**
+     * Tightens an objective with the values published since a previous call.
+     *
+     * @param objective the objective to tighten
+     * @param seen      the most recent value already applied to the objective,
+     *                  null if none was applied
+     * @return the most recent value applied to the objective after the call
+     */
+    Value tighten(Objective objective, Value seen) {
+        Value current = last.get();
+        for (Value v = current; v != seen && v != null; v = v.previous)
+            objective.tighten(v.value);
+        return current;
+    }
+}
@@ -0,0 +1,234 @@
+package org.maxicp.search;
+
+import org.maxicp.BranchingScheme;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.state.StateInt;
+import org.maxicp.util.Procedure;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Binary branching on the variable of smallest score,
+ * for the heuristics learning from the propagation.
+ * <p>
+ * The variables that are not fixed are kept in a reversible set,
+ * such that each node only scans the variables still to branch on,
+ * and those fixed since the last node are removed in constant time.
+ * The alternatives are {@code x == v} and {@code x != v},
+ * with {@code v} given by {@link #value(int)}.
+ * <p>
+ * The heuristics measuring the propagation of the decisions call {@link #observeDecisions()}.
+ * The decisions are then followed through the listeners of the solver,
+ * leaving the alternatives unchanged, such that they can still be recognized
+ * by the search, e.g. to record nogoods.
+ * A decision starts at the first fix-point after it is applied on a node where the branching was called,
+ * and it is propagated at the next node where the branching is called, or when the propagation fails.
+ * The node of the decision being followed is kept in the state, such that the alternatives
+ * of a node are all measured against this node.
+ *
+ * @see WeightedDegreeBranching
+ * @see ActivityBranching
+ * @see ImpactBranching
+ */
+public abstract class VariableHeuristicBranching implements Supplier<Procedure[]> {
+
+    protected final CPIntVar[] x;
+    // the variables x[unfixed[0..nUnfixed-1]] may not be fixed, the other ones are fixed
+    protected final int[] unfixed;
+    private final StateInt nUnfixed;
+
+    // status of the decision of the last node branched on
+    private static final int WAITING = 0, ASSIGNED = 1, REMOVED = 2, MEASURED = 3;
+    // number of nodes branched on and id of the last one, above the current state
+    private StateInt decisionDepth;
+    private StateInt decisionNode;
+    private StateInt decisionStatus;
+    // id, variable, value and size of the variable of the nodes branched on, indexed by depth
+    private int[] nodeId, nodeVar, nodeValue, nodeSize;
+    private int nNodes = 0;
+
+    /**
+     * Creates a branching on the given variables.
+     *
+     * @param x the decision variables, at least one
+     */
+    protected VariableHeuristicBranching(CPIntVar... x) {
+        if (x.length == 0) throw new IllegalArgumentException("at least one variable is required");
+        this.x = x;
+        this.unfixed = new int[x.length];
+        for (int i = 0; i < x.length; i++)
+            unfixed[i] = i;
+        this.nUnfixed = x[0].getSolver().getStateManager().makeStateInt(x.length);
+    }
+
+    /**
+     * Returns the score of a variable that is not fixed,
+     * the variable of smallest score being chosen.
+     *
+     * @param i the index of the variable
+     * @return the score of x[i]
+     */
+    protected abstract double score(int i);
+
+    /**
+     * Returns the value assigned to a variable on the left branch.
+     * The minimum of the domain by default.
+     *
+     * @param i the index of the variable
+     * @return a value in the domain of x[i]
+     */
+    protected int value(int i) {
+        return x[i].min();
+    }
+
+    /**
+     * Returns the alternatives for a given variable and value.
+     * The alternatives of {@link BranchingScheme#assignOrRemove(CPIntVar, int)} by default.
+     *
+     * @param i the index of the variable
+     * @param v the value
+     * @return the alternatives
+     */
+    protected Procedure[] branch(int i, int v) {
+        return BranchingScheme.assignOrRemove(x[i], v);
+    }
+
+    /**
+     * Follows the decisions taken by this branching,
+     * to call {@link #decisionStarted(int, int, boolean, int)}
+     * and {@link #decisionPropagated(int, int, boolean, boolean)}.
+     * To be called once, by the constructor of the heuristics measuring the propagation.
+     */
+    protected void observeDecisions() {
+        CPSolver cp = x[0].getSolver();
+        decisionDepth = cp.getStateManager().makeStateInt(0);
+        decisionNode = cp.getStateManager().makeStateInt(-1);
+        decisionStatus = cp.getStateManager().makeStateInt(MEASURED);
+        nodeId = new int[16];
+        nodeVar = new int[16];
+        nodeValue = new int[16];
+        nodeSize = new int[16];
+        cp.onFixPoint(this::fixPointStarted);
+        cp.onFailure(c -> decisionEnded(true));
+    }
+
+    /**
+     * Called when a decision on a variable starts to be propagated,
+     * only the domain of the variable being changed.
+     *
+     * @param i      the index of the variable
+     * @param v      the value of the decision
+     * @param assign true if the decision is {@code x[i] == v}, false if it is {@code x[i] != v}
+     * @param size   the size of the domain of x[i] before the decision
+     */
+    protected void decisionStarted(int i, int v, boolean assign, int size) {
+    }
+
+    /**
+     * Called once the propagation of a decision is over.
+     * In case of failure, the domains are not yet restored.
+     *
+     * @param i      the index of the variable
+     * @param v      the value of the decision
+     * @param assign true if the decision is {@code x[i] == v}, false if it is {@code x[i] != v}
+     * @param failed true if the propagation failed
+     */
+    protected void decisionPropagated(int i, int v, boolean assign, boolean failed) {
+    }
+
+    /**
+     * Returns the depth of the node of the decision being followed, -1 if none.
+     */
+    private int followedDecision() {
+        int d = decisionDepth.intValue() - 1;
+        return d >= 0 && nodeId[d] == decisionNode.intValue() ? d : -1;
+    }
+
+    private void fixPointStarted() {
+        if (decisionStatus.intValue() != WAITING)
+            return;
+        int d = followedDecision();
+        if (d < 0)
+            return;
+        int i = nodeVar[d];
+        int v = nodeValue[d];
+        boolean assign = x[i].isFixed() && x[i].min() == v;
+        if (!assign && x[i].contains(v))
+            return; // not a fix-point following a decision
+        decisionStatus.setValue(assign ? ASSIGNED : REMOVED);
+        decisionStarted(i, v, assign, nodeSize[d]);
+    }
+
+    private void decisionEnded(boolean failed) {
+        int status = decisionStatus.intValue();
+        if (status != ASSIGNED && status != REMOVED)
+            return;
+        int d = followedDecision();
+        if (d < 0)
+            return;
+        decisionStatus.setValue(MEASURED);
+        decisionPropagated(nodeVar[d], nodeValue[d], status == ASSIGNED, failed);
+    }
+
+    /**
+     * Records the node branched on, such that its decisions are followed.
+     */
+    private void branched(int i, int v) {
+        int d = decisionDepth.intValue();
+        if (d == nodeId.length) {
+            nodeId = Arrays.copyOf(nodeId, d * 2);
+            nodeVar = Arrays.copyOf(nodeVar, d * 2);
+            nodeValue = Arrays.copyOf(nodeValue, d * 2);
+            nodeSize = Arrays.copyOf(nodeSize, d * 2);
+        }
+        nodeId[d] = nNodes++;
+        nodeVar[d] = i;
+        nodeValue[d] = v;
+        nodeSize[d] = x[i].size();
+        decisionDepth.setValue(d + 1);
+        decisionNode.setValue(nodeId[d]);
+        decisionStatus.setValue(WAITING);
+    }
+
+    /**
+     * Returns the number of variables that were not fixed at the last node.
+     *
+     * @return the size of the prefix of {@link #unfixed} that may contain non-fixed variables
+     */
+    protected int numberOfUnfixed() {
+        return nUnfixed.intValue();
+    }
+
+    @Override
+    public Procedure[] get() {
+        if (decisionStatus != null)
+            decisionEnded(false);
+        int n = nUnfixed.intValue();
+        int best = -1;
+        double bestScore = Double.POSITIVE_INFINITY;
+        for (int k = n - 1; k >= 0; k--) {
+            int i = unfixed[k];
+            if (x[i].isFixed()) {
+                // swap with the last non-fixed one
+                unfixed[k] = unfixed[n - 1];
+                unfixed[n - 1] = i;
+                n--;
+            } else {
+                double s = score(i);
+                if (best < 0 || s < bestScore || (s == bestScore && i < best)) {
+                    best = i;
+                    bestScore = s;
+                }
+            }
+        }
+        nUnfixed.setValue(n);
+        if (best < 0)
+            return BranchingScheme.EMPTY;
+        int v = value(best);
+        if (decisionStatus != null)
+            branched(best, v);
+        return branch(best, v);
+    }
+}
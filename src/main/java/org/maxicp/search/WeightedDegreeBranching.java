@@ -0,0 +1,83 @@
+package org.maxicp.search;
+
+import org.maxicp.cp.engine.core.CPConstraint;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Dom/wdeg heuristic: branches on the variable with the smallest
+ * ratio between its domain size and its weighted degree.
+ * <p>
+ * Each constraint has a weight, initially 1, incremented each time its propagation fails
+ * (see {@link CPSolver#onFailure(java.util.function.Consumer)}).
+ * The weighted degree of a variable is the sum of the weights of the constraints on it.
+ * It is maintained incrementally: a failure adds 1 to the weighted degree
+ * of the variables of the failing constraint.
+ * <p>
+ * The constraints are the ones registered on the variables when the branching is created,
+ * the failures of the constraints posted afterward being ignored.
+ * The branching should therefore be created once the model is stated.
+ *
+ * @see <a href="https://dl.acm.org/doi/10.5555/3000001.3000038">Boussemart, Hemery, Lecoutre, Sais. Boosting systematic search by weighting constraints</a>
+ */
+public class WeightedDegreeBranching extends VariableHeuristicBranching {
+
+    // indices of the variables of each constraint
+    private final Map<CPConstraint, int[]> scope = new IdentityHashMap<>();
+    private final double[] weightedDegree;
+
+    /**
+     * Creates a dom/wdeg branching on the given variables.
+     *
+     * @param x the decision variables, at least one
+     */
+    public WeightedDegreeBranching(CPIntVar... x) {
+        super(x);
+        weightedDegree = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            int var = i;
+            x[i].forEachConstraint(c -> {
+                int[] vars = scope.get(c);
+                if (vars == null) {
+                    scope.put(c, new int[]{var});
+                    weightedDegree[var]++;
+                } else if (vars[vars.length - 1] != var) {
+                    // a constraint registered on several events of a variable is counted once
+                    vars = Arrays.copyOf(vars, vars.length + 1);
+                    vars[vars.length - 1] = var;
+                    scope.put(c, vars);
+                    weightedDegree[var]++;
+                }
+            });
+        }
+        for (int i = 0; i < x.length; i++)
+            weightedDegree[i] = Math.max(1, weightedDegree[i]);
+        x[0].getSolver().onFailure(this::failure);
+    }
+
+    private void failure(CPConstraint c) {
+        int[] vars = scope.get(c);
+        if (vars != null)
+            for (int i : vars)
+                weightedDegree[i]++;
+    }
+
+    /**
+     * Returns the weighted degree of a variable.
+     *
+     * @param i the index of the variable
+     * @return the sum of the weights of the constraints on x[i], at least 1
+     */
+    public double weightedDegree(int i) {
+        return weightedDegree[i];
+    }
+
+    @Override
+    protected double score(int i) {
+        return x[i].size() / weightedDegree[i];
+    }
+}
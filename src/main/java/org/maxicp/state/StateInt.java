@@ -26,12 +26,29 @@ package org.maxicp.state;
  */
 public interface StateInt extends State<Integer> {
 
+    /**
+     * Set the value without boxing it
+     * @param v the value to set
+     * @return the new value that was set
+     */
+    default int setValue(int v) {
+        return setValue(Integer.valueOf(v));
+    }
+
+    /**
+     * Retrieves the value without boxing it
+     * @return the value
+     */
+    default int intValue() {
+        return value();
+    }
+
     /**
      * Increments the value
      * @return the new value
      */
     default int increment() {
-        return setValue(value() + 1);
+        return setValue(intValue() + 1);
     }
 
     /**
@@ -39,7 +56,7 @@ public interface StateInt extends State<Integer> {
      * @return the new value
      */
     default int decrement() {
-        return setValue(value() - 1);
+        return setValue(intValue() - 1);
     }
 
 }
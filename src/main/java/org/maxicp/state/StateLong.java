@@ -26,12 +26,29 @@ package org.maxicp.state;
  */
 public interface StateLong extends State<Long> {
 
+    /**
+     * Set the value without boxing it
+     * @param v the value to set
+     * @return the new value that was set
+     */
+    default long setValue(long v) {
+        return setValue(Long.valueOf(v));
+    }
+
+    /**
+     * Retrieves the value without boxing it
+     * @return the value
+     */
+    default long longValue() {
+        return value();
+    }
+
     /**
      * Increments the value
      * @return the new value
      */
     default long increment() {
-        return setValue(value() + 1);
+        return setValue(longValue() + 1);
     }
 
     /**
@@ -39,7 +56,7 @@ public interface StateLong extends State<Long> {
      * @return the new value
      */
     default long decrement() {
-        return setValue(value() - 1);
+        return setValue(longValue() - 1);
     }
 
 }
@@ -64,6 +64,36 @@ public interface StateManager {
      */
     int getLevel();
 
+    /**
+     * Returns a number that changes at each {@link #saveState()}
+     * and at each {@link #restoreState()}.
+     * A state object that recorded its previous value with {@link #pushState(StateEntry)}
+     * does not need to record it again as long as the magic is unchanged.
+     *
+     * @return the current magic number
+     */
+    long getMagic();
+
+    /**
+     * Returns the number of entries kept to restore the saved levels,
+     * such as the size of the trail of a trailer or the number of copies of a copier.
+     * It measures the memory used by the state restoration.
+     *
+     * @return the number of entries that can be restored, 0 if it is not known
+     */
+    default int trailSize() {
+        return 0;
+    }
+
+    /**
+     * Records an entry that is restored when the current level is restored,
+     * the entries of a level being restored in the reverse order of their recording.
+     * This enables state objects to implement their own (semantic) restoration.
+     *
+     * @param entry the entry to restore at the next {@link #restoreState()}
+     */
+    void pushState(StateEntry entry);
+
     /**
      * Creates a Stateful reference (restorable)
      *
@@ -31,6 +31,8 @@ public class Copier implements StateManager {
 
     class Backup extends Stack<StateEntry> {
         private int sz;
+        // entries recorded with pushState after the copy
+        private Stack<StateEntry> pushed = new Stack<>();
 
         Backup() {
             sz = store.size();
@@ -42,11 +44,16 @@ public class Copier implements StateManager {
             store.setSize(sz);
             for (StateEntry se : this)
                 se.restore();
+            for (int i = pushed.size() - 1; i >= 0; i--)
+                pushed.get(i).restore();
         }
     }
 
     private Stack<Storage> store;
     private Stack<Backup> prior;
+    private long magic = 0L;
+    // number of entries in the backups
+    private int nBackedUp = 0;
     private List<Procedure> onRestoreListeners;
 
     public Copier() {
@@ -75,14 +82,38 @@ public class Copier implements StateManager {
         return store.size();
     }
 
+    @Override
+    public int trailSize() {
+        return nBackedUp;
+    }
+
+    @Override
+    public long getMagic() {
+        return magic;
+    }
+
+    @Override
+    public void pushState(StateEntry entry) {
+        if (!prior.isEmpty()) {
+            prior.peek().pushed.add(entry);
+            nBackedUp++;
+        }
+    }
+
     @Override
     public void saveState() {
-        prior.add(new Backup());
+        Backup backup = new Backup();
+        prior.add(backup);
+        nBackedUp += backup.size();
+        magic++;
     }
 
     @Override
     public void restoreState() {
-        prior.pop().restore();
+        Backup backup = prior.pop();
+        nBackedUp -= backup.size() + backup.pushed.size();
+        backup.restore();
+        magic++;
         notifyRestore();
     }
 
@@ -39,13 +39,33 @@ public class Copy<T> implements Storage, State<T> {
     }
 
     private T v;
+    private final IncrementalCopier copier;
+    private long lastMagic;
 
     protected Copy(T initial) {
+        this(null, initial);
+    }
+
+    /**
+     * Creates a cell that is copied by the given {@link IncrementalCopier}
+     * the first time it is modified after a save.
+     *
+     * @param copier the incremental copier, null if the cell is saved by a {@link Copier}
+     * @param initial the initial value
+     */
+    protected Copy(IncrementalCopier copier, T initial) {
+        this.copier = copier;
         v = initial;
+        if (copier != null)
+            lastMagic = copier.getMagic() - 1;
     }
 
     @Override
     public T setValue(T v) {
+        if (copier != null && v != this.v && lastMagic != copier.getMagic()) {
+            lastMagic = copier.getMagic();
+            copier.pushState(save());
+        }
         this.v = v;
         return v;
     }
@@ -31,4 +31,8 @@ public class CopyInt extends Copy<Integer> implements StateInt {
         super(initial);
     }
 
+    protected CopyInt(IncrementalCopier copier, int initial) {
+        super(copier, initial);
+    }
+
 }
@@ -29,4 +29,8 @@ public class CopyLong extends Copy<Long> implements StateLong {
         super(initial);
     }
 
+    protected CopyLong(IncrementalCopier copier, long initial) {
+        super(copier, initial);
+    }
+
 }
@@ -43,11 +43,25 @@ public class CopyMap<K, V> implements Storage, StateMap<K, V> {
     }
 
     private Map<K, V> map;
+    private IncrementalCopier copier;
+    private long lastMagic;
 
     protected CopyMap() {
         map = new IdentityHashMap<>();
     }
 
+    /**
+     * Creates a map that is copied by the given {@link IncrementalCopier}
+     * the first time it is modified after a save.
+     *
+     * @param copier the incremental copier
+     */
+    protected CopyMap(IncrementalCopier copier) {
+        this();
+        this.copier = copier;
+        lastMagic = copier.getMagic() - 1;
+    }
+
     protected CopyMap(Map<K, V> m) {
         map = new IdentityHashMap<>();
         for (Map.Entry<K, V> me : m.entrySet())
@@ -56,6 +70,10 @@ public class CopyMap<K, V> implements Storage, StateMap<K, V> {
 
     @Override
     public void put(K k, V v) {
+        if (copier != null && lastMagic != copier.getMagic()) {
+            lastMagic = copier.getMagic();
+            copier.pushState(save());
+        }
         map.put(k, v);
     }
 
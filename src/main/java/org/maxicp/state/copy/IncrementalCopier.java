@@ -0,0 +1,154 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.state.copy;
+
+import org.maxicp.state.*;
+import org.maxicp.util.Procedure;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * StateManager that will store
+ * the state of the elements modified since the last
+ * {@link #saveState()} call.
+ * Unlike the {@link Copier} that copies every created element at each save,
+ * an element is copied lazily (copy-on-write), the first time it is modified
+ * after a save, such that the cost of a save/restore only depends
+ * on the number of elements effectively modified.
+ */
+public class IncrementalCopier implements StateManager {
+
+    // copies of the elements, in the order in which they were made
+    private StateEntry[] copies;
+    private int size;
+
+    // offset in copies at which each level starts
+    private int[] levels;
+    private int nLevels;
+
+    private long magic = 0L;
+
+    private List<Procedure> onRestoreListeners;
+
+    public IncrementalCopier() {
+        copies = new StateEntry[1024];
+        size = 0;
+        levels = new int[64];
+        nLevels = 0;
+        onRestoreListeners = new LinkedList<Procedure>();
+    }
+
+    private void notifyRestore() {
+        for (Procedure l: onRestoreListeners) {
+            l.call();
+        }
+    }
+
+    @Override
+    public void onRestore(Procedure listener) {
+        onRestoreListeners.add(listener);
+    }
+
+    @Override
+    public long getMagic() {
+        return magic;
+    }
+
+    @Override
+    public void pushState(StateEntry copy) {
+        if (size == copies.length)
+            copies = Arrays.copyOf(copies, size * 2);
+        copies[size++] = copy;
+    }
+
+    @Override
+    public int getLevel() {
+        return nLevels - 1;
+    }
+
+    /**
+     * Returns the number of copies made since the first save
+     * @return the number of copies that can be restored
+     */
+    public int copiesSize() {
+        return size;
+    }
+
+    @Override
+    public int trailSize() {
+        return size;
+    }
+
+    @Override
+    public void saveState() {
+        if (nLevels == levels.length)
+            levels = Arrays.copyOf(levels, nLevels * 2);
+        levels[nLevels++] = size;
+        magic++;
+    }
+
+    @Override
+    public void restoreState() {
+        if (nLevels == 0)
+            throw new EmptyStackException();
+        int start = levels[--nLevels];
+        for (int i = size - 1; i >= start; i--) {
+            copies[i].restore();
+            copies[i] = null;
+        }
+        size = start;
+        magic++;
+        notifyRestore();
+    }
+
+    @Override
+    public void withNewState(Procedure body) {
+        final int level = getLevel();
+        saveState();
+        body.call();
+        restoreStateUntil(level);
+    }
+
+    @Override
+    public void restoreStateUntil(int level) {
+        while (getLevel() > level)
+            restoreState();
+    }
+
+    @Override
+    public <T> State<T> makeStateRef(T initValue) {
+        return new Copy<>(this, initValue);
+    }
+
+    @Override
+    public StateInt makeStateInt(int initValue) {
+        return new CopyInt(this, initValue);
+    }
+
+    @Override
+    public StateLong makeStateLong(long initValue) {
+        return new CopyLong(this, initValue);
+    }
+
+    @Override
+    public StateMap makeStateMap() {
+        return new CopyMap<>(this);
+    }
+
+}
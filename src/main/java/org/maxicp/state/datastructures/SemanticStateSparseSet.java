@@ -0,0 +1,373 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.state.datastructures;
+
+import org.maxicp.state.StateEntry;
+import org.maxicp.state.StateInt;
+import org.maxicp.state.StateManager;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Set implemented using a sparse-set data structure
+ * that can be saved and restored through
+ * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+ * methods.
+ * <p>
+ * Contrary to {@link StateSparseSet} whose size, min and max are three {@link StateInt},
+ * those are plain int fields of the set.
+ * The first time the set is modified after a save,
+ * they are pushed on a primitive stack owned by the set
+ * that records itself as a single {@link StateEntry} (semantic restoration).
+ * They are thus restored together, without any boxing nor allocation.
+ */
+public class SemanticStateSparseSet implements SparseSet, StateEntry {
+
+    private int[] values;
+    private int[] indexes;
+    private final StateManager sm;
+    private int size;
+    private int min;
+    private int max;
+    private int ofs;
+    private int n;
+
+    // (size, min, max) at the levels at which the set was modified
+    private int[] saved = new int[3 * 8];
+    private int nSaved = 0;
+    private long lastMagic;
+
+    /**
+     * Creates a set containing the elements {@code {ofs,ofs+1,...,ofs+n-1}}.
+     *
+     * @param sm the state manager that will save and restore the set when
+     *        {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+     *           mehtods are called
+     * @param n  the number of elements in the set
+     * @param ofs the minimum value in the set containing {@code {ofs,ofs+1,...,ofs+n-1}}
+     */
+    public SemanticStateSparseSet(StateManager sm, int n, int ofs) {
+        this.sm = sm;
+        this.n = n;
+        this.ofs = ofs;
+        size = n;
+        min = 0;
+        max = n - 1;
+        lastMagic = sm.getMagic() - 1;
+        values = new int[n];
+        indexes = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+            indexes[i] = i;
+        }
+    }
+
+
+    /**
+     * Saves the size, min and max if it is the first modification
+     * of the set since the last save or restore.
+     */
+    private void trail() {
+        long magic = sm.getMagic();
+        if (lastMagic != magic) {
+            lastMagic = magic;
+            if (nSaved == saved.length)
+                saved = Arrays.copyOf(saved, nSaved * 2);
+            saved[nSaved++] = size;
+            saved[nSaved++] = min;
+            saved[nSaved++] = max;
+            sm.pushState(this);
+        }
+    }
+
+    @Override
+    public void restore() {
+        max = saved[--nSaved];
+        min = saved[--nSaved];
+        size = saved[--nSaved];
+    }
+
+    private void exchangePositions(int val1, int val2) {
+        assert (checkVal(val1));
+        assert (checkVal(val2));
+        int v1 = val1;
+        int v2 = val2;
+        int i1 = indexes[v1];
+        int i2 = indexes[v2];
+        values[i1] = v2;
+        values[i2] = v1;
+        indexes[v1] = i2;
+        indexes[v2] = i1;
+    }
+
+    private boolean checkVal(int val) {
+        assert (val <= values.length - 1);
+        return true;
+    }
+
+    /**
+     * Returns an array with the values present in the set.
+     *
+     * @return an array representation of the values present in the set
+     */
+    public int[] toArray() {
+        int[] res = new int[size()];
+        fillArray(res);
+        return res;
+    }
+
+    /**
+     * Sets the first values of <code>dest</code> to the ones
+     * present in the set.
+     *
+     * @param dest, an array large enough {@code dest.length >= size()}
+     * @return the size of the set
+     */
+    public int fillArray(int[] dest) {
+        int s = size;
+        for (int i = 0; i < s; i++)
+            dest[i] = values[i] + ofs;
+        return s;
+    }
+
+    /**
+     * Sets the first values of <code>dest</code> to the ones
+     * present in the set that also satisfy the given filter predicate
+     *
+     * @param dest, an array large enough {@code dest.length >= size()}
+     * @param filterPredicate the predicate, only elements for which the predicate is true are kept
+     * @return the size of the set of elements in the set satisfying hte predicate
+     */
+    public int fillArrayWithFilter(int[] dest, Predicate<Integer> filterPredicate) {
+        int s = size;
+        int j = 0;
+        for (int i = 0; i < s; i++) {
+            if (filterPredicate.test(values[i]+ofs)) {
+                dest[j] = values[i] + ofs;
+                j++;
+            }
+        }
+        return j;
+    }
+
+
+
+    /**
+     * Checks if the set is empty
+     *
+     * @return true if the set is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the size of the set.
+     *
+     * @return the size of the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the minimum value in the set.
+     *
+     * @return the minimum value in the set
+     */
+    public int min() {
+        if (isEmpty())
+            throw new NoSuchElementException();
+        return min + ofs;
+    }
+
+    /**
+     * Returns the maximum value in the set.
+     *
+     * @return the maximum value in the set
+     */
+    public int max() {
+        if (isEmpty())
+            throw new NoSuchElementException();
+        else return max + ofs;
+    }
+
+    private void updateBoundsValRemoved(int val) {
+        updateMaxValRemoved(val);
+        updateMinValRemoved(val);
+    }
+
+    private void updateMaxValRemoved(int val) {
+        if (!isEmpty() && max == val) {
+            assert (!internalContains(val));
+            //the maximum was removed, search the new one
+            for (int v = val - 1; v >= min; v--) {
+                if (internalContains(v)) {
+                    trail();
+                    max = v;
+                    return;
+                }
+            }
+        }
+    }
+
+    private void updateMinValRemoved(int val) {
+        if (!isEmpty() && min == val) {
+            assert (!internalContains(val));
+            //the minimum was removed, search the new one
+            for (int v = val + 1; v <= max; v++) {
+                if (internalContains(v)) {
+                    trail();
+                    min = v;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the given value from the set.
+     *
+     * @param val the value to remove.
+     * @return true if val was in the set, false otherwise
+     */
+    public boolean remove(int val) {
+        if (!contains(val))
+            return false; //the setValue has already been removed
+        val -= ofs;
+        assert (checkVal(val));
+        int s = size();
+        exchangePositions(val, values[s - 1]);
+        trail();
+        size--;
+        updateBoundsValRemoved(val);
+        return true;
+    }
+
+    /**
+     * This method operates on the shifted value (one cannot shift now).
+     *
+     * @param val the setValue to lookup for membership
+     * @return true if val is in the set, false otherwise
+     */
+    private boolean internalContains(int val) {
+        if (val < 0 || val >= n)
+            return false;
+        else
+            return indexes[val] < size();
+    }
+
+    /**
+     * Checks if a value is in the set.
+     *
+     * @param val the value to check
+     * @return true if val is in the set
+     */
+    public boolean contains(int val) {
+        val -= ofs;
+        if (val < 0 || val >= n)
+            return false;
+        else
+            return indexes[val] < size();
+    }
+
+    /**
+     * Removes all the element from the set except the given value.
+     *
+     * @param v is an element in the set
+     */
+    public void removeAllBut(int v) {
+        // we only have to put in first position this setValue and set the size to 1
+        assert (contains(v));
+        v -= ofs;
+        assert (checkVal(v));
+        int val = values[0];
+        int index = indexes[v];
+        indexes[v] = 0;
+        values[0] = v;
+        indexes[val] = index;
+        values[index] = val;
+        trail();
+        min = v;
+        max = v;
+        size = 1;
+    }
+
+    /**
+     * Removes all the values in the set.
+     */
+    public void removeAll() {
+        trail();
+        size = 0;
+    }
+
+    /**
+     * Remove all the values less than the given value from the set
+     *
+     * @param value a value such that all the ones smaller are removed
+     */
+    public void removeBelow(int value) {
+        if (max() < value) {
+            removeAll();
+        } else {
+            for (int v = min(); v < value; v++) {
+                remove(v);
+            }
+        }
+    }
+
+    /**
+     * Remove all the values larger than the given value from the set
+     *
+     * @param value a value such that all the ones greater are removed
+     */
+    public void removeAbove(int value) {
+        if (min() > value) {
+            removeAll();
+        } else {
+            int max = max();
+            for (int v = max; v > value; v--) {
+                remove(v);
+            }
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        b.append("{");
+        for (int i = 0; i < size() - 1; i++) {
+            b.append(values[i] + ofs);
+            b.append(',');
+        }
+        if (size() > 0) b.append(values[size() - 1] + ofs);
+        b.append("}");
+        return b.toString();
+    }
+
+    public int fillDeltaArray(int oldMin, int oldMax, int oldSize, int [] arr) {
+        int currSize = size();
+        for (int i = 0; i < oldSize-currSize ; i++) {
+            arr[i] = values[currSize+i]+ofs;
+        }
+        return oldSize-currSize;
+    }
+
+
+}
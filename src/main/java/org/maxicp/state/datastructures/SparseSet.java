@@ -0,0 +1,137 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.state.datastructures;
+
+import java.util.function.Predicate;
+
+/**
+ * Set of integers that can be saved and restored through the
+ * {@link org.maxicp.state.StateManager#saveState()} / {@link org.maxicp.state.StateManager#restoreState()}
+ * methods, whose values can only be removed.
+ *
+ * @see StateSparseSet
+ * @see SemanticStateSparseSet
+ */
+public interface SparseSet {
+
+    /**
+     * Returns an array with the values present in the set.
+     *
+     * @return an array representation of the values present in the set
+     */
+    int[] toArray();
+
+    /**
+     * Sets the first values of <code>dest</code> to the ones
+     * present in the set.
+     *
+     * @param dest, an array large enough {@code dest.length >= size()}
+     * @return the size of the set
+     */
+    int fillArray(int[] dest);
+
+    /**
+     * Sets the first values of <code>dest</code> to the ones
+     * present in the set that also satisfy the given filter predicate
+     *
+     * @param dest, an array large enough {@code dest.length >= size()}
+     * @param filterPredicate the predicate, only elements for which the predicate is true are kept
+     * @return the size of the set of elements in the set satisfying hte predicate
+     */
+    int fillArrayWithFilter(int[] dest, Predicate<Integer> filterPredicate);
+
+    /**
+     * Checks if the set is empty
+     *
+     * @return true if the set is empty
+     */
+    boolean isEmpty();
+
+    /**
+     * Returns the size of the set.
+     *
+     * @return the size of the set
+     */
+    int size();
+
+    /**
+     * Returns the minimum value in the set.
+     *
+     * @return the minimum value in the set
+     */
+    int min();
+
+    /**
+     * Returns the maximum value in the set.
+     *
+     * @return the maximum value in the set
+     */
+    int max();
+
+    /**
+     * Removes the given value from the set.
+     *
+     * @param val the value to remove.
+     * @return true if val was in the set, false otherwise
+     */
+    boolean remove(int val);
+
+    /**
+     * Checks if a value is in the set.
+     *
+     * @param val the value to check
+     * @return true if val is in the set
+     */
+    boolean contains(int val);
+
+    /**
+     * Removes all the element from the set except the given value.
+     *
+     * @param v is an element in the set
+     */
+    void removeAllBut(int v);
+
+    /**
+     * Removes all the values in the set.
+     */
+    void removeAll();
+
+    /**
+     * Remove all the values less than the given value from the set
+     *
+     * @param value a value such that all the ones smaller are removed
+     */
+    void removeBelow(int value);
+
+    /**
+     * Remove all the values larger than the given value from the set
+     *
+     * @param value a value such that all the ones greater are removed
+     */
+    void removeAbove(int value);
+
+    /**
+     * Sets the first values of <code>arr</code> to the ones removed
+     * since the set had the given size.
+     *
+     * @param oldMin the minimum of the set when it had the size oldSize
+     * @param oldMax the maximum of the set when it had the size oldSize
+     * @param oldSize a previous size of the set
+     * @param arr an array large enough {@code arr.length >= oldSize - size()}
+     * @return the number of values removed
+     */
+    int fillDeltaArray(int oldMin, int oldMax, int oldSize, int[] arr);
+}
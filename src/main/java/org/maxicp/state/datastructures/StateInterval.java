@@ -49,7 +49,7 @@ public class StateInterval {
      * @return true if the set is empty
      */
     public boolean isEmpty() {
-        return min.value() > max.value();
+        return min.intValue() > max.intValue();
     }
 
     /**
@@ -58,7 +58,7 @@ public class StateInterval {
      * @return the size of the set
      */
     public int size() {
-        return Math.max(max.value() - min.value() + 1, 0);
+        return Math.max(max.intValue() - min.intValue() + 1, 0);
     }
 
     /**
@@ -67,7 +67,7 @@ public class StateInterval {
      * @return the minimum value in the set
      */
     public int min() {
-        return min.value();
+        return min.intValue();
     }
 
     /**
@@ -76,7 +76,7 @@ public class StateInterval {
      * @return the maximum value in the set
      */
     public int max() {
-        return max.value();
+        return max.intValue();
     }
 
     /**
@@ -86,7 +86,7 @@ public class StateInterval {
      * @return true if the value is in the interval
      */
     public boolean contains(int val) {
-        return min.value() <= val && val <= max.value();
+        return min.intValue() <= val && val <= max.intValue();
     }
 
     /**
@@ -121,7 +121,7 @@ public class StateInterval {
      * Empties the interval.
      */
     public void removeAll() {
-        min.setValue(max.value() + 1);
+        min.setValue(max.intValue() + 1);
     }
 
     /**
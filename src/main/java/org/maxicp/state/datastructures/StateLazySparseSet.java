@@ -28,7 +28,7 @@ public class StateLazySparseSet {
 
     private StateManager sm;
 
-    private StateSparseSet sparse;
+    private SemanticStateSparseSet sparse;
     private StateInterval interval;
 
 
@@ -60,7 +60,7 @@ public class StateLazySparseSet {
     }
 
     private void buildSparse() {
-        sparse = new StateSparseSet(sm, max() - min() + 1, min());
+        sparse = new SemanticStateSparseSet(sm, max() - min() + 1, min());
         intervalRep.setValue(false);
         switched = true;
     }
@@ -17,8 +17,7 @@
 package org.maxicp.state.datastructures;
 
 
-import org.maxicp.state.State;
-import org.maxicp.state.StateInt;
+import org.maxicp.state.StateEntry;
 import org.maxicp.state.StateManager;
 
 import java.util.Arrays;
@@ -27,18 +26,36 @@ import java.util.Arrays;
 /**
  * Class to represent a bit-set that can be saved and restored through
  * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
+ * <p>
+ * The words are stored in a raw {@code long[]}, each one with the magic
+ * of the {@link StateManager} at which it was last saved.
+ * A word is copied in a primitive backup array only the first time
+ * it is modified after a save. The bit-set records itself as a single
+ * {@link StateEntry} per level and restores the saved words
+ * and its number of non-zero words together.
  */
-public class StateSparseBitSet {
+public class StateSparseBitSet implements StateEntry {
+
+    private final StateManager sm;
 
     /* Variables used to store value of the bitset */
     private int nWords;
-    private State<Long>[] words;
+    private long[] words;
+    private long[] wordMagic; // magic at which each word was last saved
 
     /* Variables used to make set sparse */
     private int[] nonZeroIdx;
-    private StateInt nNonZero;
+    private int nNonZero;
+
+    /* Saved words (index and value) and, for each saved level, nNonZero and the start in the saved words */
+    private int[] savedIdx;
+    private long[] savedWords;
+    private int nSavedWords = 0;
+    private int[] savedLevels = new int[2 * 8];
+    private int nSavedLevels = 0;
+    private long lastMagic;
 
-    private Long mask;
+    private long mask;
 
     /* Temp variable */
     public CollectionBitSet collection;
@@ -71,7 +88,6 @@ public class StateSparseBitSet {
      * Optimized to compute elements only on active words.
      */
     public class CollectionBitSet extends BitSet {
-        private long[] collection;
 
         public CollectionBitSet() {
             super(nWords);
@@ -79,24 +95,24 @@ public class StateSparseBitSet {
 
         @Override
         public void clear() {
-            for (int i = nNonZero.value() - 1; i >= 0; i--) {
-                collection[nonZeroIdx[i]] = 0L;
+            for (int i = nNonZero - 1; i >= 0; i--) {
+                words[nonZeroIdx[i]] = 0L;
             }
         }
 
         @Override
         public void union(BitSet other) {
-            for (int i = nNonZero.value() - 1; i >= 0; i--) {
+            for (int i = nNonZero - 1; i >= 0; i--) {
                 int idx = nonZeroIdx[i];
-                collection[idx] |= other.words[idx];
+                words[idx] |= other.words[idx];
             }
         }
 
         @Override
         public void intersect(BitSet other) {
-            for (int i = nNonZero.value() - 1; i >= 0; i--) {
+            for (int i = nNonZero - 1; i >= 0; i--) {
                 int idx = nonZeroIdx[i];
-                collection[idx] &= other.words[idx];
+                words[idx] &= other.words[idx];
             }
         }
     }
@@ -108,27 +124,74 @@ public class StateSparseBitSet {
      * @param n  the number of bits
      */
     public StateSparseBitSet(StateManager sm, int n) {
+        this.sm = sm;
         nWords = (n + 63) >>> 6; // divided by 64
-        words = new State[nWords];
+        words = new long[nWords];
         mask = ~0L >>> (64 - (n % 64));
-        Arrays.setAll(words, i ->
-                i == nWords - 1 ?
-                        sm.makeStateLong(mask) :
-                        sm.makeStateLong(0xFFFFFFFFFFFFFFFFL)
-        );
+        Arrays.fill(words, 0xFFFFFFFFFFFFFFFFL);
+        words[nWords - 1] = mask;
+        lastMagic = sm.getMagic() - 1;
+        wordMagic = new long[nWords];
+        Arrays.fill(wordMagic, lastMagic);
+        savedIdx = new int[nWords];
+        savedWords = new long[nWords];
         nonZeroIdx = new int[nWords];
         Arrays.setAll(nonZeroIdx, i -> i);
-        nNonZero = sm.makeStateInt(nWords);
+        nNonZero = nWords;
         collection = new CollectionBitSet();
     }
 
+    /**
+     * Records the bit-set on the state manager if it is
+     * its first modification since the last save or restore.
+     */
+    private void trail() {
+        long magic = sm.getMagic();
+        if (lastMagic != magic) {
+            lastMagic = magic;
+            if (nSavedLevels == savedLevels.length)
+                savedLevels = Arrays.copyOf(savedLevels, nSavedLevels * 2);
+            savedLevels[nSavedLevels++] = nSavedWords;
+            savedLevels[nSavedLevels++] = nNonZero;
+            sm.pushState(this);
+        }
+    }
+
+    /**
+     * Sets a word, saving its previous value if it is
+     * the first time it is modified since the last save or restore.
+     * {@link #trail()} must have been called before.
+     */
+    private void setWord(int idx, long word) {
+        if (wordMagic[idx] != lastMagic) {
+            wordMagic[idx] = lastMagic;
+            if (nSavedWords == savedWords.length) {
+                savedIdx = Arrays.copyOf(savedIdx, nSavedWords * 2);
+                savedWords = Arrays.copyOf(savedWords, nSavedWords * 2);
+            }
+            savedIdx[nSavedWords] = idx;
+            savedWords[nSavedWords] = words[idx];
+            nSavedWords++;
+        }
+        words[idx] = word;
+    }
+
+    @Override
+    public void restore() {
+        nNonZero = savedLevels[--nSavedLevels];
+        int start = savedLevels[--nSavedLevels];
+        for (int i = nSavedWords - 1; i >= start; i--)
+            words[savedIdx[i]] = savedWords[i];
+        nSavedWords = start;
+    }
+
     /**
      * Test is the reversibleSparseBitSet is empty
      *
      * @return true is empty, false otherwise
      */
     public boolean isEmpty() {
-        return nNonZero.value() == 0;
+        return nNonZero == 0;
     }
 
     /**
@@ -137,20 +200,23 @@ public class StateSparseBitSet {
      * @param bs the BitSet to remove
      */
     public void remove(BitSet bs) {
-        int size = nNonZero.value();
+        trail();
+        int size = nNonZero;
         for (int i = size - 1; i >= 0; i--) {
             int idx = nonZeroIdx[i];
-            long remove = words[idx].value() & ~bs.words[idx];
+            long remove = words[idx] & ~bs.words[idx];
             if (remove == 0L) {
                 // deactivation of word
+                setWord(idx, 0L);
                 size -= 1;
                 nonZeroIdx[i] = nonZeroIdx[size];
                 nonZeroIdx[size] = idx;
             } else {
-                words[idx].setValue(remove);
+                if (remove != words[idx])
+                    setWord(idx, remove);
             }
         }
-        nNonZero.setValue(size);
+        nNonZero = size;
     }
 
     /**
@@ -166,20 +232,23 @@ public class StateSparseBitSet {
      * @param bs the BitSet to intersect with
      */
     public void intersect(BitSet bs) {
-        int size = nNonZero.value();
+        trail();
+        int size = nNonZero;
         for (int i = size - 1; i >= 0; i--) {
             int idx = nonZeroIdx[i];
-            long intersect = words[idx].value() & bs.words[idx];
+            long intersect = words[idx] & bs.words[idx];
             if (intersect == 0L) {
                 // deactivation of word
+                setWord(idx, 0L);
                 size -= 1;
                 nonZeroIdx[i] = nonZeroIdx[size];
                 nonZeroIdx[size] = idx;
             } else {
-                words[idx].setValue(intersect);
+                if (intersect != words[idx])
+                    setWord(idx, intersect);
             }
         }
-        nNonZero.setValue(size);
+        nNonZero = size;
     }
 
     /**
@@ -196,15 +265,71 @@ public class StateSparseBitSet {
      * @return true if empty, false otherwise
      */
     public boolean hasEmptyIntersection(BitSet bs) {
-        for (int i = nNonZero.value() - 1; i >= 0; i--) {
+        for (int i = nNonZero - 1; i >= 0; i--) {
             int idx = nonZeroIdx[i];
-            if ((words[idx].value() & bs.words[idx]) != 0L) {
+            if ((words[idx] & bs.words[idx]) != 0L) {
                 return false;
             }
         }
         return true;
     }
 
+    /**
+     * Returns the index of a word on which this sparseBitSet intersects a given BitSet
+     *
+     * @param bs the BitSet to test the intersection with
+     * @return the index of a word with a common bit, -1 if the intersection is empty
+     */
+    public int intersectIndex(BitSet bs) {
+        for (int i = nNonZero - 1; i >= 0; i--) {
+            int idx = nonZeroIdx[i];
+            if ((words[idx] & bs.words[idx]) != 0L) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Test if this sparseBitSet intersects a given BitSet on a given word,
+     * typically a residue previously given by {@link #intersectIndex(BitSet)}
+     *
+     * @param bs  the BitSet to test the intersection with
+     * @param idx the index of the word
+     * @return true if there is a common bit in the word
+     */
+    public boolean intersects(BitSet bs, int idx) {
+        return (words[idx] & bs.words[idx]) != 0L;
+    }
+
+    /**
+     * Returns the number of bits of the intersection with a given BitSet
+     *
+     * @param bs the BitSet to intersect with
+     * @return the number of bits set both in this sparseBitSet and in bs
+     */
+    public int intersectionCardinality(BitSet bs) {
+        int card = 0;
+        for (int i = nNonZero - 1; i >= 0; i--) {
+            int idx = nonZeroIdx[i];
+            card += Long.bitCount(words[idx] & bs.words[idx]);
+        }
+        return card;
+    }
+
+    /**
+     * Returns the number of bits set
+     *
+     * @return the number of bits set
+     */
+    public int cardinality() {
+        int card = 0;
+        for (int i = nNonZero - 1; i >= 0; i--) {
+            card += Long.bitCount(words[nonZeroIdx[i]]);
+        }
+        return card;
+    }
+
     /**
      * Test the emptiness of the intersection with the collection
      *
@@ -217,8 +342,8 @@ public class StateSparseBitSet {
     @Override
     public String toString() {
         String res = "";
-        for (int i = 0; i < nNonZero.value(); i++) {
-            res += " w" + nonZeroIdx[i] + "=" + Long.toBinaryString(words[nonZeroIdx[i]].value());
+        for (int i = 0; i < nNonZero; i++) {
+            res += " w" + nonZeroIdx[i] + "=" + Long.toBinaryString(words[nonZeroIdx[i]]);
         }
         return res;
     }
@@ -27,7 +27,7 @@ import java.util.function.Predicate;
  * the {@link StateManager#saveState()} / {@link StateManager#restoreState()}
  * methods.
  */
-public class StateSparseSet {
+public class StateSparseSet implements SparseSet {
 
     private int[] values;
     private int[] indexes;
@@ -98,7 +98,7 @@ public class StateSparseSet {
      * @return the size of the set
      */
     public int fillArray(int[] dest) {
-        int s = size.value();
+        int s = size.intValue();
         for (int i = 0; i < s; i++)
             dest[i] = values[i] + ofs;
         return s;
@@ -113,7 +113,7 @@ public class StateSparseSet {
      * @return the size of the set of elements in the set satisfying hte predicate
      */
     public int fillArrayWithFilter(int[] dest, Predicate<Integer> filterPredicate) {
-        int s = size.value();
+        int s = size.intValue();
         int j = 0;
         for (int i = 0; i < s; i++) {
             if (filterPredicate.test(values[i]+ofs)) {
@@ -132,7 +132,7 @@ public class StateSparseSet {
      * @return true if the set is empty
      */
     public boolean isEmpty() {
-        return size.value() == 0;
+        return size.intValue() == 0;
     }
 
     /**
@@ -141,7 +141,7 @@ public class StateSparseSet {
      * @return the size of the set
      */
     public int size() {
-        return size.value();
+        return size.intValue();
     }
 
     /**
@@ -152,7 +152,7 @@ public class StateSparseSet {
     public int min() {
         if (isEmpty())
             throw new NoSuchElementException();
-        return min.value() + ofs;
+        return min.intValue() + ofs;
     }
 
     /**
@@ -163,7 +163,7 @@ public class StateSparseSet {
     public int max() {
         if (isEmpty())
             throw new NoSuchElementException();
-        else return max.value() + ofs;
+        else return max.intValue() + ofs;
     }
 
     private void updateBoundsValRemoved(int val) {
@@ -172,10 +172,10 @@ public class StateSparseSet {
     }
 
     private void updateMaxValRemoved(int val) {
-        if (!isEmpty() && max.value() == val) {
+        if (!isEmpty() && max.intValue() == val) {
             assert (!internalContains(val));
             //the maximum was removed, search the new one
-            for (int v = val - 1; v >= min.value(); v--) {
+            for (int v = val - 1; v >= min.intValue(); v--) {
                 if (internalContains(v)) {
                     max.setValue(v);
                     return;
@@ -185,10 +185,10 @@ public class StateSparseSet {
     }
 
     private void updateMinValRemoved(int val) {
-        if (!isEmpty() && min.value() == val) {
+        if (!isEmpty() && min.intValue() == val) {
             assert (!internalContains(val));
             //the minimum was removed, search the new one
-            for (int v = val + 1; v <= max.value(); v++) {
+            for (int v = val + 1; v <= max.intValue(); v++) {
                 if (internalContains(v)) {
                     min.setValue(v);
                     return;
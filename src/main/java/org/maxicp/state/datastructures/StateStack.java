@@ -42,14 +42,14 @@ public class StateStack<E> {
     }
 
     public void push(E elem) {
-        int s = size.value();
+        int s = size.intValue();
         if (stack.size() > s) stack.set(s, elem);
         else stack.add(elem);
         size.increment();
     }
 
     public int size() {
-        return size.value();
+        return size.intValue();
     }
 
     public E get(int index) {
@@ -18,7 +18,7 @@ import java.util.function.Predicate;
  *
  *
  */
-public class StateTriPartition {
+public class StateTriPartition implements TriPartition {
 
     protected int[] elems;
     protected int[] elemPos;
@@ -99,7 +99,7 @@ public class StateTriPartition {
             return false; // the value is already in the excluded set or in the set of included
         val -= ofs;
         this.p.decrement();
-        exchangePositions(val, elems[p.value()]);
+        exchangePositions(val, elems[p.intValue()]);
         return true;
     }
 
@@ -114,7 +114,7 @@ public class StateTriPartition {
         if (!isPossible(val))
             return false; // the value is already in the excluded set or in the set of included
         val -= ofs;
-        exchangePositions(val, elems[i.value()]);
+        exchangePositions(val, elems[i.intValue()]);
         this.i.increment();
         return true;
     }
@@ -127,7 +127,7 @@ public class StateTriPartition {
      *         false otherwise and the method has no effect.
      */
     public boolean includeAndExcludeOthers(int v) {
-        if (!isPossible(v) || i.value() != 0)
+        if (!isPossible(v) || i.intValue() != 0)
             return false;
         // the value is set in the first position and the value for s and p are updated
         int val = elems[0];
@@ -176,9 +176,9 @@ public class StateTriPartition {
      * @return true if the partition of possible values has been reduced
      */
     public boolean excludeAllPossible() {
-        if (p.value() == i.value())
+        if (p.intValue() == i.intValue())
             return false;
-        this.p.setValue(i.value());
+        this.p.setValue(i.intValue());
         return true;
     }
 
@@ -196,9 +196,9 @@ public class StateTriPartition {
      * @return true if the partition of possible values has been reduced
      */
     public boolean includeAllPossible() {
-        if (p.value() == i.value())
+        if (p.intValue() == i.intValue())
             return false;
-        this.i.setValue(p.value());
+        this.i.setValue(p.intValue());
         return true;
     }
 
@@ -213,7 +213,7 @@ public class StateTriPartition {
         if (val < 0 || val >= n)
             return false;
         else
-            return elemPos[val] < i.value();
+            return elemPos[val] < i.intValue();
     }
 
     /**
@@ -227,7 +227,7 @@ public class StateTriPartition {
         if (val < 0 || val >= n)
             return false;
         else
-            return elemPos[val] >= p.value() && elemPos[val] < n - nOmitted;
+            return elemPos[val] >= p.intValue() && elemPos[val] < n - nOmitted;
     }
 
     public boolean isPossible(int val) {
@@ -235,7 +235,7 @@ public class StateTriPartition {
         if (val < 0 || val >= n)
             return false;
         else
-            return elemPos[val] < p.value() && elemPos[val] >= i.value();
+            return elemPos[val] < p.intValue() && elemPos[val] >= i.intValue();
     }
 
     /**
@@ -251,21 +251,21 @@ public class StateTriPartition {
     }
 
     public int nPossible() {
-        return p.value() - i.value();
+        return p.intValue() - i.intValue();
     }
 
     public int nExcluded() {
-        return n - p.value() - nOmitted;
+        return n - p.intValue() - nOmitted;
     }
 
     public int nIncluded() {
-        return i.value();
+        return i.intValue();
     }
 
     public int size() { return n - nOmitted;}
 
     public int fillIncluded(int[] dest) {
-        int size = i.value();
+        int size = i.intValue();
         for (int i = 0; i < size ; ++i)
             dest[i] = elems[i] + ofs;
         return size;
@@ -281,7 +281,7 @@ public class StateTriPartition {
      */
     public int fillIncludedWithFilter(int[] dest, Predicate<Integer> filterPredicate) {
         int j = 0;
-        int size = i.value();
+        int size = i.intValue();
         for (int i = 0; i < size ; ++i) {
             int v = elems[i] + ofs;
             if (filterPredicate.test(v)) {
@@ -293,8 +293,8 @@ public class StateTriPartition {
     }
 
     public int fillPossible(int[] dest) {
-        int begin = i.value();
-        int end = p.value() - begin;
+        int begin = i.intValue();
+        int end = p.intValue() - begin;
         if (ofs == 0) {
             System.arraycopy(elems, begin, dest, 0, end);
         } else {
@@ -314,8 +314,8 @@ public class StateTriPartition {
      * @return the size of the possible set of elements satisfying the predicate
      */
     public int fillPossibleWithFilter(int[] dest, Predicate<Integer> filterPredicate) {
-        int begin = i.value();
-        int end = p.value() - begin;
+        int begin = i.intValue();
+        int end = p.intValue() - begin;
         int j = 0;
         for (int i = 0; i < end; i++) {
             int v = elems[i + begin] + ofs;
@@ -329,7 +329,7 @@ public class StateTriPartition {
     }
 
     public int fillIncludedAndPossible(int[] dest) {
-        int end = p.value();
+        int end = p.intValue();
         if (ofs == 0) {
             System.arraycopy(elems, 0, dest, 0, end);
         } else {
@@ -341,7 +341,7 @@ public class StateTriPartition {
     }
 
     public int fillExcluded(int[] dest) {
-        int begin = p.value();
+        int begin = p.intValue();
         int end = n - begin - nOmitted;
         if (ofs == 0) {
             System.arraycopy(elems, begin, dest, 0, end);
@@ -359,8 +359,8 @@ public class StateTriPartition {
         b.append("I: {");
 
         int idx = 0;
-        int i = this.i.value();
-        int pVal = p.value();
+        int i = this.i.intValue();
+        int pVal = p.intValue();
         while (idx < i - 1) {
             b.append(elems[idx++] + ofs);
             b.append(',');
@@ -0,0 +1,180 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.state.datastructures;
+
+import java.util.function.Predicate;
+
+/**
+ * Set of integers partitioned into included (I), possible (P) and excluded (E) values,
+ * that can be saved and restored through the
+ * {@link org.maxicp.state.StateManager#saveState()} / {@link org.maxicp.state.StateManager#restoreState()}
+ * methods. The possible values can only be moved to the included or excluded partitions.
+ *
+ * @see StateTriPartition
+ * @see SemanticStateTriPartition
+ */
+public interface TriPartition {
+
+    /**
+     * Moves a value from the set of possible values P to the set of excluded values E.
+     *
+     * @param val the value to move to the excluded set E
+     * @return true if the value has been moved from the set of possible P to the set of excluded,
+     *         false otherwise and the method has no effect in this case.
+     */
+    boolean exclude(int val);
+
+    /**
+     * Moves a value from the possible partition P to the included partition I.
+     *
+     * @param val the value to mark as included
+     * @return true if the value has been moved from the set of possible P to the set of included I,
+     *         false otherwise and the method has no effect in this case.
+     */
+    boolean include(int val);
+
+    /**
+     * Sets the specified value as the only included one and move all others into the exclusion partition.
+     *
+     * @param v unique value that will be contained in the included partition.
+     * @return true if the included partition was empty and the value was possible,
+     *         false otherwise and the method has no effect.
+     */
+    boolean includeAndExcludeOthers(int v);
+
+    /**
+     * Moves all possible values into the set of excluded values.
+     *
+     * @return true if the partition of possible values has been reduced
+     */
+    boolean excludeAllPossible();
+
+    /**
+     * Moves all values, also the included ones into the set of excluded values.
+     */
+    void excludeAll();
+
+    /**
+     * Moves all possible values into the set of included values.
+     *
+     * @return true if the partition of possible values has been reduced
+     */
+    boolean includeAllPossible();
+
+    /**
+     * Tells if the specified value belongs to the included partition I.
+     *
+     * @param val the value to test.
+     * @return true if val belongs to the included partition I.
+     */
+    boolean isIncluded(int val);
+
+    /**
+     * Tells if the specified value belongs to the excluded partition E.
+     *
+     * @param val the value to test.
+     * @return true if val belongs to the excluded partition E.
+     */
+    boolean isExcluded(int val);
+
+    /**
+     * Tells if the specified value belongs to the possible partition P.
+     *
+     * @param val the value to test.
+     * @return true if val belongs to the possible partition P.
+     */
+    boolean isPossible(int val);
+
+    /**
+     * Tells if a value belongs to the domain
+     *
+     * @param val value to test
+     * @return true if the value is either included, possible or excluded
+     */
+    boolean contains(int val);
+
+    /**
+     * @return the number of possible values
+     */
+    int nPossible();
+
+    /**
+     * @return the number of excluded values
+     */
+    int nExcluded();
+
+    /**
+     * @return the number of included values
+     */
+    int nIncluded();
+
+    /**
+     * @return the number of values, included, possible or excluded
+     */
+    int size();
+
+    /**
+     * Sets the first values of <code>dest</code> to the included ones
+     *
+     * @param dest, an array large enough {@code dest.length >= nIncluded()}
+     * @return the number of included values
+     */
+    int fillIncluded(int[] dest);
+
+    /**
+     * Sets the first values of <code>dest</code> to the included ones
+     * that also satisfy the given filter predicate
+     *
+     * @param dest, an array large enough {@code dest.length >= size()}
+     * @param filterPredicate the predicate, only elements for which the predicate is true are kept
+     * @return the size of the included set of elements satisfying the predicate
+     */
+    int fillIncludedWithFilter(int[] dest, Predicate<Integer> filterPredicate);
+
+    /**
+     * Sets the first values of <code>dest</code> to the possible ones
+     *
+     * @param dest, an array large enough {@code dest.length >= nPossible()}
+     * @return the number of possible values
+     */
+    int fillPossible(int[] dest);
+
+    /**
+     * Sets the first values of <code>dest</code> to the possible ones
+     * that also satisfy the given filter predicate
+     *
+     * @param dest, an array large enough {@code dest.length >= size()}
+     * @param filterPredicate the predicate, only elements for which the predicate is true are kept
+     * @return the size of the possible set of elements satisfying the predicate
+     */
+    int fillPossibleWithFilter(int[] dest, Predicate<Integer> filterPredicate);
+
+    /**
+     * Sets the first values of <code>dest</code> to the included and possible ones
+     *
+     * @param dest, an array large enough {@code dest.length >= nIncluded() + nPossible()}
+     * @return the number of included and possible values
+     */
+    int fillIncludedAndPossible(int[] dest);
+
+    /**
+     * Sets the first values of <code>dest</code> to the excluded ones
+     *
+     * @param dest, an array large enough {@code dest.length >= nExcluded()}
+     * @return the number of excluded values
+     */
+    int fillExcluded(int[] dest);
+}
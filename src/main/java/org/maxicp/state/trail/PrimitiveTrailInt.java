@@ -0,0 +1,63 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.state.trail;
+
+
+import org.maxicp.state.StateInt;
+import org.maxicp.state.StateManager;
+
+/**
+ * Implementation of {@link StateInt} with a primitive trail strategy:
+ * the value is stored in the int array of the {@link PrimitiveTrailer}
+ * and trailed without boxing nor allocation.
+ * @see PrimitiveTrailer
+ * @see StateManager#makeStateInt(int)
+ */
+public class PrimitiveTrailInt implements StateInt {
+
+    private final PrimitiveTrailer trail;
+    private final int id;
+
+    protected PrimitiveTrailInt(PrimitiveTrailer trail, int initial) {
+        this.trail = trail;
+        this.id = trail.newInt(initial);
+    }
+
+    @Override
+    public int setValue(int v) {
+        return trail.setInt(id, v);
+    }
+
+    @Override
+    public Integer setValue(Integer v) {
+        return trail.setInt(id, v);
+    }
+
+    @Override
+    public int intValue() {
+        return trail.intValues[id];
+    }
+
+    @Override
+    public Integer value() {
+        return trail.intValues[id];
+    }
+
+    @Override
+    public String toString() {
+        return "" + trail.intValues[id];
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.state.trail;
+
+
+import org.maxicp.state.StateLong;
+import org.maxicp.state.StateManager;
+
+/**
+ * Implementation of {@link StateLong} with a primitive trail strategy:
+ * the value is stored in the long array of the {@link PrimitiveTrailer}
+ * and trailed without boxing nor allocation.
+ * @see PrimitiveTrailer
+ * @see StateManager#makeStateLong(long)
+ */
+public class PrimitiveTrailLong implements StateLong {
+
+    private final PrimitiveTrailer trail;
+    private final int id;
+
+    protected PrimitiveTrailLong(PrimitiveTrailer trail, long initial) {
+        this.trail = trail;
+        this.id = trail.newLong(initial);
+    }
+
+    @Override
+    public long setValue(long v) {
+        return trail.setLong(id, v);
+    }
+
+    @Override
+    public Long setValue(Long v) {
+        return trail.setLong(id, v);
+    }
+
+    @Override
+    public long longValue() {
+        return trail.longValues[id];
+    }
+
+    @Override
+    public Long value() {
+        return trail.longValues[id];
+    }
+
+    @Override
+    public String toString() {
+        return "" + trail.longValues[id];
+    }
+}
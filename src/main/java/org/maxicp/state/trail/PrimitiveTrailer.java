@@ -0,0 +1,164 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.state.trail;
+
+
+import org.maxicp.state.StateInt;
+import org.maxicp.state.StateLong;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * Trail-based StateManager that stores the value of
+ * every {@link StateInt} and {@link StateLong} it creates
+ * in primitive arrays indexed by a state id.
+ * When such a state is modified for the first time since the last
+ * {@link #saveState()}, its id and previous value are pushed on
+ * parallel primitive undo arrays so that no object is allocated.
+ * Other states (references, maps) are trailed as in {@link Trailer}.
+ * As with the {@link Trailer}, a state remains valid after the restoration
+ * of the level where it was created: the ids are kept for the life of the trailer.
+ * This is a drop-in replacement for {@link Trailer}.
+ */
+public class PrimitiveTrailer extends Trailer {
+
+    // values and magic of the last trailing of every state, indexed by state id
+    int[] intValues = new int[16];
+    private long[] intMagic = new long[16];
+    private int nInts = 0;
+
+    long[] longValues = new long[16];
+    private long[] longMagic = new long[16];
+    private int nLongs = 0;
+
+    // undo logs: (id, old value) pairs
+    private int[] intUndoId = new int[64];
+    private int[] intUndoValue = new int[64];
+    private int intUndoSize = 0;
+
+    private int[] longUndoId = new int[16];
+    private long[] longUndoValue = new long[16];
+    private int longUndoSize = 0;
+
+    // size of the undo logs when the state was saved, indexed by level
+    private int[] intUndoMark = new int[16];
+    private int[] longUndoMark = new int[16];
+
+    public PrimitiveTrailer() {
+        super();
+    }
+
+    int newInt(int initValue) {
+        if (nInts == intValues.length) {
+            intValues = Arrays.copyOf(intValues, nInts * 2);
+            intMagic = Arrays.copyOf(intMagic, nInts * 2);
+        }
+        intValues[nInts] = initValue;
+        intMagic[nInts] = getMagic() - 1;
+        return nInts++;
+    }
+
+    int newLong(long initValue) {
+        if (nLongs == longValues.length) {
+            longValues = Arrays.copyOf(longValues, nLongs * 2);
+            longMagic = Arrays.copyOf(longMagic, nLongs * 2);
+        }
+        longValues[nLongs] = initValue;
+        longMagic[nLongs] = getMagic() - 1;
+        return nLongs++;
+    }
+
+    int setInt(int id, int v) {
+        if (intValues[id] != v) {
+            long magic = getMagic();
+            if (intMagic[id] != magic) {
+                intMagic[id] = magic;
+                if (intUndoSize == intUndoId.length) {
+                    intUndoId = Arrays.copyOf(intUndoId, intUndoSize * 2);
+                    intUndoValue = Arrays.copyOf(intUndoValue, intUndoSize * 2);
+                }
+                intUndoId[intUndoSize] = id;
+                intUndoValue[intUndoSize] = intValues[id];
+                intUndoSize++;
+            }
+            intValues[id] = v;
+        }
+        return v;
+    }
+
+    long setLong(int id, long v) {
+        if (longValues[id] != v) {
+            long magic = getMagic();
+            if (longMagic[id] != magic) {
+                longMagic[id] = magic;
+                if (longUndoSize == longUndoId.length) {
+                    longUndoId = Arrays.copyOf(longUndoId, longUndoSize * 2);
+                    longUndoValue = Arrays.copyOf(longUndoValue, longUndoSize * 2);
+                }
+                longUndoId[longUndoSize] = id;
+                longUndoValue[longUndoSize] = longValues[id];
+                longUndoSize++;
+            }
+            longValues[id] = v;
+        }
+        return v;
+    }
+
+    @Override
+    public void saveState() {
+        super.saveState();
+        int level = getLevel();
+        if (level == intUndoMark.length) {
+            intUndoMark = Arrays.copyOf(intUndoMark, level * 2);
+            longUndoMark = Arrays.copyOf(longUndoMark, level * 2);
+        }
+        intUndoMark[level] = intUndoSize;
+        longUndoMark[level] = longUndoSize;
+    }
+
+    @Override
+    public void restoreState() {
+        int level = getLevel();
+        if (level < 0)
+            throw new EmptyStackException();
+        int mark = intUndoMark[level];
+        for (int i = intUndoSize - 1; i >= mark; i--)
+            intValues[intUndoId[i]] = intUndoValue[i];
+        intUndoSize = mark;
+        mark = longUndoMark[level];
+        for (int i = longUndoSize - 1; i >= mark; i--)
+            longValues[longUndoId[i]] = longUndoValue[i];
+        longUndoSize = mark;
+        super.restoreState();
+    }
+
+    @Override
+    public int trailSize() {
+        return super.trailSize() + intUndoSize + longUndoSize;
+    }
+
+    @Override
+    public StateInt makeStateInt(int initValue) {
+        return new PrimitiveTrailInt(this, initValue);
+    }
+
+    @Override
+    public StateLong makeStateLong(long initValue) {
+        return new PrimitiveTrailLong(this, initValue);
+    }
+
+}
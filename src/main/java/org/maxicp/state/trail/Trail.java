@@ -17,7 +17,6 @@ package org.maxicp.state.trail;
 
 
 import org.maxicp.state.State;
-import org.maxicp.state.StateEntry;
 import org.maxicp.state.StateManager;
 
 /**
@@ -27,19 +26,6 @@ import org.maxicp.state.StateManager;
  */
 public class Trail<T> implements State<T> {
 
-    class TrailStateEntry implements StateEntry {
-        private final T v;
-
-        TrailStateEntry(T v) {
-            this.v = v;
-        }
-
-        @Override
-        public void restore() {
-            Trail.this.v = v;
-        }
-    }
-
     private Trailer trail;
     private T v;
     private long lastMagic = -1L;
@@ -54,10 +40,15 @@ public class Trail<T> implements State<T> {
         long trailMagic = trail.getMagic();
         if (lastMagic != trailMagic) {
             lastMagic = trailMagic;
-            trail.pushState(new TrailStateEntry(v));
+            trail.pushState(this, v);
         }
     }
 
+    @SuppressWarnings("unchecked")
+    void restore(Object v) {
+        this.v = (T) v;
+    }
+
     @Override
     public T setValue(T v) {
         if (v != this.v) {
@@ -20,9 +20,10 @@ import org.maxicp.state.*;
 import org.maxicp.state.copy.Copier;
 import org.maxicp.util.Procedure;
 
+import java.util.Arrays;
+import java.util.EmptyStackException;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Stack;
 
 /**
  * StateManager that will lazily store
@@ -31,28 +32,33 @@ import java.util.Stack;
  * Only the one that effectively change are stored
  * and at most once between any to call to {@link #saveState()}.
  * This can be seen as an optimized version of {@link Copier}.
+ * <p>
+ * The trail is a single growable array of entries
+ * and each level is the offset in this array at which it starts,
+ * such that saving the state allocates nothing
+ * and restoring it is a reverse loop over the entries of the level.
  */
 public class Trailer implements StateManager {
 
-    static class Backup extends Stack<StateEntry> {
-        Backup() {
-        }
+    // trailed entries, either a StateEntry or a Trail with its old value in values
+    private Object[] entries;
+    private Object[] values;
+    private int size;
 
-        void restore() {
-            for (StateEntry se : this)
-                se.restore();
-        }
-    }
+    // offset in the trail at which each level starts
+    private int[] levels;
+    private int nLevels;
 
-    private Stack<Backup> prior;
-    private Backup current;
     private long magic = 0L;
 
     private List<Procedure> onRestoreListeners;
 
     public Trailer() {
-        prior = new Stack<Backup>();
-        current = new Backup();
+        entries = new Object[1024];
+        values = new Object[1024];
+        size = 0;
+        levels = new int[64];
+        nLevels = 0;
         onRestoreListeners = new LinkedList<Procedure>();
     }
 
@@ -67,31 +73,70 @@ public class Trailer implements StateManager {
         onRestoreListeners.add(listener);
     }
 
+    @Override
     public long getMagic() {
         return magic;
     }
 
+    private void grow() {
+        entries = Arrays.copyOf(entries, size * 2);
+        values = Arrays.copyOf(values, size * 2);
+    }
+
+    @Override
     public void pushState(StateEntry entry) {
-        current.push(entry);
+        if (size == entries.length)
+            grow();
+        entries[size++] = entry;
+    }
+
+    void pushState(Trail<?> trail, Object oldValue) {
+        if (size == entries.length)
+            grow();
+        entries[size] = trail;
+        values[size] = oldValue;
+        size++;
+    }
+
+    /**
+     * Returns the number of entries currently on the trail
+     * @return the number of entries on the trail
+     */
+    @Override
+    public int trailSize() {
+        return size;
     }
 
     @Override
     public int getLevel() {
-        return prior.size() - 1;
+        return nLevels - 1;
     }
 
     @Override
     public void saveState() {
-        prior.add(current);
-        current = new Backup();
+        if (nLevels == levels.length)
+            levels = Arrays.copyOf(levels, nLevels * 2);
+        levels[nLevels++] = size;
         magic++;
     }
 
 
     @Override
     public void restoreState() {
-        current.restore();
-        current = prior.pop();
+        if (nLevels == 0)
+            throw new EmptyStackException();
+        int start = levels[--nLevels];
+        for (int i = size - 1; i >= start; i--) {
+            Object entry = entries[i];
+            if (entry instanceof Trail<?> trail) {
+                trail.restore(values[i]);
+                values[i] = null;
+            } else {
+                ((StateEntry) entry).restore();
+            }
+            entries[i] = null;
+        }
+        size = start;
         magic++;
         notifyRestore();
     }
@@ -19,6 +19,8 @@ package org.maxicp.cp.engine;
 import org.maxicp.cp.engine.core.MiniCP;
 import org.maxicp.cp.engine.core.CPSolver;
 import org.maxicp.state.copy.Copier;
+import org.maxicp.state.copy.IncrementalCopier;
+import org.maxicp.state.trail.PrimitiveTrailer;
 import org.maxicp.state.trail.Trailer;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
@@ -32,7 +34,9 @@ public abstract class CPSolverTest {
     public static Supplier<CPSolver>[] data() {
         return new Supplier[]{
                 () -> new MiniCP(new Trailer()),
+                () -> new MiniCP(new PrimitiveTrailer()),
                 () -> new MiniCP(new Copier()),
+                () -> new MiniCP(new IncrementalCopier()),
         };
     }
 
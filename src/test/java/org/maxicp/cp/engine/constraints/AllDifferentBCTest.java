@@ -0,0 +1,179 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import org.junit.Test;
+import org.maxicp.BranchingScheme;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.engine.CPSolverTest;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.search.SearchStatistics;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AllDifferentBCTest extends CPSolverTest {
+
+    private static CPIntVar makeIVar(CPSolver cp, Integer... values) {
+        return CPFactory.makeIntVar(cp, new HashSet<>(Arrays.asList(values)));
+    }
+
+    @Test
+    public void allDifferentTest1() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 5, 5);
+        cp.post(CPFactory.allDifferentBC(x));
+        cp.post(CPFactory.equal(x[0], 0));
+        for (int i = 1; i < x.length; i++) {
+            assertEquals(1, x[i].min());
+            assertEquals(4, x[i].max());
+        }
+        SearchStatistics stats = CPFactory.makeDfs(cp, BranchingScheme.firstFail(x)).solve();
+        assertEquals(24, stats.numberOfSolutions());
+    }
+
+    @Test
+    public void testHallInterval() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = new CPIntVar[]{
+                CPFactory.makeIntVar(cp, 1, 2),
+                CPFactory.makeIntVar(cp, 1, 2),
+                CPFactory.makeIntVar(cp, 1, 4),
+                CPFactory.makeIntVar(cp, 2, 4),
+                CPFactory.makeIntVar(cp, 0, 6)};
+        cp.post(CPFactory.allDifferentBC(x));
+        // {1,2} is a Hall interval, then {1,2,3,4}
+        assertEquals(3, x[2].min());
+        assertEquals(3, x[3].min());
+        assertTrue(x[4].min() == 0 && x[4].max() == 6);
+        assertEquals(7, x[4].size()); // only the bounds are filtered, 1..4 are kept
+        cp.post(CPFactory.notEqual(x[4], 0));
+        assertEquals(5, x[4].min());
+    }
+
+    @Test
+    public void testBoundsOnly() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = new CPIntVar[]{
+                makeIVar(cp, 1, 3),
+                makeIVar(cp, 1, 3),
+                makeIVar(cp, 1, 2, 3)};
+        // bounds consistent with the domains relaxed to [1..3], the value 2 is kept for x[2]
+        cp.post(CPFactory.allDifferentBC(x));
+        assertEquals(3, x[2].size());
+        // arc consistency fixes x[2]
+        cp.post(CPFactory.allDifferentAC(x));
+        assertTrue(x[2].isFixed());
+    }
+
+    @Test
+    public void testFailure() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = new CPIntVar[]{
+                CPFactory.makeIntVar(cp, 0, 2),
+                CPFactory.makeIntVar(cp, 0, 2),
+                CPFactory.makeIntVar(cp, 1, 2),
+                CPFactory.makeIntVar(cp, 0, 1)};
+        try {
+            cp.post(CPFactory.allDifferentBC(x));
+            fail("4 variables in 3 values");
+        } catch (InconsistencyException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSameBoundsAsACOnIntervals() {
+        Random rand = new Random(42);
+        for (int iter = 0; iter < 200; iter++) {
+            int n = 2 + rand.nextInt(7);
+            int[] lb = new int[n];
+            int[] ub = new int[n];
+            for (int i = 0; i < n; i++) {
+                lb[i] = rand.nextInt(10) - 3;
+                ub[i] = lb[i] + rand.nextInt(4);
+            }
+            CPIntVar[] xbc = makeVars(lb, ub);
+            CPIntVar[] xac = makeVars(lb, ub);
+            boolean failBC = false, failAC = false;
+            try {
+                xbc[0].getSolver().post(new AllDifferentBC(xbc));
+            } catch (InconsistencyException e) {
+                failBC = true;
+            }
+            try {
+                xac[0].getSolver().post(new AllDifferentDC(xac));
+            } catch (InconsistencyException e) {
+                failAC = true;
+            }
+            assertEquals(failAC, failBC);
+            if (!failBC) {
+                for (int i = 0; i < n; i++) {
+                    assertEquals(xac[i].min(), xbc[i].min());
+                    assertEquals(xac[i].max(), xbc[i].max());
+                }
+            }
+        }
+    }
+
+    private CPIntVar[] makeVars(int[] lb, int[] ub) {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = new CPIntVar[lb.length];
+        for (int i = 0; i < x.length; i++)
+            x[i] = CPFactory.makeIntVar(cp, lb[i], ub[i]);
+        return x;
+    }
+
+    @Test
+    public void testSameSolutionsAsAC() {
+        Random rand = new Random(7);
+        for (int iter = 0; iter < 20; iter++) {
+            int n = 6;
+            Integer[][] domains = new Integer[n][];
+            for (int i = 0; i < n; i++)
+                domains[i] = rand.ints(4, 0, 8).boxed().toArray(Integer[]::new);
+
+            CPSolver cp1 = solverFactory.get();
+            CPIntVar[] x1 = new CPIntVar[n];
+            for (int i = 0; i < n; i++)
+                x1[i] = makeIVar(cp1, domains[i]);
+            CPSolver cp2 = solverFactory.get();
+            CPIntVar[] x2 = new CPIntVar[n];
+            for (int i = 0; i < n; i++)
+                x2[i] = makeIVar(cp2, domains[i]);
+
+            long nSolBC, nSolAC;
+            try {
+                cp1.post(CPFactory.allDifferentBC(x1));
+                nSolBC = CPFactory.makeDfs(cp1, BranchingScheme.firstFail(x1)).solve().numberOfSolutions();
+            } catch (InconsistencyException e) {
+                nSolBC = 0;
+            }
+            try {
+                cp2.post(CPFactory.allDifferentAC(x2));
+                nSolAC = CPFactory.makeDfs(cp2, BranchingScheme.firstFail(x2)).solve().numberOfSolutions();
+            } catch (InconsistencyException e) {
+                nSolAC = 0;
+            }
+            assertEquals(nSolAC, nSolBC);
+        }
+    }
+}
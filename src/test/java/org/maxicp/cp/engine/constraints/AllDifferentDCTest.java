@@ -243,7 +243,14 @@ public class AllDifferentDCTest extends CPSolverTest {
         }
     }
 
-
-
+    @Test
+    public void testIdempotentOnlyOnDistinctVariables() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 5);
+        assertTrue(new AllDifferentDC(x).isIdempotent());
+        // a filtering of x[0] changes its view too
+        assertFalse(new AllDifferentDC(x[0], x[1], CPFactory.minus(x[0], 1)).isIdempotent());
+        assertFalse(new AllDifferentDC(x[0], CPFactory.minus(x[0])).isIdempotent());
+    }
 
 }
@@ -23,11 +23,14 @@ import org.maxicp.search.SearchStatistics;
 import org.maxicp.util.exception.InconsistencyException;
 import org.maxicp.util.exception.NotImplementedException;
 import org.maxicp.util.NotImplementedExceptionAssume;
+import org.maxicp.util.Procedure;
 import org.junit.Test;
 import org.maxicp.BranchingScheme;
 import org.maxicp.cp.CPFactory;
 
 import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertEquals;
@@ -186,6 +189,89 @@ public class CumulativeTest extends CPSolverTest {
     }
 
 
+    @Test
+    public void testTimeTableEdgeFinding() {
+        for (Cumulative.Filtering filtering : Cumulative.Filtering.values()) {
+            CPSolver cp = solverFactory.get();
+            CPIntVar[] s = new CPIntVar[]{
+                    CPFactory.makeIntVar(cp, 0, 2),
+                    CPFactory.makeIntVar(cp, 0, 2),
+                    CPFactory.makeIntVar(cp, 0, 8)};
+            int[] d = new int[]{2, 2, 2};
+            int[] r = new int[]{2, 2, 1};
+
+            cp.post(new Cumulative(s, d, r, 2, filtering));
+
+            // [0, 4) is full with the two first activities, that have no mandatory part
+            int expected = filtering == Cumulative.Filtering.TIME_TABLE ? 0 : 4;
+            assertEquals(filtering.toString(), expected, s[2].min());
+        }
+    }
+
+    @Test
+    public void testEdgeFindingOnEndMax() {
+        for (Cumulative.Filtering filtering : Cumulative.Filtering.values()) {
+            CPSolver cp = solverFactory.get();
+            CPIntVar[] s = new CPIntVar[]{
+                    CPFactory.makeIntVar(cp, 6, 8),
+                    CPFactory.makeIntVar(cp, 6, 8),
+                    CPFactory.makeIntVar(cp, 0, 8)};
+            int[] d = new int[]{2, 2, 2};
+            int[] r = new int[]{2, 2, 1};
+
+            cp.post(new Cumulative(s, d, r, 2, filtering));
+
+            // [6, 10) is full with the two first activities
+            int expected = filtering == Cumulative.Filtering.TIME_TABLE ? 8 : 4;
+            assertEquals(filtering.toString(), expected, s[2].max());
+        }
+    }
+
+    @Test
+    public void testSameNumberOfSolutionsForAllFilterings() {
+        Random random = new Random(42);
+        for (int instance = 0; instance < 10; instance++) {
+            int n = 5;
+            int[] d = IntStream.range(0, n).map(i -> 1 + random.nextInt(5)).toArray();
+            int[] r = IntStream.range(0, n).map(i -> 1 + random.nextInt(4)).toArray();
+            int horizon = 8;
+            int capa = 5;
+
+            CPSolver cp = solverFactory.get();
+            CPIntVar[] s = CPFactory.makeIntVarArray(cp, n, horizon);
+            cp.post(new CumulativeDecomposition(s, d, r, capa));
+            SearchStatistics decomposition = CPFactory.makeDfs(cp, staticOrder(s)).solve();
+
+            long previousFailures = Long.MAX_VALUE;
+            for (Cumulative.Filtering filtering : Cumulative.Filtering.values()) {
+                cp = solverFactory.get();
+                s = CPFactory.makeIntVarArray(cp, n, horizon);
+                SearchStatistics stats;
+                try {
+                    cp.post(new Cumulative(s, d, r, capa, filtering));
+                    stats = CPFactory.makeDfs(cp, staticOrder(s)).solve();
+                } catch (InconsistencyException e) {
+                    assertEquals(0, decomposition.numberOfSolutions());
+                    continue;
+                }
+                assertEquals(filtering.toString(), decomposition.numberOfSolutions(), stats.numberOfSolutions());
+                assertTrue(filtering.toString(), stats.numberOfFailures() <= previousFailures);
+                previousFailures = stats.numberOfFailures();
+            }
+        }
+    }
+
+
+    // with a static order, a stronger filtering explores a subtree
+    private static Supplier<Procedure[]> staticOrder(CPIntVar[] x) {
+        return () -> {
+            for (CPIntVar xi : x)
+                if (!xi.isFixed())
+                    return BranchingScheme.assignOrRemove(xi, xi.min());
+            return BranchingScheme.EMPTY;
+        };
+    }
+
     private static int[] discreteProfile(Profile.Rectangle... rectangles) {
         int min = Arrays.stream(rectangles).filter(r -> r.height() > 0).map(r -> r.start()).min(Integer::compare).get();
         int max = Arrays.stream(rectangles).filter(r -> r.height() > 0).map(r -> r.end()).max(Integer::compare).get();
@@ -32,6 +32,8 @@ import org.maxicp.cp.CPFactory;
 import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class DisjunctiveTest extends CPSolverTest {
 
@@ -197,4 +199,80 @@ public class DisjunctiveTest extends CPSolverTest {
     }
 
 
+
+    @Test
+    public void testEdgeFinding() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar sA = CPFactory.makeIntVar(cp, 0, 18);
+        CPIntVar sB = CPFactory.makeIntVar(cp, 0, 3);
+        CPIntVar sC = CPFactory.makeIntVar(cp, 0, 3);
+
+        cp.post(new Disjunctive(new CPIntVar[]{sA, sB, sC}, new int[]{2, 3, 3}));
+        // B and C fill [0, 6), A must be after them
+        assertEquals(6, sA.min());
+    }
+
+    @Test
+    public void testOptionalActivities() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar sA = CPFactory.makeIntVar(cp, 0, 18);
+        CPIntVar sB = CPFactory.makeIntVar(cp, 0, 3);
+        CPIntVar sC = CPFactory.makeIntVar(cp, 0, 3);
+        CPIntVar sD = CPFactory.makeIntVar(cp, 0, 5);
+        CPBoolVar[] present = new CPBoolVar[]{
+                CPFactory.makeBoolVar(cp), CPFactory.makeBoolVar(cp),
+                CPFactory.makeBoolVar(cp), CPFactory.makeBoolVar(cp)};
+
+        cp.post(new Disjunctive(new CPIntVar[]{sA, sB, sC, sD}, new int[]{2, 3, 3, 1}, present));
+        // nothing is deduced while B and C are optional
+        assertEquals(0, sA.min());
+        assertFalse(present[3].isFixed());
+
+        cp.post(CPFactory.equal(present[1], 1));
+        cp.post(CPFactory.equal(present[2], 1));
+        // D can not fit in [0, 6) with B and C
+        assertTrue(present[3].isFalse());
+        assertFalse(present[0].isFixed());
+        assertEquals(0, sA.min());
+
+        cp.post(CPFactory.equal(present[0], 1));
+        // A must be after B and C
+        assertEquals(6, sA.min());
+    }
+
+    @Test
+    public void testOptionalActivitiesSolutions() {
+        int[] d = new int[]{2, 3, 1, 2};
+        int horizon = 6;
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] s = CPFactory.makeIntVarArray(cp, d.length, horizon);
+        CPBoolVar[] present = new CPBoolVar[d.length];
+        for (int i = 0; i < d.length; i++)
+            present[i] = CPFactory.makeBoolVar(cp);
+        cp.post(new Disjunctive(s, d, present));
+        CPIntVar[] all = new CPIntVar[2 * d.length];
+        System.arraycopy(present, 0, all, 0, d.length);
+        System.arraycopy(s, 0, all, d.length, d.length);
+        SearchStatistics stats = CPFactory.makeDfs(cp, BranchingScheme.firstFail(all)).solve();
+
+        // enumeration of the start times and presences
+        int expected = 0;
+        int[] v = new int[d.length];
+        for (int code = 0; code < (int) Math.pow(horizon, d.length) * (1 << d.length); code++) {
+            int c = code;
+            for (int i = 0; i < d.length; i++) {
+                v[i] = c % horizon;
+                c /= horizon;
+            }
+            int mask = c;
+            boolean ok = true;
+            for (int i = 0; i < d.length && ok; i++)
+                for (int j = i + 1; j < d.length && ok; j++)
+                    if ((mask >> i & 1) == 1 && (mask >> j & 1) == 1)
+                        ok = v[i] + d[i] <= v[j] || v[j] + d[j] <= v[i];
+            if (ok) expected++;
+        }
+        assertEquals(expected, stats.numberOfSolutions());
+    }
+
 }
@@ -62,4 +62,17 @@ public class LessOrEqualTest extends CPSolverTest {
         }
     }
 
+    @Test
+    public void testAliasedViews() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 10);
+        // x + 2 <= x + 1 has no solution, a pass only removes one value from each bound
+        try {
+            cp.post(new LessOrEqual(CPFactory.plus(x, 2), CPFactory.plus(x, 1)));
+            fail("should fail");
+        } catch (InconsistencyException e) {
+            // expected
+        }
+    }
+
 }
@@ -0,0 +1,195 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import org.junit.Test;
+import org.maxicp.BranchingScheme;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.engine.CPSolverTest;
+import org.maxicp.cp.engine.core.CPConstraint;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.search.SearchStatistics;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.*;
+
+public class MDDTest extends CPSolverTest {
+
+    @Test
+    public void testReduction() {
+        // all the tuples of {0,1}^3 but (1,1,1)
+        int[][] table = new int[][]{
+                {0, 0, 0}, {0, 0, 1}, {0, 1, 0}, {0, 1, 1},
+                {1, 0, 0}, {1, 0, 1}, {1, 1, 0}};
+        int[][][] edges = MDD.reduce(table, 3);
+        // one node after 0, two nodes after 1 (free or not), one node before the terminal
+        assertEquals(2, edges[0].length);
+        assertEquals(4, edges[1].length);
+        assertEquals(3, edges[2].length);
+
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 2);
+        cp.post(new MDD(x, table));
+        SearchStatistics stats = CPFactory.makeDfs(cp, BranchingScheme.firstFail(x)).solve();
+        assertEquals(7, stats.numberOfSolutions());
+    }
+
+    @Test
+    public void testLayeredGraph() {
+        // sequences of 4 values in {0,1,2} without two consecutive equal values
+        // the nodes of the layers 1..3 are the last value
+        int n = 4;
+        int[][][] edges = new int[n][][];
+        edges[0] = new int[][]{{0, 0, 0}, {0, 1, 1}, {0, 2, 2}};
+        for (int k = 1; k < n - 1; k++) {
+            edges[k] = new int[6][];
+            int e = 0;
+            for (int last = 0; last < 3; last++)
+                for (int v = 0; v < 3; v++)
+                    if (v != last) edges[k][e++] = new int[]{last, v, v};
+        }
+        edges[n - 1] = new int[6][];
+        int e = 0;
+        for (int last = 0; last < 3; last++)
+            for (int v = 0; v < 3; v++)
+                if (v != last) edges[n - 1][e++] = new int[]{last, v, 0};
+
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, n, 3);
+        cp.post(new MDD(x, edges));
+        SearchStatistics stats = CPFactory.makeDfs(cp, BranchingScheme.firstFail(x)).solve();
+        assertEquals(3 * 2 * 2 * 2, stats.numberOfSolutions());
+
+        cp.getStateManager().saveState();
+        cp.post(CPFactory.equal(x[1], 1));
+        assertFalse(x[0].contains(1));
+        assertFalse(x[2].contains(1));
+        cp.post(CPFactory.equal(x[3], 0));
+        // x[2] is 2, the only value different from x[1] and x[3]
+        assertTrue(x[2].isFixed());
+        assertEquals(2, x[2].min());
+        cp.getStateManager().restoreState();
+        assertTrue(x[0].contains(1));
+        assertEquals(3, x[2].size());
+    }
+
+    @Test
+    public void testEmptyTable() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 2);
+        try {
+            cp.post(new MDD(x, new int[0][]));
+            fail("an empty table has no solution");
+        } catch (InconsistencyException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSameAsTable() {
+        Random rand = new Random(4242);
+        for (int i = 0; i < 30; i++) {
+            int[][] tuples = new int[300][4];
+            for (int[] t : tuples)
+                for (int j = 0; j < 4; j++)
+                    t[j] = rand.nextInt(6) - 1; // some values out of the domains
+
+            CPSolver cp = solverFactory.get();
+            CPIntVar[] x = CPFactory.makeIntVarArray(cp, 4, 5);
+            cp.post(CPFactory.allDifferent(x));
+            SearchStatistics statsTable;
+            try {
+                cp.post(new TableCT(x, tuples));
+                statsTable = CPFactory.makeDfs(cp, BranchingScheme.firstFail(x)).solve();
+            } catch (InconsistencyException e) {
+                statsTable = null;
+            }
+
+            cp = solverFactory.get();
+            x = CPFactory.makeIntVarArray(cp, 4, 5);
+            cp.post(CPFactory.allDifferent(x));
+            SearchStatistics statsMDD;
+            try {
+                cp.post(new MDD(x, tuples));
+                statsMDD = CPFactory.makeDfs(cp, BranchingScheme.firstFail(x)).solve();
+            } catch (InconsistencyException e) {
+                statsMDD = null;
+            }
+
+            assertEquals(statsTable == null, statsMDD == null);
+            if (statsTable != null) {
+                assertEquals(statsTable.numberOfSolutions(), statsMDD.numberOfSolutions());
+                assertEquals(statsTable.numberOfNodes(), statsMDD.numberOfNodes());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of assignments of x, y in {0,1,2} such that
+     * {x, y, x + offset} is a row of the table, the value star standing for any value.
+     */
+    private static int aliasedSolutions(int[][] table, int offset, int star) {
+        int n = 0;
+        for (int x = 0; x < 3; x++)
+            for (int y = 0; y < 3; y++) {
+                int[] row = new int[]{x, y, x + offset};
+                boolean found = false;
+                for (int[] t : table) {
+                    boolean match = true;
+                    for (int i = 0; i < 3; i++)
+                        match &= t[i] == row[i] || t[i] == star;
+                    found |= match;
+                }
+                if (found) n++;
+            }
+        return n;
+    }
+
+    private long aliasedSolutions(BiFunction<CPIntVar[], int[][], CPConstraint> tc, int[][] table, int offset) {
+        CPSolver cp = solverFactory.get();
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 2);
+        CPIntVar y = CPFactory.makeIntVar(cp, 0, 2);
+        CPIntVar[] scope = new CPIntVar[]{x, y, offset == 0 ? x : CPFactory.plus(x, offset)};
+        try {
+            cp.post(tc.apply(scope, table));
+        } catch (InconsistencyException e) {
+            return 0;
+        }
+        return CPFactory.makeDfs(cp, BranchingScheme.firstFail(x, y)).solve().numberOfSolutions();
+    }
+
+    @Test
+    public void testAliasedScope() {
+        // a variable repeated in the scope, directly or through a view
+        int[][] table = new int[][]{{1, 1, 0}, {2, 1, 2}, {1, 1, 1}, {1, 1, 1}, {0, 0, 1}, {2, 0, 0}};
+        assertEquals(2L, aliasedSolutions(MDD::new, table, 0));
+        Random rand = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            int offset = i % 2;
+            int[][] t = new int[6][3];
+            for (int[] row : t) {
+                row[0] = rand.nextInt(3);
+                row[1] = rand.nextInt(3);
+                row[2] = rand.nextInt(3) + offset;
+            }
+            assertEquals((long) aliasedSolutions(t, offset, -1), aliasedSolutions(MDD::new, t, offset));
+        }
+    }
+}
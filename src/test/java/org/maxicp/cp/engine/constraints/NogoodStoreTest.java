@@ -0,0 +1,102 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import org.junit.Test;
+import org.maxicp.BranchingScheme;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.engine.CPSolverTest;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.util.Procedure;
+import org.maxicp.util.exception.InconsistencyException;
+
+import static org.junit.Assert.*;
+
+public class NogoodStoreTest extends CPSolverTest {
+
+    @Test
+    public void testPropagation() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 3);
+        NogoodStore nogoods = new NogoodStore(x);
+        cp.post(nogoods);
+        // not (x0 == 0 and x1 == 1 and x2 == 2)
+        nogoods.add(new int[]{0, 1, 2}, new int[]{0, 1, 2});
+        cp.fixPoint();
+
+        cp.getStateManager().saveState();
+        cp.post(CPFactory.equal(x[0], 0));
+        assertEquals(3, x[2].size());
+        cp.post(CPFactory.equal(x[1], 1));
+        assertFalse(x[2].contains(2));
+        assertEquals(2, x[2].size());
+        cp.getStateManager().restoreState();
+
+        // the watches are still valid after backtracking
+        cp.getStateManager().saveState();
+        cp.post(CPFactory.equal(x[2], 2));
+        cp.post(CPFactory.equal(x[1], 1));
+        assertFalse(x[0].contains(0));
+        cp.getStateManager().restoreState();
+
+        assertTrue(x[0].contains(0));
+        cp.post(CPFactory.equal(x[0], 0));
+        cp.post(CPFactory.equal(x[2], 2));
+        assertFalse(x[1].contains(1));
+    }
+
+    @Test
+    public void testUnitNogood() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 2, 3);
+        NogoodStore nogoods = new NogoodStore(x);
+        cp.post(nogoods);
+        cp.getStateManager().saveState();
+        nogoods.add(new int[]{1}, new int[]{2});
+        cp.fixPoint();
+        assertFalse(x[1].contains(2));
+        cp.getStateManager().restoreState();
+        assertTrue(x[1].contains(2));
+        try {
+            cp.post(CPFactory.equal(x[1], 2));
+            fail("should fail");
+        } catch (InconsistencyException e) {
+        }
+    }
+
+    @Test
+    public void testRecord() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 3, 3);
+        NogoodStore nogoods = new NogoodStore(x);
+        cp.post(nogoods);
+        // branch: x0 == 0, x1 != 1 (x1 == 1 explored), x2 == 2 explored
+        Procedure[][] alternatives = new Procedure[][]{
+                BranchingScheme.assignOrRemove(x[0], 0),
+                BranchingScheme.assignOrRemove(x[1], 1),
+                BranchingScheme.assignOrRemove(x[2], 2)
+        };
+        int[] explored = new int[]{0, 1, 1};
+        nogoods.record(alternatives, explored, 3);
+        // nogoods: {x0 == 0, x1 == 1} and {x0 == 0, x2 == 2}
+        assertEquals(2, nogoods.size());
+
+        cp.post(CPFactory.equal(x[0], 0));
+        assertFalse(x[1].contains(1));
+        assertFalse(x[2].contains(2));
+    }
+}
@@ -16,6 +16,7 @@
 package org.maxicp.cp.engine.constraints;
 
 import org.maxicp.cp.engine.CPSolverTest;
+import org.maxicp.cp.engine.core.CPConstraint;
 import org.maxicp.cp.engine.core.CPIntVar;
 import org.maxicp.cp.engine.core.CPSolver;
 import org.maxicp.search.SearchStatistics;
@@ -30,6 +31,7 @@ import org.maxicp.cp.CPFactory;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Random;
+import java.util.function.BiFunction;
 
 import static org.junit.Assert.*;
 
@@ -226,4 +228,61 @@ public class ShortTableTest extends CPSolverTest {
             NotImplementedExceptionAssume.fail(e);
         }
     }
+
+    /**
+     * Returns the number of assignments of x, y in {0,1,2} such that
+     * {x, y, x + offset} is a row of the table, the value star standing for any value.
+     */
+    private static int aliasedSolutions(int[][] table, int offset, int star) {
+        int n = 0;
+        for (int x = 0; x < 3; x++)
+            for (int y = 0; y < 3; y++) {
+                int[] row = new int[]{x, y, x + offset};
+                boolean found = false;
+                for (int[] t : table) {
+                    boolean match = true;
+                    for (int i = 0; i < 3; i++)
+                        match &= t[i] == row[i] || t[i] == star;
+                    found |= match;
+                }
+                if (found) n++;
+            }
+        return n;
+    }
+
+    private long aliasedSolutions(BiFunction<CPIntVar[], int[][], CPConstraint> tc, int[][] table, int offset) {
+        CPSolver cp = solverFactory.get();
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 2);
+        CPIntVar y = CPFactory.makeIntVar(cp, 0, 2);
+        CPIntVar[] scope = new CPIntVar[]{x, y, offset == 0 ? x : CPFactory.plus(x, offset)};
+        try {
+            cp.post(tc.apply(scope, table));
+        } catch (InconsistencyException e) {
+            return 0;
+        }
+        return CPFactory.makeDfs(cp, BranchingScheme.firstFail(x, y)).solve().numberOfSolutions();
+    }
+
+    @Test
+    public void testAliasedScope() {
+        // a variable repeated in the scope, directly or through a view
+        int[][] table = new int[][]{{1, 1, 0}, {2, 1, 2}, {1, 1, 1}, {1, 1, 1}, {0, 0, 1}, {2, 0, 0}};
+        assertEquals(2L, aliasedSolutions((scope, tab) -> new ShortTableCT(scope, tab, 3), table, 0));
+        table[4][2] = 3;
+        assertEquals(3L, aliasedSolutions((scope, tab) -> new ShortTableCT(scope, tab, 3), table, 0));
+        Random rand = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            int offset = i % 2;
+            int[][] t = new int[6][3];
+            for (int[] row : t) {
+                row[0] = rand.nextInt(3);
+                row[1] = rand.nextInt(3);
+                row[2] = rand.nextInt(3) + offset;
+                // a star for a variable in one row out of four
+                if (rand.nextInt(4) == 0)
+                    row[rand.nextInt(3)] = 3;
+            }
+            assertEquals((long) aliasedSolutions(t, offset, 3), aliasedSolutions((scope, tab) -> new ShortTableCT(scope, tab, 3), t, offset));
+        }
+    }
 }
@@ -119,6 +119,26 @@ public class TableTest extends CPSolverTest {
     }
 
 
+    @Test
+    public void largeTableTest() {
+        // many words in the sparse bit-set, updated incrementally and by reset
+        Random rand = new Random(42);
+        int[][] tuples = randomTuples(rand, 4, 5000, 0, 10);
+
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 4, 10);
+        cp.post(new TableDecomp(x, tuples));
+        SearchStatistics statsDecomp = CPFactory.makeDfs(cp, BranchingScheme.firstFail(x)).solve();
+
+        cp = solverFactory.get();
+        x = CPFactory.makeIntVarArray(cp, 4, 10);
+        cp.post(new TableCT(x, tuples));
+        SearchStatistics statsCT = CPFactory.makeDfs(cp, BranchingScheme.firstFail(x)).solve();
+
+        assertEquals(statsDecomp.numberOfSolutions(), statsCT.numberOfSolutions());
+        assertEquals(statsDecomp.numberOfNodes(), statsCT.numberOfNodes());
+    }
+
     public void testTable(BiFunction<CPIntVar[], int[][], CPConstraint> tc, int[][] t1, int[][] t2, int[][] t3) {
 
         SearchStatistics statsDecomp;
@@ -155,4 +175,56 @@ public class TableTest extends CPSolverTest {
             assertEquals(statsDecomp.numberOfNodes(), statsAlgo.numberOfNodes());
         }
     }
+
+    /**
+     * Returns the number of assignments of x, y in {0,1,2} such that
+     * {x, y, x + offset} is a row of the table, the value star standing for any value.
+     */
+    private static int aliasedSolutions(int[][] table, int offset, int star) {
+        int n = 0;
+        for (int x = 0; x < 3; x++)
+            for (int y = 0; y < 3; y++) {
+                int[] row = new int[]{x, y, x + offset};
+                boolean found = false;
+                for (int[] t : table) {
+                    boolean match = true;
+                    for (int i = 0; i < 3; i++)
+                        match &= t[i] == row[i] || t[i] == star;
+                    found |= match;
+                }
+                if (found) n++;
+            }
+        return n;
+    }
+
+    private long aliasedSolutions(BiFunction<CPIntVar[], int[][], CPConstraint> tc, int[][] table, int offset) {
+        CPSolver cp = solverFactory.get();
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 2);
+        CPIntVar y = CPFactory.makeIntVar(cp, 0, 2);
+        CPIntVar[] scope = new CPIntVar[]{x, y, offset == 0 ? x : CPFactory.plus(x, offset)};
+        try {
+            cp.post(tc.apply(scope, table));
+        } catch (InconsistencyException e) {
+            return 0;
+        }
+        return CPFactory.makeDfs(cp, BranchingScheme.firstFail(x, y)).solve().numberOfSolutions();
+    }
+
+    @Test
+    public void testAliasedScope() {
+        // a variable repeated in the scope, directly or through a view
+        int[][] table = new int[][]{{1, 1, 0}, {2, 1, 2}, {1, 1, 1}, {1, 1, 1}, {0, 0, 1}, {2, 0, 0}};
+        assertEquals(2L, aliasedSolutions(TableCT::new, table, 0));
+        Random rand = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            int offset = i % 2;
+            int[][] t = new int[6][3];
+            for (int[] row : t) {
+                row[0] = rand.nextInt(3);
+                row[1] = rand.nextInt(3);
+                row[2] = rand.nextInt(3) + offset;
+            }
+            assertEquals((long) aliasedSolutions(t, offset, -1), aliasedSolutions(TableCT::new, t, offset));
+        }
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.engine.constraints;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ThetaLambdaTreeTest {
+
+    @Test
+    public void simpleTest0() {
+        ThetaLambdaTree tree = new ThetaLambdaTree(4);
+        tree.insertTheta(0, 5, 5);
+        tree.insertTheta(1, 31, 6);
+        tree.insertTheta(2, 30, 4);
+        tree.insertTheta(3, 42, 10);
+        assertEquals(45, tree.getECT());
+        assertEquals(45, tree.getECTBar());
+        assertEquals(-1, tree.getResponsibleECTBar());
+
+        tree.moveToLambda(3);
+        assertEquals(35, tree.getECT());
+        assertEquals(45, tree.getECTBar());
+        assertEquals(3, tree.getResponsibleECTBar());
+
+        tree.moveToLambda(1);
+        // 31 + 4 with activity 1, 35 + 10 with activity 3
+        assertEquals(30, tree.getECT());
+        assertEquals(42, tree.getECTBar());
+        assertEquals(3, tree.getResponsibleECTBar());
+
+        tree.remove(3);
+        assertEquals(35, tree.getECTBar());
+        assertEquals(1, tree.getResponsibleECTBar());
+
+        tree.reset();
+        assertEquals(Integer.MIN_VALUE, tree.getECT());
+        assertEquals(Integer.MIN_VALUE, tree.getECTBar());
+    }
+
+}
@@ -389,5 +389,89 @@ public class CPIntVarTest extends CPSolverTest {
         }
     }
 
+    @Test
+    public void onMinMaxChange() {
+        CPSolver cp = solverFactory.get();
+
+        CPIntVar x = CPFactory.makeIntVar(cp, 10);
+        CPIntVar y = CPFactory.minus(CPFactory.makeIntVar(cp, 10));
+        int[] calls = new int[2];
+
+        cp.post(new AbstractCPConstraint(cp) {
+            @Override
+            public void post() {
+                x.propagateOnMinChange(this);
+            }
+
+            @Override
+            public void propagate() {
+                calls[0]++;
+            }
+        });
+        cp.post(new AbstractCPConstraint(cp) {
+            @Override
+            public void post() {
+                y.propagateOnMaxChange(this);
+            }
+
+            @Override
+            public void propagate() {
+                calls[1]++;
+            }
+        });
+
+        x.removeAbove(7);
+        x.remove(4);
+        cp.fixPoint();
+        assertEquals(0, calls[0]);
+        x.removeBelow(2);
+        cp.fixPoint();
+        assertEquals(1, calls[0]);
+        x.fix(3);
+        cp.fixPoint();
+        assertEquals(2, calls[0]);
+
+        // y = -y', max(y) = -min(y')
+        y.removeBelow(-5);
+        cp.fixPoint();
+        assertEquals(0, calls[1]);
+        y.removeAbove(-1);
+        cp.fixPoint();
+        assertEquals(1, calls[1]);
+    }
+
+    @Test
+    public void whenValueRemoved() {
+        CPSolver cp = solverFactory.get();
+
+        CPIntVar x = CPFactory.makeIntVar(cp, 10);
+        CPIntVar y = CPFactory.plus(x, 100);
+        Set<Integer> removedX = new HashSet<>();
+        Set<Integer> removedY = new HashSet<>();
+        x.whenValueRemoved(removedX::add);
+
+        cp.getStateManager().saveState();
+        y.whenValueRemoved(removedY::add);
+        x.remove(5);
+        assertEquals(Set.of(5), removedX);
+        assertEquals(Set.of(105), removedY);
+        y.removeAbove(107);
+        assertEquals(Set.of(5, 8, 9), removedX);
+        x.removeBelow(3);
+        assertEquals(Set.of(100, 101, 102, 105, 108, 109), removedY);
+        x.fix(6);
+        assertEquals(Set.of(0, 1, 2, 3, 4, 5, 7, 8, 9), removedX);
+        cp.getStateManager().restoreState();
+
+        // the listener of y was registered after the save
+        removedX.clear();
+        removedY.clear();
+        x.remove(0);
+        assertEquals(Set.of(0), removedX);
+        assertTrue(removedY.isEmpty());
+        x.remove(0);
+        assertEquals(Set.of(0), removedX);
+    }
+
 
 }
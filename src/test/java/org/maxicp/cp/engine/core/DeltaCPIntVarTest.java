@@ -23,8 +23,11 @@ import org.maxicp.search.DFSearch;
 import org.maxicp.search.SearchStatistics;
 import org.maxicp.state.State;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.Random;
 import java.util.Set;
 
@@ -151,4 +154,46 @@ public class DeltaCPIntVarTest extends CPSolverTest {
 
     }
 
+    @Test
+    public void testIncrementalDeltaOnView() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar x = CPFactory.minus(CPFactory.makeIntVar(cp, 0, 9));
+        List<Set<Integer>> deltas = new ArrayList<>();
+
+        cp.post(new AbstractCPConstraint(cp) {
+
+            DeltaCPIntVar delta = x.delta(this);
+
+            @Override
+            public void post() {
+                x.propagateOnDomainChange(this);
+            }
+
+            @Override
+            public void propagate() {
+                Set<Integer> removed = new HashSet<>();
+                PrimitiveIterator.OfInt it = delta.iterator();
+                while (it.hasNext())
+                    removed.add(it.nextInt());
+                assertEquals(delta.size(), removed.size());
+                deltas.add(removed);
+            }
+        });
+
+        cp.getStateManager().saveState();
+        x.remove(-3);
+        cp.fixPoint();
+        x.removeBelow(-7);
+        x.removeAbove(-6);
+        cp.fixPoint();
+        assertEquals(List.of(Set.of(-3), Set.of(-9, -8, -5, -4, -2, -1, 0)), deltas);
+        cp.getStateManager().restoreState();
+
+        // the delta is restored with the domain
+        deltas.clear();
+        x.removeAbove(-8);
+        cp.fixPoint();
+        assertEquals(List.of(Set.of(-7, -6, -5, -4, -3, -2, -1, 0)), deltas);
+    }
+
 }
@@ -23,6 +23,7 @@ import org.maxicp.BranchingScheme;
 import org.maxicp.cp.CPFactory;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 
 public class MiniCPTest extends CPSolverTest {
@@ -75,4 +76,111 @@ public class MiniCPTest extends CPSolverTest {
     }
 
 
+    @Test
+    public void testPropagationPriority() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 10);
+        StringBuilder order = new StringBuilder();
+
+        class Recorder extends AbstractCPConstraint {
+            final String name;
+            final int priority;
+
+            Recorder(String name, int priority) {
+                super(cp);
+                this.name = name;
+                this.priority = priority;
+            }
+
+            @Override
+            public int priority() {
+                return priority;
+            }
+
+            @Override
+            public void post() {
+                x.propagateOnBoundChange(this);
+            }
+
+            @Override
+            public void propagate() {
+                order.append(name);
+            }
+        }
+
+        cp.post(new Recorder("S", CPConstraint.PRIORITY_SLOW));
+        cp.post(new Recorder("M", CPConstraint.PRIORITY_MEDIUM));
+        cp.post(new Recorder("F", CPConstraint.PRIORITY_FAST));
+        cp.post(new Recorder("S", CPConstraint.PRIORITY_SLOW));
+        cp.post(new Recorder("F", CPConstraint.PRIORITY_FAST));
+
+        x.removeAbove(5);
+        cp.fixPoint();
+        assertEquals("FFMSS", order.toString());
+    }
+
+    @Test
+    public void testIdempotentAndEntailed() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 2, 10);
+        int[] calls = new int[2];
+
+        // removes max(x[id]) while it is larger than 3, the propagation changes its own variable
+        class Shaver extends AbstractCPConstraint {
+            final int id;
+            final boolean idempotent;
+
+            Shaver(int id, boolean idempotent) {
+                super(cp);
+                this.id = id;
+                this.idempotent = idempotent;
+            }
+
+            @Override
+            public boolean isIdempotent() {
+                return idempotent;
+            }
+
+            @Override
+            public boolean isEntailed() {
+                return x[id].max() <= 3;
+            }
+
+            @Override
+            public void post() {
+                x[id].propagateOnDomainChange(this);
+            }
+
+            @Override
+            public void propagate() {
+                calls[id]++;
+                if (x[id].max() > 3)
+                    x[id].remove(x[id].max());
+            }
+        }
+
+        cp.post(new Shaver(0, true));
+        cp.post(new Shaver(1, false));
+
+        cp.getStateManager().saveState();
+        x[0].remove(0);
+        x[1].remove(0);
+        cp.fixPoint();
+        // the idempotent constraint is not woken by its own changes
+        assertEquals(1, calls[0]);
+        assertEquals(8, x[0].max());
+        assertEquals(6, calls[1]);
+        assertEquals(3, x[1].max());
+
+        // the second constraint is entailed
+        x[1].remove(1);
+        cp.fixPoint();
+        assertEquals(6, calls[1]);
+
+        // the entailment is undone with the state
+        cp.getStateManager().restoreState();
+        x[1].remove(5);
+        cp.fixPoint();
+        assertEquals(11, calls[1]);
+    }
 }
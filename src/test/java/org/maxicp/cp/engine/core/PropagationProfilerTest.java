@@ -0,0 +1,173 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.cp.engine.core;
+
+import org.junit.Test;
+import org.maxicp.BranchingScheme;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.engine.CPSolverTest;
+import org.maxicp.cp.engine.constraints.NotEqual;
+import org.maxicp.search.DFSearch;
+import org.maxicp.search.SearchStatistics;
+import org.maxicp.state.StateManager;
+import org.maxicp.util.exception.InconsistencyException;
+
+import static org.junit.Assert.*;
+
+public class PropagationProfilerTest extends CPSolverTest {
+
+    @Test
+    public void testProfileSearch() {
+        MiniCP cp = (MiniCP) solverFactory.get();
+        PropagationProfiler profiler = new PropagationProfiler();
+        cp.setProfiler(profiler);
+
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 4, 3);
+        for (int i = 0; i < x.length; i++)
+            for (int j = i + 1; j < x.length; j++)
+                cp.post(new NotEqual(x[i], x[j]));
+
+        DFSearch dfs = CPFactory.makeDfs(cp, BranchingScheme.firstFail(x));
+        SearchStatistics stats = dfs.solve();
+        assertEquals(0, stats.numberOfSolutions());
+
+        PropagationProfiler.Report byClass = profiler.byClass();
+        assertEquals(1, byClass.entries().size());
+        PropagationProfiler.Entry entry = byClass.entries().get(0);
+        assertEquals("NotEqual", entry.name());
+        assertTrue(entry.numberOfCalls() > 0);
+        assertTrue(entry.numberOfRemovedValues() > 0);
+        assertTrue(entry.numberOfFailures() > 0);
+
+        PropagationProfiler.Report byInstance = profiler.byInstance();
+        assertEquals(6, byInstance.entries().size());
+        long calls = 0, failures = 0, removed = 0;
+        for (PropagationProfiler.Entry e : byInstance.entries()) {
+            calls += e.numberOfCalls();
+            failures += e.numberOfFailures();
+            removed += e.numberOfRemovedValues();
+        }
+        assertEquals(entry.numberOfCalls(), calls);
+        assertEquals(entry.numberOfFailures(), failures);
+        assertEquals(entry.numberOfRemovedValues(), removed);
+
+        String csv = byClass.toCSV();
+        assertTrue(csv.startsWith("constraint,calls,nanos,failures,removed\n"));
+        assertTrue(csv.contains("\"NotEqual\"," + entry.numberOfCalls() + ","));
+        assertTrue(byClass.toString().contains("NotEqual"));
+
+        profiler.reset();
+        assertTrue(profiler.byInstance().entries().isEmpty());
+        assertTrue(profiler.byClass().entries().isEmpty());
+    }
+
+    @Test
+    public void testRemovedValues() {
+        MiniCP cp = (MiniCP) solverFactory.get();
+        PropagationProfiler profiler = new PropagationProfiler();
+        cp.setProfiler(profiler);
+
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 9);
+        CPIntVar y = CPFactory.makeIntVar(cp, 0, 9);
+        cp.post(CPFactory.lessOrEqual(x, y));
+
+        // removals outside of the fix-point are not attributed to the constraint
+        y.removeAbove(4);
+        x.removeBelow(3);
+        cp.fixPoint();
+        // x in {3,4} and y in {3,4}
+        assertEquals(1, profiler.byInstance().entries().size());
+        PropagationProfiler.Entry entry = profiler.byInstance().entries().get(0);
+        assertEquals(8, entry.numberOfRemovedValues());
+        assertEquals(0, entry.numberOfFailures());
+
+        x.removeBelow(4);
+        y.removeAbove(3);
+        try {
+            cp.fixPoint();
+            fail("should fail");
+        } catch (InconsistencyException e) {
+        }
+        assertEquals(1, entry.numberOfFailures());
+    }
+
+    @Test
+    public void testConstraintsPostedDuringSearch() {
+        MiniCP cp = (MiniCP) solverFactory.get();
+        PropagationProfiler profiler = new PropagationProfiler();
+        cp.setProfiler(profiler);
+
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 5, 5);
+        // each decision posts new NotEqual constraints, undone on backtrack
+        DFSearch dfs = CPFactory.makeDfs(cp, () -> {
+            for (int i = 0; i < x.length; i++) {
+                if (!x[i].isFixed()) {
+                    CPIntVar xi = x[i];
+                    int v = xi.min();
+                    return BranchingScheme.branch(() -> {
+                        for (CPIntVar xj : x)
+                            if (xj != xi) cp.post(new NotEqual(xi, xj));
+                        cp.post(CPFactory.equal(xi, v));
+                    }, () -> cp.post(CPFactory.notEqual(xi, v)));
+                }
+            }
+            return BranchingScheme.EMPTY;
+        });
+        assertTrue(dfs.solve().numberOfSolutions() >= 120);
+        // the constraints undone on backtrack are only kept in the totals of their class
+        assertTrue(profiler.byInstance().entries().isEmpty());
+        for (PropagationProfiler.Entry e : profiler.byClass().entries())
+            assertTrue(e.numberOfCalls() > 0);
+        assertTrue(profiler.byClass().entries().size() <= 3);
+        assertTrue(profiler.byClass().entries().stream().anyMatch(e -> e.name().equals("NotEqual")));
+        profiler.reset();
+        assertTrue(profiler.byClass().entries().isEmpty());
+    }
+
+    @Test
+    public void testDisabled() {
+        CPSolver cp = solverFactory.get();
+        assertNull(cp.getProfiler());
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 9);
+        x.removeBelow(3);
+        assertEquals(3, x.min());
+    }
+
+    @Test
+    public void testInstancesDuringSearch() {
+        MiniCP cp = (MiniCP) solverFactory.get();
+        PropagationProfiler profiler = new PropagationProfiler();
+        cp.setProfiler(profiler);
+
+        CPIntVar x = CPFactory.makeIntVar(cp, 0, 9);
+        CPIntVar y = CPFactory.makeIntVar(cp, 0, 9);
+        cp.post(CPFactory.lessOrEqual(x, y));
+        StateManager sm = cp.getStateManager();
+        sm.saveState();
+        cp.post(new NotEqual(x, y));
+        x.fix(3);
+        cp.fixPoint();
+        // both constraints are posted
+        assertEquals(2, profiler.byInstance().entries().size());
+        long calls = profiler.byInstance().entries().stream().mapToLong(PropagationProfiler.Entry::numberOfCalls).sum();
+        sm.restoreState();
+        // the NotEqual is undone, its statistics are kept by class only
+        assertEquals(1, profiler.byInstance().entries().size());
+        assertTrue(profiler.byInstance().entries().get(0).name().startsWith("LessOrEqual@"));
+        assertEquals(2, profiler.byClass().entries().size());
+        assertEquals(calls, profiler.byClass().entries().stream().mapToLong(PropagationProfiler.Entry::numberOfCalls).sum());
+    }
+}
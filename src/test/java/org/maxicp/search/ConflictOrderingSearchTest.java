@@ -22,10 +22,18 @@ import org.maxicp.util.NotImplementedExceptionAssume;
 import org.maxicp.util.exception.NotImplementedException;
 import org.junit.Test;
 import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.engine.constraints.NogoodStore;
+import org.maxicp.cp.engine.core.AbstractCPConstraint;
+import org.maxicp.state.StateManager;
+import org.maxicp.util.Procedure;
+import org.maxicp.util.exception.InconsistencyException;
 
 import java.util.Arrays;
+import java.util.function.Supplier;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ConflictOrderingSearchTest {
 
@@ -63,5 +71,127 @@ public class ConflictOrderingSearchTest {
         }
     }
 
+    @Test
+    public void testBranchOnMostRecentConflicts() {
+        CPSolver cp = CPFactory.makeSolver();
+        StateManager sm = cp.getStateManager();
+        CPIntVar[] x = CPFactory.makeIntVarArray(cp, 5, 3);
+        forbid(cp, x[1], 0);
+        forbid(cp, x[3], 0);
+        Supplier<Procedure[]> branching = BranchingScheme.conflictOrderingSearch(() -> firstNotFixed(x), CPIntVar::min);
+
+        // conflict on x[1]
+        sm.saveState();
+        branching.get()[0].call(); // x[0] = 0
+        Procedure[] alts = branching.get();
+        assertEquals(1, branchingVariable(cp, alts, x));
+        failLeft(alts);
+        sm.restoreState();
+        assertEquals(1, branchingVariable(cp, branching.get(), x));
+
+        // conflict on x[3], once x[1] is fixed
+        sm.saveState();
+        cp.post(CPFactory.equal(x[1], 1));
+        branching.get()[0].call(); // x[0] = 0
+        branching.get()[0].call(); // x[2] = 0
+        alts = branching.get();
+        assertEquals(3, branchingVariable(cp, alts, x));
+        failLeft(alts);
+        sm.restoreState();
+
+        // x[3] is the most recent conflict, then x[1]
+        assertEquals(3, branchingVariable(cp, branching.get(), x));
+        sm.saveState();
+        cp.post(CPFactory.equal(x[3], 1));
+        alts = branching.get();
+        assertEquals(1, branchingVariable(cp, alts, x));
+        // a new conflict on x[1] moves it before x[3]
+        failLeft(alts);
+        sm.restoreState();
+        assertEquals(1, branchingVariable(cp, branching.get(), x));
+        sm.saveState();
+        cp.post(CPFactory.equal(x[1], 1));
+        assertEquals(3, branchingVariable(cp, branching.get(), x));
+        // the variable selector is used once the conflicting variables are fixed
+        cp.post(CPFactory.equal(x[3], 1));
+        assertEquals(0, branchingVariable(cp, branching.get(), x));
+        sm.restoreState();
+    }
+
+    @Test
+    public void testNogoodsUnderRestarts() {
+        CPSolver cp = CPFactory.makeSolver();
+        int n = 8;
+        CPIntVar[] q = CPFactory.makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(CPFactory.notEqual(q[i], q[j]));
+                cp.post(CPFactory.notEqual(CPFactory.plus(q[i], j - i), q[j]));
+                cp.post(CPFactory.notEqual(CPFactory.minus(q[i], j - i), q[j]));
+            }
+        NogoodStore nogoods = new NogoodStore(q);
+        cp.post(nogoods);
+        Supplier<Procedure[]> branching = BranchingScheme.conflictOrderingSearch(() -> firstNotFixed(q), CPIntVar::min);
+        RestartSearch search = new RestartSearch(cp.getStateManager(), () -> {
+            Procedure[] alts = branching.get();
+            // the alternatives are the decisions themselves, recognized by the nogoods
+            if (alts.length > 0) {
+                assertTrue(alts[0] instanceof BranchingScheme.Assign);
+                assertTrue(alts[1] instanceof BranchingScheme.Remove);
+            }
+            return alts;
+        }, RestartSearch.luby(2));
+        search.onRestart(nogoods::record);
+        SearchStatistics stats = search.solve();
+        assertTrue(stats.isCompleted());
+        assertTrue(search.numberOfRestarts() > 0);
+        assertTrue(nogoods.size() > 0);
+        assertEquals(92, stats.numberOfSolutions());
+    }
+
+    // constraint failing when x is fixed to v, without removing v beforehand
+    private static void forbid(CPSolver cp, CPIntVar x, int v) {
+        cp.post(new AbstractCPConstraint(cp) {
+            @Override
+            public void post() {
+                x.propagateOnFix(this);
+            }
 
+            @Override
+            public void propagate() {
+                if (x.isFixed() && x.min() == v)
+                    throw InconsistencyException.INCONSISTENCY;
+            }
+        });
+    }
+
+    // index of the variable of the decisions, found by applying the right branch removing a value
+    private static int branchingVariable(CPSolver cp, Procedure[] alts, CPIntVar[] x) {
+        int[] sizes = Arrays.stream(x).mapToInt(CPIntVar::size).toArray();
+        cp.getStateManager().saveState();
+        alts[1].call();
+        int branched = -1;
+        for (int i = 0; i < x.length; i++)
+            if (x[i].size() < sizes[i])
+                branched = i;
+        cp.getStateManager().restoreState();
+        return branched;
+    }
+
+    // applies the left branch of the decisions, expected to fail
+    private static void failLeft(Procedure[] alts) {
+        try {
+            alts[0].call();
+            fail("the decision should fail");
+        } catch (InconsistencyException e) {
+            // expected
+        }
+    }
+
+    private static CPIntVar firstNotFixed(CPIntVar[] x) {
+        for (CPIntVar z : x)
+            if (!z.isFixed())
+                return z;
+        return null;
+    }
 }
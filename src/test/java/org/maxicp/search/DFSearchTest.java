@@ -61,6 +61,34 @@ public class DFSearchTest extends StateManagerTest {
     }
 
 
+    @Test
+    public void testDeepTree() {
+        StateManager sm = stateFactory.get();
+        StateInt i = sm.makeStateInt(0);
+        int depth = 200;
+
+        // a single branch of depth 200, with a failing left alternative at each node
+        DFSearch dfs = new DFSearch(sm, () -> {
+            if (i.value() >= depth)
+                return BranchingScheme.EMPTY;
+            else return BranchingScheme.branch(
+                    () -> {
+                        throw InconsistencyException.INCONSISTENCY;
+                    },
+                    i::increment
+            );
+        });
+
+        int level = sm.getLevel();
+        SearchStatistics stats = dfs.solve();
+
+        assertEquals(1, stats.numberOfSolutions());
+        assertEquals(depth, stats.numberOfFailures());
+        assertEquals(2 * depth, stats.numberOfNodes());
+        assertEquals(level, sm.getLevel());
+        assertEquals(0, i.intValue());
+    }
+
     @Test
     public void testExample3() {
         StateManager sm = stateFactory.get();
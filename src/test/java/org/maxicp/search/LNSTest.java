@@ -0,0 +1,221 @@
+package org.maxicp.search;
+
+import org.junit.Test;
+import org.maxicp.BranchingScheme;
+import org.maxicp.cp.engine.CPSolverTest;
+import org.maxicp.cp.engine.constraints.Disjunctive;
+import org.maxicp.cp.engine.constraints.sequence.Disjoint;
+import org.maxicp.cp.engine.constraints.sequence.TransitionTimes;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSequenceVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.util.Procedure;
+import org.maxicp.util.exception.InconsistencyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+import static org.maxicp.cp.CPFactory.*;
+
+public class LNSTest extends CPSolverTest {
+
+    private static int expectedAssignmentCost(int n) {
+        int expected = 0;
+        for (int i = 0; i < n; i++)
+            expected += (i + 1) * (n - 1 - i);
+        return expected;
+    }
+
+    // minimize sum_i (i+1) * x[i] with x all different
+    private static LNS assignment(CPSolver cp, int n, List<Integer> values, boolean propagationGuided) {
+        CPIntVar[] x = makeIntVarArray(cp, n, n);
+        cp.post(allDifferent(x));
+        CPIntVar[] cost = new CPIntVar[n];
+        for (int i = 0; i < n; i++)
+            cost[i] = mul(x[i], i + 1);
+        CPIntVar total = sum(cost);
+        Neighborhood neighborhood = propagationGuided ? Neighborhoods.propagationGuided(x) : Neighborhoods.random(x);
+        LNS lns = new LNS(makeDfs(cp, BranchingScheme.firstFail(x)), cp.minimize(total), neighborhood);
+        lns.setFailureLimit(20, 200);
+        lns.onSolution(() -> values.add(total.min()));
+        return lns;
+    }
+
+    @Test
+    public void testRandom() {
+        CPSolver cp = solverFactory.get();
+        List<Integer> values = new ArrayList<>();
+        LNS lns = assignment(cp, 9, values, false);
+        SearchStatistics stats = lns.run(s -> lns.numberOfIterations() >= 200);
+        assertEquals(200, lns.numberOfIterations());
+        assertEquals(values.size(), stats.numberOfSolutions());
+        for (int i = 1; i < values.size(); i++)
+            assertTrue(values.get(i) < values.get(i - 1));
+        assertEquals(expectedAssignmentCost(9), (int) values.get(values.size() - 1));
+        assertTrue(lns.intensity(0) >= 0.05 && lns.intensity(0) <= 1);
+    }
+
+    @Test
+    public void testPropagationGuided() {
+        CPSolver cp = solverFactory.get();
+        List<Integer> values = new ArrayList<>();
+        LNS lns = assignment(cp, 9, values, true);
+        lns.run(s -> lns.numberOfIterations() >= 200);
+        assertEquals(expectedAssignmentCost(9), (int) values.get(values.size() - 1));
+    }
+
+    @Test
+    public void testTimeWindow() {
+        CPSolver cp = solverFactory.get();
+        int[] duration = new int[]{3, 1, 4, 1, 5, 2, 6, 5, 3};
+        int n = duration.length;
+        CPIntVar[] start = makeIntVarArray(cp, n, 0, 100);
+        CPIntVar[] end = new CPIntVar[n];
+        for (int i = 0; i < n; i++)
+            end[i] = plus(start[i], duration[i]);
+        cp.post(new Disjunctive(start, duration));
+        CPIntVar makespan = maximum(end);
+        // the activities are scheduled by decreasing index first, to get a poor first solution
+        CPIntVar[] reversed = new CPIntVar[n];
+        for (int i = 0; i < n; i++)
+            reversed[i] = start[n - 1 - i];
+        Procedure[] empty = BranchingScheme.EMPTY;
+        DFSearch dfs = makeDfs(cp, () -> {
+            for (CPIntVar s : reversed)
+                if (!s.isFixed())
+                    return BranchingScheme.assignOrRemove(s, s.min());
+            return empty;
+        });
+        LNS lns = new LNS(dfs, cp.minimize(makespan), Neighborhoods.timeWindow(start, duration));
+        int[] best = new int[]{Integer.MAX_VALUE};
+        lns.onSolution(() -> best[0] = makespan.min());
+        lns.run(s -> lns.numberOfIterations() >= 100);
+        int total = 0;
+        for (int d : duration) total += d;
+        assertEquals(total, best[0]);
+    }
+
+    private static int[][] lineDistances(int[] position) {
+        int n = position.length;
+        int[][] d = new int[n][n];
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                d[i][j] = Math.abs(position[i] - position[j]);
+        return d;
+    }
+
+    @Test
+    public void testSequenceSegment() {
+        CPSolver cp = solverFactory.get();
+        // nodes on a line, the depot at 0 (node 0 and its copy n-1)
+        int[] position = new int[]{0, 7, 2, 9, 4, 1, 8, 3, 6, 5, 0};
+        int n = position.length;
+        CPSequenceVar route = makeSequenceVar(cp, n, 0, n - 1);
+        CPIntVar[] time = makeIntVarArray(cp, n, 0, 1000);
+        CPIntVar distance = makeIntVar(cp, 0, 1000);
+        cp.post(new TransitionTimes(route, time, distance, lineDistances(position), new int[n]));
+        cp.post(new Disjoint(route));
+
+        DFSearch dfs = makeDfs(cp, () -> {
+            if (route.nMember() == n)
+                return BranchingScheme.EMPTY;
+            // inserts the first possible node at its first insertion
+            for (int node = 1; node < n - 1; node++) {
+                if (route.isPossible(node)) {
+                    int[] insertions = new int[n];
+                    int nInsertions = route.fillMemberInsertion(node, insertions);
+                    if (nInsertions == 0)
+                        throw InconsistencyException.INCONSISTENCY;
+                    Procedure[] branches = new Procedure[nInsertions];
+                    for (int i = 0; i < nInsertions; i++) {
+                        int pred = insertions[i];
+                        int inserted = node;
+                        branches[i] = () -> {
+                            route.insert(pred, inserted);
+                            cp.fixPoint();
+                        };
+                    }
+                    return branches;
+                }
+            }
+            return BranchingScheme.EMPTY;
+        });
+        LNS lns = new LNS(dfs, cp.minimize(distance), Neighborhoods.sequenceSegment(route));
+        int[] best = new int[]{Integer.MAX_VALUE};
+        lns.onSolution(() -> {
+            assertEquals(n, route.nMember());
+            best[0] = distance.min();
+        });
+        lns.run(s -> lns.numberOfIterations() >= 200);
+        assertEquals(18, best[0]);
+    }
+
+    @Test
+    public void testParallel() {
+        int n = 9;
+        int[] best = new int[]{Integer.MAX_VALUE};
+        SearchStatistics stats = LNS.parallel(3, id -> {
+            CPSolver cp = makeSolver();
+            List<Integer> values = new ArrayList<>();
+            LNS lns = assignment(cp, n, values, id % 2 == 0);
+            lns.onSolution(() -> {
+                synchronized (best) {
+                    best[0] = Math.min(best[0], values.get(values.size() - 1));
+                }
+            });
+            return lns;
+        }, s -> s.numberOfFailures() >= 3000);
+        assertTrue(stats.numberOfSolutions() > 0);
+        assertEquals(expectedAssignmentCost(n), best[0]);
+    }
+
+    @Test
+    public void testParallelWorkersRelaxDifferently() {
+        int n = 9;
+        // the variables kept fixed by the first relaxations of each worker
+        List<List<String>> relaxed = new ArrayList<>();
+        relaxed.add(new ArrayList<>());
+        relaxed.add(new ArrayList<>());
+        LNS.parallel(2, id -> {
+            CPSolver cp = makeSolver();
+            CPIntVar[] x = makeIntVarArray(cp, n, n);
+            cp.post(allDifferent(x));
+            CPIntVar[] cost = new CPIntVar[n];
+            for (int i = 0; i < n; i++)
+                cost[i] = mul(x[i], i + 1);
+            Neighborhood random = Neighborhoods.random(x);
+            Neighborhood recorded = new Neighborhood() {
+                @Override
+                public void storeSolution() {
+                    random.storeSolution();
+                }
+
+                @Override
+                public void relax(double intensity, Random r) {
+                    random.relax(intensity, r);
+                    StringBuilder b = new StringBuilder();
+                    for (CPIntVar xi : x)
+                        b.append(xi.isFixed() ? '1' : '0');
+                    relaxed.get(id).add(b.toString());
+                }
+
+                @Override
+                public int[] solution() {
+                    return random.solution();
+                }
+
+                @Override
+                public void setSolution(int[] solution) {
+                    random.setSolution(solution);
+                }
+            };
+            LNS lns = new LNS(makeDfs(cp, BranchingScheme.firstFail(x)), cp.minimize(sum(cost)), recorded);
+            lns.setFailureLimit(20, 200);
+            return lns;
+        }, s -> s.numberOfFailures() >= 500);
+        assertTrue(relaxed.get(0).size() >= 2 && relaxed.get(1).size() >= 2);
+        assertNotEquals(relaxed.get(0).subList(0, 2), relaxed.get(1).subList(0, 2));
+    }
+}
@@ -0,0 +1,112 @@
+package org.maxicp.search;
+
+import org.junit.Test;
+import org.maxicp.cp.CPModelInstantiator;
+import org.maxicp.cp.ConcreteCPModel;
+import org.maxicp.model.Factory;
+import org.maxicp.model.IntVar;
+import org.maxicp.model.ModelDispatcher;
+import org.maxicp.model.constraints.AllDifferent;
+import org.maxicp.model.constraints.Equal;
+import org.maxicp.model.constraints.NotEqual;
+import org.maxicp.model.constraints.Sum;
+import org.maxicp.util.Procedure;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static org.maxicp.BranchingScheme.branch;
+
+public class ParallelDFSearchTest {
+
+    private static Supplier<Procedure[]> firstUnfixed(ModelDispatcher md, IntVar[] x) {
+        return () -> {
+            for (IntVar xi : x) {
+                if (xi.size() > 1) {
+                    int v = xi.min();
+                    return branch(() -> md.add(new Equal(xi, v)), () -> md.add(new NotEqual(xi, v)));
+                }
+            }
+            return new Procedure[0];
+        };
+    }
+
+    private static IntVar[] queens(ModelDispatcher md, int n) {
+        IntVar[] q = md.intVarArray(n, n);
+        md.add(new AllDifferent(q));
+        md.add(new AllDifferent(md.intVarArray(n, i -> q[i].plus(i))));
+        md.add(new AllDifferent(md.intVarArray(n, i -> q[i].minus(i))));
+        return q;
+    }
+
+    @Test
+    public void testSolveQueens() {
+        ModelDispatcher md = Factory.makeModelDispatcher();
+        IntVar[] q = queens(md, 8);
+        Supplier<Procedure[]> branching = firstUnfixed(md, q);
+
+        SearchStatistics sequential = md.runAsConcrete(CPModelInstantiator.withTrailing,
+                (ConcreteCPModel cp) -> cp.dfSearch(branching).solve());
+
+        for (int nWorkers : new int[]{1, 2, 4}) {
+            ParallelDFSearch<ConcreteCPModel> search = new ParallelDFSearch<>(md, CPModelInstantiator.withTrailing, branching, nWorkers);
+            AtomicInteger nSolutions = new AtomicInteger();
+            search.onSolution(() -> {
+                for (IntVar qi : q)
+                    assertEquals(1, qi.size());
+                nSolutions.incrementAndGet();
+            });
+            SearchStatistics stats = search.solve();
+            assertTrue(stats.isCompleted());
+            assertEquals(92, stats.numberOfSolutions());
+            assertEquals(92, nSolutions.get());
+            assertEquals(sequential.numberOfNodes(), stats.numberOfNodes());
+            assertEquals(sequential.numberOfFailures(), stats.numberOfFailures());
+        }
+    }
+
+    @Test
+    public void testSolveLimit() {
+        ModelDispatcher md = Factory.makeModelDispatcher();
+        IntVar[] q = queens(md, 8);
+        ParallelDFSearch<ConcreteCPModel> search = new ParallelDFSearch<>(md, CPModelInstantiator.withTrailing, firstUnfixed(md, q), 4);
+        SearchStatistics stats = search.solve(s -> s.numberOfSolutions() >= 5);
+        assertFalse(stats.isCompleted());
+        assertTrue(stats.numberOfSolutions() >= 5);
+        assertTrue(stats.numberOfSolutions() < 92);
+    }
+
+    @Test
+    public void testOptimize() {
+        ModelDispatcher md = Factory.makeModelDispatcher();
+        int n = 7;
+        IntVar[] x = md.intVarArray(n, n);
+        md.add(new AllDifferent(x));
+        // minimize sum_i (i+1) * x[i], the optimum puts the largest values on the smallest weights
+        IntVar[] cost = md.intVarArray(n, i -> md.element(weights(i, n), x[i]));
+        IntVar total = md.intVar(0, 1000);
+        md.add(new Sum(cost, total));
+        Supplier<Procedure[]> branching = firstUnfixed(md, x);
+
+        int expected = 0;
+        for (int i = 0; i < n; i++)
+            expected += (i + 1) * (n - 1 - i);
+
+        for (int nWorkers : new int[]{1, 3}) {
+            ParallelDFSearch<ConcreteCPModel> search = new ParallelDFSearch<>(md, CPModelInstantiator.withTrailing, branching, nWorkers);
+            int[] best = new int[]{Integer.MAX_VALUE};
+            search.onSolution(() -> best[0] = Math.min(best[0], total.min()));
+            SearchStatistics stats = search.optimize(cp -> cp.minimize(total));
+            assertTrue(stats.isCompleted());
+            assertEquals(expected, best[0]);
+        }
+    }
+
+    private static int[] weights(int i, int n) {
+        int[] w = new int[n];
+        for (int v = 0; v < n; v++)
+            w[v] = (i + 1) * v;
+        return w;
+    }
+}
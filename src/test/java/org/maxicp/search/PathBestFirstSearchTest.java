@@ -0,0 +1,180 @@
+package org.maxicp.search;
+
+import org.junit.Test;
+import org.maxicp.BranchingScheme;
+import org.maxicp.cp.engine.CPSolverTest;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.maxicp.cp.CPFactory.*;
+
+public class PathBestFirstSearchTest extends CPSolverTest {
+
+    private static CPIntVar[] queens(CPSolver cp, int n) {
+        CPIntVar[] q = makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(notEqual(q[i], q[j]));
+                cp.post(notEqual(plus(q[i], j - i), q[j]));
+                cp.post(notEqual(minus(q[i], j - i), q[j]));
+            }
+        return q;
+    }
+
+    private void testAllQueens(int maxOpenNodes) {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 8);
+        // the nodes with the smallest domains first
+        PathBestFirstSearch<Integer> search = makeBestFirst(cp, BranchingScheme.firstFail(q), () -> {
+            int size = 0;
+            for (CPIntVar qi : q) size += qi.size();
+            return size;
+        }, maxOpenNodes);
+        Set<String> solutions = new HashSet<>();
+        search.onSolution(() -> {
+            StringBuilder b = new StringBuilder();
+            for (CPIntVar qi : q) {
+                assertTrue(qi.isFixed());
+                b.append(qi.min()).append(',');
+            }
+            assertTrue(solutions.add(b.toString()));
+        });
+        int level = cp.getStateManager().getLevel();
+        SearchStatistics stats = search.solve();
+        assertTrue(stats.isCompleted());
+        assertEquals(92, stats.numberOfSolutions());
+        assertEquals(92, solutions.size());
+        assertEquals(level, cp.getStateManager().getLevel());
+        assertEquals(0, search.numberOfOpenNodes());
+        for (CPIntVar qi : q)
+            assertEquals(8, qi.size());
+    }
+
+    @Test
+    public void testAllSolutions() {
+        testAllQueens(Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testAllSolutionsBoundedOpenList() {
+        testAllQueens(1);
+        testAllQueens(10);
+    }
+
+    // minimize sum_i (i+1) * x[i] with x all different, the optimum being sum_i (i+1) * (n-1-i)
+    @Test
+    public void testBestFirstIsOptimal() {
+        CPSolver cp = solverFactory.get();
+        int n = 5;
+        CPIntVar[] x = makeIntVarArray(cp, n, n);
+        cp.post(allDifferent(x));
+        CPIntVar[] cost = new CPIntVar[n];
+        for (int i = 0; i < n; i++)
+            cost[i] = mul(x[i], i + 1);
+        CPIntVar total = sum(cost);
+        int expected = 0;
+        for (int i = 0; i < n; i++)
+            expected += (i + 1) * (n - 1 - i);
+        // the lower bound of the cost is an admissible evaluation: the first solution is optimal
+        PathBestFirstSearch<Integer> search = makeBestFirst(cp, BranchingScheme.firstFail(x), total::min, Integer.MAX_VALUE);
+        List<Integer> values = new ArrayList<>();
+        search.onSolution(() -> values.add(total.min()));
+        SearchStatistics stats = search.solve(s -> s.numberOfSolutions() >= 1);
+        assertFalse(stats.isCompleted());
+        assertEquals(expected, (int) values.get(0));
+    }
+
+    @Test
+    public void testOptimize() {
+        // optimum by a depth first search enumerating all the solutions
+        CPSolver cp0 = solverFactory.get();
+        CPIntVar[] q0 = queens(cp0, 6);
+        CPIntVar obj0 = sum(mul(q0[0], 3), q0[5]);
+        int[] best = new int[]{Integer.MAX_VALUE};
+        DFSearch dfs = makeDfs(cp0, BranchingScheme.firstFail(q0));
+        dfs.onSolution(() -> best[0] = Math.min(best[0], obj0.min()));
+        dfs.solve();
+
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 6);
+        CPIntVar obj = sum(mul(q[0], 3), q[5]);
+        // the tightening of the objective makes some recomputations fail
+        PathBestFirstSearch<Integer> search = makeBestFirst(cp, BranchingScheme.firstFail(q), () -> -obj.max(), 4);
+        List<Integer> values = new ArrayList<>();
+        search.onSolution(() -> values.add(obj.min()));
+        SearchStatistics stats = search.optimize(cp.minimize(obj));
+        assertTrue(stats.isCompleted());
+        assertEquals(best[0], (int) values.get(values.size() - 1));
+        for (int i = 1; i < values.size(); i++)
+            assertTrue(values.get(i) < values.get(i - 1));
+    }
+
+    // random model on which the optimum found by the best first search is compared to the one of a depth first search
+    private static CPIntVar randomModel(CPSolver cp, CPIntVar[] x, long seed) {
+        Random rand = new Random(seed);
+        for (int i = 0; i < x.length; i++)
+            x[i] = makeIntVar(cp, 0, 4);
+        for (int k = 0; k < x.length; k++) {
+            int i = rand.nextInt(x.length);
+            int j = rand.nextInt(x.length);
+            if (i == j) continue;
+            if (rand.nextBoolean())
+                cp.post(notEqual(x[i], x[j]));
+            else
+                cp.post(notEqual(plus(x[i], rand.nextInt(3)), x[j]));
+        }
+        CPIntVar[] terms = new CPIntVar[x.length];
+        for (int i = 0; i < x.length; i++)
+            terms[i] = mul(x[i], 1 + rand.nextInt(4));
+        return sum(terms);
+    }
+
+    private Integer optimum(AbstractSearchMethod search, CPSolver cp, CPIntVar obj) {
+        List<Integer> values = new ArrayList<>();
+        search.onSolution(() -> values.add(obj.min()));
+        SearchStatistics stats = search.optimize(cp.minimize(obj));
+        assertTrue(stats.isCompleted());
+        return values.isEmpty() ? null : values.get(values.size() - 1);
+    }
+
+    @Test
+    public void testOptimizeSameAsDfs() {
+        for (long seed = 0; seed < 30; seed++) {
+            for (int maxOpenNodes : new int[]{Integer.MAX_VALUE, 3}) {
+                CPSolver cp0 = solverFactory.get();
+                CPIntVar[] x0 = new CPIntVar[5];
+                CPIntVar obj0 = randomModel(cp0, x0, seed);
+                Integer expected = optimum(makeDfs(cp0, BranchingScheme.firstFail(x0)), cp0, obj0);
+
+                CPSolver cp = solverFactory.get();
+                CPIntVar[] x = new CPIntVar[5];
+                CPIntVar obj = randomModel(cp, x, seed);
+                // the largest objective first, such that the bound is often tightened
+                PathBestFirstSearch<Integer> search = makeBestFirst(cp, BranchingScheme.firstFail(x), () -> -obj.max(), maxOpenNodes);
+                assertEquals("seed " + seed, expected, optimum(search, cp, obj));
+            }
+        }
+    }
+
+    @Test
+    public void testLimit() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 8);
+        int level = cp.getStateManager().getLevel();
+        PathBestFirstSearch<Integer> search = makeBestFirst(cp, BranchingScheme.firstFail(q), () -> 0, 100);
+        SearchStatistics stats = search.solve(s -> s.numberOfNodes() >= 50);
+        assertFalse(stats.isCompleted());
+        assertEquals(level, cp.getStateManager().getLevel());
+        // the spilled depth first search is stopped too
+        stats = makeBestFirst(cp, BranchingScheme.firstFail(q), () -> 0, 1).solve(s -> s.numberOfNodes() >= 50);
+        assertFalse(stats.isCompleted());
+        assertEquals(level, cp.getStateManager().getLevel());
+    }
+}
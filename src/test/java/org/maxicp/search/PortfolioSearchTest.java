@@ -0,0 +1,124 @@
+package org.maxicp.search;
+
+import org.junit.Test;
+import org.maxicp.cp.CPModelInstantiator;
+import org.maxicp.cp.ConcreteCPModel;
+import org.maxicp.model.Factory;
+import org.maxicp.model.IntVar;
+import org.maxicp.model.ModelDispatcher;
+import org.maxicp.model.constraints.AllDifferent;
+import org.maxicp.model.constraints.Equal;
+import org.maxicp.model.constraints.NotEqual;
+import org.maxicp.model.constraints.Sum;
+import org.maxicp.util.Procedure;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static org.maxicp.BranchingScheme.branch;
+
+public class PortfolioSearchTest {
+
+    private static Supplier<Procedure[]> firstUnfixed(ModelDispatcher md, IntVar[] x) {
+        return () -> {
+            for (IntVar xi : x) {
+                if (xi.size() > 1) {
+                    int v = xi.min();
+                    return branch(() -> md.add(new Equal(xi, v)), () -> md.add(new NotEqual(xi, v)));
+                }
+            }
+            return new Procedure[0];
+        };
+    }
+
+    private static IntVar[] queens(ModelDispatcher md, int n) {
+        IntVar[] q = md.intVarArray(n, n);
+        md.add(new AllDifferent(q));
+        md.add(new AllDifferent(md.intVarArray(n, i -> q[i].plus(i))));
+        md.add(new AllDifferent(md.intVarArray(n, i -> q[i].minus(i))));
+        return q;
+    }
+
+    private static Supplier<Procedure[]> lastUnfixed(ModelDispatcher md, IntVar[] x) {
+        return () -> {
+            for (int i = x.length - 1; i >= 0; i--) {
+                if (x[i].size() > 1) {
+                    IntVar xi = x[i];
+                    int v = xi.max();
+                    return branch(() -> md.add(new Equal(xi, v)), () -> md.add(new NotEqual(xi, v)));
+                }
+            }
+            return new Procedure[0];
+        };
+    }
+
+    @Test
+    public void testSolveQueens() {
+        ModelDispatcher md = Factory.makeModelDispatcher();
+        IntVar[] q = queens(md, 8);
+        PortfolioSearch<ConcreteCPModel> portfolio = new PortfolioSearch<>(md);
+        portfolio.add(CPModelInstantiator.withTrailing, firstUnfixed(md, q));
+        portfolio.add(CPModelInstantiator.withCopying, lastUnfixed(md, q), (cp, b) -> cp.dfSearch(b));
+        portfolio.add(CPModelInstantiator.withTrailing, new LimitedDiscrepancyBranching(firstUnfixed(md, q), 100));
+        AtomicInteger nSolutions = new AtomicInteger();
+        portfolio.onSolution(() -> {
+            for (IntVar qi : q)
+                assertEquals(1, qi.size());
+            nSolutions.incrementAndGet();
+        });
+
+        SearchStatistics stats = portfolio.solve();
+        assertTrue(stats.isCompleted());
+        int winner = portfolio.winner();
+        assertTrue(winner >= 0 && winner < 3);
+        assertTrue(portfolio.statistics(winner).isCompleted());
+        assertEquals(92, portfolio.statistics(winner).numberOfSolutions());
+        assertEquals(stats.numberOfSolutions(), nSolutions.get());
+    }
+
+    @Test
+    public void testSolveLimit() {
+        ModelDispatcher md = Factory.makeModelDispatcher();
+        IntVar[] q = queens(md, 8);
+        PortfolioSearch<ConcreteCPModel> portfolio = new PortfolioSearch<>(md);
+        portfolio.add(CPModelInstantiator.withTrailing, firstUnfixed(md, q));
+        portfolio.add(CPModelInstantiator.withTrailing, lastUnfixed(md, q));
+        SearchStatistics stats = portfolio.solve(s -> s.numberOfSolutions() == 1);
+        assertFalse(stats.isCompleted());
+        assertEquals(-1, portfolio.winner());
+        assertTrue(portfolio.statistics(0).numberOfSolutions() == 1 || portfolio.statistics(1).numberOfSolutions() == 1);
+    }
+
+    @Test
+    public void testOptimize() {
+        ModelDispatcher md = Factory.makeModelDispatcher();
+        int n = 7;
+        IntVar[] x = md.intVarArray(n, n);
+        md.add(new AllDifferent(x));
+        // minimize sum_i (i+1) * x[i], the optimum puts the largest values on the smallest weights
+        IntVar[] cost = md.intVarArray(n, i -> md.element(weights(i, n), x[i]));
+        IntVar total = md.intVar(0, 1000);
+        md.add(new Sum(cost, total));
+
+        int expected = 0;
+        for (int i = 0; i < n; i++)
+            expected += (i + 1) * (n - 1 - i);
+
+        PortfolioSearch<ConcreteCPModel> portfolio = new PortfolioSearch<>(md);
+        portfolio.add(CPModelInstantiator.withTrailing, firstUnfixed(md, x));
+        portfolio.add(CPModelInstantiator.withTrailing, lastUnfixed(md, x));
+        int[] best = new int[]{Integer.MAX_VALUE};
+        portfolio.onSolution(() -> best[0] = Math.min(best[0], total.min()));
+        SearchStatistics stats = portfolio.optimize(cp -> cp.minimize(total));
+        assertTrue(stats.isCompleted());
+        assertEquals(expected, best[0]);
+    }
+
+    private static int[] weights(int i, int n) {
+        int[] w = new int[n];
+        for (int v = 0; v < n; v++)
+            w[v] = (i + 1) * v;
+        return w;
+    }
+}
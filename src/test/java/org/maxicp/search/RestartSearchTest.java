@@ -0,0 +1,109 @@
+package org.maxicp.search;
+
+import org.junit.Test;
+import org.maxicp.BranchingScheme;
+import org.maxicp.cp.CPFactory;
+import org.maxicp.cp.engine.CPSolverTest;
+import org.maxicp.cp.engine.constraints.NogoodStore;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.Assert.*;
+import static org.maxicp.cp.CPFactory.*;
+
+public class RestartSearchTest extends CPSolverTest {
+
+    @Test
+    public void testLuby() {
+        IntUnaryOperator luby = RestartSearch.luby(10);
+        int[] expected = new int[]{1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1};
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(10 * expected[i], luby.applyAsInt(i));
+    }
+
+    @Test
+    public void testGeometric() {
+        IntUnaryOperator geometric = RestartSearch.geometric(10, 1.5);
+        assertEquals(10, geometric.applyAsInt(0));
+        assertEquals(15, geometric.applyAsInt(1));
+        assertEquals(23, geometric.applyAsInt(2));
+        assertEquals(Integer.MAX_VALUE, geometric.applyAsInt(1000));
+    }
+
+    private static CPIntVar[] queens(CPSolver cp, int n) {
+        CPIntVar[] q = makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(notEqual(q[i], q[j]));
+                cp.post(notEqual(plus(q[i], j - i), q[j]));
+                cp.post(notEqual(minus(q[i], j - i), q[j]));
+            }
+        return q;
+    }
+
+    @Test
+    public void testAllSolutionsWithNogoods() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 8);
+        NogoodStore nogoods = new NogoodStore(q);
+        cp.post(nogoods);
+
+        RestartSearch search = new RestartSearch(cp.getStateManager(), BranchingScheme.firstFail(q), RestartSearch.luby(2));
+        search.onRestart(nogoods::record);
+        Set<String> solutions = new HashSet<>();
+        search.onSolution(() -> {
+            StringBuilder b = new StringBuilder();
+            for (CPIntVar qi : q) b.append(qi.min()).append(',');
+            assertTrue("solution found twice", solutions.add(b.toString()));
+        });
+        SearchStatistics stats = search.solve();
+        assertTrue(stats.isCompleted());
+        assertTrue(search.numberOfRestarts() > 0);
+        assertTrue(nogoods.size() > 0);
+        assertEquals(92, stats.numberOfSolutions());
+        assertEquals(92, solutions.size());
+    }
+
+    @Test
+    public void testOptimize() {
+        CPSolver cp = solverFactory.get();
+        int n = 7;
+        CPIntVar[] x = makeIntVarArray(cp, n, n);
+        cp.post(allDifferent(x));
+        CPIntVar[] cost = new CPIntVar[n];
+        for (int i = 0; i < n; i++)
+            cost[i] = mul(x[i], i + 1);
+        CPIntVar total = sum(cost);
+        NogoodStore nogoods = new NogoodStore(x);
+        cp.post(nogoods);
+
+        RestartSearch search = new RestartSearch(cp.getStateManager(), BranchingScheme.firstFail(x), RestartSearch.geometric(5, 1.3));
+        search.onRestart(nogoods::record);
+        int[] best = new int[]{Integer.MAX_VALUE};
+        search.onSolution(() -> best[0] = total.min());
+        SearchStatistics stats = search.optimize(cp.minimize(total));
+        assertTrue(stats.isCompleted());
+        assertTrue(search.numberOfRestarts() > 0);
+
+        int expected = 0;
+        for (int i = 0; i < n; i++)
+            expected += (i + 1) * (n - 1 - i);
+        assertEquals(expected, best[0]);
+    }
+
+    @Test
+    public void testLimit() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 8);
+        RestartSearch search = new RestartSearch(cp.getStateManager(), BranchingScheme.firstFail(q), RestartSearch.luby(1));
+        int level = cp.getStateManager().getLevel();
+        SearchStatistics stats = search.solve(s -> s.numberOfSolutions() >= 3);
+        assertFalse(stats.isCompleted());
+        assertEquals(3, stats.numberOfSolutions());
+        assertEquals(level, cp.getStateManager().getLevel());
+    }
+}
@@ -0,0 +1,153 @@
+package org.maxicp.search;
+
+import org.junit.Test;
+import org.maxicp.BranchingScheme;
+import org.maxicp.cp.engine.CPSolverTest;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+import static org.maxicp.cp.CPFactory.*;
+
+public class SearchLimitsTest extends CPSolverTest {
+
+    private static CPIntVar[] queens(CPSolver cp, int n) {
+        CPIntVar[] q = makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(notEqual(q[i], q[j]));
+                cp.post(notEqual(plus(q[i], j - i), q[j]));
+                cp.post(notEqual(minus(q[i], j - i), q[j]));
+            }
+        return q;
+    }
+
+    @Test
+    public void testStatistics() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 8);
+        DFSearch search = makeDfs(cp, BranchingScheme.firstFail(q));
+        SearchStatistics stats = search.solve();
+        assertEquals(92, stats.numberOfSolutions());
+        long[] times = stats.solutionNanos();
+        assertEquals(92, times.length);
+        for (int i = 1; i < times.length; i++)
+            assertTrue(times[i] >= times[i - 1]);
+        assertEquals(times[91], stats.lastSolutionNanos());
+        assertTrue(stats.elapsedNanos() >= times[91]);
+        // the time is frozen at the end of the search
+        assertEquals(stats.elapsedNanos(), stats.elapsedNanos());
+        assertTrue(stats.maxDepth() >= 7 && stats.maxDepth() <= 64);
+        assertTrue(stats.peakTrailSize() > 0);
+        assertTrue(stats.numberOfPropagations() > 0);
+        assertTrue(stats.propagationsPerSecond() > 0);
+        assertEquals(0, search.solve(s -> true).maxDepth());
+    }
+
+    @Test
+    public void testOptimizeSubjectTo() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = makeIntVarArray(cp, 3, 4);
+        DFSearch search = makeDfs(cp, BranchingScheme.firstFail(x));
+        SearchStatistics stats = search.optimizeSubjectTo(cp.maximize(sum(x)), s -> false,
+                () -> cp.post(lessOrEqual(x[0], x[1])));
+        assertTrue(stats.isCompleted());
+        assertTrue(stats.numberOfSolutions() > 0);
+    }
+
+    @Test
+    public void testWallTime() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 40);
+        DFSearch search = makeDfs(cp, BranchingScheme.firstFail(q));
+        SearchStatistics stats = search.solve(SearchLimits.wallTime(100));
+        assertFalse(stats.isCompleted());
+        assertTrue(stats.elapsedMillis() >= 100);
+        assertTrue(stats.elapsedMillis() < 10_000);
+    }
+
+    @Test
+    public void testCpuTime() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 40);
+        DFSearch search = makeDfs(cp, BranchingScheme.firstFail(q));
+        SearchStatistics stats = search.solve(SearchLimits.cpuTime(100));
+        assertFalse(stats.isCompleted());
+        assertTrue(stats.elapsedMillis() >= 100);
+    }
+
+    private static void runInThread(Runnable r) throws InterruptedException {
+        Thread t = new Thread(r);
+        t.start();
+        t.join();
+    }
+
+    @Test
+    public void testCpuTimePerThread() throws InterruptedException {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Predicate<SearchStatistics> limit = SearchLimits.cpuTime(50);
+        SearchStatistics stats = new SearchStatistics();
+        // a first thread starts the predicate after having spent 300ms of CPU time
+        boolean[] stopped = new boolean[1];
+        runInThread(() -> {
+            long start = bean.getCurrentThreadCpuTime();
+            while (bean.getCurrentThreadCpuTime() - start < 300_000_000L) ;
+            stopped[0] = limit.test(stats);
+        });
+        assertFalse(stopped[0]);
+        // the CPU time of a second thread is measured from its own start
+        long[] spent = new long[1];
+        runInThread(() -> {
+            long start = bean.getCurrentThreadCpuTime();
+            while (!limit.test(stats)) ;
+            spent[0] = bean.getCurrentThreadCpuTime() - start;
+        });
+        assertTrue(spent[0] >= 50_000_000L);
+        assertTrue(spent[0] < 300_000_000L);
+    }
+
+    @Test
+    public void testHeapUsage() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 8);
+        DFSearch search = makeDfs(cp, BranchingScheme.firstFail(q));
+        // any heap used is too much
+        SearchStatistics stats = search.solve(SearchLimits.heapUsage(Double.MIN_VALUE));
+        assertFalse(stats.isCompleted());
+        assertEquals(0, stats.numberOfNodes());
+        assertTrue(search.solve(SearchLimits.heapUsage(1)).isCompleted());
+    }
+
+    @Test
+    public void testNoImprovement() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 8);
+        DFSearch search = makeDfs(cp, BranchingScheme.firstFail(q));
+        SearchStatistics stats = search.solve(SearchLimits.noImprovement(10));
+        assertFalse(stats.isCompleted());
+        // at most 10 failures after the last solution, or from the start
+        assertTrue(stats.numberOfSolutions() < 92);
+        SearchStatistics all = search.solve(SearchLimits.noImprovement(1000));
+        assertTrue(all.isCompleted());
+        assertEquals(92, all.numberOfSolutions());
+    }
+
+    @Test
+    public void testNoImprovementTime() {
+        CPSolver cp = solverFactory.get();
+        // pigeon holes: no solution, and a large tree with binary constraints
+        CPIntVar[] x = makeIntVarArray(cp, 12, 11);
+        for (int i = 0; i < x.length; i++)
+            for (int j = i + 1; j < x.length; j++)
+                cp.post(notEqual(x[i], x[j]));
+        DFSearch search = makeDfs(cp, BranchingScheme.firstFail(x));
+        SearchStatistics stats = search.solve(SearchLimits.noImprovementTime(50));
+        assertFalse(stats.isCompleted());
+        assertEquals(-1, stats.lastSolutionNanos());
+        assertTrue(stats.elapsedMillis() >= 50);
+    }
+}
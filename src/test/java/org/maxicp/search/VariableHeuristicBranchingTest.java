@@ -0,0 +1,183 @@
+package org.maxicp.search;
+
+import org.junit.Test;
+import org.maxicp.BranchingScheme;
+import org.maxicp.cp.engine.CPSolverTest;
+import org.maxicp.cp.engine.constraints.NogoodStore;
+import org.maxicp.cp.engine.core.CPIntVar;
+import org.maxicp.cp.engine.core.CPSolver;
+import org.maxicp.util.Procedure;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+import static org.maxicp.cp.CPFactory.*;
+
+public class VariableHeuristicBranchingTest extends CPSolverTest {
+
+    private static CPIntVar[] queens(CPSolver cp, int n) {
+        CPIntVar[] q = makeIntVarArray(cp, n, n);
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++) {
+                cp.post(notEqual(q[i], q[j]));
+                cp.post(notEqual(plus(q[i], j - i), q[j]));
+                cp.post(notEqual(minus(q[i], j - i), q[j]));
+            }
+        return q;
+    }
+
+    private void testAllQueens(Function<CPIntVar[], Supplier<Procedure[]>> heuristic) {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 8);
+        DFSearch search = makeDfs(cp, heuristic.apply(q));
+        Set<String> solutions = new HashSet<>();
+        search.onSolution(() -> {
+            StringBuilder b = new StringBuilder();
+            for (CPIntVar qi : q) {
+                assertTrue(qi.isFixed());
+                b.append(qi.min()).append(',');
+            }
+            assertTrue(solutions.add(b.toString()));
+        });
+        SearchStatistics stats = search.solve();
+        assertTrue(stats.isCompleted());
+        assertEquals(92, stats.numberOfSolutions());
+        assertEquals(92, solutions.size());
+        // the set of unfixed variables is restored with the state
+        solutions.clear();
+        assertEquals(92, search.solve().numberOfSolutions());
+    }
+
+    @Test
+    public void testDomOverWDegAllSolutions() {
+        testAllQueens(BranchingScheme::domOverWDeg);
+    }
+
+    @Test
+    public void testActivityAllSolutions() {
+        testAllQueens(BranchingScheme::activityBased);
+    }
+
+    @Test
+    public void testImpactAllSolutions() {
+        testAllQueens(BranchingScheme::impactBased);
+    }
+
+    @Test
+    public void testFailureListener() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar x = makeIntVar(cp, 0, 3);
+        CPIntVar y = makeIntVar(cp, 0, 3);
+        cp.post(lessOrEqual(y, x));
+        int[] nFailures = new int[1];
+        cp.onFailure(c -> nFailures[0]++);
+        DFSearch search = makeDfs(cp, BranchingScheme.firstFail(x, y));
+        // x < 2 and y > 2 make the constraint fail
+        search.solveSubjectTo(s -> false, () -> {
+            x.removeAbove(1);
+            y.removeBelow(2);
+            cp.fixPoint();
+        });
+        assertEquals(1, nFailures[0]);
+    }
+
+    @Test
+    public void testWeightedDegree() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = makeIntVarArray(cp, 4, 3);
+        // x[0], x[1], x[2] all different with 3 values and x[3] free
+        cp.post(notEqual(x[0], x[1]));
+        cp.post(notEqual(x[1], x[2]));
+        cp.post(notEqual(x[0], x[2]));
+        WeightedDegreeBranching branching = new WeightedDegreeBranching(x);
+        assertEquals(2, branching.weightedDegree(0), 1e-9);
+        assertEquals(1, branching.weightedDegree(3), 1e-9);
+        cp.post(notEqual(x[1], 2));
+        cp.post(notEqual(x[2], 2));
+        // x[1] and x[2] take the values 0 and 1, x[0] can not be 0 or 1
+        SearchStatistics stats = makeDfs(cp, branching).solve();
+        assertEquals(6, stats.numberOfSolutions());
+        for (int i = 0; i < 3; i++)
+            assertTrue(branching.weightedDegree(i) >= 2);
+        assertEquals(1, branching.weightedDegree(3), 1e-9);
+    }
+
+    @Test
+    public void testImpact() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 6);
+        ImpactBranching branching = new ImpactBranching(q);
+        makeDfs(cp, branching).solve();
+        for (int i = 0; i < q.length; i++)
+            for (int v = 0; v < q.length; v++)
+                assertTrue(branching.impact(i, v) >= 0 && branching.impact(i, v) <= 1);
+        // a corner queen removes fewer values than a central one
+        assertTrue(branching.impact(0, 0) < branching.impact(2, 2));
+    }
+
+    @Test
+    public void testActivity() {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] x = makeIntVarArray(cp, 3, 5);
+        cp.post(lessOrEqual(x[0], x[1]));
+        ActivityBranching branching = new ActivityBranching(x);
+        makeDfs(cp, branching).solve();
+        // x[2] is never reduced by the propagation of another decision
+        assertTrue(branching.activity(1) > branching.activity(2));
+        assertTrue(branching.activity(0) > branching.activity(2));
+    }
+
+    private void testPlainDecisions(Function<CPIntVar[], Supplier<Procedure[]>> heuristic) {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 6);
+        Supplier<Procedure[]> branching = heuristic.apply(q);
+        DFSearch search = makeDfs(cp, () -> {
+            Procedure[] alts = branching.get();
+            if (alts.length > 0) {
+                // the alternatives are the decisions themselves, recognized by the nogoods
+                assertEquals(2, alts.length);
+                assertTrue(alts[0] instanceof BranchingScheme.Assign);
+                assertTrue(alts[1] instanceof BranchingScheme.Remove);
+            }
+            return alts;
+        });
+        assertEquals(4, search.solve().numberOfSolutions());
+    }
+
+    @Test
+    public void testActivityPlainDecisions() {
+        testPlainDecisions(BranchingScheme::activityBased);
+    }
+
+    @Test
+    public void testImpactPlainDecisions() {
+        testPlainDecisions(BranchingScheme::impactBased);
+    }
+
+    private void testRestartsWithNogoods(Function<CPIntVar[], Supplier<Procedure[]>> heuristic) {
+        CPSolver cp = solverFactory.get();
+        CPIntVar[] q = queens(cp, 8);
+        NogoodStore nogoods = new NogoodStore(q);
+        cp.post(nogoods);
+        RestartSearch search = new RestartSearch(cp.getStateManager(), heuristic.apply(q), RestartSearch.luby(2));
+        search.onRestart(nogoods::record);
+        SearchStatistics stats = search.solve();
+        assertTrue(stats.isCompleted());
+        assertTrue(search.numberOfRestarts() > 0);
+        assertTrue(nogoods.size() > 0);
+        assertEquals(92, stats.numberOfSolutions());
+    }
+
+    @Test
+    public void testActivityRestartsWithNogoods() {
+        testRestartsWithNogoods(BranchingScheme::activityBased);
+    }
+
+    @Test
+    public void testImpactRestartsWithNogoods() {
+        testRestartsWithNogoods(BranchingScheme::impactBased);
+    }
+}
@@ -18,6 +18,8 @@ package org.maxicp.state;
 
 import org.junit.Test;
 
+import java.util.EmptyStackException;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -202,4 +204,26 @@ public class StateIntTest extends StateManagerTest {
 
 
 
+    @Test
+    public void testStateCreatedBelowSave() {
+        StateManager sm = stateFactory.get();
+        sm.saveState();
+        StateInt a = sm.makeStateInt(3);
+        sm.restoreState();
+        // a is still usable and independent from the states created later
+        StateInt b = sm.makeStateInt(8);
+        assertEquals(3, a.intValue());
+        a.setValue(4);
+        assertEquals(8, b.intValue());
+        b.setValue(9);
+        assertEquals(4, a.intValue());
+    }
+
+    @Test(expected = EmptyStackException.class)
+    public void testRestoreWithoutSave() {
+        StateManager sm = stateFactory.get();
+        sm.makeStateInt(1).setValue(2);
+        sm.restoreState();
+    }
+
 }
@@ -0,0 +1,77 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.state;
+
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class StateLongTest extends StateManagerTest {
+
+    @Test
+    public void testReversibleLong() {
+        StateManager sm = stateFactory.get();
+
+        StateLong a = sm.makeStateLong(5L);
+        StateLong b = sm.makeStateLong(Long.MAX_VALUE);
+        a.setValue(7L);
+
+        sm.saveState();
+
+        a.setValue(1L << 40);
+        b.decrement();
+        assertEquals(Long.valueOf(1L << 40), a.value());
+        assertEquals(Long.valueOf(Long.MAX_VALUE - 1), b.value());
+
+        sm.saveState();
+
+        a.increment();
+        a.increment();
+        b.setValue(0L);
+        assertEquals(Long.valueOf((1L << 40) + 2), a.value());
+
+        sm.restoreState();
+        assertEquals(Long.valueOf(1L << 40), a.value());
+        assertEquals(Long.valueOf(Long.MAX_VALUE - 1), b.value());
+
+        sm.restoreState();
+        assertEquals(Long.valueOf(7L), a.value());
+        assertEquals(Long.valueOf(Long.MAX_VALUE), b.value());
+    }
+
+    @Test
+    public void testManyStates() {
+        StateManager sm = stateFactory.get();
+
+        StateLong[] s = new StateLong[100];
+        for (int i = 0; i < s.length; i++)
+            s[i] = sm.makeStateLong(i);
+
+        for (int level = 0; level < 50; level++) {
+            sm.saveState();
+            for (int i = 0; i < s.length; i++)
+                s[i].setValue((long) level * 1000 + i);
+        }
+        sm.restoreStateUntil(9);
+        for (int i = 0; i < s.length; i++)
+            assertEquals(Long.valueOf(9 * 1000 + i), s[i].value());
+        sm.restoreStateUntil(-1);
+        for (int i = 0; i < s.length; i++)
+            assertEquals(Long.valueOf(i), s[i].value());
+    }
+
+}
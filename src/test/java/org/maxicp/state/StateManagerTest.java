@@ -18,6 +18,8 @@ package org.maxicp.state;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.maxicp.state.copy.Copier;
+import org.maxicp.state.copy.IncrementalCopier;
+import org.maxicp.state.trail.PrimitiveTrailer;
 import org.maxicp.state.trail.Trailer;
 
 import java.util.function.Supplier;
@@ -29,7 +31,9 @@ public abstract class StateManagerTest {
     public static Supplier<StateManager>[] data() {
         return new Supplier[]{
                 () -> new Trailer(),
+                () -> new PrimitiveTrailer(),
                 () -> new Copier(),
+                () -> new IncrementalCopier(),
         };
     }
 
@@ -0,0 +1,50 @@
+/*
+ * mini-cp is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License  v3
+ * as published by the Free Software Foundation.
+ *
+ * mini-cp is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY.
+ * See the GNU Lesser General Public License  for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with mini-cp. If not, see http://www.gnu.org/licenses/lgpl-3.0.en.html
+ *
+ * Copyright (c)  2018. by Laurent Michel, Pierre Schaus, Pascal Van Hentenryck
+ */
+
+package org.maxicp.state;
+
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StateMapTest extends StateManagerTest {
+
+    @Test
+    public void testPutTwiceAtSameLevel() {
+        StateManager sm = stateFactory.get();
+
+        StateMap<String, Integer> map = sm.makeStateMap();
+        String a = "a";
+        String b = "b";
+        map.put(a, 1);
+
+        sm.saveState();
+
+        map.put(a, 2);
+        map.put(a, 3);
+        map.put(b, 1);
+        map.put(b, 2);
+        assertEquals(Integer.valueOf(3), map.get(a));
+        assertEquals(Integer.valueOf(2), map.get(b));
+
+        sm.restoreState();
+
+        assertEquals(Integer.valueOf(1), map.get(a));
+        assertNull(map.get(b));
+    }
+
+}
@@ -67,4 +67,82 @@ public class StateSparseBitSetTest extends StateManagerTest {
     }
 
 
-}
\ No newline at end of file
+    @Test
+    public void testNestedLevels() {
+
+        StateManager sm = stateFactory.get();
+        StateSparseBitSet set = new StateSparseBitSet(sm, 200);
+
+        StateSparseBitSet.SupportBitSet even = set.new SupportBitSet();
+        StateSparseBitSet.SupportBitSet low = set.new SupportBitSet(); // [0..99]
+        StateSparseBitSet.SupportBitSet single = set.new SupportBitSet(); // {150}
+        for (int i = 0; i < 200; i++) {
+            if (i % 2 == 0) even.set(i);
+            if (i < 100) low.set(i);
+        }
+        single.set(150);
+
+        sm.saveState();
+        set.intersect(even); // even values
+        assertFalse(set.hasEmptyIntersection(single));
+
+        sm.saveState();
+        set.remove(low); // even values in [100..199]
+        set.remove(low); // no effect
+        assertTrue(set.hasEmptyIntersection(low));
+        assertFalse(set.hasEmptyIntersection(single));
+
+        sm.saveState();
+        set.collection.clear();
+        set.collection.union(single);
+        set.removeCollected(); // even values in [100..199] except 150
+        assertTrue(set.hasEmptyIntersection(single));
+        assertFalse(set.isEmpty());
+        set.intersect(single);
+        assertTrue(set.isEmpty());
+
+        sm.restoreState();
+        assertFalse(set.hasEmptyIntersection(single));
+        assertTrue(set.hasEmptyIntersection(low));
+
+        sm.restoreState();
+        assertFalse(set.hasEmptyIntersection(low));
+        low.intersect(even);
+        assertFalse(set.hasEmptyIntersection(low));
+
+        sm.restoreState();
+        StateSparseBitSet.SupportBitSet odd = set.new SupportBitSet();
+        for (int i = 1; i < 200; i += 2) odd.set(i);
+        assertFalse(set.hasEmptyIntersection(odd));
+    }
+
+    @Test
+    public void testIntersectIndexAndCardinality() {
+        StateManager sm = stateFactory.get();
+        StateSparseBitSet set = new StateSparseBitSet(sm, 200);
+
+        StateSparseBitSet.SupportBitSet high = set.new SupportBitSet(); // [130..199]
+        StateSparseBitSet.SupportBitSet low = set.new SupportBitSet(); // [0..9]
+        for (int i = 130; i < 200; i++) high.set(i);
+        for (int i = 0; i < 10; i++) low.set(i);
+
+        assertEquals(200, set.cardinality());
+        assertEquals(70, set.intersectionCardinality(high));
+        int idx = set.intersectIndex(high);
+        assertTrue(idx == 2 || idx == 3);
+        assertTrue(set.intersects(high, idx));
+        assertTrue(set.intersects(low, 0));
+
+        sm.saveState();
+        set.intersect(high);
+        assertEquals(70, set.cardinality());
+        assertEquals(-1, set.intersectIndex(low));
+        // the residue of low is a word that is no longer in the set
+        assertFalse(set.intersects(low, 0));
+
+        sm.restoreState();
+        assertEquals(200, set.cardinality());
+        assertTrue(set.intersects(low, 0));
+    }
+
+}
@@ -17,22 +17,39 @@ package org.maxicp.state.datastructures;
 
 import org.maxicp.state.StateManager;
 import org.maxicp.state.StateManagerTest;
-import org.maxicp.state.datastructures.StateSparseSet;
-import org.maxicp.util.exception.NotImplementedException;
 import org.junit.Test;
+import org.junit.runners.Parameterized;
 
 import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.junit.Assert.*;
 
 public class StateSparseSetTest extends StateManagerTest {
 
+    public interface SparseSetFactory {
+        SparseSet make(StateManager sm, int n, int ofs);
+    }
+
+    @Parameterized.Parameters
+    public static Object[][] dataWithImplementations() {
+        Supplier<StateManager>[] stateManagers = StateManagerTest.data();
+        SparseSetFactory[] sets = new SparseSetFactory[]{StateSparseSet::new, SemanticStateSparseSet::new};
+        Object[][] data = new Object[stateManagers.length * sets.length][];
+        for (int i = 0; i < stateManagers.length; i++)
+            for (int j = 0; j < sets.length; j++)
+                data[i * sets.length + j] = new Object[]{stateManagers[i], sets[j]};
+        return data;
+    }
+
+    @Parameterized.Parameter(1)
+    public SparseSetFactory setFactory;
 
     @Test
     public void testExample() {
 
         StateManager sm = stateFactory.get();
-        StateSparseSet set = new StateSparseSet(sm, 9, 0);
+        SparseSet set = setFactory.make(sm, 9, 0);
 
         sm.saveState();
 
@@ -53,7 +70,7 @@ public class StateSparseSetTest extends StateManagerTest {
     public void testReversibleSparseSet() {
 
         StateManager sm = stateFactory.get();
-        StateSparseSet set = new StateSparseSet(sm, 10, 0);
+        SparseSet set = setFactory.make(sm, 10, 0);
 
         assertTrue(toSet(set.toArray()).equals(toSet(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9})));
 
@@ -110,51 +127,43 @@ public class StateSparseSetTest extends StateManagerTest {
     @Test
     public void testRangeConstructor() {
 
-        try {
-
-            StateManager sm = stateFactory.get();
-            StateSparseSet set = new StateSparseSet(sm, 10, 0);
-
-            for (int i = 0; i < 10; i++) {
-                assertTrue(set.contains(i));
-            }
+        StateManager sm = stateFactory.get();
+        SparseSet set = setFactory.make(sm, 10, 0);
 
-            sm.saveState();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(set.contains(i));
+        }
 
-            set.remove(4);
-            set.remove(5);
-            set.remove(0);
-            set.remove(1);
+        sm.saveState();
 
-            assertEquals(2, set.min());
-            assertEquals(9, set.max());
+        set.remove(4);
+        set.remove(5);
+        set.remove(0);
+        set.remove(1);
 
-            sm.saveState();
+        assertEquals(2, set.min());
+        assertEquals(9, set.max());
 
-            set.removeAllBut(7);
-            assertEquals(7, set.min());
-            assertEquals(7, set.max());
+        sm.saveState();
 
+        set.removeAllBut(7);
+        assertEquals(7, set.min());
+        assertEquals(7, set.max());
 
-            sm.restoreState();
-            sm.restoreState();
 
-            for (int i = 0; i < 10; i++) {
-                assertTrue(set.contains(i));
-            }
+        sm.restoreState();
+        sm.restoreState();
 
-        } catch (NotImplementedException e) {
-            e.print();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(set.contains(i));
         }
     }
 
     @Test
     public void testRemoveBelow() {
 
-        //try {
-
         StateManager sm = stateFactory.get();
-        StateSparseSet set = new StateSparseSet(sm, 10, 0);
+        SparseSet set = setFactory.make(sm, 10, 0);
 
         for (int i = 0; i < 10; i++) {
             assertTrue(set.contains(i));
@@ -189,41 +198,35 @@ public class StateSparseSetTest extends StateManagerTest {
     @Test
     public void testRemoveAbove() {
 
-        try {
-
-            StateManager sm = stateFactory.get();
-            StateSparseSet set = new StateSparseSet(sm, 10, 0);
-
-            for (int i = 0; i < 10; i++) {
-                assertTrue(set.contains(i));
-            }
+        StateManager sm = stateFactory.get();
+        SparseSet set = setFactory.make(sm, 10, 0);
 
-            sm.saveState();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(set.contains(i));
+        }
 
+        sm.saveState();
 
-            set.remove(1);
-            set.remove(2);
 
-            set.removeAbove(7);
+        set.remove(1);
+        set.remove(2);
 
-            assertEquals(0, set.min());
-            assertEquals(7, set.max());
+        set.removeAbove(7);
 
-            sm.saveState();
+        assertEquals(0, set.min());
+        assertEquals(7, set.max());
 
-            set.removeAbove(2);
+        sm.saveState();
 
-            assertEquals(0, set.max());
+        set.removeAbove(2);
 
-            sm.restoreState();
-            sm.restoreState();
+        assertEquals(0, set.max());
 
-            for (int i = 0; i < 10; i++) {
-                assertTrue(set.contains(i));
-            }
+        sm.restoreState();
+        sm.restoreState();
 
-        } catch (NotImplementedException e) {
-            e.print();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(set.contains(i));
         }
     }
 }
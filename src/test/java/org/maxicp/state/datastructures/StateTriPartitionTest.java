@@ -2,24 +2,58 @@ package org.maxicp.state.datastructures;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runners.Parameterized;
 import org.maxicp.state.StateManager;
 import org.maxicp.state.StateManagerTest;
 
 import java.util.Arrays;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.IntStream;
 
 import static org.junit.Assert.*;
 
 public class StateTriPartitionTest extends StateManagerTest {
 
+    public interface TriPartitionFactory {
+        TriPartition make(StateManager sm, int n);
+        TriPartition make(StateManager sm, int minInclusive, int maxInclusive);
+        TriPartition make(StateManager sm, Set<Integer> values);
+    }
+
+    private static final TriPartitionFactory stateTriPartition = new TriPartitionFactory() {
+        public TriPartition make(StateManager sm, int n) { return new StateTriPartition(sm, n); }
+        public TriPartition make(StateManager sm, int min, int max) { return new StateTriPartition(sm, min, max); }
+        public TriPartition make(StateManager sm, Set<Integer> values) { return new StateTriPartition(sm, values); }
+    };
+
+    private static final TriPartitionFactory semanticStateTriPartition = new TriPartitionFactory() {
+        public TriPartition make(StateManager sm, int n) { return new SemanticStateTriPartition(sm, n); }
+        public TriPartition make(StateManager sm, int min, int max) { return new SemanticStateTriPartition(sm, min, max); }
+        public TriPartition make(StateManager sm, Set<Integer> values) { return new SemanticStateTriPartition(sm, values); }
+    };
+
+    @Parameterized.Parameters
+    public static Object[][] dataWithImplementations() {
+        Supplier<StateManager>[] stateManagers = StateManagerTest.data();
+        TriPartitionFactory[] sets = new TriPartitionFactory[]{stateTriPartition, semanticStateTriPartition};
+        Object[][] data = new Object[stateManagers.length * sets.length][];
+        for (int i = 0; i < stateManagers.length; i++)
+            for (int j = 0; j < sets.length; j++)
+                data[i * sets.length + j] = new Object[]{stateManagers[i], sets[j]};
+        return data;
+    }
+
+    @Parameterized.Parameter(1)
+    public TriPartitionFactory setFactory;
+
     StateManager sm;
-    StateTriPartition set;
+    TriPartition set;
 
     @Before
     public void setUp() {
         sm = stateFactory.get();
-        set = new StateTriPartition(sm, 9);
+        set = setFactory.make(sm, 9);
     }
 
     /**
@@ -215,7 +249,7 @@ public class StateTriPartitionTest extends StateManagerTest {
         assertSequenceState(set, new int[] {}, new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8}, new int[] {});
     }
 
-    private void assertSequenceFromSetInit(StateTriPartition set, Set<Integer> values, int min, int max) {
+    private void assertSequenceFromSetInit(TriPartition set, Set<Integer> values, int min, int max) {
         assertEquals(0, set.nIncluded());
         assertEquals(0, set.nExcluded());
         assertEquals(values.size(), set.nPossible());
@@ -241,7 +275,7 @@ public class StateTriPartitionTest extends StateManagerTest {
         Set<Integer> values = Set.of(5, 7, 3, 4, 9, 2);
         int min = values.stream().min(Integer::compareTo).get();
         int max = values.stream().max(Integer::compareTo).get();
-        StateTriPartition set = new StateTriPartition(sm, values);
+        TriPartition set = setFactory.make(sm, values);
         assertSequenceFromSetInit(set, values, min, max);
 
         sm.saveState();
@@ -292,10 +326,9 @@ public class StateTriPartitionTest extends StateManagerTest {
         Set<Integer> values = Set.of(5, 7, 3, 4, 9, 2);
         int min = values.stream().min(Integer::compareTo).get();
         int max = values.stream().max(Integer::compareTo).get();
-        StateTriPartition set = new StateTriPartition(sm, values);
+        TriPartition set = setFactory.make(sm, values);
         assertSequenceFromSetInit(set, values, min, max);
 
-        System.out.println(set);
 
         sm.saveState();
 
@@ -328,15 +361,15 @@ public class StateTriPartitionTest extends StateManagerTest {
 
     /**
      * assert the state of a StateSequenceSet
-     * train1 the methods {@link StateTriPartition#nPossible()}, {@link StateTriPartition#nIncluded()}, {@link StateTriPartition#nExcluded()}
-     * {@link StateTriPartition#fillPossible(int[])}, {@link StateTriPartition#fillIncluded(int[])}, {@link StateTriPartition#fillExcluded(int[])},
-     * {@link StateTriPartition#contains(int)}, {@link StateTriPartition#size()}
+     * train1 the methods {@link TriPartition#nPossible()}, {@link TriPartition#nIncluded()}, {@link TriPartition#nExcluded()}
+     * {@link TriPartition#fillPossible(int[])}, {@link TriPartition#fillIncluded(int[])}, {@link TriPartition#fillExcluded(int[])},
+     * {@link TriPartition#contains(int)}, {@link TriPartition#size()}
      * @param set set that will be tested
      * @param sortedIncluded required values, sorted
      * @param sortedPossible possible values, sorted
      * @param sortedExcluded excluded values, sorted
      */
-    private void assertSequenceState(StateTriPartition set, int[] sortedIncluded, int[] sortedPossible, int[] sortedExcluded) {
+    private void assertSequenceState(TriPartition set, int[] sortedIncluded, int[] sortedPossible, int[] sortedExcluded) {
         int[] values = new int[Math.max(Math.max(sortedIncluded.length, sortedPossible.length), sortedExcluded.length)];
         int[] slice;
         int[] expected;
@@ -375,7 +408,7 @@ public class StateTriPartitionTest extends StateManagerTest {
      * @param min minimum value inclusive within the set
      * @param max maximum value inclusive within the set
      */
-    private void assertSequenceFromMinMaxInit(StateTriPartition set, int min, int max) {
+    private void assertSequenceFromMinMaxInit(TriPartition set, int min, int max) {
         assertEquals(0, set.nIncluded());
         assertEquals(0, set.nExcluded());
         assertEquals(max - min + 1, set.nPossible());
@@ -405,7 +438,7 @@ public class StateTriPartitionTest extends StateManagerTest {
     public void testSequenceFromMinMax() {
         int min = 5;
         int max = 12;
-        StateTriPartition set = new StateTriPartition(sm, 5, 12);
+        TriPartition set = setFactory.make(sm, 5, 12);
         assertSequenceFromMinMaxInit(set, min, max);
         for (int i = min-3; i < min; ++i) {
             assertFalse(set.isPossible(i));